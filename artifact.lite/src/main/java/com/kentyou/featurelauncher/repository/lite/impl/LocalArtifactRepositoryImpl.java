@@ -13,19 +13,22 @@
  */
 package com.kentyou.featurelauncher.repository.lite.impl;
 
+import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.LOCAL_ARTIFACT_REPOSITORY_INDEX;
+import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.LOCAL_ARTIFACT_REPOSITORY_INDEX_SNAPSHOT;
+import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.LOCAL_ARTIFACT_REPOSITORY_INDEX_WATCH;
 import static org.osgi.service.featurelauncher.repository.ArtifactRepositoryConstants.ARTIFACT_REPOSITORY_NAME;
 
-import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import org.osgi.service.feature.ID;
@@ -41,7 +44,7 @@ import com.kentyou.featurelauncher.repository.spi.NamedArtifactRepository;
  * @author Michael H. Siemaszko (mhs@into.software)
  * @since Sep 15, 2024
  */
-class LocalArtifactRepositoryImpl implements FileSystemArtifactRepository, NamedArtifactRepository {
+class LocalArtifactRepositoryImpl implements FileSystemArtifactRepository, NamedArtifactRepository, AutoCloseable {
 	private static final Logger LOG = LoggerFactory.getLogger(LocalArtifactRepositoryImpl.class);
 
 	private static final String DEFAULT_EXTENSION = "jar";
@@ -67,11 +70,16 @@ class LocalArtifactRepositoryImpl implements FileSystemArtifactRepository, Named
 	// @formatter:on
 
 	private final Path localRepositoryPath;
+
+	private final Path absoluteLocalRepositoryPath;
 	
 	private final Map<String, Object> configurationProperties;
 	
 	private final String name;
 
+	// null unless enabled in configuration
+	private final LocalArtifactRepositoryIndex index;
+
 	LocalArtifactRepositoryImpl(Path localRepositoryPath) {
 		this(localRepositoryPath, Map.of());
 	}
@@ -82,6 +90,8 @@ class LocalArtifactRepositoryImpl implements FileSystemArtifactRepository, Named
 		this.name = Optional.ofNullable(this.configurationProperties.get(ARTIFACT_REPOSITORY_NAME))
 				.map(String::valueOf)
 				.orElseGet(() -> String.format("local-%s-%s", localRepositoryPath, UUID.randomUUID()));
+		this.absoluteLocalRepositoryPath = localRepositoryPath.toAbsolutePath();
+		this.index = createIndex();
 	}
 
 	public String getName() {
@@ -96,20 +106,23 @@ class LocalArtifactRepositoryImpl implements FileSystemArtifactRepository, Named
 	public InputStream getArtifact(ID id) {
 		Objects.requireNonNull(id, "ID cannot be null!");
 
-		Path path = getArtifactM2RepoPath(id);
+		String artifactRelativePath = getArtifactRelativePath(id);
 
-		if (path != null) {
-			File file = path.toFile();
+		Path path = getArtifactM2RepoPath(artifactRelativePath);
 
-			if (file.exists()) {
-				try {
-					return new FileInputStream(file);
-				} catch (FileNotFoundException e) {
-					LOG.error(String.format("Error getting artifact ID '%s'", id.toString()), e);
+		if (path != null) {
+			try {
+				return new FileInputStream(path.toFile());
+			} catch (FileNotFoundException e) {
+				if (index != null) {
+					// removed without index noticing
+					index.remove(artifactRelativePath);
 				}
-			} else {
-				LOG.warn(String.format("Artifact ID '%s' does not exist in this repository!", id.toString()));
+
+				LOG.error(String.format("Error getting artifact ID '%s'", id.toString()), e);
 			}
+		} else {
+			LOG.warn(String.format("Artifact ID '%s' does not exist in this repository!", id.toString()));
 		}
 
 		return null;
@@ -123,7 +136,17 @@ class LocalArtifactRepositoryImpl implements FileSystemArtifactRepository, Named
 	public Path getArtifactPath(ID id) {
 		Objects.requireNonNull(id, "ID cannot be null!");
 
-		return getArtifactM2RepoPath(id);
+		return getArtifactM2RepoPath(getArtifactRelativePath(id));
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository#getArtifactPathIfPresent(org.osgi.service.feature.ID)
+	 */
+	@Override
+	public Path getArtifactPathIfPresent(ID id) {
+		// artifacts are never fetched from elsewhere
+		return getArtifactPath(id);
 	}
 	
 	/* 
@@ -135,27 +158,82 @@ class LocalArtifactRepositoryImpl implements FileSystemArtifactRepository, Named
 		return localRepositoryPath;
 	}
 
-	private Path getArtifactM2RepoPath(ID id) {
-		Path projectHome = Paths.get(localRepositoryPath.toAbsolutePath().toString(),
-				id.getGroupId().replace('.', '/'));
+	/* 
+	 * (non-Javadoc)
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	public void close() {
+		if (index != null) {
+			index.close();
+		}
+	}
+
+	private LocalArtifactRepositoryIndex createIndex() {
+		boolean indexEnabled = Optional.ofNullable(configurationProperties.get(LOCAL_ARTIFACT_REPOSITORY_INDEX))
+				.map(String::valueOf)
+				.map(Boolean::parseBoolean)
+				.orElse(Boolean.FALSE);
 
-		StringBuilder artifactName = new StringBuilder();
-		artifactName.append(id.getArtifactId());
-		artifactName.append("-");
-		artifactName.append(id.getVersion());
+		if (!indexEnabled) {
+			return null;
+		}
+
+		Path snapshotPath = Optional.ofNullable(configurationProperties.get(LOCAL_ARTIFACT_REPOSITORY_INDEX_SNAPSHOT))
+				.map(String::valueOf)
+				.map(Path::of)
+				.orElse(null);
+
+		boolean watch = Optional.ofNullable(configurationProperties.get(LOCAL_ARTIFACT_REPOSITORY_INDEX_WATCH))
+				.map(String::valueOf)
+				.map(Boolean::parseBoolean)
+				.orElse(Boolean.TRUE);
+
+		Set<String> indexedExtensions = new HashSet<>(TYPE_TO_EXTENSION_MAP.values());
+
+		return new LocalArtifactRepositoryIndex(absoluteLocalRepositoryPath, indexedExtensions, snapshotPath, watch);
+	}
+
+	/**
+	 * Path of artifact relative to repository, with '/' as separator
+	 */
+	private String getArtifactRelativePath(ID id) {
+		StringBuilder artifactRelativePath = new StringBuilder(128);
+		artifactRelativePath.append(id.getGroupId().replace('.', '/'));
+		artifactRelativePath.append('/');
+		artifactRelativePath.append(id.getArtifactId());
+		artifactRelativePath.append('/');
+		artifactRelativePath.append(id.getVersion());
+		artifactRelativePath.append('/');
+		artifactRelativePath.append(id.getArtifactId());
+		artifactRelativePath.append("-");
+		artifactRelativePath.append(id.getVersion());
 		if (id.getClassifier().isPresent()) {
-			artifactName.append("-");
-			artifactName.append(id.getClassifier().get());
+			artifactRelativePath.append("-");
+			artifactRelativePath.append(id.getClassifier().get());
 		}
-		artifactName.append(".");
-		artifactName.append(getExtensionForType(id.getType()));
+		artifactRelativePath.append(".");
+		artifactRelativePath.append(getExtensionForType(id.getType()));
 
-		Path artifactM2RepoPath = Paths.get(projectHome.toAbsolutePath().toString())
-				.resolve(id.getArtifactId())
-				.resolve(id.getVersion())
-				.resolve(artifactName.toString());
+		return artifactRelativePath.toString();
+	}
+
+	private Path getArtifactM2RepoPath(String artifactRelativePath) {
+		Path artifactM2RepoPath = absoluteLocalRepositoryPath.resolve(artifactRelativePath);
+
+		if (index != null) {
+			if (index.contains(artifactRelativePath)) {
+				return artifactM2RepoPath;
+			} else if (index.isCurrent()) {
+				return null;
+			}
+		}
 
 		if (Files.exists(artifactM2RepoPath)) {
+			if (index != null) {
+				index.add(artifactRelativePath);
+			}
+
 			return artifactM2RepoPath;
 		} else {
 			return null;
@@ -0,0 +1,494 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.repository.lite.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-memory index of artifacts held by a local repository, so that looking up
+ * an artifact does not touch file system.
+ *
+ * Index is built by walking repository tree in parallel, or loaded from a
+ * persisted snapshot and then refreshed in background. It is kept current by
+ * watching repository directories for changes; while it is not known to be
+ * current (being refreshed, watching not possible, or watch events lost),
+ * artifacts not found in it must still be looked up in file system.
+ *
+ * Artifacts are indexed by their path relative to repository, with '/' as
+ * separator.
+ */
+class LocalArtifactRepositoryIndex implements AutoCloseable {
+	private static final Logger LOG = LoggerFactory.getLogger(LocalArtifactRepositoryIndex.class);
+
+	/**
+	 * Directory listing is I/O bound, especially on network file systems, so
+	 * parallelism is not derived from number of processors
+	 */
+	private static final int INDEX_PARALLELISM = 16;
+
+	private static final String SNAPSHOT_HEADER = "# local artifact repository index v1 ";
+
+	private final Path repositoryPath;
+
+	private final Set<String> indexedExtensions;
+
+	private final Path snapshotPath;
+
+	private final Set<String> artifacts = ConcurrentHashMap.newKeySet();
+
+	private final ForkJoinPool indexPool;
+
+	private final WatchService watchService;
+
+	private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<>();
+
+	private final Map<Path, WatchKey> watchKeys = new ConcurrentHashMap<>();
+
+	// artifacts seen by rebuild in progress, if any
+	private volatile Set<String> rebuildSeen;
+
+	// watch events were lost since last rebuild started
+	private volatile boolean stale;
+
+	private volatile boolean watching;
+
+	private volatile boolean current;
+
+	private volatile boolean closed;
+
+	/**
+	 * @param repositoryPath    absolute path of repository
+	 * @param indexedExtensions extensions of files indexed as artifacts
+	 * @param snapshotPath      file index is persisted in, or {@code null}
+	 * @param watch             whether to keep index current by watching
+	 *                          repository for changes
+	 */
+	LocalArtifactRepositoryIndex(Path repositoryPath, Set<String> indexedExtensions, Path snapshotPath,
+			boolean watch) {
+		this.repositoryPath = repositoryPath;
+		this.indexedExtensions = Set.copyOf(indexedExtensions);
+		this.snapshotPath = snapshotPath;
+		this.indexPool = new ForkJoinPool(INDEX_PARALLELISM);
+		this.watchService = watch ? createWatchService(repositoryPath) : null;
+		this.watching = (watchService != null);
+
+		if (watchService != null) {
+			Thread watchThread = new Thread(this::processWatchEvents,
+					"LocalArtifactRepositoryIndex-" + repositoryPath.getFileName());
+			watchThread.setDaemon(true);
+			watchThread.start();
+		}
+
+		if (readSnapshot()) {
+			// snapshot may predate changes made while repository was not watched
+			indexPool.execute(this::rebuild);
+		} else {
+			rebuild();
+		}
+	}
+
+	/**
+	 * Whether artifact at given relative path is in index
+	 */
+	boolean contains(String relativePath) {
+		return artifacts.contains(relativePath);
+	}
+
+	/**
+	 * Whether index is known to be current, i.e. artifacts not in it are not in
+	 * repository either
+	 */
+	boolean isCurrent() {
+		return current;
+	}
+
+	/**
+	 * Records artifact found in repository while index was not current
+	 */
+	void add(String relativePath) {
+		addArtifact(relativePath);
+	}
+
+	/**
+	 * Records artifact found to be no longer in repository
+	 */
+	void remove(String relativePath) {
+		removeArtifact(relativePath);
+	}
+
+	int size() {
+		return artifacts.size();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.AutoCloseable#close()
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+
+		closed = true;
+
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				LOG.warn(String.format("Error closing watch service for repository %s", repositoryPath), e);
+			}
+		}
+
+		indexPool.shutdownNow();
+
+		// persist changes observed since index was built
+		if (current) {
+			writeSnapshot();
+		}
+	}
+
+	private synchronized void rebuild() {
+		if (closed) {
+			return;
+		}
+
+		long start = System.nanoTime();
+
+		Set<String> seen = ConcurrentHashMap.newKeySet();
+		rebuildSeen = seen;
+		stale = false;
+		current = false;
+
+		try {
+			indexPool.invoke(new IndexDirectoryTask(repositoryPath));
+		} catch (RejectedExecutionException e) {
+			// closed meanwhile
+			return;
+		} finally {
+			rebuildSeen = null;
+		}
+
+		// drop artifacts removed while repository was not watched
+		artifacts.retainAll(seen);
+
+		current = watching && !stale && !closed;
+
+		LOG.debug(String.format("Indexed %d artifacts in repository %s in %d ms", artifacts.size(), repositoryPath,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+
+		writeSnapshot();
+	}
+
+	private void scheduleRebuild() {
+		stale = true;
+		current = false;
+
+		try {
+			indexPool.execute(this::rebuild);
+		} catch (RejectedExecutionException e) {
+			// closed meanwhile
+		}
+	}
+
+	private void indexDirectory(Path directory) {
+		watch(directory);
+
+		List<IndexDirectoryTask> subdirectoryTasks = new ArrayList<>();
+
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+			for (Path entry : entries) {
+				// artifacts are recognized by name alone, sparing a stat per artifact
+				if (isArtifact(entry)) {
+					addArtifact(toRelativePath(entry));
+				} else if (Files.isDirectory(entry)) {
+					subdirectoryTasks.add(new IndexDirectoryTask(entry));
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// removed meanwhile
+		} catch (IOException e) {
+			LOG.warn(String.format("Error indexing directory %s", directory), e);
+			stale = true;
+		}
+
+		if (!subdirectoryTasks.isEmpty()) {
+			ForkJoinTask.invokeAll(subdirectoryTasks);
+		}
+	}
+
+	private void addArtifact(String relativePath) {
+		artifacts.add(relativePath);
+
+		Set<String> seen = rebuildSeen;
+		if (seen != null) {
+			seen.add(relativePath);
+		}
+	}
+
+	private void removeArtifact(String relativePath) {
+		artifacts.remove(relativePath);
+
+		Set<String> seen = rebuildSeen;
+		if (seen != null) {
+			seen.remove(relativePath);
+		}
+	}
+
+	private void removeDirectory(Path directory) {
+		WatchKey watchKey = watchKeys.remove(directory);
+		if (watchKey == null) {
+			// not a watched directory
+			return;
+		}
+
+		watchKey.cancel();
+		watchedDirectories.remove(watchKey);
+
+		String prefix = toRelativePath(directory) + "/";
+
+		artifacts.removeIf(artifact -> artifact.startsWith(prefix));
+
+		Set<String> seen = rebuildSeen;
+		if (seen != null) {
+			seen.removeIf(artifact -> artifact.startsWith(prefix));
+		}
+	}
+
+	private boolean isArtifact(Path path) {
+		String fileName = path.getFileName().toString();
+
+		int extensionIndex = fileName.lastIndexOf('.');
+		if (extensionIndex < 0) {
+			return false;
+		}
+
+		return indexedExtensions.contains(fileName.substring(extensionIndex + 1));
+	}
+
+	private String toRelativePath(Path path) {
+		String relativePath = repositoryPath.relativize(path).toString();
+
+		return (File.separatorChar == '/') ? relativePath : relativePath.replace(File.separatorChar, '/');
+	}
+
+	private void watch(Path directory) {
+		if (!watching || closed) {
+			return;
+		}
+
+		try {
+			WatchKey watchKey = directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE);
+			watchedDirectories.put(watchKey, directory);
+			watchKeys.put(directory, watchKey);
+		} catch (ClosedWatchServiceException e) {
+			// closed meanwhile
+		} catch (IOException e) {
+			// e.g. limit of watched directories reached
+			LOG.warn(String.format("Error watching directory %s, index of repository %s will not be kept current",
+					directory, repositoryPath), e);
+			watching = false;
+			current = false;
+		}
+	}
+
+	private void processWatchEvents() {
+		while (!closed) {
+			WatchKey watchKey;
+			try {
+				watchKey = watchService.take();
+			} catch (ClosedWatchServiceException e) {
+				return;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			Path directory = watchedDirectories.get(watchKey);
+
+			for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+				if (watchEvent.kind() == OVERFLOW) {
+					LOG.debug(String.format("Watch events lost for repository %s, rebuilding index", repositoryPath));
+					scheduleRebuild();
+					continue;
+				}
+
+				if (directory == null) {
+					continue;
+				}
+
+				Path entry = directory.resolve((Path) watchEvent.context());
+
+				if (watchEvent.kind() == ENTRY_CREATE) {
+					if (isArtifact(entry)) {
+						addArtifact(toRelativePath(entry));
+					} else if (Files.isDirectory(entry)) {
+						// may already have content, e.g. if moved into repository
+						submitIndexDirectory(entry);
+					}
+				} else if (watchEvent.kind() == ENTRY_DELETE) {
+					if (isArtifact(entry)) {
+						removeArtifact(toRelativePath(entry));
+					} else {
+						removeDirectory(entry);
+					}
+				}
+			}
+
+			if (!watchKey.reset()) {
+				Path removedDirectory = watchedDirectories.remove(watchKey);
+				if (removedDirectory != null) {
+					watchKeys.remove(removedDirectory);
+				}
+			}
+		}
+	}
+
+	private void submitIndexDirectory(Path directory) {
+		try {
+			indexPool.execute(new IndexDirectoryTask(directory));
+		} catch (RejectedExecutionException e) {
+			// closed meanwhile
+		}
+	}
+
+	private boolean readSnapshot() {
+		if ((snapshotPath == null) || !Files.isRegularFile(snapshotPath)) {
+			return false;
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(snapshotPath, UTF_8)) {
+			if (!(SNAPSHOT_HEADER + repositoryPath).equals(reader.readLine())) {
+				LOG.info(String.format("Index snapshot %s is not for repository %s, ignoring it", snapshotPath,
+						repositoryPath));
+				return false;
+			}
+
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) {
+					artifacts.add(line);
+				}
+			}
+
+			LOG.debug(String.format("Loaded %d artifacts of repository %s from index snapshot %s", artifacts.size(),
+					repositoryPath, snapshotPath));
+
+			return true;
+
+		} catch (IOException e) {
+			LOG.warn(String.format("Error reading index snapshot %s", snapshotPath), e);
+			artifacts.clear();
+			return false;
+		}
+	}
+
+	private void writeSnapshot() {
+		if (snapshotPath == null) {
+			return;
+		}
+
+		try {
+			Path snapshotDirectory = snapshotPath.toAbsolutePath().getParent();
+			Files.createDirectories(snapshotDirectory);
+
+			Path tempSnapshotPath = Files.createTempFile(snapshotDirectory, snapshotPath.getFileName().toString(),
+					".tmp");
+
+			try {
+				try (BufferedWriter writer = Files.newBufferedWriter(tempSnapshotPath, UTF_8)) {
+					writer.write(SNAPSHOT_HEADER + repositoryPath);
+					writer.newLine();
+
+					for (String artifact : artifacts) {
+						writer.write(artifact);
+						writer.newLine();
+					}
+				}
+
+				// readers never see partially written snapshot
+				try {
+					Files.move(tempSnapshotPath, snapshotPath, REPLACE_EXISTING, ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(tempSnapshotPath, snapshotPath, REPLACE_EXISTING);
+				}
+			} finally {
+				Files.deleteIfExists(tempSnapshotPath);
+			}
+		} catch (IOException e) {
+			LOG.warn(String.format("Error writing index snapshot %s", snapshotPath), e);
+		}
+	}
+
+	private static WatchService createWatchService(Path repositoryPath) {
+		try {
+			return repositoryPath.getFileSystem().newWatchService();
+		} catch (IOException | UnsupportedOperationException e) {
+			LOG.warn(String.format("Repository %s cannot be watched, its index will not be kept current",
+					repositoryPath), e);
+			return null;
+		}
+	}
+
+	private final class IndexDirectoryTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final transient Path directory;
+
+		IndexDirectoryTask(Path directory) {
+			this.directory = directory;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			indexDirectory(directory);
+		}
+	}
+}
@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.repository.lite.impl;
+
+import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.LOCAL_ARTIFACT_REPOSITORY_INDEX;
+import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.LOCAL_ARTIFACT_REPOSITORY_INDEX_SNAPSHOT;
+import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.LOCAL_ARTIFACT_REPOSITORY_INDEX_WATCH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.repository.lite.impl.LocalArtifactRepositoryIndex},
+ * and its use by
+ * {@link com.kentyou.featurelauncher.repository.lite.impl.LocalArtifactRepositoryImpl}
+ */
+public class LocalArtifactRepositoryIndexTest {
+	private static final Set<String> INDEXED_EXTENSIONS = Set.of("jar", "pom");
+
+	private static final String ARTIFACT_A = "com/example/a/1.0.0/a-1.0.0.jar";
+
+	private static final String ARTIFACT_B = "com/example/b/1.0.0/b-1.0.0.jar";
+
+	@TempDir
+	Path tempDir;
+
+	Path repositoryPath;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		repositoryPath = tempDir.resolve("repository").toAbsolutePath();
+
+		createFile(ARTIFACT_A);
+		createFile("com/example/a/1.0.0/a-1.0.0.pom");
+		createFile("com/example/a/1.0.0/_remote.repositories");
+		createFile("com/example/a/1.0.0/a-1.0.0.jar.sha1");
+	}
+
+	@Test
+	public void testBuiltAtCreation() {
+		try (LocalArtifactRepositoryIndex index = new LocalArtifactRepositoryIndex(repositoryPath, INDEXED_EXTENSIONS,
+				null, true)) {
+			assertTrue(index.contains(ARTIFACT_A));
+			assertTrue(index.contains("com/example/a/1.0.0/a-1.0.0.pom"));
+			assertFalse(index.contains(ARTIFACT_B));
+
+			// other files are not indexed
+			assertEquals(2, index.size());
+
+			assertTrue(index.isCurrent());
+		}
+	}
+
+	@Test
+	public void testKeptCurrentByWatching() throws Exception {
+		try (LocalArtifactRepositoryIndex index = new LocalArtifactRepositoryIndex(repositoryPath, INDEXED_EXTENSIONS,
+				null, true)) {
+			createFile(ARTIFACT_B);
+			awaitCondition(() -> index.contains(ARTIFACT_B));
+
+			Files.delete(repositoryPath.resolve(ARTIFACT_B));
+			awaitCondition(() -> !index.contains(ARTIFACT_B));
+
+			// artifacts of removed directories are removed too
+			Files.delete(repositoryPath.resolve(ARTIFACT_A));
+			Files.delete(repositoryPath.resolve("com/example/a/1.0.0/a-1.0.0.pom"));
+			Files.delete(repositoryPath.resolve("com/example/a/1.0.0/_remote.repositories"));
+			Files.delete(repositoryPath.resolve("com/example/a/1.0.0/a-1.0.0.jar.sha1"));
+			Files.delete(repositoryPath.resolve("com/example/a/1.0.0"));
+			awaitCondition(() -> index.size() == 0);
+		}
+	}
+
+	@Test
+	public void testNotCurrentWithoutWatching() throws IOException {
+		try (LocalArtifactRepositoryIndex index = new LocalArtifactRepositoryIndex(repositoryPath, INDEXED_EXTENSIONS,
+				null, false)) {
+			assertTrue(index.contains(ARTIFACT_A));
+			assertFalse(index.isCurrent());
+
+			index.add(ARTIFACT_B);
+			assertTrue(index.contains(ARTIFACT_B));
+
+			index.remove(ARTIFACT_B);
+			assertFalse(index.contains(ARTIFACT_B));
+		}
+	}
+
+	@Test
+	public void testSnapshotPersisted() throws Exception {
+		Path snapshotPath = tempDir.resolve("snapshot").resolve("index.txt");
+
+		try (LocalArtifactRepositoryIndex index = new LocalArtifactRepositoryIndex(repositoryPath, INDEXED_EXTENSIONS,
+				snapshotPath, true)) {
+			assertTrue(Files.isRegularFile(snapshotPath));
+		}
+
+		List<String> snapshot = Files.readAllLines(snapshotPath);
+		assertTrue(snapshot.get(0).endsWith(repositoryPath.toString()));
+		assertEquals(Set.of(ARTIFACT_A, "com/example/a/1.0.0/a-1.0.0.pom"),
+				Set.copyOf(snapshot.subList(1, snapshot.size())));
+
+		// artifact removed while repository was not watched is dropped once
+		// index loaded from snapshot is refreshed
+		Files.delete(repositoryPath.resolve(ARTIFACT_A));
+		createFile(ARTIFACT_B);
+
+		try (LocalArtifactRepositoryIndex index = new LocalArtifactRepositoryIndex(repositoryPath, INDEXED_EXTENSIONS,
+				snapshotPath, true)) {
+			awaitCondition(index::isCurrent);
+
+			assertFalse(index.contains(ARTIFACT_A));
+			assertTrue(index.contains(ARTIFACT_B));
+		}
+	}
+
+	@Test
+	public void testSnapshotOfOtherRepositoryIgnored() throws Exception {
+		Path snapshotPath = tempDir.resolve("index.txt");
+		Files.writeString(snapshotPath, "# local artifact repository index v1 /elsewhere\n" + ARTIFACT_B + "\n");
+
+		try (LocalArtifactRepositoryIndex index = new LocalArtifactRepositoryIndex(repositoryPath, INDEXED_EXTENSIONS,
+				snapshotPath, true)) {
+			assertTrue(index.isCurrent());
+			assertTrue(index.contains(ARTIFACT_A));
+			assertFalse(index.contains(ARTIFACT_B));
+		}
+
+		// overwritten by snapshot of this repository
+		assertTrue(Files.readAllLines(snapshotPath).get(0).endsWith(repositoryPath.toString()));
+	}
+
+	@Test
+	public void testRepositoryLookups() throws Exception {
+		FeatureService featureService = ServiceLoader.load(FeatureService.class).findFirst().get();
+		ID idA = featureService.getIDfromMavenCoordinates("com.example:a:1.0.0");
+		ID idB = featureService.getIDfromMavenCoordinates("com.example:b:1.0.0");
+
+		try (LocalArtifactRepositoryImpl repository = new LocalArtifactRepositoryImpl(repositoryPath,
+				Map.of(LOCAL_ARTIFACT_REPOSITORY_INDEX, "true", LOCAL_ARTIFACT_REPOSITORY_INDEX_WATCH, "false"))) {
+			assertEquals(repositoryPath.resolve(ARTIFACT_A), repository.getArtifactPath(idA));
+			assertNull(repository.getArtifactPath(idB));
+
+			// index not current, so artifacts not in it are looked up in file
+			// system
+			createFile(ARTIFACT_B);
+			assertEquals(repositoryPath.resolve(ARTIFACT_B), repository.getArtifactPath(idB));
+
+			try (InputStream artifactIs = repository.getArtifact(idB)) {
+				assertEquals(ARTIFACT_B, new String(artifactIs.readAllBytes()));
+			}
+
+			// artifact removed without index noticing
+			Files.delete(repositoryPath.resolve(ARTIFACT_A));
+			assertNull(repository.getArtifact(idA));
+			assertNull(repository.getArtifactPath(idA));
+		}
+	}
+
+	@Test
+	public void testRepositoryLookupsWithCurrentIndex() throws Exception {
+		FeatureService featureService = ServiceLoader.load(FeatureService.class).findFirst().get();
+		ID idA = featureService.getIDfromMavenCoordinates("com.example:a:1.0.0");
+		ID idB = featureService.getIDfromMavenCoordinates("com.example:b:1.0.0");
+
+		try (LocalArtifactRepositoryImpl repository = new LocalArtifactRepositoryImpl(repositoryPath,
+				Map.of(LOCAL_ARTIFACT_REPOSITORY_INDEX, "true", LOCAL_ARTIFACT_REPOSITORY_INDEX_SNAPSHOT,
+						tempDir.resolve("index.txt").toString()))) {
+			assertEquals(repositoryPath.resolve(ARTIFACT_A), repository.getArtifactPath(idA));
+			assertNull(repository.getArtifactPath(idB));
+
+			createFile(ARTIFACT_B);
+			awaitCondition(() -> repository.getArtifactPath(idB) != null);
+		}
+
+		assertTrue(Files.readAllLines(tempDir.resolve("index.txt")).contains(ARTIFACT_B));
+	}
+
+	private void createFile(String relativePath) throws IOException {
+		Path path = repositoryPath.resolve(relativePath);
+		Files.createDirectories(path.getParent());
+		Files.writeString(path, relativePath);
+	}
+
+	private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+		// watch services may poll, e.g. every few seconds
+		for (int i = 0; i < 300 && !condition.getAsBoolean(); i++) {
+			Thread.sleep(50L);
+		}
+
+		assertTrue(condition.getAsBoolean());
+	}
+}
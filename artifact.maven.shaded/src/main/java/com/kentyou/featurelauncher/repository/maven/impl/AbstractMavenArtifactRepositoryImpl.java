@@ -13,17 +13,27 @@
  */
 package com.kentyou.featurelauncher.repository.maven.impl;
 
+import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.DEFAULT_REMOTE_ARTIFACT_REPOSITORY_DOWNLOAD_THREADS;
+import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.REMOTE_ARTIFACT_REPOSITORY_DOWNLOAD_THREADS;
 import static org.osgi.service.featurelauncher.repository.ArtifactRepositoryConstants.ARTIFACT_REPOSITORY_NAME;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import org.apache.maven.internal.impl.resolver.MavenSessionBuilderSupplier;
@@ -52,15 +62,34 @@ import com.kentyou.featurelauncher.repository.spi.NamedArtifactRepository;
 /**
  * 160.2.1.3 Remote Repositories
  * 
+ * Single {@link RepositorySystem} and session are created on first use and
+ * shared by all artifact resolutions, including concurrent ones, until
+ * repository is closed. Artifacts requested together are resolved at once,
+ * downloading them in parallel over connections kept by the session.
+ * 
+ * Artifacts which could not be resolved are only reported as definitely
+ * missing (see {@link #isArtifactMissing(ID)}) if no repository failed
+ * otherwise, so that transient failures are not remembered as misses.
+ * 
  * @author Michael H. Siemaszko (mhs@into.software)
  * @since Sep 15, 2024
  */
-abstract class AbstractMavenArtifactRepositoryImpl implements FileSystemArtifactRepository, NamedArtifactRepository {
+abstract class AbstractMavenArtifactRepositoryImpl
+		implements FileSystemArtifactRepository, NamedArtifactRepository, AutoCloseable {
 	private static final Logger LOG = LoggerFactory.getLogger(AbstractMavenArtifactRepositoryImpl.class);
 
+	private static final String CONNECTOR_THREADS_CONFIG = "aether.connector.basic.threads";
+	private static final String REUSE_CONNECTIONS_CONFIG = "aether.transport.http.reuseConnections";
+
 	private final Map<String, Object> configurationProperties;
 	private final String name;
 	private final Path localRepositoryPath;
+	private final int downloadThreads;
+	private final Set<ID> missingArtifacts = ConcurrentHashMap.newKeySet();
+
+	private RepositorySystem repositorySystem;
+	private CloseableSession repositorySystemSession;
+	private boolean closed;
 
 	public AbstractMavenArtifactRepositoryImpl(
 			Path localRepositoryPath,
@@ -74,6 +103,17 @@ abstract class AbstractMavenArtifactRepositoryImpl implements FileSystemArtifact
 				.orElseGet(defaultNameSupplier);
 
 		this.localRepositoryPath = localRepositoryPath;
+
+		this.downloadThreads = Optional
+				.ofNullable(this.configurationProperties.get(REMOTE_ARTIFACT_REPOSITORY_DOWNLOAD_THREADS))
+				.map(String::valueOf)
+				.map(Integer::valueOf)
+				.orElse(DEFAULT_REMOTE_ARTIFACT_REPOSITORY_DOWNLOAD_THREADS);
+
+		if (this.downloadThreads < 1) {
+			throw new IllegalArgumentException(String.format(
+					"Number of download threads must be greater than zero, not %d", this.downloadThreads));
+		}
 	}
 
 	public String getName() {
@@ -114,27 +154,149 @@ abstract class AbstractMavenArtifactRepositoryImpl implements FileSystemArtifact
 	public Path getArtifactPath(ID id) {
 		Objects.requireNonNull(id, "ID cannot be null!");
 
-		try (RepositorySystem repositorySystem = newRepositorySystem();
-				CloseableSession repositorySystemSession = newSession(repositorySystem)) {
+		ResolverContext resolverContext = getResolverContext();
 
-			Artifact artifact = new DefaultArtifact(id.toString());
+		try {
+			ArtifactResult artifactResult = resolverContext.repositorySystem()
+					.resolveArtifact(resolverContext.repositorySystemSession(), newArtifactRequest(id));
 
-			ArtifactRequest artifactRequest = new ArtifactRequest();
-			artifactRequest.setArtifact(artifact);
-			decorateArtifactRequest(artifactRequest);
+			return getResolvedPath(id, artifactResult);
 
-			ArtifactResult artifactResult = repositorySystem.resolveArtifact(repositorySystemSession, artifactRequest);
+		} catch (ArtifactResolutionException e) {
+			recordResult(id, e.getResult());
 
-			if (artifactResult.isResolved() && !artifactResult.isMissing()) {
-				return artifactResult.getArtifact().getPath();
+			if (e.getResult() != null && e.getResult().isMissing()) {
+				// plain miss, artifact may be provided by another repository
+				LOG.debug(String.format("Artifact ID '%s' not found", id.toString()));
+			} else {
+				LOG.error(String.format("Error getting artifact ID '%s'", id.toString()), e);
 			}
+		}
+
+		return null;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository#getArtifactPathIfPresent(org.osgi.service.feature.ID)
+	 */
+	@Override
+	public Path getArtifactPathIfPresent(ID id) {
+		Objects.requireNonNull(id, "ID cannot be null!");
+
+		if (localRepositoryPath == null) {
+			return null;
+		}
+
+		// looked up in local repository layout, without creating a session or
+		// contacting remote repositories
+		Artifact artifact = new DefaultArtifact(id.toString());
 
+		StringBuilder artifactFileName = new StringBuilder(64);
+		artifactFileName.append(artifact.getArtifactId()).append('-').append(artifact.getVersion());
+		if (!artifact.getClassifier().isEmpty()) {
+			artifactFileName.append('-').append(artifact.getClassifier());
+		}
+		artifactFileName.append('.').append(artifact.getExtension());
+
+		Path artifactPath = localRepositoryPath.resolve(artifact.getGroupId().replace('.', '/'))
+				.resolve(artifact.getArtifactId()).resolve(artifact.getBaseVersion())
+				.resolve(artifactFileName.toString());
+
+		return Files.isRegularFile(artifactPath) ? artifactPath : null;
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository#isArtifactMissing(org.osgi.service.feature.ID)
+	 */
+	@Override
+	public boolean isArtifactMissing(ID id) {
+		Objects.requireNonNull(id, "ID cannot be null!");
+
+		return missingArtifacts.contains(id);
+	}
+
+	/* 
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository#getArtifactPaths(java.util.Collection)
+	 */
+	@Override
+	public Map<ID, Path> getArtifactPaths(Collection<ID> ids) {
+		Objects.requireNonNull(ids, "IDs cannot be null!");
+
+		List<ID> requestedIds = new ArrayList<>(new LinkedHashSet<>(ids));
+		if (requestedIds.isEmpty()) {
+			return Map.of();
+		}
+
+		ResolverContext resolverContext = getResolverContext();
+
+		List<ArtifactRequest> artifactRequests = new ArrayList<>(requestedIds.size());
+		for (ID id : requestedIds) {
+			artifactRequests.add(newArtifactRequest(id));
+		}
+
+		List<ArtifactResult> artifactResults;
+		try {
+			artifactResults = resolverContext.repositorySystem()
+					.resolveArtifacts(resolverContext.repositorySystemSession(), artifactRequests);
 		} catch (ArtifactResolutionException e) {
-			LOG.error(String.format("Error getting artifact ID '%s'", id.toString()), e);
+			// artifacts which were resolved are still reported
+			artifactResults = e.getResults();
+
+			LOG.debug(String.format("Some of %d artifacts could not be resolved", requestedIds.size()), e);
+		}
+
+		// results are in order of requests
+		Map<ID, Path> artifactPaths = new LinkedHashMap<>();
+		for (int i = 0; i < requestedIds.size(); i++) {
+			ID id = requestedIds.get(i);
+			if (i >= artifactResults.size()) {
+				recordResult(id, null);
+				continue;
+			}
+
+			Path artifactPath = getResolvedPath(id, artifactResults.get(i));
+			if (artifactPath != null) {
+				artifactPaths.put(id, artifactPath);
+			}
+		}
+
+		return artifactPaths;
+	}
+
+	private ArtifactRequest newArtifactRequest(ID id) {
+		Artifact artifact = new DefaultArtifact(id.toString());
+
+		ArtifactRequest artifactRequest = new ArtifactRequest();
+		artifactRequest.setArtifact(artifact);
+		decorateArtifactRequest(artifactRequest);
+
+		return artifactRequest;
+	}
+
+	private Path getResolvedPath(ID id, ArtifactResult artifactResult) {
+		recordResult(id, artifactResult);
+
+		if (artifactResult.isResolved() && !artifactResult.isMissing()) {
+			return artifactResult.getArtifact().getPath();
 		}
 
 		return null;
 	}
+
+	/**
+	 * Remembers whether artifact is definitely missing, i.e. not found in any
+	 * repository without any of them failing otherwise
+	 */
+	private void recordResult(ID id, ArtifactResult artifactResult) {
+		if (artifactResult != null && !artifactResult.isResolved() && artifactResult.isMissing()) {
+			missingArtifacts.add(id);
+		} else {
+			missingArtifacts.remove(id);
+		}
+	}
 	
 	protected void decorateArtifactRequest(ArtifactRequest request) {
 		
@@ -149,6 +311,62 @@ abstract class AbstractMavenArtifactRepositoryImpl implements FileSystemArtifact
 		return localRepositoryPath;
 	}
 
+	/**
+	 * Releases repository system and session; artifacts can no longer be
+	 * obtained from this repository afterwards
+	 */
+	@Override
+	public void close() {
+		RepositorySystem closedRepositorySystem;
+		CloseableSession closedRepositorySystemSession;
+
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+
+			closed = true;
+
+			closedRepositorySystem = repositorySystem;
+			closedRepositorySystemSession = repositorySystemSession;
+
+			repositorySystem = null;
+			repositorySystemSession = null;
+		}
+
+		missingArtifacts.clear();
+
+		if (closedRepositorySystemSession != null) {
+			closedRepositorySystemSession.close();
+		}
+
+		if (closedRepositorySystem != null) {
+			closedRepositorySystem.close();
+		}
+	}
+
+	private synchronized ResolverContext getResolverContext() {
+		if (closed) {
+			throw new IllegalStateException(String.format("Artifact repository '%s' is closed!", name));
+		}
+
+		if (repositorySystem == null) {
+			RepositorySystem newRepositorySystem = newRepositorySystem();
+			try {
+				repositorySystemSession = newSession(newRepositorySystem);
+			} catch (RuntimeException e) {
+				newRepositorySystem.close();
+				throw e;
+			}
+			repositorySystem = newRepositorySystem;
+		}
+
+		return new ResolverContext(repositorySystem, repositorySystemSession);
+	}
+
+	private record ResolverContext(RepositorySystem repositorySystem, RepositorySystemSession repositorySystemSession) {
+	}
+
 	private RepositorySystem newRepositorySystem() {
 		return new RepositorySystemSupplier() {
 
@@ -175,6 +393,8 @@ abstract class AbstractMavenArtifactRepositoryImpl implements FileSystemArtifact
 
 		RepositorySystemSession.SessionBuilder sessionBuilder = sessionBuilderSupplier.get();
 		sessionBuilder.setLocalRepositoryManager(localRepositoryManager);
+		sessionBuilder.setConfigProperty(CONNECTOR_THREADS_CONFIG, downloadThreads);
+		sessionBuilder.setConfigProperty(REUSE_CONNECTIONS_CONFIG, true);
 
 		return sessionBuilder.build();
 	}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.repository.maven.impl;
+
+import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.REMOTE_ARTIFACT_REPOSITORY_DOWNLOAD_THREADS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+
+/**
+ * Tests sharing of repository system and session, and batch resolution, by
+ * {@link com.kentyou.featurelauncher.repository.maven.impl.AbstractMavenArtifactRepositoryImpl},
+ * against a local repository created for each test
+ */
+public class MavenArtifactRepositoryImplTest {
+	@TempDir
+	Path localRepositoryPath;
+
+	FeatureService featureService;
+
+	ID artifactA;
+
+	ID artifactB;
+
+	ID artifactMissing;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		featureService = ServiceLoader.load(FeatureService.class).findFirst().get();
+
+		artifactA = featureService.getIDfromMavenCoordinates("com.example:a:1.0.0");
+		artifactB = featureService.getIDfromMavenCoordinates("com.example:b:1.0.0");
+		artifactMissing = featureService.getIDfromMavenCoordinates("com.example:missing:1.0.0");
+
+		installArtifact(artifactA, "a");
+		installArtifact(artifactB, "b");
+	}
+
+	@Test
+	public void testArtifactsResolvedFromSharedSession() throws Exception {
+		try (LocalArtifactRepositoryImpl repository = new LocalArtifactRepositoryImpl(localRepositoryPath, Map.of())) {
+			assertEquals(artifactPath(artifactA), repository.getArtifactPath(artifactA));
+			assertEquals(artifactPath(artifactA), repository.getArtifactPath(artifactA));
+			assertNull(repository.getArtifactPath(artifactMissing));
+
+			try (InputStream artifactIs = repository.getArtifact(artifactB)) {
+				assertEquals("b", new String(artifactIs.readAllBytes()));
+			}
+			assertNull(repository.getArtifact(artifactMissing));
+		}
+	}
+
+	@Test
+	public void testConcurrentResolutions() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try (LocalArtifactRepositoryImpl repository = new LocalArtifactRepositoryImpl(localRepositoryPath, Map.of())) {
+			List<Callable<Path>> resolutions = new ArrayList<>();
+			for (int i = 0; i < 32; i++) {
+				ID id = (i % 2 == 0) ? artifactA : artifactB;
+				resolutions.add(() -> repository.getArtifactPath(id));
+			}
+
+			List<Future<Path>> artifactPaths = executor.invokeAll(resolutions);
+			for (int i = 0; i < artifactPaths.size(); i++) {
+				assertEquals(artifactPath((i % 2 == 0) ? artifactA : artifactB), artifactPaths.get(i).get());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testClosedRepositoryRejectsLookups() {
+		LocalArtifactRepositoryImpl repository = new LocalArtifactRepositoryImpl(localRepositoryPath, Map.of());
+		repository.getArtifactPath(artifactA);
+
+		repository.close();
+
+		assertThrows(IllegalStateException.class, () -> repository.getArtifactPath(artifactA));
+		assertThrows(IllegalStateException.class, () -> repository.getArtifact(artifactA));
+
+		// closing again is a no-op
+		repository.close();
+
+		// looking up local repository layout does not need a session
+		assertEquals(artifactPath(artifactA), repository.getArtifactPathIfPresent(artifactA));
+	}
+
+	@Test
+	public void testClosedBeforeFirstUse() {
+		LocalArtifactRepositoryImpl repository = new LocalArtifactRepositoryImpl(localRepositoryPath, Map.of());
+
+		repository.close();
+
+		assertThrows(IllegalStateException.class, () -> repository.getArtifactPath(artifactA));
+	}
+
+	@Test
+	public void testBatchResolution() {
+		try (LocalArtifactRepositoryImpl repository = new LocalArtifactRepositoryImpl(localRepositoryPath,
+				Map.of(REMOTE_ARTIFACT_REPOSITORY_DOWNLOAD_THREADS, "2"))) {
+			Map<ID, Path> artifactPaths = repository
+					.getArtifactPaths(List.of(artifactB, artifactMissing, artifactA, artifactB));
+
+			// in order of requested IDs, duplicates resolved once, missing ones omitted
+			assertEquals(List.of(artifactB, artifactA), new ArrayList<>(artifactPaths.keySet()));
+			assertEquals(artifactPath(artifactB), artifactPaths.get(artifactB));
+			assertEquals(artifactPath(artifactA), artifactPaths.get(artifactA));
+
+			// batch of missing artifacts only
+			assertEquals(Map.of(), repository.getArtifactPaths(List.of(artifactMissing)));
+
+			assertEquals(Map.of(), repository.getArtifactPaths(List.of()));
+			assertThrows(NullPointerException.class, () -> repository.getArtifactPaths(null));
+		}
+	}
+
+	@Test
+	public void testInvalidDownloadThreads() {
+		assertThrows(IllegalArgumentException.class, () -> new LocalArtifactRepositoryImpl(localRepositoryPath,
+				Map.of(REMOTE_ARTIFACT_REPOSITORY_DOWNLOAD_THREADS, "0")));
+		assertThrows(NumberFormatException.class, () -> new LocalArtifactRepositoryImpl(localRepositoryPath,
+				Map.of(REMOTE_ARTIFACT_REPOSITORY_DOWNLOAD_THREADS, "many")));
+	}
+
+	@Test
+	public void testClosedRepositoryRejectsBatches() {
+		LocalArtifactRepositoryImpl repository = new LocalArtifactRepositoryImpl(localRepositoryPath, Map.of());
+		repository.close();
+
+		assertThrows(IllegalStateException.class, () -> repository.getArtifactPaths(List.of(artifactA)));
+	}
+
+	@Test
+	public void testDefiniteMissesReported() {
+		try (LocalArtifactRepositoryImpl repository = new LocalArtifactRepositoryImpl(localRepositoryPath, Map.of())) {
+			assertNull(repository.getArtifactPath(artifactMissing));
+			assertTrue(repository.isArtifactMissing(artifactMissing));
+
+			assertEquals(artifactPath(artifactA), repository.getArtifactPath(artifactA));
+			assertFalse(repository.isArtifactMissing(artifactA));
+
+			// missing once deployed
+			assertFalse(repository.isArtifactMissing(artifactB));
+
+			repository.getArtifactPaths(List.of(artifactA, artifactMissing));
+			assertFalse(repository.isArtifactMissing(artifactA));
+			assertTrue(repository.isArtifactMissing(artifactMissing));
+		}
+	}
+
+	@Test
+	public void testTransientFailuresNotReportedAsMisses(@TempDir Path otherLocalRepositoryPath) {
+		// nothing listens on port 1, so remote repository cannot be reached
+		try (RemoteArtifactRepositoryImpl repository = new RemoteArtifactRepositoryImpl(
+				URI.create("http://127.0.0.1:1/maven2"), otherLocalRepositoryPath, Map.of())) {
+			assertNull(repository.getArtifactPath(artifactMissing));
+			assertFalse(repository.isArtifactMissing(artifactMissing));
+
+			assertEquals(Map.of(), repository.getArtifactPaths(List.of(artifactMissing)));
+			assertFalse(repository.isArtifactMissing(artifactMissing));
+		}
+	}
+
+	Path artifactPath(ID id) {
+		return localRepositoryPath.resolve(id.getGroupId().replace('.', '/')).resolve(id.getArtifactId())
+				.resolve(id.getVersion()).resolve(id.getArtifactId() + "-" + id.getVersion() + ".jar");
+	}
+
+	private void installArtifact(ID id, String content) throws IOException {
+		Path artifactPath = artifactPath(id);
+		Files.createDirectories(artifactPath.getParent());
+		Files.writeString(artifactPath, content);
+	}
+}
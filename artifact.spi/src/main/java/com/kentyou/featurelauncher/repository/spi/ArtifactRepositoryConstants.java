@@ -38,6 +38,31 @@ public class ArtifactRepositoryConstants {
 
 	public static final String LOCAL_ARTIFACT_REPOSITORY_PATH = "localRepositoryPath";
 
+	/**
+	 * Whether local artifact repository keeps an in-memory index of artifacts
+	 * it holds, rather than checking file system on every lookup
+	 */
+	public static final String LOCAL_ARTIFACT_REPOSITORY_INDEX = "index";
+
+	/**
+	 * File in which index of local artifact repository is persisted, so that
+	 * it is available without walking repository first
+	 */
+	public static final String LOCAL_ARTIFACT_REPOSITORY_INDEX_SNAPSHOT = "indexSnapshot";
+
+	/**
+	 * Whether index of local artifact repository is kept current by watching
+	 * repository for changes
+	 */
+	public static final String LOCAL_ARTIFACT_REPOSITORY_INDEX_WATCH = "indexWatch";
+
+	/**
+	 * Number of artifacts downloaded in parallel by a remote artifact repository
+	 */
+	public static final String REMOTE_ARTIFACT_REPOSITORY_DOWNLOAD_THREADS = "downloadThreads";
+
+	public static final int DEFAULT_REMOTE_ARTIFACT_REPOSITORY_DOWNLOAD_THREADS = 8;
+
 	public static final String DEFAULT_LOCAL_ARTIFACT_REPOSITORY_NAME = "local";
 
 	public static final String DEFAULT_REMOTE_ARTIFACT_REPOSITORY_NAME = "central";
@@ -14,6 +14,9 @@
 package com.kentyou.featurelauncher.repository.spi;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.osgi.annotation.versioning.ConsumerType;
 import org.osgi.service.feature.ID;
@@ -31,5 +34,61 @@ public interface FileSystemArtifactRepository extends ArtifactRepository {
 
 	public Path getArtifactPath(ID id);
 
+	/**
+	 * Looks up artifact in file system only, without fetching it (e.g. from a
+	 * remote repository) and without otherwise changing state of repository, so
+	 * that callers can tell what fetching artifacts would involve.
+	 * 
+	 * @return path of artifact, or {@code null} if artifact is not present in
+	 *         file system yet, or if implementation cannot tell without fetching
+	 *         it
+	 */
+	public default Path getArtifactPathIfPresent(ID id) {
+		return null;
+	}
+
+	/**
+	 * Tells whether artifact, for which a lookup returned {@code null}, is
+	 * definitely missing from this repository, rather than lookup having failed
+	 * (e.g. because a remote repository could not be reached). Callers may
+	 * remember definite misses and skip this repository for a while.
+	 *
+	 * Implementations whose lookups may fail transiently must override this
+	 * method; default implementation trusts lookups, like
+	 * {@link ArtifactRepository#getArtifact(ID)} returning {@code null} only if
+	 * artifact was not found.
+	 *
+	 * This method may also be called once {@link #getArtifactPathIfPresent(ID)}
+	 * returned {@code null}, without artifact being looked up otherwise (e.g.
+	 * when planning an operation). Default implementation then suits
+	 * repositories holding all their artifacts in file system; implementations
+	 * fetching artifacts from elsewhere must answer from their earlier lookups
+	 * and return {@code false} for artifacts they have not looked up.
+	 *
+	 * @return {@code true} if artifact is known not to be available from this
+	 *         repository
+	 */
+	public default boolean isArtifactMissing(ID id) {
+		return true;
+	}
+
+	/**
+	 * Obtains paths of given artifacts at once, allowing implementations to
+	 * fetch them in parallel or in fewer round-trips than one at a time.
+	 * 
+	 * @return paths of artifacts found, in order of given IDs; artifacts not
+	 *         found are omitted
+	 */
+	public default Map<ID, Path> getArtifactPaths(Collection<ID> ids) {
+		Map<ID, Path> artifactPaths = new LinkedHashMap<>();
+		for (ID id : ids) {
+			Path artifactPath = getArtifactPath(id);
+			if (artifactPath != null) {
+				artifactPaths.put(id, artifactPath);
+			}
+		}
+		return artifactPaths;
+	}
+
 	public Path getLocalRepositoryPath();
 }
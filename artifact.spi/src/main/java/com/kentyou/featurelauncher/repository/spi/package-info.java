@@ -1,5 +1,5 @@
 
 @org.osgi.annotation.bundle.Export
-@org.osgi.annotation.versioning.Version("1.0.0")
+@org.osgi.annotation.versioning.Version("1.1.0")
 package com.kentyou.featurelauncher.repository.spi;
 
@@ -0,0 +1,27 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.decorator;
+
+/**
+ * Marker for {@link org.osgi.service.featurelauncher.decorator.FeatureDecorator}s
+ * and {@link org.osgi.service.featurelauncher.decorator.FeatureExtensionHandler}s
+ * whose result depends only on feature passed to them, and which have no side
+ * effects.
+ *
+ * Results of decoration, where all decorators or extension handlers involved
+ * are marked as such, may be reused for same feature when decoration cache is
+ * enabled.
+ */
+public interface DeterministicDecoration {
+}
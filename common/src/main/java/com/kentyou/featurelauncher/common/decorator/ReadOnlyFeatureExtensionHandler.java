@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.decorator;
+
+import org.osgi.service.featurelauncher.decorator.FeatureExtensionHandler;
+
+/**
+ * {@link FeatureExtensionHandler} which only reads feature and extension passed
+ * to it, always returning feature unchanged and never using supplied builder.
+ *
+ * Such handlers may be executed concurrently with each other and with other
+ * extension handlers, and must therefore be safe to call from any thread.
+ */
+public interface ReadOnlyFeatureExtensionHandler extends FeatureExtensionHandler {
+}
@@ -16,13 +16,14 @@ package com.kentyou.featurelauncher.common.decorator.impl;
 import static com.kentyou.featurelauncher.common.decorator.impl.FeatureDecorationConstants.DEFAULT_DECORATED_TYPE;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 import org.osgi.service.feature.Feature;
-import org.osgi.service.feature.FeatureBuilder;
 import org.osgi.service.feature.FeatureBundle;
 import org.osgi.service.feature.FeatureConfiguration;
 import org.osgi.service.feature.FeatureExtension;
@@ -135,7 +136,15 @@ public abstract class AbstractBaseFeatureDecorationBuilder<T extends BaseFeature
 		return castThis();
 	}
 
-	protected FeatureBuilder prebuild() {
+	/**
+	 * Builds decorated feature, sharing sections not set on this builder with
+	 * original feature, so that cost is proportional to modified sections rather
+	 * than feature size
+	 * 
+	 * @param extensions extensions to add to, or replace in, those of original
+	 *                   feature
+	 */
+	protected Feature buildDecorated(List<FeatureExtension> extensions) {
 		ID originalFeatureID = originalFeature.getID();
 
 		ID decoratedFeatureID = featureService.getID(originalFeatureID.getGroupId(), originalFeatureID.getArtifactId(),
@@ -143,62 +152,32 @@ public abstract class AbstractBaseFeatureDecorationBuilder<T extends BaseFeature
 				originalFeatureID.getType().isPresent() ? originalFeatureID.getType().get() : DEFAULT_DECORATED_TYPE,
 				classifier);
 
-		FeatureBuilder featureBuilder = featureService.getBuilderFactory().newFeatureBuilder(decoratedFeatureID);
-
-		if (!bundles.isEmpty()) {
-			featureBuilder.addBundles(bundles.toArray(FeatureBundle[]::new));
-		} else if (originalFeature.getBundles() != null) {
-			featureBuilder.addBundles(originalFeature.getBundles().toArray(FeatureBundle[]::new));
-		}
+		List<FeatureBundle> decoratedBundles = !bundles.isEmpty() ? bundles : null;
 
+		Map<String, FeatureConfiguration> decoratedConfigurations = null;
 		if (!configs.isEmpty()) {
-			featureBuilder.addConfigurations(configs.toArray(FeatureConfiguration[]::new));
-		} else if (originalFeature.getConfigurations() != null) {
-			featureBuilder.addConfigurations(
-					originalFeature.getConfigurations().values().toArray(FeatureConfiguration[]::new));
-		}
-
-		if (!variables.isEmpty()) {
-			featureBuilder.addVariables(variables);
-		} else if (originalFeature.getVariables() != null) {
-			featureBuilder.addVariables(originalFeature.getVariables());
-		}
-
-		featureBuilder.setComplete(originalFeature.isComplete());
-
-		if (originalFeature.getDescription().isPresent()) {
-			featureBuilder.setDescription(originalFeature.getDescription().get());
-		}
-
-		if (originalFeature.getDocURL().isPresent()) {
-			featureBuilder.setDocURL(originalFeature.getDocURL().get());
-		}
-
-		if (originalFeature.getName().isPresent()) {
-			featureBuilder.setName(originalFeature.getName().get());
-		}
-
-		if (originalFeature.getLicense().isPresent()) {
-			featureBuilder.setLicense(originalFeature.getLicense().get());
-		}
-
-		if (originalFeature.getSCM().isPresent()) {
-			featureBuilder.setSCM(originalFeature.getSCM().get());
-		}
-
-		if (originalFeature.getVendor().isPresent()) {
-			featureBuilder.setVendor(originalFeature.getVendor().get());
-		}
-
-		if (originalFeature.getCategories() != null && !originalFeature.getCategories().isEmpty()) {
-			featureBuilder.addCategories(originalFeature.getCategories().toArray(String[]::new));
+			decoratedConfigurations = new LinkedHashMap<>();
+			for (FeatureConfiguration config : configs) {
+				decoratedConfigurations.put(config.getPid(), config);
+			}
+			decoratedConfigurations = Collections.unmodifiableMap(decoratedConfigurations);
 		}
 
-		if (originalFeature.getExtensions() != null & !originalFeature.getExtensions().isEmpty()) {
-			featureBuilder.addExtensions(originalFeature.getExtensions().values().toArray(FeatureExtension[]::new));
+		Map<String, Object> decoratedVariables = !variables.isEmpty()
+				? Collections.unmodifiableMap(new LinkedHashMap<>(variables))
+				: null;
+
+		Map<String, FeatureExtension> decoratedExtensions = null;
+		if (!extensions.isEmpty()) {
+			decoratedExtensions = new LinkedHashMap<>(originalFeature.getExtensions());
+			for (FeatureExtension extension : extensions) {
+				decoratedExtensions.put(extension.getName(), extension);
+			}
+			decoratedExtensions = Collections.unmodifiableMap(decoratedExtensions);
 		}
 
-		return featureBuilder;
+		return new DecoratedFeatureImpl(originalFeature, decoratedFeatureID, decoratedBundles, decoratedConfigurations,
+				decoratedExtensions, decoratedVariables);
 	}
 
 	@SuppressWarnings("unchecked")
@@ -23,7 +23,8 @@ import org.osgi.service.feature.Feature;
 import org.osgi.service.feature.FeatureExtension;
 import org.osgi.service.featurelauncher.decorator.AbandonOperationException;
 import org.osgi.service.featurelauncher.decorator.DecoratorBuilderFactory;
-import org.osgi.service.featurelauncher.decorator.FeatureExtensionHandler;
+
+import com.kentyou.featurelauncher.common.decorator.ReadOnlyFeatureExtensionHandler;
 
 /**
  * Implementation of
@@ -32,7 +33,7 @@ import org.osgi.service.featurelauncher.decorator.FeatureExtensionHandler;
  * @author Michael H. Siemaszko (mhs@into.software)
  * @since Oct 19, 2024
  */
-public class BundleStartLevelsFeatureExtensionHandlerImpl implements FeatureExtensionHandler {
+public class BundleStartLevelsFeatureExtensionHandlerImpl implements ReadOnlyFeatureExtensionHandler {
 
 	private Integer defaultBundleStartLevel;
 
@@ -52,7 +53,7 @@ public class BundleStartLevelsFeatureExtensionHandlerImpl implements FeatureExte
 			FeatureExtensionHandlerBuilder decoratedFeatureBuilder, DecoratorBuilderFactory factory)
 			throws AbandonOperationException {
 
-		Map<String, Object> properties = DecorationContext.readFeatureExtensionJSON(extension.getJSON());
+		Map<String, Object> properties = DecorationContext.readFeatureExtensionJSON(extension);
 
 		// The minimum required framework start level after installing this feature
 		if (properties.containsKey(BUNDLE_START_LEVELS_MINIMUM)) {
@@ -0,0 +1,228 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.decorator.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureBundle;
+import org.osgi.service.feature.FeatureConfiguration;
+import org.osgi.service.feature.FeatureExtension;
+import org.osgi.service.feature.ID;
+
+/**
+ * Feature built by {@link AbstractBaseFeatureDecorationBuilder}, sharing
+ * sections not modified by decoration with original feature instead of
+ * copying them.
+ *
+ * Sections passed as {@code null} are read from original feature.
+ *
+ * Equal to any {@link Feature} with same content, e.g. original feature when
+ * decoration did not change anything.
+ */
+class DecoratedFeatureImpl implements Feature {
+	private final Feature originalFeature;
+	private final ID id;
+	private final List<FeatureBundle> bundles;
+	private final Map<String, FeatureConfiguration> configurations;
+	private final Map<String, FeatureExtension> extensions;
+	private final Map<String, Object> variables;
+
+	// computed on first use, feature is immutable
+	private int hashCode;
+
+	DecoratedFeatureImpl(Feature originalFeature, ID id, List<FeatureBundle> bundles,
+			Map<String, FeatureConfiguration> configurations, Map<String, FeatureExtension> extensions,
+			Map<String, Object> variables) {
+		this.originalFeature = originalFeature;
+		this.id = id;
+		this.bundles = bundles;
+		this.configurations = configurations;
+		this.extensions = extensions;
+		this.variables = variables;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getID()
+	 */
+	@Override
+	public ID getID() {
+		return id;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getName()
+	 */
+	@Override
+	public Optional<String> getName() {
+		return originalFeature.getName();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getCategories()
+	 */
+	@Override
+	public List<String> getCategories() {
+		return originalFeature.getCategories();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getDescription()
+	 */
+	@Override
+	public Optional<String> getDescription() {
+		return originalFeature.getDescription();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getDocURL()
+	 */
+	@Override
+	public Optional<String> getDocURL() {
+		return originalFeature.getDocURL();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getVendor()
+	 */
+	@Override
+	public Optional<String> getVendor() {
+		return originalFeature.getVendor();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getLicense()
+	 */
+	@Override
+	public Optional<String> getLicense() {
+		return originalFeature.getLicense();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getSCM()
+	 */
+	@Override
+	public Optional<String> getSCM() {
+		return originalFeature.getSCM();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#isComplete()
+	 */
+	@Override
+	public boolean isComplete() {
+		return originalFeature.isComplete();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getBundles()
+	 */
+	@Override
+	public List<FeatureBundle> getBundles() {
+		return (bundles != null) ? bundles : originalFeature.getBundles();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getConfigurations()
+	 */
+	@Override
+	public Map<String, FeatureConfiguration> getConfigurations() {
+		return (configurations != null) ? configurations : originalFeature.getConfigurations();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getExtensions()
+	 */
+	@Override
+	public Map<String, FeatureExtension> getExtensions() {
+		return (extensions != null) ? extensions : originalFeature.getExtensions();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.feature.Feature#getVariables()
+	 */
+	@Override
+	public Map<String, Object> getVariables() {
+		return (variables != null) ? variables : originalFeature.getVariables();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		int h = hashCode;
+		if (h == 0) {
+			// same order as Feature Service implementation, so equal features hash alike
+			h = Objects.hash(getBundles(), getCategories(), isComplete(), getConfigurations(), getDescription(),
+					getDocURL(), getExtensions(), getID(), getLicense(), getName(), getSCM(), getVariables(),
+					getVendor());
+			hashCode = h;
+		}
+		return h;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Feature)) {
+			return false;
+		}
+		Feature other = (Feature) obj;
+		if ((other instanceof DecoratedFeatureImpl) && (hashCode() != other.hashCode())) {
+			return false;
+		}
+		return Objects.equals(getID(), other.getID()) && Objects.equals(getName(), other.getName())
+				&& Objects.equals(getDescription(), other.getDescription())
+				&& Objects.equals(getDocURL(), other.getDocURL()) && Objects.equals(getLicense(), other.getLicense())
+				&& Objects.equals(getSCM(), other.getSCM()) && Objects.equals(getVendor(), other.getVendor())
+				&& isComplete() == other.isComplete() && Objects.equals(getBundles(), other.getBundles())
+				&& Objects.equals(getCategories(), other.getCategories())
+				&& Objects.equals(getConfigurations(), other.getConfigurations())
+				&& Objects.equals(getExtensions(), other.getExtensions())
+				&& Objects.equals(getVariables(), other.getVariables());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "DecoratedFeatureImpl [id=" + id + ", originalFeature=" + originalFeature.getID() + "]";
+	}
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.decorator.impl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.service.feature.Feature;
+
+import com.kentyou.featurelauncher.common.decorator.DeterministicDecoration;
+
+/**
+ * Bounded cache of decoration results, shared by {@link DecorationContext}s
+ * across launches or runtime operations.
+ *
+ * Results are keyed by feature content and by identities of decorators or
+ * extension handlers involved, and are only cached if all of them are marked
+ * as {@link DeterministicDecoration}. Decorators and extension handlers are
+ * only weakly referenced: results are dropped once any of them is no longer
+ * used by callers.
+ */
+public class DecorationCache {
+	public static final int DECORATION_CACHE_SIZE_DEFAULT = 64;
+
+	enum Stage {
+		DECORATORS, EXTENSION_HANDLERS
+	}
+
+	private final Map<Key, Feature> decoratedFeatures;
+
+	private final ReferenceQueue<Object> collectedParticipants = new ReferenceQueue<>();
+
+	public DecorationCache() {
+		this(DECORATION_CACHE_SIZE_DEFAULT);
+	}
+
+	public DecorationCache(int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Decoration cache size must be greater than zero!");
+		}
+
+		this.decoratedFeatures = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Feature> eldest) {
+				return size() > maxSize;
+			}
+		});
+	}
+
+	public int size() {
+		expungeCollectedParticipants();
+		return decoratedFeatures.size();
+	}
+
+	public void clear() {
+		decoratedFeatures.clear();
+	}
+
+	static boolean isCacheable(List<?> participants) {
+		for (Object participant : participants) {
+			if (participant != null && !(participant instanceof DeterministicDecoration)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	Feature get(Stage stage, Feature feature, List<?> participants) {
+		expungeCollectedParticipants();
+		return decoratedFeatures.get(new Key(stage, feature, participants, null));
+	}
+
+	void put(Stage stage, Feature feature, List<?> participants, Feature decoratedFeature) {
+		expungeCollectedParticipants();
+		decoratedFeatures.put(new Key(stage, feature, participants, collectedParticipants), decoratedFeature);
+	}
+
+	private void expungeCollectedParticipants() {
+		Reference<?> reference;
+		while ((reference = collectedParticipants.poll()) != null) {
+			// keys are removed by identity, since they are no longer equal to anything
+			decoratedFeatures.remove(((ParticipantReference) reference).key);
+		}
+	}
+
+	/**
+	 * Weak reference to a participant, tracking key it belongs to
+	 */
+	private static final class ParticipantReference extends WeakReference<Object> {
+		private final Key key;
+
+		ParticipantReference(Object participant, Key key, ReferenceQueue<Object> queue) {
+			super(participant, queue);
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Feature is compared by content, participants by identity
+	 */
+	private static final class Key {
+		private final Stage stage;
+		private final Feature feature;
+		private final Reference<?>[] participants;
+		private final int hash;
+
+		Key(Stage stage, Feature feature, List<?> participants, ReferenceQueue<Object> queue) {
+			this.stage = stage;
+			this.feature = feature;
+			this.participants = new Reference<?>[participants.size()];
+
+			int h = stage.hashCode() * 31 + feature.hashCode();
+			for (int i = 0; i < this.participants.length; i++) {
+				Object participant = participants.get(i);
+				// lookup keys are short-lived, only stored keys are tracked
+				this.participants[i] = (participant == null) ? null
+						: (queue != null) ? new ParticipantReference(participant, this, queue)
+								: new WeakReference<>(participant);
+				h = h * 31 + System.identityHashCode(participant);
+			}
+			this.hash = h;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key other)) {
+				return false;
+			}
+			if (hash != other.hash || stage != other.stage || participants.length != other.participants.length) {
+				return false;
+			}
+			for (int i = 0; i < participants.length; i++) {
+				if ((participants[i] == null) != (other.participants[i] == null)) {
+					return false;
+				}
+				if (participants[i] != null) {
+					Object participant = participants[i].get();
+					if (participant == null || participant != other.participants[i].get()) {
+						return false;
+					}
+				}
+			}
+			return feature.equals(other.feature);
+		}
+	}
+}
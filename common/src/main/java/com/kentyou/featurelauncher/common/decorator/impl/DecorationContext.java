@@ -18,9 +18,22 @@ import static org.osgi.service.featurelauncher.FeatureLauncherConstants.FRAMEWOR
 import static org.osgi.service.featurelauncher.FeatureLauncherConstants.LAUNCH_FRAMEWORK;
 
 import java.io.StringReader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.osgi.service.feature.Feature;
 import org.osgi.service.feature.FeatureExtension;
@@ -32,7 +45,10 @@ import org.osgi.service.featurelauncher.repository.ArtifactRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.kentyou.featurelauncher.common.decorator.ReadOnlyFeatureExtensionHandler;
+
 import jakarta.json.Json;
+import jakarta.json.JsonArray;
 import jakarta.json.JsonNumber;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonReader;
@@ -49,13 +65,38 @@ import jakarta.json.JsonValue;
 public class DecorationContext {
 
 	private static final Logger LOG = LoggerFactory.getLogger(DecorationContext.class);
+
+	private static final int EXTENSION_JSON_CACHE_SIZE = 256;
+
+	private static final ExecutorService READ_ONLY_HANDLERS_EXECUTOR = createReadOnlyHandlersExecutor();
+
+	// parsed extension payloads, by JSON content, least recently used evicted first
+	private static final Map<String, Map<String, Object>> EXTENSION_JSON_CACHE = Collections
+			.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+					return size() > EXTENSION_JSON_CACHE_SIZE;
+				}
+			});
 	
 	private final LaunchFrameworkFeatureExtensionHandlerImpl launchHandler;
 	private final FrameworkLaunchingPropertiesFeatureExtensionHandlerImpl frameworkHandler = new FrameworkLaunchingPropertiesFeatureExtensionHandlerImpl();
 	private final BundleStartLevelsFeatureExtensionHandlerImpl startLevelHandler = new BundleStartLevelsFeatureExtensionHandlerImpl();
 	private final Map<String, FeatureExtensionHandler> handlers;
+	private final DecorationCache decorationCache;
 
 	public DecorationContext(List<? extends ArtifactRepository> repositories) {
+		this(repositories, null);
+	}
+
+	/**
+	 * @param decorationCache cache of decoration results to use, or {@code null}
+	 *                        to always execute decorators and extension handlers
+	 */
+	public DecorationContext(List<? extends ArtifactRepository> repositories, DecorationCache decorationCache) {
+		this.decorationCache = decorationCache;
 		launchHandler = new LaunchFrameworkFeatureExtensionHandlerImpl(repositories);
 		// @formatter:off
 		handlers = Map.ofEntries(
@@ -80,6 +121,16 @@ public class DecorationContext {
 	public Feature executeFeatureDecorators(FeatureService featureService, Feature feature,
 			List<FeatureDecorator> decorators) throws AbandonOperationException {
 
+		boolean useCache = (decorationCache != null) && !decorators.isEmpty()
+				&& DecorationCache.isCacheable(decorators);
+		if (useCache) {
+			Feature cachedFeature = decorationCache.get(DecorationCache.Stage.DECORATORS, feature, decorators);
+			if (cachedFeature != null) {
+				LOG.debug("Reusing cached result of feature decorators for {}", feature.getID());
+				return cachedFeature;
+			}
+		}
+
 		Feature updatedFeature = feature;
 
 		for (FeatureDecorator decorator : decorators) {
@@ -90,6 +141,10 @@ public class DecorationContext {
 			enforceValidFeature(loopFeature, updatedFeature, decoratedFeatureBuilder.getBuilt());
 		}
 
+		if (useCache) {
+			decorationCache.put(DecorationCache.Stage.DECORATORS, feature, decorators, updatedFeature);
+		}
+
 		return updatedFeature;
 	}
 
@@ -104,7 +159,39 @@ public class DecorationContext {
 			}
 			toUse.put(extension, e.getValue());
 		});
-		
+
+		// provided handlers keep state for launch, so only user handlers are cached
+		List<FeatureExtensionHandler> userHandlers = new ArrayList<>();
+		for (String extensionName : feature.getExtensions().keySet()) {
+			userHandlers.add(handlers.containsKey(extensionName) ? null : toUse.get(extensionName));
+		}
+
+		boolean useCache = (decorationCache != null) && userHandlers.stream().anyMatch(Objects::nonNull)
+				&& DecorationCache.isCacheable(userHandlers);
+		if (useCache) {
+			Feature cachedFeature = decorationCache.get(DecorationCache.Stage.EXTENSION_HANDLERS, feature,
+					userHandlers);
+			if (cachedFeature != null) {
+				LOG.debug("Reusing cached result of feature extension handlers for {}", feature.getID());
+
+				executeReadOnlyFeatureExtensionHandlers(featureService, feature, handlers);
+
+				return cachedFeature;
+			}
+		}
+
+		for (Map.Entry<String, FeatureExtension> featureExtensionEntry : feature.getExtensions().entrySet()) {
+			if (!toUse.containsKey(featureExtensionEntry.getKey()) && isExtensionMandatory(featureExtensionEntry.getValue())) {
+				throw new AbandonOperationException(String.format(
+						"Feature extension handler for mandatory extension %s not found!", featureExtensionEntry.getKey()));
+			}
+		}
+
+		// read-only handlers always return feature unchanged, so they are started
+		// first and overlap with handlers which may build a new feature
+		List<CompletableFuture<Void>> readOnlyHandlings = startReadOnlyFeatureExtensionHandlers(featureService,
+				feature, toUse);
+
 		Feature updatedFeature = feature;
 
 		for (Map.Entry<String, FeatureExtension> featureExtensionEntry : feature.getExtensions().entrySet()) {
@@ -114,50 +201,216 @@ public class DecorationContext {
 
 			FeatureExtensionHandler handlerForExtension = toUse.get(extensionName);
 
-			if (handlerForExtension != null) {
+			if (handlerForExtension != null && !isReadOnly(handlerForExtension)) {
 				FeatureExtensionHandlerBuilderImpl decoratedFeatureBuilder = new FeatureExtensionHandlerBuilderImpl(featureService, feature);
 				updatedFeature = handlerForExtension.handle(feature, featureExtension,
 						decoratedFeatureBuilder, new DecoratorBuilderFactoryImpl(featureService));
 
 				enforceValidFeature(loopFeature, updatedFeature, decoratedFeatureBuilder.getBuilt());
-			} else if (isExtensionMandatory(featureExtension)) {
-				throw new AbandonOperationException(String
-						.format("Feature extension handler for mandatory extension %s not found!", extensionName));
 			}
 		}
 
+		awaitReadOnlyFeatureExtensionHandlers(readOnlyHandlings);
+
+		if (useCache) {
+			decorationCache.put(DecorationCache.Stage.EXTENSION_HANDLERS, feature, userHandlers, updatedFeature);
+		}
+
 		return updatedFeature;
 	}
 
+	private void executeReadOnlyFeatureExtensionHandlers(FeatureService featureService, Feature feature,
+			Map<String, FeatureExtensionHandler> extensionHandlers) throws AbandonOperationException {
+		awaitReadOnlyFeatureExtensionHandlers(
+				startReadOnlyFeatureExtensionHandlers(featureService, feature, extensionHandlers));
+	}
+
+	/**
+	 * Starts read-only handlers of feature extensions, in extension order; last
+	 * one runs on calling thread, unless there are other handlers to run
+	 */
+	private List<CompletableFuture<Void>> startReadOnlyFeatureExtensionHandlers(FeatureService featureService,
+			Feature feature, Map<String, FeatureExtensionHandler> extensionHandlers) {
+		List<Map.Entry<FeatureExtension, FeatureExtensionHandler>> readOnlyHandlers = new ArrayList<>();
+		boolean hasOtherHandlers = false;
+
+		for (Map.Entry<String, FeatureExtension> featureExtensionEntry : feature.getExtensions().entrySet()) {
+			FeatureExtensionHandler handler = extensionHandlers.get(featureExtensionEntry.getKey());
+			if (handler == null) {
+				continue;
+			}
+			if (isReadOnly(handler)) {
+				readOnlyHandlers.add(Map.entry(featureExtensionEntry.getValue(), handler));
+			} else {
+				hasOtherHandlers = true;
+			}
+		}
+
+		List<CompletableFuture<Void>> handlings = new ArrayList<>(readOnlyHandlers.size());
+
+		for (int i = 0; i < readOnlyHandlers.size(); i++) {
+			FeatureExtension featureExtension = readOnlyHandlers.get(i).getKey();
+			FeatureExtensionHandler handler = readOnlyHandlers.get(i).getValue();
+
+			Runnable handling = () -> {
+				try {
+					Feature returnedFeature = handler.handle(feature, featureExtension,
+							new FeatureExtensionHandlerBuilderImpl(featureService, feature),
+							new DecoratorBuilderFactoryImpl(featureService));
+					if (returnedFeature != feature) {
+						throw new CompletionException(new AbandonOperationException(String.format(
+								"Read-only feature extension handler for extension %s returned a different feature",
+								featureExtension.getName())));
+					}
+				} catch (AbandonOperationException e) {
+					throw new CompletionException(e);
+				}
+			};
+
+			if (!hasOtherHandlers && i == readOnlyHandlers.size() - 1) {
+				CompletableFuture<Void> handled = new CompletableFuture<>();
+				try {
+					handling.run();
+					handled.complete(null);
+				} catch (RuntimeException e) {
+					handled.completeExceptionally(e);
+				}
+				handlings.add(handled);
+			} else {
+				handlings.add(CompletableFuture.runAsync(handling, READ_ONLY_HANDLERS_EXECUTOR));
+			}
+		}
+
+		return handlings;
+	}
+
+	/**
+	 * Waits for all read-only handlers, then reports failure of first one in
+	 * extension order, if any
+	 */
+	private static void awaitReadOnlyFeatureExtensionHandlers(List<CompletableFuture<Void>> handlings)
+			throws AbandonOperationException {
+		try {
+			CompletableFuture.allOf(handlings.toArray(CompletableFuture[]::new)).join();
+		} catch (CompletionException e) {
+			// failure reported below
+		}
+
+		for (CompletableFuture<Void> handling : handlings) {
+			try {
+				handling.join();
+			} catch (CompletionException e) {
+				Throwable cause = (e.getCause() instanceof CompletionException) ? e.getCause().getCause() : e.getCause();
+				if (cause instanceof AbandonOperationException aoe) {
+					throw aoe;
+				} else if (cause instanceof RuntimeException re) {
+					throw re;
+				} else if (cause instanceof Error err) {
+					throw err;
+				}
+				throw e;
+			}
+		}
+	}
+
+	private static boolean isReadOnly(FeatureExtensionHandler handler) {
+		return handler instanceof ReadOnlyFeatureExtensionHandler;
+	}
+
+	private static ExecutorService createReadOnlyHandlersExecutor() {
+		AtomicInteger threadCount = new AtomicInteger();
+		int parallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "FeatureExtensionHandler-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+
+		return executor;
+	}
+
 	public static boolean isExtensionMandatory(FeatureExtension featureExtension) {
 		return featureExtension.getKind() == FeatureExtension.Kind.MANDATORY;
 	}
 
+	public static Map<String, Object> readFeatureExtensionJSON(FeatureExtension featureExtension) {
+		return readFeatureExtensionJSON(featureExtension.getJSON());
+	}
+
+	/**
+	 * Reads JSON object of a feature extension into unmodifiable map, shared
+	 * between callers reading same JSON content.
+	 * 
+	 * Nested objects are read into maps, arrays into lists, and numbers into
+	 * {@link Integer}, {@link Long} or {@link Double} where they fit, otherwise
+	 * into {@link BigInteger} or {@link BigDecimal}.
+	 */
 	public static Map<String, Object> readFeatureExtensionJSON(String jsonString) {
-		try (JsonReader jsonReader = Json.createReader(new StringReader(jsonString))) {
-			Map<String, Object> properties = new HashMap<>();
+		Map<String, Object> properties = EXTENSION_JSON_CACHE.get(jsonString);
+		if (properties == null) {
+			try (JsonReader jsonReader = Json.createReader(new StringReader(jsonString))) {
+				properties = toMap(jsonReader.readObject());
+			}
 
-			JsonObject json = jsonReader.readObject();
+			EXTENSION_JSON_CACHE.put(jsonString, properties);
+		}
 
-			for (String propertyName : json.keySet()) {
+		return properties;
+	}
 
-				JsonValue propertyValue = json.get(propertyName);
+	private static Map<String, Object> toMap(JsonObject json) {
+		Map<String, Object> properties = new LinkedHashMap<>();
 
-				if (propertyValue instanceof JsonString) {
-					properties.put(propertyName, ((JsonString) propertyValue).getString());
-				} else if (propertyValue instanceof JsonNumber) {
-					properties.put(propertyName, ((JsonNumber) propertyValue).bigDecimalValue());
-				} else if (propertyValue == JsonValue.TRUE) {
-					properties.put(propertyName, Boolean.TRUE);
-				} else if (propertyValue == JsonValue.FALSE) {
-					properties.put(propertyName, Boolean.FALSE);
-				} else if (propertyValue.equals(JsonValue.NULL)) {
-					properties.put(propertyName, null);
-				}
+		for (Map.Entry<String, JsonValue> propertyEntry : json.entrySet()) {
+			properties.put(propertyEntry.getKey(), toObject(propertyEntry.getValue()));
+		}
+
+		return Collections.unmodifiableMap(properties);
+	}
+
+	private static Object toObject(JsonValue jsonValue) {
+		switch (jsonValue.getValueType()) {
+		case STRING:
+			return ((JsonString) jsonValue).getString();
+		case NUMBER:
+			return toNumber(((JsonNumber) jsonValue).bigDecimalValue());
+		case TRUE:
+			return Boolean.TRUE;
+		case FALSE:
+			return Boolean.FALSE;
+		case OBJECT:
+			return toMap(jsonValue.asJsonObject());
+		case ARRAY:
+			List<Object> values = new ArrayList<>();
+			for (JsonValue value : (JsonArray) jsonValue) {
+				values.add(toObject(value));
 			}
+			return Collections.unmodifiableList(values);
+		case NULL:
+		default:
+			return null;
+		}
+	}
+
+	private static Number toNumber(BigDecimal bigDecimalValue) {
+		if (bigDecimalValue.signum() == 0 || bigDecimalValue.stripTrailingZeros().scale() <= 0) {
+			BigInteger bigIntegerValue = bigDecimalValue.toBigIntegerExact();
+			if (bigIntegerValue.bitLength() < Integer.SIZE) {
+				return Integer.valueOf(bigIntegerValue.intValue());
+			} else if (bigIntegerValue.bitLength() < Long.SIZE) {
+				return Long.valueOf(bigIntegerValue.longValue());
+			}
+			return bigIntegerValue;
+		}
 
-			return properties;
+		double doubleValue = bigDecimalValue.doubleValue();
+		if (Double.isFinite(doubleValue) && (BigDecimal.valueOf(doubleValue).compareTo(bigDecimalValue) == 0)) {
+			return Double.valueOf(doubleValue);
 		}
+		return bigDecimalValue;
 	}
 
 	private static void enforceValidFeature(Feature originalFeature, Feature returnedFeature, Feature builtFeature)
@@ -13,6 +13,8 @@
  */
 package com.kentyou.featurelauncher.common.decorator.impl;
 
+import java.util.List;
+
 import org.osgi.service.feature.Feature;
 import org.osgi.service.feature.FeatureService;
 import org.osgi.service.featurelauncher.decorator.FeatureExtensionHandler.FeatureExtensionHandlerBuilder;
@@ -42,7 +44,7 @@ public class FeatureExtensionHandlerBuilderImpl extends
 
 		this.isBuilt = true;
 
-		built = prebuild().build();
+		built = buildDecorated(List.of());
 		return built;
 	}
 
@@ -20,8 +20,8 @@ import org.osgi.service.feature.Feature;
 import org.osgi.service.feature.FeatureExtension;
 import org.osgi.service.featurelauncher.decorator.AbandonOperationException;
 import org.osgi.service.featurelauncher.decorator.DecoratorBuilderFactory;
-import org.osgi.service.featurelauncher.decorator.FeatureExtensionHandler;
 
+import com.kentyou.featurelauncher.common.decorator.ReadOnlyFeatureExtensionHandler;
 import com.kentyou.featurelauncher.common.util.impl.VariablesUtil;
 
 
@@ -32,7 +32,7 @@ import com.kentyou.featurelauncher.common.util.impl.VariablesUtil;
  * @since Oct 19, 2024
  */
 public class FrameworkLaunchingPropertiesFeatureExtensionHandlerImpl
-		implements FeatureExtensionHandler {
+		implements ReadOnlyFeatureExtensionHandler {
 	private final Map<String, String> frameworkProperties;
 
 	private final Map<String, String> customProperties; // properties starting with a single underscore
@@ -51,7 +51,7 @@ public class FrameworkLaunchingPropertiesFeatureExtensionHandlerImpl
 			FeatureExtensionHandlerBuilder decoratedFeatureBuilder, DecoratorBuilderFactory factory)
 			throws AbandonOperationException {
 
-		Map<String, Object> rawProperties = DecorationContext.readFeatureExtensionJSON(extension.getJSON());
+		Map<String, Object> rawProperties = DecorationContext.readFeatureExtensionJSON(extension);
 
 		Map<String, Object> properties = VariablesUtil.maybeSubstituteVariables(rawProperties,
 				feature.getVariables());
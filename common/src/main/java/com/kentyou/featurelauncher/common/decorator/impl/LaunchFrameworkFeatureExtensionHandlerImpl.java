@@ -15,6 +15,7 @@ package com.kentyou.featurelauncher.common.decorator.impl;
 
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
@@ -33,11 +34,11 @@ import org.osgi.service.feature.FeatureExtension.Type;
 import org.osgi.service.feature.ID;
 import org.osgi.service.featurelauncher.decorator.AbandonOperationException;
 import org.osgi.service.featurelauncher.decorator.DecoratorBuilderFactory;
-import org.osgi.service.featurelauncher.decorator.FeatureExtensionHandler;
 import org.osgi.service.featurelauncher.repository.ArtifactRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.kentyou.featurelauncher.common.decorator.ReadOnlyFeatureExtensionHandler;
 import com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository;
 
 /**
@@ -46,7 +47,7 @@ import com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository;
  * @author Michael H. Siemaszko (mhs@into.software)
  * @since Sep 15, 2024
  */
-public class LaunchFrameworkFeatureExtensionHandlerImpl implements FeatureExtensionHandler {
+public class LaunchFrameworkFeatureExtensionHandlerImpl implements ReadOnlyFeatureExtensionHandler {
 	private static final Logger LOG = LoggerFactory.getLogger(LaunchFrameworkFeatureExtensionHandlerImpl.class);
 
 	private static final String FF_SERVICE_PATH = "META-INF/services/org.osgi.framework.launch.FrameworkFactory";
@@ -55,6 +56,12 @@ public class LaunchFrameworkFeatureExtensionHandlerImpl implements FeatureExtens
 	
 	private Optional<FrameworkFactory> locatedFramework = Optional.empty();
 
+	private ID locatedFrameworkArtifactID;
+
+	private Path locatedFrameworkArtifactPath;
+
+	private String locatedFrameworkFactoryClassName;
+
 	public LaunchFrameworkFeatureExtensionHandlerImpl(List<? extends ArtifactRepository> artifactRepositories) {
 		super();
 		this.artifactRepositories = artifactRepositories;
@@ -90,6 +97,43 @@ public class LaunchFrameworkFeatureExtensionHandlerImpl implements FeatureExtens
 	public Optional<FrameworkFactory> getLocatedFrameworkFactory() {
 		return locatedFramework;
 	}
+
+	/**
+	 * ID of artifact located framework factory was loaded from, if any
+	 */
+	public Optional<ID> getLocatedFrameworkArtifactID() {
+		return Optional.ofNullable(locatedFrameworkArtifactID);
+	}
+
+	/**
+	 * Path of artifact located framework factory was loaded from, if any
+	 */
+	public Optional<Path> getLocatedFrameworkArtifactPath() {
+		return Optional.ofNullable(locatedFrameworkArtifactPath);
+	}
+
+	/**
+	 * Class name of located framework factory, if any
+	 */
+	public Optional<String> getLocatedFrameworkFactoryClassName() {
+		return Optional.ofNullable(locatedFrameworkFactoryClassName);
+	}
+
+	/**
+	 * Loads framework factory of given class from given framework artifact,
+	 * e.g. one previously located by this handler
+	 */
+	public static Optional<FrameworkFactory> loadFrameworkFactory(Path artifactPath, String className) {
+		try {
+			URLClassLoader urlClassLoader = URLClassLoader.newInstance(new URL[] { artifactPath.toUri().toURL() },
+					LaunchFrameworkFeatureExtensionHandlerImpl.class.getClassLoader());
+
+			return createFrameworkFactory(urlClassLoader, className, artifactPath);
+		} catch (MalformedURLException e) {
+			LOG.warn("Unable to load factory class {} from the framework artifact {}", className, artifactPath, e);
+			return Optional.empty();
+		}
+	}
 		
 	private Optional<FrameworkFactory> findFrameworkFactory(FeatureArtifact featureArtifact) {
 		Path artifactPath = getArtifactPath(featureArtifact.getID(), artifactRepositories);
@@ -122,32 +166,12 @@ public class LaunchFrameworkFeatureExtensionHandlerImpl implements FeatureExtens
 			
 			
 			for(String className : classNames) {
-				Class<?> clz;
-				try {
-					clz = urlClassLoader.loadClass(className);
-				} catch (Exception e) {
-					LOG.warn("Unable to load factory class {} for the framework artifact {}.", 
-							className, featureArtifact.getID(), e);
-					continue;
-				}
-				
-				if(FrameworkFactory.class.isAssignableFrom(clz)) {
-					FrameworkFactory ff;
-					try {
-						ff = (FrameworkFactory) clz.getConstructor().newInstance();
-					} catch (Exception e) {
-						LOG.warn("The factory class {} for the framework artifact {} could not be instantiated.", 
-								className, featureArtifact.getID());
-						continue;
-					}
-					if(LOG.isDebugEnabled()) {
-						LOG.debug("Found Framework Factory {} from artifact {}", className, featureArtifact.getID());
-					}
-					return Optional.of(ff);
-				} else {
-					LOG.warn("The factory class {} for the framework artifact {} was not a FrameworkFactory.", 
-							className, featureArtifact.getID());
-					continue;
+				Optional<FrameworkFactory> ff = createFrameworkFactory(urlClassLoader, className, featureArtifact.getID());
+				if(ff.isPresent()) {
+					locatedFrameworkArtifactID = featureArtifact.getID();
+					locatedFrameworkArtifactPath = artifactPath;
+					locatedFrameworkFactoryClassName = className;
+					return ff;
 				}
 			}
 		} catch (Exception e1) {
@@ -160,6 +184,37 @@ public class LaunchFrameworkFeatureExtensionHandlerImpl implements FeatureExtens
 		return Optional.empty();
 	}
 
+	private static Optional<FrameworkFactory> createFrameworkFactory(ClassLoader classLoader, String className,
+			Object artifact) {
+		Class<?> clz;
+		try {
+			clz = classLoader.loadClass(className);
+		} catch (Exception e) {
+			LOG.warn("Unable to load factory class {} for the framework artifact {}.", 
+					className, artifact, e);
+			return Optional.empty();
+		}
+		
+		if(!FrameworkFactory.class.isAssignableFrom(clz)) {
+			LOG.warn("The factory class {} for the framework artifact {} was not a FrameworkFactory.", 
+					className, artifact);
+			return Optional.empty();
+		}
+		
+		FrameworkFactory ff;
+		try {
+			ff = (FrameworkFactory) clz.getConstructor().newInstance();
+		} catch (Exception e) {
+			LOG.warn("The factory class {} for the framework artifact {} could not be instantiated.", 
+					className, artifact);
+			return Optional.empty();
+		}
+		if(LOG.isDebugEnabled()) {
+			LOG.debug("Found Framework Factory {} from artifact {}", className, artifact);
+		}
+		return Optional.of(ff);
+	}
+
 	private Path getArtifactPath(ID artifactId, List<? extends ArtifactRepository> artifactRepositories) {
 		for (ArtifactRepository artifactRepository : artifactRepositories) {
 			Path artifactPath = ((FileSystemArtifactRepository) artifactRepository).getArtifactPath(artifactId);
@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.repository.impl;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.osgi.service.feature.ID;
+import org.osgi.service.featurelauncher.repository.ArtifactRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository;
+
+/**
+ * Fetches artifacts into file system artifact repositories ahead of their use.
+ *
+ * Artifacts may be added before repositories are known; they are queued and
+ * fetched once {@link #start(Collection)} is called. Queued artifacts are
+ * fetched in batches, through
+ * {@link FileSystemArtifactRepository#getArtifactPaths(Collection)}.
+ *
+ * Callers start fetching once their operation is completed rather than as soon
+ * as a first repository is given: repositories may still be added until then,
+ * and fetching from part of them could fetch artifacts from another repository
+ * than the one operation then uses. Fetching therefore overlaps with
+ * decoration and installation, not with building operation.
+ */
+public class ArtifactPrefetcher {
+	private static final Logger LOG = LoggerFactory.getLogger(ArtifactPrefetcher.class);
+
+	private static final int PREFETCH_PARALLELISM = 8;
+
+	private static final int PREFETCH_BATCH_SIZE = 16;
+
+	private static final ExecutorService PREFETCH_EXECUTOR = createPrefetchExecutor();
+
+	private final MissingArtifactCache missingArtifactCache;
+	private final Map<ID, CompletableFuture<Path>> prefetches = new LinkedHashMap<>();
+	private final Set<ID> queued = new LinkedHashSet<>();
+	private List<FileSystemArtifactRepository> repositories;
+	private Predicate<ID> filter = id -> true;
+	private volatile boolean cancelled;
+
+	public ArtifactPrefetcher() {
+		this(new MissingArtifactCache(0));
+	}
+
+	/**
+	 * @param missingArtifactCache skips repositories artifacts are known to be
+	 *                             missing from, and records new misses
+	 */
+	public ArtifactPrefetcher(MissingArtifactCache missingArtifactCache) {
+		this.missingArtifactCache = missingArtifactCache;
+	}
+
+	/**
+	 * Adds artifact to fetch, fetching it right away if already started
+	 */
+	public synchronized void add(ID id) {
+		if (prefetches.containsKey(id) || queued.contains(id)) {
+			return;
+		}
+
+		if (repositories == null) {
+			queued.add(id);
+		} else if (filter.test(id)) {
+			submit(List.of(id));
+		}
+	}
+
+	/**
+	 * Starts fetching queued and subsequently added artifacts from given
+	 * repositories; does nothing if already started, or if none of given
+	 * repositories is a file system artifact repository
+	 */
+	public void start(Collection<? extends ArtifactRepository> artifactRepositories) {
+		start(artifactRepositories, id -> true);
+	}
+
+	/**
+	 * Starts fetching queued and subsequently added artifacts accepted by given
+	 * filter (e.g. not already installed) from given repositories
+	 * 
+	 * @see #start(Collection)
+	 */
+	public synchronized void start(Collection<? extends ArtifactRepository> artifactRepositories,
+			Predicate<ID> filter) {
+		if (repositories != null) {
+			return;
+		}
+
+		List<FileSystemArtifactRepository> fileSystemRepositories = new ArrayList<>();
+		for (ArtifactRepository artifactRepository : artifactRepositories) {
+			if (artifactRepository instanceof FileSystemArtifactRepository fileSystemRepository) {
+				fileSystemRepositories.add(fileSystemRepository);
+			}
+		}
+
+		if (fileSystemRepositories.isEmpty()) {
+			return;
+		}
+
+		repositories = List.copyOf(fileSystemRepositories);
+		this.filter = filter;
+
+		// batches are small enough for first artifacts to be available early
+		List<ID> queuedIds = queued.stream().filter(filter).toList();
+		for (int i = 0; i < queuedIds.size(); i += PREFETCH_BATCH_SIZE) {
+			submit(queuedIds.subList(i, Math.min(i + PREFETCH_BATCH_SIZE, queuedIds.size())));
+		}
+		queued.clear();
+	}
+
+	/**
+	 * Waits for artifact to be fetched, if it is being fetched
+	 */
+	public void await(ID id) {
+		CompletableFuture<Path> prefetch;
+		synchronized (this) {
+			prefetch = prefetches.get(id);
+		}
+
+		if (prefetch != null) {
+			try {
+				prefetch.join();
+			} catch (CompletionException | CancellationException e) {
+				// artifact fetched again by caller, which reports failure
+			}
+		}
+	}
+
+	/**
+	 * Waits for all artifacts being fetched
+	 */
+	public void awaitAll() {
+		List<ID> ids;
+		synchronized (this) {
+			ids = List.copyOf(prefetches.keySet());
+		}
+
+		ids.forEach(this::await);
+	}
+
+	/**
+	 * Cancels artifacts not fetched yet
+	 */
+	public synchronized void cancel() {
+		cancelled = true;
+		queued.clear();
+		prefetches.values().forEach(prefetch -> prefetch.cancel(false));
+	}
+
+	private void submit(List<ID> ids) {
+		List<FileSystemArtifactRepository> fileSystemRepositories = repositories;
+
+		Map<ID, CompletableFuture<Path>> batch = new LinkedHashMap<>();
+		for (ID id : ids) {
+			CompletableFuture<Path> prefetch = new CompletableFuture<>();
+			prefetches.put(id, prefetch);
+			batch.put(id, prefetch);
+		}
+
+		PREFETCH_EXECUTOR.execute(() -> fetch(fileSystemRepositories, batch));
+	}
+
+	private void fetch(List<FileSystemArtifactRepository> fileSystemRepositories,
+			Map<ID, CompletableFuture<Path>> batch) {
+		Map<ID, CompletableFuture<Path>> remaining = new LinkedHashMap<>(batch);
+
+		try {
+			for (FileSystemArtifactRepository repository : fileSystemRepositories) {
+				if (cancelled || remaining.isEmpty()) {
+					break;
+				}
+
+				List<ID> requested = new ArrayList<>();
+				for (ID id : remaining.keySet()) {
+					if (!missingArtifactCache.isMissing(repository, id)) {
+						requested.add(id);
+					}
+				}
+
+				if (requested.isEmpty()) {
+					continue;
+				}
+
+				Map<ID, Path> artifactPaths = repository.getArtifactPaths(requested);
+
+				for (ID id : requested) {
+					Path artifactPath = artifactPaths.get(id);
+					if (artifactPath != null) {
+						remaining.remove(id).complete(artifactPath);
+					} else {
+						missingArtifactCache.markMissingIfDefinite(repository, id);
+					}
+				}
+			}
+
+			if (!cancelled) {
+				remaining.keySet().forEach(id -> LOG.debug(String.format("Artifact %s could not be prefetched", id)));
+			}
+
+			remaining.values().forEach(prefetch -> prefetch.complete(null));
+
+		} catch (RuntimeException e) {
+			remaining.values().forEach(prefetch -> prefetch.completeExceptionally(e));
+		}
+	}
+
+	private static ExecutorService createPrefetchExecutor() {
+		AtomicInteger threadCount = new AtomicInteger();
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(PREFETCH_PARALLELISM, PREFETCH_PARALLELISM, 30,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+					Thread thread = new Thread(r, "ArtifactPrefetcher-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+
+		return executor;
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.repository.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.service.feature.ID;
+import org.osgi.service.featurelauncher.repository.ArtifactRepository;
+
+import com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository;
+
+/**
+ * Remembers, per artifact repository, artifacts which could not be found in
+ * it, so that repositories chained before the one actually providing an
+ * artifact are not asked for it again until entry expires or is invalidated.
+ *
+ * Repositories are held weakly and compared by identity as defined by their
+ * {@code equals}.
+ */
+public class MissingArtifactCache {
+	public static final long MISSING_ARTIFACT_CACHE_TTL_DEFAULT_MS = 300_000L;
+
+	private static final int MAX_ENTRIES_PER_REPOSITORY = 10_000;
+
+	private final long ttlNanos;
+
+	private final Map<ArtifactRepository, Map<ID, Long>> missingArtifacts = Collections
+			.synchronizedMap(new WeakHashMap<>());
+
+	public MissingArtifactCache() {
+		this(MISSING_ARTIFACT_CACHE_TTL_DEFAULT_MS);
+	}
+
+	/**
+	 * @param ttlMillis time after which artifact is looked up again in
+	 *                  repository it was missing from, 0 to disable caching
+	 */
+	public MissingArtifactCache(long ttlMillis) {
+		if (ttlMillis < 0) {
+			throw new IllegalArgumentException("Missing artifact cache TTL cannot be negative!");
+		}
+
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+	}
+
+	/**
+	 * Whether artifact is known to be missing from repository
+	 */
+	public boolean isMissing(ArtifactRepository repository, ID id) {
+		if (ttlNanos == 0) {
+			return false;
+		}
+
+		Map<ID, Long> missingFromRepository = missingArtifacts.get(repository);
+		if (missingFromRepository == null) {
+			return false;
+		}
+
+		Long expiry = missingFromRepository.get(id);
+		if (expiry == null) {
+			return false;
+		}
+
+		if (expiry.longValue() - System.nanoTime() > 0) {
+			return true;
+		}
+
+		missingFromRepository.remove(id, expiry);
+		return false;
+	}
+
+	public void markMissing(ArtifactRepository repository, ID id) {
+		if (ttlNanos == 0) {
+			return;
+		}
+
+		Map<ID, Long> missingFromRepository = missingArtifacts.computeIfAbsent(repository,
+				r -> new ConcurrentHashMap<>());
+
+		if (missingFromRepository.size() >= MAX_ENTRIES_PER_REPOSITORY) {
+			expunge(missingFromRepository);
+
+			if (missingFromRepository.size() >= MAX_ENTRIES_PER_REPOSITORY) {
+				missingFromRepository.clear();
+			}
+		}
+
+		missingFromRepository.put(id, Long.valueOf(System.nanoTime() + ttlNanos));
+	}
+
+	/**
+	 * Marks artifact, for which a lookup returned {@code null}, as missing from
+	 * repository only if it is definitely missing (see
+	 * {@link FileSystemArtifactRepository#isArtifactMissing(ID)}), so that
+	 * lookups which failed transiently are retried
+	 */
+	public void markMissingIfDefinite(ArtifactRepository repository, ID id) {
+		if (ttlNanos == 0) {
+			return;
+		}
+
+		if (repository instanceof FileSystemArtifactRepository fileSystemArtifactRepository
+				&& !fileSystemArtifactRepository.isArtifactMissing(id)) {
+			return;
+		}
+
+		markMissing(repository, id);
+	}
+
+	/**
+	 * Forgets that artifact is missing from any repository, e.g. after it was
+	 * deployed
+	 */
+	public void invalidate(ID id) {
+		for (Map<ID, Long> missingFromRepository : getMissingFromRepositories()) {
+			missingFromRepository.remove(id);
+		}
+	}
+
+	/**
+	 * Forgets all artifacts missing from repository, e.g. after it was updated
+	 */
+	public void invalidate(ArtifactRepository repository) {
+		missingArtifacts.remove(repository);
+	}
+
+	public void clear() {
+		missingArtifacts.clear();
+	}
+
+	public int size() {
+		int size = 0;
+		for (Map<ID, Long> missingFromRepository : getMissingFromRepositories()) {
+			size += missingFromRepository.size();
+		}
+		return size;
+	}
+
+	private List<Map<ID, Long>> getMissingFromRepositories() {
+		synchronized (missingArtifacts) {
+			return new ArrayList<>(missingArtifacts.values());
+		}
+	}
+
+	private static void expunge(Map<ID, Long> missingFromRepository) {
+		long now = System.nanoTime();
+
+		missingFromRepository.values().removeIf(expiry -> expiry.longValue() - now <= 0);
+	}
+}
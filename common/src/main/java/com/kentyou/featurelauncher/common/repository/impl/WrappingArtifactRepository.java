@@ -2,10 +2,12 @@ package com.kentyou.featurelauncher.common.repository.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.osgi.service.feature.ID;
 import org.osgi.service.featurelauncher.repository.ArtifactRepository;
@@ -25,6 +27,9 @@ public class WrappingArtifactRepository implements NamedArtifactRepository, File
 	private final Path localRepoPath;
 	
 	private final String name;
+
+	// artifacts the wrapped repository did not return, when it is not a file system one
+	private final Set<ID> missingArtifacts = ConcurrentHashMap.newKeySet();
 	
 	public WrappingArtifactRepository(ArtifactRepository toWrap, String name) {
 		Objects.requireNonNull(toWrap, "A repository must be supplied for wrapping");
@@ -72,32 +77,44 @@ public class WrappingArtifactRepository implements NamedArtifactRepository, File
 	
 	@Override
 	public InputStream getArtifact(ID id) {
-		return wrapped.getArtifact(id);
+		InputStream is = wrapped.getArtifact(id);
+		if(localRepoPath != null) {
+			if(is == null) {
+				missingArtifacts.add(id);
+			} else {
+				missingArtifacts.remove(id);
+			}
+		}
+		return is;
 	}
 
 	@Override
 	public Path getArtifactPath(ID id) {
-		if(localRepoPath != null) {
+		if(localRepoPath == null) {
 			return ((FileSystemArtifactRepository)wrapped).getArtifactPath(id);
 		} else {
+			Path p = getCachedArtifactPath(id);
+			String fileName = p.getFileName().toString();
+
+			// already cached
+			if(Files.isRegularFile(p)) {
+				return p;
+			}
+
 			InputStream is = getArtifact(id);
 			if(is == null) {
 				return null;
 			}
 			try(is) {
-				Path p = localRepoPath.resolve(id.getGroupId())
-						.resolve(id.getArtifactId())
-						.resolve(id.getVersion());
-				
-				Files.createDirectories(p);
-				
-				String fileName = "file" + 
-						id.getClassifier().map(c -> "-" + c).orElse("") +
-						id.getType().orElse("jar");
-
-				p = p.resolve(fileName);
-				try(OutputStream os = Files.newOutputStream(p)) {
-					is.transferTo(os);
+				Files.createDirectories(p.getParent());
+
+				// cached artifact is never seen partially written
+				Path tmp = Files.createTempFile(p.getParent(), fileName, ".tmp");
+				try {
+					Files.copy(is, tmp, StandardCopyOption.REPLACE_EXISTING);
+					Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING);
+				} finally {
+					Files.deleteIfExists(tmp);
 				}
 				return p;
 			} catch(IOException ioe) {
@@ -107,9 +124,41 @@ public class WrappingArtifactRepository implements NamedArtifactRepository, File
 		return null;
 	}
 
+	@Override
+	public Path getArtifactPathIfPresent(ID id) {
+		if(localRepoPath == null) {
+			return ((FileSystemArtifactRepository)wrapped).getArtifactPathIfPresent(id);
+		} else {
+			Path p = getCachedArtifactPath(id);
+			return Files.isRegularFile(p) ? p : null;
+		}
+	}
+
+	@Override
+	public boolean isArtifactMissing(ID id) {
+		if(localRepoPath == null) {
+			return ((FileSystemArtifactRepository)wrapped).isArtifactMissing(id);
+		} else {
+			// not cached yet does not tell whether wrapped repository holds artifact
+			return missingArtifacts.contains(id);
+		}
+	}
+
+	private Path getCachedArtifactPath(ID id) {
+		Path p = localRepoPath.resolve(id.getGroupId())
+				.resolve(id.getArtifactId())
+				.resolve(id.getVersion());
+
+		String fileName = "file" + 
+				id.getClassifier().map(c -> "-" + c).orElse("") +
+				id.getType().orElse("jar");
+
+		return p.resolve(fileName);
+	}
+
 	@Override
 	public Path getLocalRepositoryPath() {
-		if(localRepoPath != null) {
+		if(localRepoPath == null) {
 			return ((FileSystemArtifactRepository)wrapped).getLocalRepositoryPath();
 		} else {
 			return localRepoPath;
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.util.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.function.Consumer;
+
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParser.Event;
+
+/**
+ * Reads feature JSON, reporting IDs of feature bundles as soon as they are
+ * parsed, so that work on them (e.g. fetching artifacts) overlaps with reading
+ * rest of the feature.
+ *
+ * Feature itself is still read by {@link FeatureService}, from JSON captured
+ * while streaming; if streaming parser cannot handle the JSON, bundle IDs are
+ * simply not reported.
+ */
+public class StreamingFeatureReader {
+	private static final Logger LOG = LoggerFactory.getLogger(StreamingFeatureReader.class);
+
+	private static final String BUNDLES_KEY = "bundles";
+	private static final String BUNDLE_ID_KEY = "id";
+
+	private StreamingFeatureReader() {
+		// hidden constructor
+	}
+
+	public static Feature readFeature(FeatureService featureService, Reader jsonReader, Consumer<ID> bundleIdConsumer)
+			throws IOException {
+		CapturingReader capturingReader = new CapturingReader(jsonReader);
+
+		try (JsonParser parser = Json.createParser(capturingReader)) {
+			streamBundleIds(featureService, parser, bundleIdConsumer);
+		} catch (JsonException e) {
+			LOG.debug("Feature bundles could not be streamed, reading whole feature", e);
+		}
+
+		// remainder of JSON not consumed by streaming parser, if any
+		capturingReader.drain();
+
+		return featureService.readFeature(new StringReader(capturingReader.getCaptured()));
+	}
+
+	private static void streamBundleIds(FeatureService featureService, JsonParser parser,
+			Consumer<ID> bundleIdConsumer) {
+		int depth = 0;
+		String topLevelKey = null;
+		String bundleKey = null;
+
+		while (parser.hasNext()) {
+			Event event = parser.next();
+
+			switch (event) {
+			case START_OBJECT:
+			case START_ARRAY:
+				depth++;
+				break;
+			case END_OBJECT:
+			case END_ARRAY:
+				depth--;
+				if (depth == 1) {
+					topLevelKey = null;
+				}
+				break;
+			case KEY_NAME:
+				if (depth == 1) {
+					topLevelKey = parser.getString();
+				} else if (depth == 3) {
+					bundleKey = parser.getString();
+				}
+				break;
+			case VALUE_STRING:
+				if (BUNDLES_KEY.equals(topLevelKey)
+						&& ((depth == 2) || ((depth == 3) && BUNDLE_ID_KEY.equals(bundleKey)))) {
+					reportBundleId(featureService, parser.getString(), bundleIdConsumer);
+				}
+				break;
+			default:
+				break;
+			}
+		}
+	}
+
+	private static void reportBundleId(FeatureService featureService, String bundleId, Consumer<ID> bundleIdConsumer) {
+		try {
+			bundleIdConsumer.accept(featureService.getIDfromMavenCoordinates(bundleId));
+		} catch (IllegalArgumentException e) {
+			// reported when feature is read
+		}
+	}
+
+	/**
+	 * Keeps all characters read from wrapped reader
+	 */
+	private static class CapturingReader extends Reader {
+		private final Reader wrapped;
+		private final StringBuilder captured = new StringBuilder(8192);
+
+		CapturingReader(Reader wrapped) {
+			this.wrapped = wrapped;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.io.Reader#read(char[], int, int)
+		 */
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			int n = wrapped.read(cbuf, off, len);
+			if (n > 0) {
+				captured.append(cbuf, off, n);
+			}
+			return n;
+		}
+
+		void drain() throws IOException {
+			char[] buffer = new char[8192];
+			while (read(buffer, 0, buffer.length) != -1) {
+				// captured
+			}
+		}
+
+		String getCaptured() {
+			return captured.toString();
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.io.Reader#close()
+		 */
+		@Override
+		public void close() throws IOException {
+			// closed by caller of readFeature
+		}
+	}
+}
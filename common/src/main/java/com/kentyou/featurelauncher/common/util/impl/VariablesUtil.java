@@ -13,56 +13,206 @@
  */
 package com.kentyou.featurelauncher.common.util.impl;
 
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Util for variables substitution operations.
- * 
+ *
+ * Properties are parsed once into {@link PropertiesTemplate}s, cached for as
+ * long as the properties map itself is reachable, so that substitution cost is
+ * proportional to the number of placeholders rather than the number of
+ * properties.
+ *
  * @author Michael H. Siemaszko (mhs@into.software)
  * @since Nov 2, 2024
  */
 public class VariablesUtil {
 
 	private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\$\\{(.+?)\\}");
-	
+
+	private static final Map<IdentityKey, PropertiesTemplate> TEMPLATES = new ConcurrentHashMap<>();
+	private static final ReferenceQueue<Map<String, Object>> EXPIRED_PROPERTIES = new ReferenceQueue<>();
+
+	/**
+	 * Substitutes variables in string property values.
+	 *
+	 * Returns given properties map itself if none of its values contain
+	 * placeholders, or if there are no variables; callers must not modify returned
+	 * map.
+	 */
 	public static Map<String, Object> maybeSubstituteVariables(Map<String, Object> properties, Map<String, Object> variables) throws IllegalArgumentException {
-		if (!properties.isEmpty() && !variables.isEmpty()) {
-			Map<String, Object> substituted = new HashMap<>();
-
-			for (Map.Entry<String, Object> propertyEntry : properties.entrySet()) {
-				String propertyName = propertyEntry.getKey();
-
-				Object rawPropertyValue = propertyEntry.getValue();
-				
-				if (rawPropertyValue instanceof String s) {
-					Matcher matcher = PLACEHOLDER_PATTERN.matcher(s);
-					StringBuilder sb = new StringBuilder();
-					int from = 0;
-					while(matcher.find()) {
-						sb.append(s, from, matcher.start());
-						String name = matcher.group(1);
-						if(!variables.containsKey(name)) {
-							throw new IllegalArgumentException("There is no variable defined for name " + name);
-						}
-						sb.append(variables.get(name));
-						from = matcher.end();
-					}
-					if(s.length() > from) {
-						sb.append(s, from, s.length());
-					}
-					substituted.put(propertyName, sb.toString());
-				} else {
-					substituted.put(propertyName, rawPropertyValue);
+		if (properties.isEmpty() || variables.isEmpty()) {
+			return properties;
+		}
+
+		return getTemplate(properties).substitute(properties, variables);
+	}
+
+	/**
+	 * Returns template for given properties, parsing them only on first use of
+	 * that properties map instance
+	 */
+	private static PropertiesTemplate getTemplate(Map<String, Object> properties) {
+		expungeExpiredTemplates();
+
+		IdentityKey key = new IdentityKey(properties, null);
+
+		PropertiesTemplate template = TEMPLATES.get(key);
+		if (template == null) {
+			template = compile(properties);
+			TEMPLATES.putIfAbsent(new IdentityKey(properties, EXPIRED_PROPERTIES), template);
+		}
+
+		return template;
+	}
+
+	private static PropertiesTemplate compile(Map<String, Object> properties) {
+		List<PropertyTemplate> propertyTemplates = new ArrayList<>();
+
+		for (Map.Entry<String, Object> propertyEntry : properties.entrySet()) {
+			if (propertyEntry.getValue() instanceof String s) {
+				Matcher matcher = PLACEHOLDER_PATTERN.matcher(s);
+
+				List<String> literals = new ArrayList<>();
+				List<String> variableNames = new ArrayList<>();
+				int from = 0;
+				while (matcher.find()) {
+					literals.add(s.substring(from, matcher.start()));
+					variableNames.add(matcher.group(1));
+					from = matcher.end();
 				}
 
+				if (!variableNames.isEmpty()) {
+					literals.add(s.substring(from));
+
+					propertyTemplates.add(new PropertyTemplate(propertyEntry.getKey(), literals.toArray(String[]::new),
+							variableNames.toArray(String[]::new), s.length()));
+				}
+			}
+		}
+
+		return new PropertiesTemplate(propertyTemplates.toArray(PropertyTemplate[]::new));
+	}
+
+	/**
+	 * Whether template of given properties map instance is cached, for tests
+	 */
+	static boolean isTemplateCached(Map<String, Object> properties) {
+		return TEMPLATES.containsKey(new IdentityKey(properties, null));
+	}
+
+	private static void expungeExpiredTemplates() {
+		Object expired;
+		while ((expired = EXPIRED_PROPERTIES.poll()) != null) {
+			TEMPLATES.remove(expired);
+		}
+	}
+
+	/**
+	 * Properties pre-split into literal and placeholder segments; does not
+	 * reference properties it was parsed from, so that cached templates do not
+	 * keep them reachable
+	 */
+	private static final class PropertiesTemplate {
+		private final PropertyTemplate[] propertyTemplates;
+
+		PropertiesTemplate(PropertyTemplate[] propertyTemplates) {
+			this.propertyTemplates = propertyTemplates;
+		}
+
+		/**
+		 * Returns properties with placeholders replaced by variable values, or
+		 * given properties map itself if there are no placeholders
+		 */
+		Map<String, Object> substitute(Map<String, Object> properties, Map<String, Object> variables) {
+			if (propertyTemplates.length == 0) {
+				return properties;
+			}
+
+			Map<String, Object> substituted = new HashMap<>(properties);
+
+			for (PropertyTemplate propertyTemplate : propertyTemplates) {
+				substituted.put(propertyTemplate.name, propertyTemplate.substitute(variables));
 			}
 
 			return substituted;
 		}
+	}
+
+	private static final class PropertyTemplate {
+		private final String name;
+		private final String[] literals;
+		private final String[] variableNames;
+		private final int sizeHint;
+
+		PropertyTemplate(String name, String[] literals, String[] variableNames, int sizeHint) {
+			this.name = name;
+			this.literals = literals;
+			this.variableNames = variableNames;
+			this.sizeHint = sizeHint;
+		}
 
-		return new HashMap<>(properties);
+		String substitute(Map<String, Object> variables) {
+			StringBuilder sb = new StringBuilder(sizeHint);
+
+			for (int i = 0; i < variableNames.length; i++) {
+				sb.append(literals[i]);
+
+				String variableName = variableNames[i];
+				Object variableValue = variables.get(variableName);
+				if (variableValue == null && !variables.containsKey(variableName)) {
+					throw new IllegalArgumentException("There is no variable defined for name " + variableName);
+				}
+				sb.append(variableValue);
+			}
+
+			return sb.append(literals[variableNames.length]).toString();
+		}
+	}
+
+	/**
+	 * Weak, identity based key, so that templates are cached per properties map
+	 * instance without computing hash of its contents
+	 */
+	private static final class IdentityKey extends WeakReference<Map<String, Object>> {
+		private final int hash;
+
+		IdentityKey(Map<String, Object> properties, ReferenceQueue<Map<String, Object>> queue) {
+			super(properties, queue);
+			this.hash = System.identityHashCode(properties);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof IdentityKey other)) {
+				return false;
+			}
+			Object referent = get();
+			return referent != null && referent == other.get();
+		}
 	}
 }
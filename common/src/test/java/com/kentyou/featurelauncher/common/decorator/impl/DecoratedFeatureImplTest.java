@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.decorator.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureBundle;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.common.decorator.impl.DecoratedFeatureImpl}
+ */
+public class DecoratedFeatureImplTest {
+	FeatureService featureService;
+
+	Feature feature;
+
+	@BeforeEach
+	public void setUp() {
+		featureService = ServiceLoaderUtil.loadFeatureService();
+
+		feature = featureService.getBuilderFactory()
+				.newFeatureBuilder(featureService.getIDfromMavenCoordinates("com.example:feature:1.0"))
+				.setName("feature").setComplete(true)
+				.addBundles(featureService.getBuilderFactory()
+						.newBundleBuilder(featureService.getIDfromMavenCoordinates("com.example:bundle:1.0")).build())
+				.addVariable("v", "1").build();
+	}
+
+	@Test
+	public void testEqualToUndecoratedFeature() {
+		Feature decoratedFeature = new DecoratedFeatureImpl(feature, feature.getID(), null, null, null, null);
+
+		assertEquals(decoratedFeature, feature);
+		assertEquals(feature.hashCode(), decoratedFeature.hashCode());
+
+		// copied sections with same content
+		Feature copiedFeature = new DecoratedFeatureImpl(feature, feature.getID(), List.copyOf(feature.getBundles()),
+				Map.copyOf(feature.getConfigurations()), Map.copyOf(feature.getExtensions()),
+				Map.copyOf(feature.getVariables()));
+
+		assertEquals(decoratedFeature, copiedFeature);
+		assertEquals(copiedFeature, decoratedFeature);
+		assertEquals(decoratedFeature.hashCode(), copiedFeature.hashCode());
+	}
+
+	@Test
+	public void testNotEqualToDifferentFeature() {
+		Feature decoratedFeature = new DecoratedFeatureImpl(feature, feature.getID(), null, null, null, null);
+
+		FeatureBundle otherBundle = featureService.getBuilderFactory()
+				.newBundleBuilder(featureService.getIDfromMavenCoordinates("com.example:other:1.0")).build();
+		Feature otherBundlesFeature = new DecoratedFeatureImpl(feature, feature.getID(), List.of(otherBundle), null,
+				null, null);
+		assertNotEquals(decoratedFeature, otherBundlesFeature);
+		assertNotEquals(otherBundlesFeature, feature);
+
+		ID otherId = featureService.getIDfromMavenCoordinates("com.example:feature:2.0");
+		assertNotEquals(decoratedFeature, new DecoratedFeatureImpl(feature, otherId, null, null, null, null));
+
+		assertNotEquals(decoratedFeature, null);
+		assertNotEquals(decoratedFeature, feature.getID());
+	}
+
+	@Test
+	public void testHashCodeComputedOnce() {
+		Feature originalFeature = mock(Feature.class);
+		when(originalFeature.getName()).thenReturn(Optional.of("feature"));
+		when(originalFeature.getBundles()).thenReturn(List.of());
+
+		Feature decoratedFeature = new DecoratedFeatureImpl(originalFeature, feature.getID(), null, Map.of(), Map.of(),
+				Map.of());
+
+		int hashCode = decoratedFeature.hashCode();
+		assertEquals(hashCode, decoratedFeature.hashCode());
+
+		verify(originalFeature, times(1)).getName();
+		verify(originalFeature, times(1)).getBundles();
+	}
+}
@@ -0,0 +1,175 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.decorator.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.featurelauncher.decorator.AbandonOperationException;
+import org.osgi.service.featurelauncher.decorator.DecoratorBuilderFactory;
+import org.osgi.service.featurelauncher.decorator.FeatureDecorator;
+
+import com.kentyou.featurelauncher.common.decorator.DeterministicDecoration;
+import com.kentyou.featurelauncher.common.decorator.impl.DecorationCache.Stage;
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.common.decorator.impl.DecorationCache}
+ */
+public class DecorationCacheTest {
+	FeatureService featureService;
+
+	Feature feature;
+
+	Feature decoratedFeature;
+
+	@BeforeEach
+	public void setUp() {
+		featureService = ServiceLoaderUtil.loadFeatureService();
+
+		feature = createFeature("com.example:feature:1.0");
+		decoratedFeature = createFeature("com.example:decorated:1.0");
+	}
+
+	@Test
+	public void testHitAndMiss() {
+		DecorationCache decorationCache = new DecorationCache();
+		Object participant = new Object();
+		Object otherParticipant = new Object();
+
+		assertNull(decorationCache.get(Stage.DECORATORS, feature, List.of(participant)));
+
+		decorationCache.put(Stage.DECORATORS, feature, Arrays.asList(participant, null), decoratedFeature);
+		assertEquals(1, decorationCache.size());
+
+		// equal feature content is a hit
+		assertSame(decoratedFeature, decorationCache.get(Stage.DECORATORS, createFeature("com.example:feature:1.0"),
+				Arrays.asList(participant, null)));
+
+		// participants are compared by identity and position
+		assertNull(decorationCache.get(Stage.DECORATORS, feature, Arrays.asList(otherParticipant, null)));
+		assertNull(decorationCache.get(Stage.DECORATORS, feature, Arrays.asList(null, participant)));
+		assertNull(decorationCache.get(Stage.DECORATORS, feature, List.of(participant)));
+
+		// stage and feature are part of key
+		assertNull(decorationCache.get(Stage.EXTENSION_HANDLERS, feature, Arrays.asList(participant, null)));
+		assertNull(decorationCache.get(Stage.DECORATORS, createFeature("com.example:feature:2.0"),
+				Arrays.asList(participant, null)));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvicted() {
+		DecorationCache decorationCache = new DecorationCache(2);
+		Object participant = new Object();
+		Feature otherFeature = createFeature("com.example:other:1.0");
+		Feature thirdFeature = createFeature("com.example:third:1.0");
+
+		decorationCache.put(Stage.DECORATORS, feature, List.of(participant), decoratedFeature);
+		decorationCache.put(Stage.DECORATORS, otherFeature, List.of(participant), decoratedFeature);
+		decorationCache.get(Stage.DECORATORS, feature, List.of(participant));
+		decorationCache.put(Stage.DECORATORS, thirdFeature, List.of(participant), decoratedFeature);
+
+		assertEquals(2, decorationCache.size());
+		assertSame(decoratedFeature, decorationCache.get(Stage.DECORATORS, feature, List.of(participant)));
+		assertNull(decorationCache.get(Stage.DECORATORS, otherFeature, List.of(participant)));
+
+		decorationCache.clear();
+		assertEquals(0, decorationCache.size());
+		assertNull(decorationCache.get(Stage.DECORATORS, feature, List.of(participant)));
+
+		assertThrows(IllegalArgumentException.class, () -> new DecorationCache(0));
+	}
+
+	@Test
+	public void testEntriesDroppedWhenParticipantCollected() throws InterruptedException {
+		DecorationCache decorationCache = new DecorationCache();
+		Object retainedParticipant = new Object();
+
+		decorationCache.put(Stage.DECORATORS, feature, List.of(retainedParticipant), decoratedFeature);
+		decorationCache.put(Stage.DECORATORS, feature, List.of(retainedParticipant, new Object()), decoratedFeature);
+		assertEquals(2, decorationCache.size());
+
+		for (int i = 0; i < 100 && decorationCache.size() > 1; i++) {
+			System.gc();
+			Thread.sleep(10L);
+		}
+
+		assertEquals(1, decorationCache.size());
+		assertSame(decoratedFeature, decorationCache.get(Stage.DECORATORS, feature, List.of(retainedParticipant)));
+	}
+
+	@Test
+	public void testOnlyDeterministicParticipantsCacheable() {
+		assertTrue(DecorationCache.isCacheable(Arrays.asList(new DeterministicDecorator(new AtomicInteger()), null)));
+		assertFalse(DecorationCache.isCacheable(List.of(new DeterministicDecorator(new AtomicInteger()),
+				(FeatureDecorator) (f, b, factory) -> f)));
+	}
+
+	@Test
+	public void testDecoratorsExecutedOnceAcrossContexts() throws AbandonOperationException {
+		DecorationCache decorationCache = new DecorationCache();
+		AtomicInteger decorations = new AtomicInteger();
+		List<FeatureDecorator> decorators = List.of(new DeterministicDecorator(decorations));
+
+		Feature first = new DecorationContext(List.of(), decorationCache).executeFeatureDecorators(featureService,
+				feature, decorators);
+		Feature second = new DecorationContext(List.of(), decorationCache).executeFeatureDecorators(featureService,
+				createFeature("com.example:feature:1.0"), decorators);
+
+		assertSame(first, second);
+		assertEquals(1, decorations.get());
+
+		// other decorator instance is executed
+		new DecorationContext(List.of(), decorationCache).executeFeatureDecorators(featureService, feature,
+				List.of(new DeterministicDecorator(decorations)));
+		assertEquals(2, decorations.get());
+
+		// without cache, decorators are always executed
+		new DecorationContext(List.of()).executeFeatureDecorators(featureService, feature, decorators);
+		assertEquals(3, decorations.get());
+	}
+
+	private Feature createFeature(String mavenCoordinates) {
+		return featureService.getBuilderFactory()
+				.newFeatureBuilder(featureService.getIDfromMavenCoordinates(mavenCoordinates)).build();
+	}
+
+	private static class DeterministicDecorator implements FeatureDecorator, DeterministicDecoration {
+		private final AtomicInteger decorations;
+
+		DeterministicDecorator(AtomicInteger decorations) {
+			this.decorations = decorations;
+		}
+
+		@Override
+		public Feature decorate(Feature feature, FeatureDecoratorBuilder decoratedFeatureBuilder,
+				DecoratorBuilderFactory factory) throws AbandonOperationException {
+			decorations.incrementAndGet();
+			return decoratedFeatureBuilder.setVariables(Map.of("decorated", Boolean.TRUE)).build();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.decorator.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests
+ * {@link com.kentyou.featurelauncher.common.decorator.impl.DecorationContext#readFeatureExtensionJSON(String)}
+ */
+public class DecorationContextTest {
+
+	@Test
+	public void testSameContentReadOnce() {
+		String json = uniqueJSON("\"k\": \"v\"");
+
+		Map<String, Object> properties = DecorationContext.readFeatureExtensionJSON(json);
+		assertEquals("v", properties.get("k"));
+
+		assertSame(properties, DecorationContext.readFeatureExtensionJSON(new String(json)));
+
+		// different content is read separately
+		assertNotSame(properties, DecorationContext.readFeatureExtensionJSON(uniqueJSON("\"k\": \"v\"")));
+	}
+
+	@Test
+	public void testNestedValuesUnmodifiable() {
+		Map<String, Object> properties = DecorationContext.readFeatureExtensionJSON(
+				uniqueJSON("\"object\": {\"a\": [1, \"b\", {\"c\": true}]}, \"bool\": false, \"nothing\": null"));
+
+		assertEquals(Boolean.FALSE, properties.get("bool"));
+		assertTrue(properties.containsKey("nothing"));
+		assertNull(properties.get("nothing"));
+
+		Map<?, ?> object = assertInstanceOf(Map.class, properties.get("object"));
+		List<?> array = assertInstanceOf(List.class, object.get("a"));
+		assertEquals(List.of(1, "b", Map.of("c", Boolean.TRUE)), array);
+
+		assertThrows(UnsupportedOperationException.class, () -> properties.put("k", "v"));
+		assertThrows(UnsupportedOperationException.class, () -> object.remove("a"));
+		assertThrows(UnsupportedOperationException.class, () -> array.remove(0));
+		assertThrows(UnsupportedOperationException.class, () -> ((Map<?, ?>) array.get(2)).clear());
+	}
+
+	@Test
+	public void testNumbers() {
+		Map<String, Object> properties = DecorationContext.readFeatureExtensionJSON(uniqueJSON(
+				"\"int\": 1, \"intFraction\": 2.0, \"zero\": 0.00, \"long\": 1099511627776, \"bigInteger\": 1180591620717411303424, "
+						+ "\"double\": 1.5, \"exponent\": 1e-3, \"bigDecimal\": 0.12345678901234567890123"));
+
+		assertEquals(Integer.valueOf(1), properties.get("int"));
+		assertEquals(Integer.valueOf(2), properties.get("intFraction"));
+		assertEquals(Integer.valueOf(0), properties.get("zero"));
+		assertEquals(Long.valueOf(1L << 40), properties.get("long"));
+		assertEquals(BigInteger.ONE.shiftLeft(70), properties.get("bigInteger"));
+		assertEquals(Double.valueOf(1.5), properties.get("double"));
+		assertEquals(Double.valueOf(0.001), properties.get("exponent"));
+		assertEquals(new BigDecimal("0.12345678901234567890123"), properties.get("bigDecimal"));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEvicted() {
+		String recentlyUsedJSON = uniqueJSON("\"k\": 1");
+		Map<String, Object> recentlyUsed = DecorationContext.readFeatureExtensionJSON(recentlyUsedJSON);
+
+		String leastRecentlyUsedJSON = uniqueJSON("\"k\": 2");
+		Map<String, Object> leastRecentlyUsed = DecorationContext.readFeatureExtensionJSON(leastRecentlyUsedJSON);
+
+		for (int i = 0; i < 255; i++) {
+			DecorationContext.readFeatureExtensionJSON(uniqueJSON("\"k\": 3"));
+			assertSame(recentlyUsed, DecorationContext.readFeatureExtensionJSON(recentlyUsedJSON));
+		}
+
+		// cache is full, one more entry evicts least recently used
+		DecorationContext.readFeatureExtensionJSON(uniqueJSON("\"k\": 4"));
+
+		assertSame(recentlyUsed, DecorationContext.readFeatureExtensionJSON(recentlyUsedJSON));
+
+		Map<String, Object> reread = DecorationContext.readFeatureExtensionJSON(leastRecentlyUsedJSON);
+		assertNotSame(leastRecentlyUsed, reread);
+		assertEquals(leastRecentlyUsed, reread);
+	}
+
+	@Test
+	public void testInvalidJSONNotCached() {
+		String json = "{\"k\": ";
+
+		assertThrows(RuntimeException.class, () -> DecorationContext.readFeatureExtensionJSON(json));
+		assertThrows(RuntimeException.class, () -> DecorationContext.readFeatureExtensionJSON(json));
+	}
+
+	private static String uniqueJSON(String members) {
+		return "{\"id\": \"" + UUID.randomUUID() + "\", " + members + "}";
+	}
+}
@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+import org.osgi.service.featurelauncher.repository.ArtifactRepository;
+
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+import com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.common.repository.impl.ArtifactPrefetcher}
+ */
+public class ArtifactPrefetcherTest {
+	FeatureService featureService;
+
+	ID idA;
+
+	ID idB;
+
+	@BeforeEach
+	public void setUp() {
+		featureService = ServiceLoaderUtil.loadFeatureService();
+
+		idA = featureService.getIDfromMavenCoordinates("com.example:a:1.0");
+		idB = featureService.getIDfromMavenCoordinates("com.example:b:1.0");
+	}
+
+	@Test
+	public void testQueuedUntilStarted() {
+		RecordingRepository repository = new RecordingRepository(Map.of(idA, Path.of("a.jar"), idB, Path.of("b.jar")));
+		ArtifactPrefetcher artifactPrefetcher = new ArtifactPrefetcher();
+
+		artifactPrefetcher.add(idA);
+		artifactPrefetcher.add(idB);
+		artifactPrefetcher.add(idA);
+		artifactPrefetcher.awaitAll();
+		assertEquals(List.of(), repository.requests);
+
+		artifactPrefetcher.start(List.of(repository));
+		artifactPrefetcher.awaitAll();
+		assertEquals(List.of(List.of(idA, idB)), repository.requests);
+
+		// added after start is fetched right away, already fetched is not fetched again
+		ID idC = featureService.getIDfromMavenCoordinates("com.example:c:1.0");
+		artifactPrefetcher.add(idC);
+		artifactPrefetcher.add(idA);
+		artifactPrefetcher.await(idC);
+		assertEquals(List.of(List.of(idA, idB), List.of(idC)), repository.requests);
+
+		// started once only
+		RecordingRepository otherRepository = new RecordingRepository(Map.of());
+		artifactPrefetcher.start(List.of(otherRepository));
+		artifactPrefetcher.add(featureService.getIDfromMavenCoordinates("com.example:d:1.0"));
+		artifactPrefetcher.awaitAll();
+		assertEquals(List.of(), otherRepository.requests);
+	}
+
+	@Test
+	public void testNotStartedWithoutFileSystemRepositories() {
+		ArtifactRepository streamRepository = mock(ArtifactRepository.class);
+		RecordingRepository repository = new RecordingRepository(Map.of(idA, Path.of("a.jar")));
+		ArtifactPrefetcher artifactPrefetcher = new ArtifactPrefetcher();
+
+		artifactPrefetcher.add(idA);
+		artifactPrefetcher.start(List.of(streamRepository));
+		artifactPrefetcher.awaitAll();
+		verifyNoInteractions(streamRepository);
+
+		// still queued, for repositories given later
+		artifactPrefetcher.start(List.of(streamRepository, repository));
+		artifactPrefetcher.awaitAll();
+		assertEquals(List.of(List.of(idA)), repository.requests);
+	}
+
+	@Test
+	public void testRepositoriesChainedAndMissesRecorded() {
+		RecordingRepository first = new RecordingRepository(Map.of(idA, Path.of("a.jar")));
+		RecordingRepository second = new RecordingRepository(Map.of(idB, Path.of("b.jar")));
+		MissingArtifactCache missingArtifactCache = new MissingArtifactCache(60_000L);
+
+		ArtifactPrefetcher artifactPrefetcher = new ArtifactPrefetcher(missingArtifactCache);
+		artifactPrefetcher.add(idA);
+		artifactPrefetcher.add(idB);
+		artifactPrefetcher.start(List.of(first, second));
+		artifactPrefetcher.awaitAll();
+
+		assertEquals(List.of(List.of(idA, idB)), first.requests);
+		assertEquals(List.of(List.of(idB)), second.requests);
+		assertEquals(1, missingArtifactCache.size());
+
+		// known miss is not requested from first repository again
+		ArtifactPrefetcher otherArtifactPrefetcher = new ArtifactPrefetcher(missingArtifactCache);
+		otherArtifactPrefetcher.add(idB);
+		otherArtifactPrefetcher.start(List.of(first, second));
+		otherArtifactPrefetcher.awaitAll();
+
+		assertEquals(List.of(List.of(idA, idB)), first.requests);
+		assertEquals(List.of(List.of(idB), List.of(idB)), second.requests);
+	}
+
+	@Test
+	public void testTransientFailuresNotRecorded() {
+		RecordingRepository failing = new RecordingRepository(Map.of()) {
+			@Override
+			public boolean isArtifactMissing(ID id) {
+				// e.g. remote repository could not be reached
+				return false;
+			}
+		};
+		RecordingRepository second = new RecordingRepository(Map.of(idA, Path.of("a.jar")));
+		MissingArtifactCache missingArtifactCache = new MissingArtifactCache(60_000L);
+
+		ArtifactPrefetcher artifactPrefetcher = new ArtifactPrefetcher(missingArtifactCache);
+		artifactPrefetcher.add(idA);
+		artifactPrefetcher.start(List.of(failing, second));
+		artifactPrefetcher.awaitAll();
+
+		assertEquals(List.of(List.of(idA)), second.requests);
+		assertEquals(0, missingArtifactCache.size());
+		assertFalse(missingArtifactCache.isMissing(failing, idA));
+	}
+
+	@Test
+	public void testFailureDoesNotPropagate() {
+		FileSystemArtifactRepository repository = mock(FileSystemArtifactRepository.class);
+		when(repository.getArtifactPaths(any())).thenThrow(new IllegalStateException("unreachable"));
+
+		ArtifactPrefetcher artifactPrefetcher = new ArtifactPrefetcher();
+		artifactPrefetcher.add(idA);
+		artifactPrefetcher.start(List.of(repository));
+
+		// caller fetches artifact again and reports failure itself
+		artifactPrefetcher.awaitAll();
+		verify(repository, timeout(10_000L)).getArtifactPaths(List.of(idA));
+	}
+
+	@Test
+	public void testFiltered() {
+		ID idC = featureService.getIDfromMavenCoordinates("com.example:c:1.0");
+		RecordingRepository repository = new RecordingRepository(
+				Map.of(idA, Path.of("a.jar"), idB, Path.of("b.jar"), idC, Path.of("c.jar")));
+
+		ArtifactPrefetcher artifactPrefetcher = new ArtifactPrefetcher();
+		artifactPrefetcher.add(idA);
+		artifactPrefetcher.add(idB);
+		artifactPrefetcher.start(List.of(repository), id -> !idB.equals(id) && !idC.equals(id));
+		artifactPrefetcher.add(idC);
+		artifactPrefetcher.awaitAll();
+
+		// filtered artifacts are neither queued nor added ones
+		assertEquals(List.of(List.of(idA)), repository.requests);
+	}
+
+	@Test
+	public void testCancelledBeforeStart() {
+		FileSystemArtifactRepository repository = mock(FileSystemArtifactRepository.class);
+
+		ArtifactPrefetcher artifactPrefetcher = new ArtifactPrefetcher();
+		artifactPrefetcher.add(idA);
+		artifactPrefetcher.cancel();
+		artifactPrefetcher.start(List.of(repository));
+		artifactPrefetcher.awaitAll();
+
+		verify(repository, never()).getArtifactPaths(any());
+	}
+
+	/**
+	 * Repository recording batches of artifacts requested
+	 */
+	static class RecordingRepository implements FileSystemArtifactRepository {
+		final Map<ID, Path> artifactPaths;
+
+		final List<List<ID>> requests = new CopyOnWriteArrayList<>();
+
+		RecordingRepository(Map<ID, Path> artifactPaths) {
+			this.artifactPaths = artifactPaths;
+		}
+
+		@Override
+		public Map<ID, Path> getArtifactPaths(Collection<ID> ids) {
+			requests.add(new ArrayList<>(ids));
+			return FileSystemArtifactRepository.super.getArtifactPaths(ids);
+		}
+
+		@Override
+		public Path getArtifactPath(ID id) {
+			return artifactPaths.get(id);
+		}
+
+		@Override
+		public InputStream getArtifact(ID id) {
+			return null;
+		}
+
+		@Override
+		public Path getLocalRepositoryPath() {
+			return Path.of(".");
+		}
+	}
+}
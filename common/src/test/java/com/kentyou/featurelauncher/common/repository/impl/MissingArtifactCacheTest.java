@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.repository.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+import org.osgi.service.featurelauncher.repository.ArtifactRepository;
+
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+import com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.common.repository.impl.MissingArtifactCache}
+ */
+public class MissingArtifactCacheTest {
+	ID idA;
+
+	ID idB;
+
+	ArtifactRepository repository;
+
+	ArtifactRepository otherRepository;
+
+	@BeforeEach
+	public void setUp() {
+		FeatureService featureService = ServiceLoaderUtil.loadFeatureService();
+
+		idA = featureService.getIDfromMavenCoordinates("com.example:a:1.0");
+		idB = featureService.getIDfromMavenCoordinates("com.example:b:1.0");
+
+		repository = mock(ArtifactRepository.class);
+		otherRepository = mock(ArtifactRepository.class);
+	}
+
+	@Test
+	public void testMissingPerRepository() {
+		MissingArtifactCache missingArtifactCache = new MissingArtifactCache(60_000L);
+
+		missingArtifactCache.markMissing(repository, idA);
+
+		assertTrue(missingArtifactCache.isMissing(repository, idA));
+		assertFalse(missingArtifactCache.isMissing(repository, idB));
+		assertFalse(missingArtifactCache.isMissing(otherRepository, idA));
+		assertEquals(1, missingArtifactCache.size());
+	}
+
+	@Test
+	public void testEntriesExpire() throws InterruptedException {
+		MissingArtifactCache missingArtifactCache = new MissingArtifactCache(1L);
+
+		missingArtifactCache.markMissing(repository, idA);
+		Thread.sleep(10L);
+
+		assertFalse(missingArtifactCache.isMissing(repository, idA));
+		assertEquals(0, missingArtifactCache.size());
+	}
+
+	@Test
+	public void testInvalidation() {
+		MissingArtifactCache missingArtifactCache = new MissingArtifactCache(60_000L);
+
+		missingArtifactCache.markMissing(repository, idA);
+		missingArtifactCache.markMissing(repository, idB);
+		missingArtifactCache.markMissing(otherRepository, idA);
+
+		missingArtifactCache.invalidate(idA);
+		assertFalse(missingArtifactCache.isMissing(repository, idA));
+		assertFalse(missingArtifactCache.isMissing(otherRepository, idA));
+		assertTrue(missingArtifactCache.isMissing(repository, idB));
+
+		missingArtifactCache.markMissing(otherRepository, idB);
+		missingArtifactCache.invalidate(repository);
+		assertFalse(missingArtifactCache.isMissing(repository, idB));
+		assertTrue(missingArtifactCache.isMissing(otherRepository, idB));
+
+		missingArtifactCache.clear();
+		assertEquals(0, missingArtifactCache.size());
+	}
+
+	@Test
+	public void testDisabled() {
+		MissingArtifactCache missingArtifactCache = new MissingArtifactCache(0L);
+		FileSystemArtifactRepository fileSystemRepository = mock(FileSystemArtifactRepository.class);
+
+		missingArtifactCache.markMissing(repository, idA);
+		missingArtifactCache.markMissingIfDefinite(fileSystemRepository, idA);
+
+		assertFalse(missingArtifactCache.isMissing(repository, idA));
+		assertEquals(0, missingArtifactCache.size());
+		verifyNoInteractions(fileSystemRepository);
+
+		assertThrows(IllegalArgumentException.class, () -> new MissingArtifactCache(-1L));
+	}
+
+	@Test
+	public void testOnlyDefiniteMissesRecorded() {
+		MissingArtifactCache missingArtifactCache = new MissingArtifactCache(60_000L);
+		FileSystemArtifactRepository fileSystemRepository = mock(FileSystemArtifactRepository.class);
+		when(fileSystemRepository.isArtifactMissing(idA)).thenReturn(Boolean.TRUE);
+		when(fileSystemRepository.isArtifactMissing(idB)).thenReturn(Boolean.FALSE);
+
+		missingArtifactCache.markMissingIfDefinite(fileSystemRepository, idA);
+		missingArtifactCache.markMissingIfDefinite(fileSystemRepository, idB);
+
+		assertTrue(missingArtifactCache.isMissing(fileSystemRepository, idA));
+		assertFalse(missingArtifactCache.isMissing(fileSystemRepository, idB));
+
+		// lookups of other repositories only return null if artifact was not found
+		missingArtifactCache.markMissingIfDefinite(repository, idB);
+		assertTrue(missingArtifactCache.isMissing(repository, idB));
+	}
+}
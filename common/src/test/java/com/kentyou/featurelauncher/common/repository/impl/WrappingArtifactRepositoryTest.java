@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.repository.impl;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+import org.osgi.service.featurelauncher.repository.ArtifactRepository;
+
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+import com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository;
+
+/**
+ * Tests caching and delegation of
+ * {@link com.kentyou.featurelauncher.common.repository.impl.WrappingArtifactRepository}
+ */
+public class WrappingArtifactRepositoryTest {
+	@TempDir
+	Path tempDir;
+
+	ID idA;
+
+	ID idMissing;
+
+	@BeforeEach
+	public void setUp() {
+		FeatureService featureService = ServiceLoaderUtil.loadFeatureService();
+
+		idA = featureService.getIDfromMavenCoordinates("com.example:a:1.0");
+		idMissing = featureService.getIDfromMavenCoordinates("com.example:missing:1.0");
+	}
+
+	@Test
+	public void testStreamRepositoryArtifactsCached() throws IOException {
+		ArtifactRepository streamRepository = mock(ArtifactRepository.class);
+		when(streamRepository.getArtifact(idA)).thenAnswer(i -> new ByteArrayInputStream("a".getBytes(UTF_8)));
+
+		WrappingArtifactRepository repository = new WrappingArtifactRepository(streamRepository, "stream");
+
+		Path artifactPath = repository.getArtifactPath(idA);
+		assertTrue(artifactPath.startsWith(repository.getLocalRepositoryPath()));
+		assertEquals("a", Files.readString(artifactPath));
+
+		// cached after first lookup, without leftover temporary files
+		assertEquals(artifactPath, repository.getArtifactPath(idA));
+		assertEquals(artifactPath, repository.getArtifactPathIfPresent(idA));
+		verify(streamRepository, times(1)).getArtifact(idA);
+		try (Stream<Path> cachedFiles = Files.list(artifactPath.getParent())) {
+			assertEquals(List.of(artifactPath), cachedFiles.toList());
+		}
+
+		// not known to be missing before wrapped repository was asked
+		assertNull(repository.getArtifactPathIfPresent(idMissing));
+		assertFalse(repository.isArtifactMissing(idMissing));
+		assertNull(repository.getArtifactPath(idMissing));
+		assertTrue(repository.isArtifactMissing(idMissing));
+		assertFalse(repository.isArtifactMissing(idA));
+	}
+
+	@Test
+	public void testFileSystemRepositoryDelegatedTo() throws IOException {
+		Path artifactPath = tempDir.resolve("a-1.0.jar");
+		Files.writeString(artifactPath, "a");
+
+		FileSystemArtifactRepository fileSystemRepository = mock(FileSystemArtifactRepository.class);
+		when(fileSystemRepository.getArtifactPath(idA)).thenReturn(artifactPath);
+		when(fileSystemRepository.getLocalRepositoryPath()).thenReturn(tempDir);
+
+		WrappingArtifactRepository repository = new WrappingArtifactRepository(fileSystemRepository, "fs");
+
+		assertEquals(artifactPath, repository.getArtifactPath(idA));
+		assertEquals(tempDir, repository.getLocalRepositoryPath());
+	}
+}
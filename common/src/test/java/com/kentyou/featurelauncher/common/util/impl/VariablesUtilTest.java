@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.common.util.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.common.util.impl.VariablesUtil}
+ */
+public class VariablesUtilTest {
+
+	@Test
+	public void testSubstitution() {
+		Map<String, Object> properties = Map.of("plain", "value", "single", "${a}", "mixed", "x-${a}-${b}-y",
+				"number", Integer.valueOf(1), "unterminated", "${a");
+
+		Map<String, Object> substituted = VariablesUtil.maybeSubstituteVariables(properties,
+				Map.of("a", "1", "b", Boolean.TRUE));
+
+		assertEquals(Map.of("plain", "value", "single", "1", "mixed", "x-1-true-y", "number", Integer.valueOf(1),
+				"unterminated", "${a"), substituted);
+	}
+
+	@Test
+	public void testNullVariableValue() {
+		Map<String, Object> variables = new HashMap<>();
+		variables.put("a", null);
+
+		assertEquals(Map.of("k", "null"), VariablesUtil.maybeSubstituteVariables(Map.of("k", "${a}"), variables));
+	}
+
+	@Test
+	public void testMissingVariable() {
+		Map<String, Object> properties = Map.of("k", "${a}-${missing}");
+
+		assertThrows(IllegalArgumentException.class,
+				() -> VariablesUtil.maybeSubstituteVariables(properties, Map.of("a", "1")));
+
+		// cached template reports missing variable too
+		assertThrows(IllegalArgumentException.class,
+				() -> VariablesUtil.maybeSubstituteVariables(properties, Map.of("a", "1")));
+	}
+
+	@Test
+	public void testPropertiesReturnedWhenNothingToSubstitute() {
+		Map<String, Object> properties = Map.of("k", "v");
+		assertSame(properties, VariablesUtil.maybeSubstituteVariables(properties, Map.of("a", "1")));
+
+		Map<String, Object> placeholders = Map.of("k", "${a}");
+		assertSame(placeholders, VariablesUtil.maybeSubstituteVariables(placeholders, Map.of()));
+	}
+
+	@Test
+	public void testTemplateCachedPerPropertiesInstance() {
+		Map<String, Object> properties = new HashMap<>(Map.of("k", "${a}"));
+		assertFalse(VariablesUtil.isTemplateCached(properties));
+
+		assertEquals(Map.of("k", "1"), VariablesUtil.maybeSubstituteVariables(properties, Map.of("a", "1")));
+		assertTrue(VariablesUtil.isTemplateCached(properties));
+
+		// same instance, different variables
+		assertEquals(Map.of("k", "2"), VariablesUtil.maybeSubstituteVariables(properties, Map.of("a", "2")));
+
+		// equal content, but different instance
+		Map<String, Object> copy = new HashMap<>(properties);
+		assertFalse(VariablesUtil.isTemplateCached(copy));
+
+		// no template needed without variables
+		VariablesUtil.maybeSubstituteVariables(copy, Map.of());
+		assertFalse(VariablesUtil.isTemplateCached(copy));
+	}
+}
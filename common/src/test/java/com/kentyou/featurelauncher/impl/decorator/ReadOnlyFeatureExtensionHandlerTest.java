@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.decorator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureBuilder;
+import org.osgi.service.feature.FeatureExtension;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.featurelauncher.decorator.AbandonOperationException;
+import org.osgi.service.featurelauncher.decorator.DecoratorBuilderFactory;
+import org.osgi.service.featurelauncher.decorator.FeatureExtensionHandler;
+
+import com.kentyou.featurelauncher.common.decorator.ReadOnlyFeatureExtensionHandler;
+import com.kentyou.featurelauncher.common.decorator.impl.DecorationContext;
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+
+/**
+ * Tests execution of
+ * {@link com.kentyou.featurelauncher.common.decorator.ReadOnlyFeatureExtensionHandler}s
+ * by
+ * {@link com.kentyou.featurelauncher.common.decorator.impl.DecorationContext#executeFeatureExtensionHandlers(FeatureService, Feature, Map)}
+ */
+public class ReadOnlyFeatureExtensionHandlerTest {
+	FeatureService featureService;
+	Feature feature;
+	DecorationContext util;
+
+	@BeforeEach
+	public void setUp() {
+		featureService = ServiceLoaderUtil.loadFeatureService();
+
+		util = new DecorationContext(List.of());
+
+		FeatureBuilder featureBuilder = featureService.getBuilderFactory()
+				.newFeatureBuilder(featureService.getIDfromMavenCoordinates("com.example:feature:1.0"));
+		for (String extensionName : List.of("first", "second", "third")) {
+			featureBuilder.addExtensions(featureService.getBuilderFactory()
+					.newExtensionBuilder(extensionName, FeatureExtension.Type.JSON, FeatureExtension.Kind.OPTIONAL)
+					.setJSON("{}").build());
+		}
+		feature = featureBuilder.build();
+	}
+
+	@Test
+	public void testReadOnlyHandlersExecutedConcurrently() throws AbandonOperationException {
+		CountDownLatch allStarted = new CountDownLatch(3);
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+		ReadOnlyFeatureExtensionHandler handler = (f, extension, builder, factory) -> {
+			threads.add(Thread.currentThread());
+			allStarted.countDown();
+			try {
+				// only completes if all handlers run at same time
+				if (!allStarted.await(10, TimeUnit.SECONDS)) {
+					throw new AbandonOperationException("Handlers not executed concurrently");
+				}
+			} catch (InterruptedException e) {
+				throw new AbandonOperationException("Interrupted", e);
+			}
+			return f;
+		};
+
+		Feature decoratedFeature = util.executeFeatureExtensionHandlers(featureService, feature,
+				Map.of("first", handler, "second", handler, "third", handler));
+
+		assertSame(feature, decoratedFeature);
+		assertEquals(3, threads.size());
+		// last handler runs on calling thread, when there are no other handlers
+		assertTrue(threads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	public void testReadOnlyHandlersOverlapWithOtherHandlers() throws AbandonOperationException {
+		CountDownLatch readOnlyStarted = new CountDownLatch(1);
+
+		ReadOnlyFeatureExtensionHandler readOnlyHandler = (f, extension, builder, factory) -> {
+			readOnlyStarted.countDown();
+			return f;
+		};
+
+		FeatureExtensionHandler variablesHandler = (f, extension, builder, factory) -> {
+			try {
+				// read-only handler of later extension is already running
+				if (!readOnlyStarted.await(10, TimeUnit.SECONDS)) {
+					throw new AbandonOperationException("Read-only handler not started");
+				}
+			} catch (InterruptedException e) {
+				throw new AbandonOperationException("Interrupted", e);
+			}
+			return builder.setVariables(Map.of("handled", Boolean.TRUE)).build();
+		};
+
+		Feature decoratedFeature = util.executeFeatureExtensionHandlers(featureService, feature,
+				Map.of("first", variablesHandler, "third", readOnlyHandler));
+
+		assertNotEquals(feature, decoratedFeature);
+		assertEquals(Map.of("handled", Boolean.TRUE), decoratedFeature.getVariables());
+	}
+
+	@Test
+	public void testFirstFailureInExtensionOrderReported() {
+		CountDownLatch laterFailed = new CountDownLatch(1);
+
+		ReadOnlyFeatureExtensionHandler slowFailingHandler = (f, extension, builder, factory) -> {
+			try {
+				laterFailed.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new AbandonOperationException("first failed");
+		};
+
+		ReadOnlyFeatureExtensionHandler fastFailingHandler = new ReadOnlyFeatureExtensionHandler() {
+			@Override
+			public Feature handle(Feature feature, FeatureExtension extension,
+					FeatureExtensionHandlerBuilder decoratedFeatureBuilder, DecoratorBuilderFactory factory)
+					throws AbandonOperationException {
+				try {
+					throw new AbandonOperationException(extension.getName() + " failed");
+				} finally {
+					laterFailed.countDown();
+				}
+			}
+		};
+
+		AbandonOperationException e = assertThrows(AbandonOperationException.class,
+				() -> util.executeFeatureExtensionHandlers(featureService, feature,
+						Map.of("first", slowFailingHandler, "second", fastFailingHandler, "third",
+								fastFailingHandler)));
+		assertEquals("first failed", e.getMessage());
+	}
+
+	@Test
+	public void testRuntimeExceptionNotWrapped() {
+		IllegalStateException failure = new IllegalStateException("failed");
+
+		ReadOnlyFeatureExtensionHandler failingHandler = (f, extension, builder, factory) -> {
+			throw failure;
+		};
+		ReadOnlyFeatureExtensionHandler handler = (f, extension, builder, factory) -> f;
+
+		assertSame(failure, assertThrows(IllegalStateException.class, () -> util.executeFeatureExtensionHandlers(
+				featureService, feature, Map.of("first", failingHandler, "second", handler))));
+
+		// failing handler running on calling thread
+		assertSame(failure, assertThrows(IllegalStateException.class, () -> util.executeFeatureExtensionHandlers(
+				featureService, feature, Map.of("second", handler, "third", failingHandler))));
+	}
+
+	@Test
+	public void testDifferentFeatureReturnedByReadOnlyHandler() {
+		ReadOnlyFeatureExtensionHandler handler = (f, extension, builder, factory) -> f;
+		ReadOnlyFeatureExtensionHandler modifyingHandler = (f, extension, builder, factory) -> builder
+				.setVariables(Map.of("modified", Boolean.TRUE)).build();
+
+		AbandonOperationException e = assertThrows(AbandonOperationException.class,
+				() -> util.executeFeatureExtensionHandlers(featureService, feature,
+						Map.of("first", handler, "second", modifyingHandler, "third", handler)));
+		assertTrue(e.getMessage().contains("second"));
+	}
+}
@@ -46,6 +46,8 @@ import org.osgi.service.featurelauncher.repository.ArtifactRepositoryFactory;
 
 import com.kentyou.featurelauncher.common.repository.impl.WrappingArtifactRepository;
 import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+import com.kentyou.featurelauncher.impl.FeatureLauncherImpl;
+import com.kentyou.featurelauncher.impl.LaunchPlan;
 import com.kentyou.featurelauncher.repository.spi.NamedArtifactRepository;
 
 import picocli.CommandLine;
@@ -137,6 +139,12 @@ public class FeatureLauncherCli implements Runnable {
 					+ "be used to control implementation specific behaviour.", order = -4)
 	private Map<String, Object> configuration;
 
+	@Option(names = {
+			"--impl-launch-plan" }, paramLabel = "launch plan file path", description = "Launches feature from "
+					+ "given launch plan file if it was created for same feature, otherwise creates it, so that "
+					+ "subsequent launches skip decoration and artifact resolution.")
+	private Path launchPlanPath;
+
 	@Option(names = {
 			"--impl-dry-run" }, description = "Evaluates all options, processes them and displays output, but does not launch framework. Hidden option used for testing", hidden = true)
 	private boolean dryRun;
@@ -146,12 +154,20 @@ public class FeatureLauncherCli implements Runnable {
 
 	private static FeatureService featureService = ServiceLoaderUtil.loadFeatureService();
 
-	private FeatureLauncher featureLauncher = ServiceLoaderUtil.loadFeatureLauncherService();
+	private final FeatureLauncher featureLauncher;
 
 	private Path defaultFrameworkStorageDir;
 
 	private Map<String, String> defaultFrameworkProperties;
 
+	public FeatureLauncherCli() {
+		this(ServiceLoaderUtil.loadFeatureLauncherService());
+	}
+
+	FeatureLauncherCli(FeatureLauncher featureLauncher) {
+		this.featureLauncher = featureLauncher;
+	}
+
 	public void run() {
 		if (commandSpec.commandLine().getParseResult().expandedArgs().isEmpty()) {
 			commandSpec.commandLine().usage(commandSpec.commandLine().getOut());
@@ -175,6 +191,14 @@ public class FeatureLauncherCli implements Runnable {
 		List<NamedArtifactRepository> artifactRepositories = getArtifactRepositories(featureLauncher,
 				userSpecifiedArtifactRepositories, useDefaultRepos);
 
+		try {
+			launch(feature, artifactRepositories);
+		} finally {
+			closeArtifactRepositories(artifactRepositories);
+		}
+	}
+
+	private void launch(Feature feature, List<NamedArtifactRepository> artifactRepositories) {
 		try {
 			this.defaultFrameworkStorageDir = createDefaultFrameworkStorageDir();
 		} catch (IOException e) {
@@ -188,7 +212,11 @@ public class FeatureLauncherCli implements Runnable {
 		System.out.println(String.format("Launching feature %s", feature.getID()));
 		System.out.println("------------------------------------------------------------------------");
 
-		FeatureLauncher.LaunchBuilder featureLaunchBuilder = featureLauncher.launch(feature);
+		LaunchPlan launchPlan = maybeReadLaunchPlan(feature);
+
+		FeatureLauncher.LaunchBuilder featureLaunchBuilder = (launchPlan != null)
+				? getFeatureLauncherImpl().launch(launchPlan)
+				: featureLauncher.launch(feature);
 
 		System.out.println("Using artifact repositories: ");
 		for (NamedArtifactRepository artifactRepository : artifactRepositories) {
@@ -196,8 +224,6 @@ public class FeatureLauncherCli implements Runnable {
 		}
 		System.out.println("------------------------------------------------------------------------");
 
-		artifactRepositories.forEach(featureLaunchBuilder::withRepository);
-
 		if (!frameworkProperties.isEmpty()) {
 			System.out.println("Using framework properties: ");
 			for (Map.Entry<String, String> frameworkPropertyEntry : frameworkProperties.entrySet()) {
@@ -205,8 +231,6 @@ public class FeatureLauncherCli implements Runnable {
 						String.format("%s = %s", frameworkPropertyEntry.getKey(), frameworkPropertyEntry.getValue()));
 			}
 			System.out.println("------------------------------------------------------------------------");
-
-			featureLaunchBuilder.withFrameworkProperties(frameworkProperties);
 		}
 
 		if (!configuration.isEmpty()) {
@@ -216,8 +240,6 @@ public class FeatureLauncherCli implements Runnable {
 						.println(String.format("%s = %s", configurationEntry.getKey(), configurationEntry.getValue()));
 			}
 			System.out.println("------------------------------------------------------------------------");
-
-			featureLaunchBuilder.withConfiguration(configuration);
 		}
 
 		if (!variables.isEmpty()) {
@@ -226,10 +248,10 @@ public class FeatureLauncherCli implements Runnable {
 				System.out.println(String.format("%s = %s", variableEntry.getKey(), variableEntry.getValue()));
 			}
 			System.out.println("------------------------------------------------------------------------");
-
-			featureLaunchBuilder.withVariables(variables);
 		}
 
+		withLaunchSettings(featureLaunchBuilder, artifactRepositories);
+
 		if (!decorators.isEmpty()) {
 			System.out.println("Using decorators: ");
 			for (Class<?> decorator : decorators) {
@@ -268,6 +290,19 @@ public class FeatureLauncherCli implements Runnable {
 			}
 		}
 
+		if (launchPlanPath != null && launchPlan == null) {
+			launchPlan = ((FeatureLauncherImpl.LaunchPlanBuilder) featureLaunchBuilder).createLaunchPlan();
+
+			getFeatureLauncherImpl().writeLaunchPlan(launchPlan, launchPlanPath);
+
+			System.out.println(String.format("Created launch plan %s", launchPlanPath));
+			System.out.println("------------------------------------------------------------------------");
+
+			// launch from plan just created, instead of decorating feature and resolving artifacts again
+			featureLaunchBuilder = withLaunchSettings(getFeatureLauncherImpl().launch(launchPlan),
+					artifactRepositories);
+		}
+
 		if (!dryRun) {
 			Framework osgiFramework = featureLaunchBuilder.launchFramework();
 
@@ -280,6 +315,30 @@ public class FeatureLauncherCli implements Runnable {
 		}
 	}
 
+	/**
+	 * Applies repositories, framework properties, configuration and variables,
+	 * which are used both when launching feature and when launching its launch
+	 * plan
+	 */
+	private FeatureLauncher.LaunchBuilder withLaunchSettings(FeatureLauncher.LaunchBuilder featureLaunchBuilder,
+			List<NamedArtifactRepository> artifactRepositories) {
+		artifactRepositories.forEach(featureLaunchBuilder::withRepository);
+
+		if (!frameworkProperties.isEmpty()) {
+			featureLaunchBuilder.withFrameworkProperties(frameworkProperties);
+		}
+
+		if (!configuration.isEmpty()) {
+			featureLaunchBuilder.withConfiguration(configuration);
+		}
+
+		if (!variables.isEmpty()) {
+			featureLaunchBuilder.withVariables(variables);
+		}
+
+		return featureLaunchBuilder;
+	}
+
 	public static void main(String[] args) {
 		int exitCode = new CommandLine(new FeatureLauncherCli()).execute(args);
 
@@ -335,6 +394,45 @@ public class FeatureLauncherCli implements Runnable {
 		return artifactRepositories;
 	}
 
+	private LaunchPlan maybeReadLaunchPlan(Feature feature) {
+		if (launchPlanPath == null || !Files.isRegularFile(launchPlanPath)) {
+			return null;
+		}
+
+		FeatureLauncherImpl featureLauncherImpl = getFeatureLauncherImpl();
+
+		LaunchPlan launchPlan = featureLauncherImpl.readLaunchPlan(launchPlanPath);
+		if (!featureLauncherImpl.isLaunchPlanFor(launchPlan, feature)) {
+			System.out.println(String.format("Launch plan %s was created for another feature, re-creating it",
+					launchPlanPath));
+			return null;
+		}
+
+		System.out.println(String.format("Using launch plan %s", launchPlanPath));
+
+		return launchPlan;
+	}
+
+	private FeatureLauncherImpl getFeatureLauncherImpl() {
+		if (featureLauncher instanceof FeatureLauncherImpl featureLauncherImpl) {
+			return featureLauncherImpl;
+		}
+
+		throw new FeatureLauncherCliException("Launch plans are not supported by Feature Launcher in use!");
+	}
+
+	private void closeArtifactRepositories(List<NamedArtifactRepository> artifactRepositories) {
+		for (NamedArtifactRepository artifactRepository : artifactRepositories) {
+			if (artifactRepository instanceof AutoCloseable closeableRepository) {
+				try {
+					closeableRepository.close();
+				} catch (Exception e) {
+					System.err.println(String.format("Error closing artifact repository %s!", artifactRepository));
+				}
+			}
+		}
+	}
+
 	private void addPossiblyNamedRepo(List<NamedArtifactRepository> artifactRepositories, ArtifactRepository possiblyNamed, String altName) {
 		if(possiblyNamed instanceof NamedArtifactRepository nar) {
 			artifactRepositories.add(nar);
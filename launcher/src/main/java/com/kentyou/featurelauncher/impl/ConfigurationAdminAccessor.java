@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Dictionary;
+
+/**
+ * Accesses Configuration Admin Service loaded by framework class loaders,
+ * which launcher cannot link against directly.
+ *
+ * Method handles are resolved once per {@code ConfigurationAdmin} class, that
+ * is once per class loader exporting Configuration Admin API, and adapted to
+ * exact signatures, so that each call costs close to a direct call.
+ */
+class ConfigurationAdminAccessor {
+	static final String CONFIGURATION_ADMIN_CLASS_NAME = "org.osgi.service.cm.ConfigurationAdmin";
+	static final String CONFIGURATION_CLASS_NAME = "org.osgi.service.cm.Configuration";
+
+	private static final ClassValue<ConfigurationAdminAccessor> ACCESSORS = new ClassValue<>() {
+		@Override
+		protected ConfigurationAdminAccessor computeValue(Class<?> configurationAdminClass) {
+			try {
+				return new ConfigurationAdminAccessor(configurationAdminClass);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException(
+						String.format("Error binding to %s", configurationAdminClass.getName()), e);
+			}
+		}
+	};
+
+	private final MethodHandle listConfigurations;
+	private final MethodHandle getFactoryConfiguration;
+	private final MethodHandle getConfiguration;
+	private final MethodHandle getProperties;
+	private final MethodHandle update;
+
+	private ConfigurationAdminAccessor(Class<?> configurationAdminClass) throws ReflectiveOperationException {
+		Class<?> configurationClass = Class.forName(CONFIGURATION_CLASS_NAME, false,
+				configurationAdminClass.getClassLoader());
+		Class<?> configurationArrayClass = configurationClass.arrayType();
+
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+
+		// @formatter:off
+		this.listConfigurations = lookup
+				.findVirtual(configurationAdminClass, "listConfigurations", methodType(configurationArrayClass, String.class))
+				.asType(methodType(Object[].class, Object.class, String.class));
+		this.getFactoryConfiguration = lookup
+				.findVirtual(configurationAdminClass, "getFactoryConfiguration", methodType(configurationClass, String.class, String.class, String.class))
+				.asType(methodType(Object.class, Object.class, String.class, String.class, String.class));
+		this.getConfiguration = lookup
+				.findVirtual(configurationAdminClass, "getConfiguration", methodType(configurationClass, String.class, String.class))
+				.asType(methodType(Object.class, Object.class, String.class, String.class));
+		this.getProperties = lookup
+				.findVirtual(configurationClass, "getProperties", methodType(Dictionary.class))
+				.asType(methodType(Dictionary.class, Object.class));
+		this.update = lookup
+				.findVirtual(configurationClass, "update", methodType(void.class, Dictionary.class))
+				.asType(methodType(void.class, Object.class, Dictionary.class));
+		// @formatter:on
+	}
+
+	/**
+	 * Returns accessor bound to given {@code ConfigurationAdmin} class, resolving
+	 * it only on first use.
+	 */
+	static ConfigurationAdminAccessor forClass(Class<?> configurationAdminClass) {
+		return ACCESSORS.get(configurationAdminClass);
+	}
+
+	Object[] listConfigurations(Object configurationAdmin, String filter) throws Exception {
+		try {
+			return (Object[]) listConfigurations.invokeExact(configurationAdmin, filter);
+		} catch (Error | Exception e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new UndeclaredThrowableException(t);
+		}
+	}
+
+	Object getFactoryConfiguration(Object configurationAdmin, String factoryPid, String name, String location)
+			throws Exception {
+		try {
+			return (Object) getFactoryConfiguration.invokeExact(configurationAdmin, factoryPid, name, location);
+		} catch (Error | Exception e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new UndeclaredThrowableException(t);
+		}
+	}
+
+	Object getConfiguration(Object configurationAdmin, String pid, String location) throws Exception {
+		try {
+			return (Object) getConfiguration.invokeExact(configurationAdmin, pid, location);
+		} catch (Error | Exception e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new UndeclaredThrowableException(t);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	Dictionary<String, Object> getProperties(Object configuration) throws Exception {
+		try {
+			return (Dictionary<String, Object>) (Dictionary<?, ?>) getProperties.invokeExact(configuration);
+		} catch (Error | Exception e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new UndeclaredThrowableException(t);
+		}
+	}
+
+	void update(Object configuration, Dictionary<String, ?> properties) throws Exception {
+		try {
+			update.invokeExact(configuration, (Dictionary<?, ?>) properties);
+		} catch (Error | Exception e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new UndeclaredThrowableException(t);
+		}
+	}
+}
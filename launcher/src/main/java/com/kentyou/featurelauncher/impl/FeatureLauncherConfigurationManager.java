@@ -16,15 +16,27 @@ package com.kentyou.featurelauncher.impl;
 import static com.kentyou.featurelauncher.common.util.impl.ConfigurationUtil.CONFIGURATION_DEFAULT_LOCATION;
 import static com.kentyou.featurelauncher.common.util.impl.ConfigurationUtil.normalizePid;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Dictionary;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
 import org.osgi.service.feature.FeatureConfiguration;
@@ -44,32 +56,41 @@ import com.kentyou.featurelauncher.common.util.impl.VariablesUtil;
  *  - 160.4.3.5
  *  - 160.5.2.1.3
  *  
+ * Configurations are created off the service event thread, concurrently, on a
+ * bounded executor, as soon as Configuration Admin Service is added;
+ * configurations whose properties already match are left untouched.
+ * Configurations are created only once, with the first Configuration Admin
+ * Service added. Completion is reported via {@link #getConfigurationsCreated()},
+ * exceptionally if that service cannot be used or if any configuration could
+ * not be created, with a {@link LaunchException} reporting all failures.
+ * 
  * @author Michael H. Siemaszko (mhs@into.software)
  * @since Sep 25, 2024
  */
 public class FeatureLauncherConfigurationManager implements ServiceTrackerCustomizer<Object, Object> {
 	private static final Logger LOG = LoggerFactory.getLogger(FeatureLauncherConfigurationManager.class);
 
-	private static final String CONFIGURATION_ADMIN_CLASS_NAME = "org.osgi.service.cm.ConfigurationAdmin";
-	private static final String CONFIGURATION_CLASS_NAME = "org.osgi.service.cm.Configuration";
 	public static final long CONFIGURATION_TIMEOUT_DEFAULT = 5000;
 
+	private static final int CONFIGURATION_CREATION_PARALLELISM = Math.min(4,
+			Runtime.getRuntime().availableProcessors());
+
+	// Properties maintained by Configuration Admin Service itself, not compared
+	// when deciding whether configuration needs to be updated
+	private static final Set<String> CONFIGURATION_ADMIN_PROPERTIES = Set.of(Constants.SERVICE_PID,
+			"service.factoryPid", "service.bundleLocation");
+
 	private final BundleContext bundleContext;
 	private final Map<String, FeatureConfiguration> featureConfigurations;
 	private final Map<String, Object> featureVariables;
 
 	private final ServiceTracker<Object, Object> serviceTracker;
 
-	private Class<?> configurationAdminClass;
-	private Class<?> configurationClass;
-
-	private Method listConfigurationsMethod;
-	private Method getFactoryConfigurationMethod;
-	private Method getConfigurationMethod;
-	private Method getConfigurationPropertiesMethod;
-	private Method updateConfigurationPropertiesMethod;
+	private final ExecutorService configurationCreationExecutor;
+	private final CompletableFuture<Void> configurationsCreated;
+	private final AtomicBoolean configurationsCreationStarted;
 
-	private boolean configurationsCreated;
+	private volatile ConfigurationAdminAccessor configurationAdminAccessor;
 
 	public FeatureLauncherConfigurationManager(BundleContext bundleContext,
 			Map<String, FeatureConfiguration> featureConfigurations, Map<String, Object> featureVariables) {
@@ -77,9 +98,18 @@ public class FeatureLauncherConfigurationManager implements ServiceTrackerCustom
 		this.featureConfigurations = featureConfigurations;
 		this.featureVariables = featureVariables;
 
-		this.configurationsCreated = false;
+		this.configurationsCreated = new CompletableFuture<>();
+		this.configurationsCreationStarted = new AtomicBoolean();
 
-		this.serviceTracker = new ServiceTracker<>(this.bundleContext, CONFIGURATION_ADMIN_CLASS_NAME, this);
+		AtomicInteger threadCount = new AtomicInteger();
+		this.configurationCreationExecutor = Executors.newFixedThreadPool(CONFIGURATION_CREATION_PARALLELISM, r -> {
+			Thread thread = new Thread(r, "FeatureLauncherConfigurationManager-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		this.serviceTracker = new ServiceTracker<>(this.bundleContext,
+				ConfigurationAdminAccessor.CONFIGURATION_ADMIN_CLASS_NAME, this);
 		this.serviceTracker.open(true);
 	}
 
@@ -98,10 +128,43 @@ public class FeatureLauncherConfigurationManager implements ServiceTrackerCustom
 	}
 
 	public boolean configurationsCreated() {
+		return configurationsCreated.isDone() && !configurationsCreated.isCompletedExceptionally();
+	}
+
+	/**
+	 * Returns future completed once all feature configurations have been processed
+	 * after Configuration Admin Service was added
+	 */
+	public CompletableFuture<Void> getConfigurationsCreated() {
 		return configurationsCreated;
 	}
 
+	public boolean waitForConfigurations(long timeout) {
+		try {
+			configurationsCreated.get(timeout, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (TimeoutException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LaunchException("Error awaiting configurations to be created!", e);
+		} catch (ExecutionException e) {
+			throw asLaunchException(e);
+		}
+	}
+
+	static LaunchException asLaunchException(ExecutionException e) {
+		if (e.getCause() instanceof LaunchException launchException) {
+			return launchException;
+		}
+
+		return new LaunchException("Error creating configurations!", e.getCause());
+	}
+
 	public void stop() {
+		// already submitted configurations are still created
+		configurationCreationExecutor.shutdown();
+
 		serviceTracker.close();
 	}
 
@@ -139,34 +202,89 @@ public class FeatureLauncherConfigurationManager implements ServiceTrackerCustom
 	}
 
 	private void createConfigurationsIfNeeded(ServiceReference<Object> reference) {
-		if (!featureConfigurations.isEmpty()) {
-			LOG.info(String.format("There are %d feature configuration(s) to create", featureConfigurations.size()));
+		// configurations are created once, with first Configuration Admin Service added
+		if (!configurationsCreationStarted.compareAndSet(false, true)) {
+			return;
+		}
+
+		if (featureConfigurations.isEmpty()) {
+			LOG.info("Feature has no configurations!");
+			configurationsCreated.complete(null);
+			return;
+		}
 
-			try {
-				Object configurationAdminService = bundleContext.getService(reference);
+		LOG.info(String.format("There are %d feature configuration(s) to create", featureConfigurations.size()));
 
-				this.configurationAdminClass = reference.getBundle().loadClass(CONFIGURATION_ADMIN_CLASS_NAME);
-				this.configurationClass = reference.getBundle().loadClass(CONFIGURATION_CLASS_NAME);
+		try {
+			this.configurationAdminAccessor = ConfigurationAdminAccessor.forClass(
+					reference.getBundle().loadClass(ConfigurationAdminAccessor.CONFIGURATION_ADMIN_CLASS_NAME));
+		} catch (ClassNotFoundException | IllegalStateException | SecurityException e) {
+			LOG.error("Error creating configurations!", e);
+			configurationsCreated.completeExceptionally(e);
+			return;
+		}
 
-				this.listConfigurationsMethod = configurationAdminClass.getMethod("listConfigurations", String.class);
-				this.getFactoryConfigurationMethod = configurationAdminClass.getMethod("getFactoryConfiguration",
-						String.class, String.class, String.class);
-				this.getConfigurationMethod = configurationAdminClass.getMethod("getConfiguration", String.class,
-						String.class);
-				this.getConfigurationPropertiesMethod = configurationClass.getMethod("getProperties");
-				this.updateConfigurationPropertiesMethod = configurationClass.getMethod("update", Dictionary.class);
+		// held until all configurations are created, even if tracker is closed meanwhile
+		Object configurationAdminService = bundleContext.getService(reference);
+		if (configurationAdminService == null) {
+			LOG.error("Error creating configurations, 'ConfigurationAdmin' service is no longer available!");
+			configurationsCreated.completeExceptionally(
+					new IllegalStateException("'ConfigurationAdmin' service is no longer available!"));
+			return;
+		}
 
-				featureConfigurations.forEach((featureConfigurationPid, featureConfiguration) -> createConfiguration(
-						featureConfigurationPid, featureConfiguration, configurationAdminService));
+		try {
+			// @formatter:off
+			CompletableFuture<?>[] creations = featureConfigurations.entrySet().stream()
+					.map(e -> CompletableFuture.runAsync(
+							() -> createConfiguration(e.getKey(), e.getValue(), configurationAdminService),
+							configurationCreationExecutor))
+					.toArray(CompletableFuture[]::new);
+			// @formatter:on
+
+			CompletableFuture.allOf(creations).whenComplete((r, t) -> {
+				ungetService(reference);
+
+				if (t != null) {
+					LaunchException launchException = collectFailures(creations);
+					LOG.error(launchException.getMessage(), launchException);
+					configurationsCreated.completeExceptionally(launchException);
+				} else {
+					configurationsCreated.complete(null);
+				}
+			});
+		} catch (RuntimeException e) { // executor already shut down
+			ungetService(reference);
 
-				this.configurationsCreated = true;
+			LOG.error("Error creating configurations!", e);
+			configurationsCreated.completeExceptionally(e);
+		}
+	}
 
-			} catch (ClassNotFoundException | NoSuchMethodException | SecurityException e) {
-				LOG.error("Error creating configurations!", e);
-			}
+	/**
+	 * Collects failures of all configuration creations, rather than only first
+	 * one, so that launch failure reports all configurations not created
+	 */
+	private LaunchException collectFailures(CompletableFuture<?>[] creations) {
+		// @formatter:off
+		List<Throwable> failures = Arrays.stream(creations)
+				.filter(CompletableFuture::isCompletedExceptionally)
+				.map(c -> c.handle((r, t) -> (t instanceof CompletionException) ? t.getCause() : t).join())
+				.toList();
+		// @formatter:on
+
+		LaunchException launchException = new LaunchException(
+				String.format("Error creating %d configuration(s)!", failures.size()), failures.get(0));
+		failures.stream().skip(1).forEach(launchException::addSuppressed);
+
+		return launchException;
+	}
 
-		} else {
-			LOG.info("Feature has no configurations!");
+	private void ungetService(ServiceReference<Object> reference) {
+		try {
+			bundleContext.ungetService(reference);
+		} catch (IllegalStateException e) {
+			// bundle context no longer valid
 		}
 	}
 
@@ -180,13 +298,15 @@ public class FeatureLauncherConfigurationManager implements ServiceTrackerCustom
 		try {
 			LOG.info(String.format("Creating configuration %s", featureConfigurationPid));
 
-			Object configurationObject = getConfigurationMethod.invoke(configurationAdminService,
+			Object configurationObject = configurationAdminAccessor.getConfiguration(configurationAdminService,
 					featureConfiguration.getPid(), CONFIGURATION_DEFAULT_LOCATION);
 
 			updateConfigurationProperties(configurationObject, featureConfigurationPid, featureConfiguration);
 
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			LOG.error(String.format("Error creating configuration %s!", featureConfigurationPid), e);
+		} catch (LaunchException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new LaunchException(String.format("Error creating configuration %s!", featureConfigurationPid), e);
 		}
 	}
 
@@ -195,14 +315,16 @@ public class FeatureLauncherConfigurationManager implements ServiceTrackerCustom
 		try {
 			LOG.info(String.format("Creating factory configuration %s", featureConfigurationPid));
 
-			Object configurationObject = getFactoryConfigurationMethod.invoke(configurationAdminService,
+			Object configurationObject = configurationAdminAccessor.getFactoryConfiguration(configurationAdminService,
 					featureConfiguration.getFactoryPid().get(), normalizePid(featureConfiguration.getPid()),
 					CONFIGURATION_DEFAULT_LOCATION);
 
 			updateConfigurationProperties(configurationObject, featureConfigurationPid, featureConfiguration);
 
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			LOG.error(String.format("Error creating configuration %s!", featureConfigurationPid), e);
+		} catch (LaunchException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new LaunchException(String.format("Error creating configuration %s!", featureConfigurationPid), e);
 		}
 	}
 
@@ -213,35 +335,65 @@ public class FeatureLauncherConfigurationManager implements ServiceTrackerCustom
 				.maybeSubstituteVariables(featureConfiguration.getValues(), featureVariables);
 
 		try {
-			updateConfigurationPropertiesMethod.invoke(configurationObject,
-					FrameworkUtil.asDictionary(configurationProperties));
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			LOG.error(String.format("Error updating configuration properties %s!", featureConfigurationPid), e);
+			if (hasSameProperties(configurationAdminAccessor.getProperties(configurationObject),
+					configurationProperties)) {
+				LOG.info(String.format("Configuration %s is unchanged", featureConfigurationPid));
+				return;
+			}
+
+			configurationAdminAccessor.update(configurationObject, FrameworkUtil.asDictionary(configurationProperties));
+		} catch (Exception e) {
+			throw new LaunchException(
+					String.format("Error updating configuration properties %s!", featureConfigurationPid), e);
+		}
+	}
+
+	private boolean hasSameProperties(Dictionary<String, Object> existingProperties,
+			Map<String, Object> configurationProperties) {
+		if (existingProperties == null) {
+			return false;
+		}
+
+		int existingPropertiesCount = 0;
+		for (Enumeration<String> keys = existingProperties.keys(); keys.hasMoreElements();) {
+			String key = keys.nextElement();
+			if (CONFIGURATION_ADMIN_PROPERTIES.contains(key)) {
+				continue;
+			}
+
+			if (!configurationProperties.containsKey(key)
+					|| !Objects.deepEquals(existingProperties.get(key), configurationProperties.get(key))) {
+				return false;
+			}
+
+			existingPropertiesCount++;
 		}
+
+		return existingPropertiesCount == configurationProperties.size();
 	}
 
 	@SuppressWarnings("unused")
 	private List<Map<String, Object>> listConfigurations(Object configurationAdminService, String filter) {
 		try {
-			Object result = listConfigurationsMethod.invoke(configurationAdminService, filter);
+			Object[] result = configurationAdminAccessor.listConfigurations(configurationAdminService, filter);
 			if (result != null) {
 				List<Map<String, Object>> configurations = new ArrayList<>();
-				for (Object configObj : (Object[]) result) {
+				for (Object configObj : result) {
 					configurations.add(getConfigurationProperties(configObj));
 				}
 				return configurations;
 			}
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+		} catch (Exception e) {
 			LOG.error("Error listing configurations!", e);
 		}
 
 		return Collections.emptyList();
 	}
 
-	@SuppressWarnings("unchecked")
-	private Map<String, Object> getConfigurationProperties(Object configurationObject)
-			throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
-		return FrameworkUtil
-				.asMap((Dictionary<String, Object>) getConfigurationPropertiesMethod.invoke(configurationObject));
+	private Map<String, Object> getConfigurationProperties(Object configurationObject) throws Exception {
+		Dictionary<String, Object> configurationProperties = configurationAdminAccessor
+				.getProperties(configurationObject);
+		return (configurationProperties != null) ? FrameworkUtil.asMap(configurationProperties)
+				: Collections.emptyMap();
 	}
 }
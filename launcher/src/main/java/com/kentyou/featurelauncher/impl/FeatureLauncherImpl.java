@@ -15,24 +15,32 @@ package com.kentyou.featurelauncher.impl;
 
 import static com.kentyou.featurelauncher.impl.FeatureLauncherConfigurationManager.CONFIGURATION_TIMEOUT_DEFAULT;
 import static com.kentyou.featurelauncher.impl.FeatureLauncherImplConstants.CONFIGURATION_ADMIN_IMPL_DEFAULT;
+import static com.kentyou.featurelauncher.impl.FeatureLauncherImplConstants.DECORATION_CACHE_ENABLED;
 import static org.osgi.service.featurelauncher.FeatureLauncherConstants.BUNDLE_START_LEVEL_METADATA;
 import static org.osgi.service.featurelauncher.FeatureLauncherConstants.CONFIGURATION_TIMEOUT;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.osgi.framework.Bundle;
@@ -46,7 +54,9 @@ import org.osgi.framework.launch.FrameworkFactory;
 import org.osgi.framework.startlevel.BundleStartLevel;
 import org.osgi.framework.startlevel.FrameworkStartLevel;
 import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureArtifact;
 import org.osgi.service.feature.FeatureBundle;
+import org.osgi.service.feature.FeatureExtension;
 import org.osgi.service.feature.FeatureService;
 import org.osgi.service.feature.ID;
 import org.osgi.service.featurelauncher.FeatureLauncher;
@@ -59,12 +69,19 @@ import org.osgi.service.featurelauncher.repository.ArtifactRepositoryFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.kentyou.featurelauncher.common.decorator.impl.DecorationCache;
 import com.kentyou.featurelauncher.common.decorator.impl.DecorationContext;
+import com.kentyou.featurelauncher.common.decorator.impl.LaunchFrameworkFeatureExtensionHandlerImpl;
+import com.kentyou.featurelauncher.common.repository.impl.ArtifactPrefetcher;
+import com.kentyou.featurelauncher.common.repository.impl.MissingArtifactCache;
 import com.kentyou.featurelauncher.common.util.impl.BundleEventUtil;
 import com.kentyou.featurelauncher.common.util.impl.FileSystemUtil;
 import com.kentyou.featurelauncher.common.util.impl.FrameworkEventUtil;
 import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+import com.kentyou.featurelauncher.common.util.impl.StreamingFeatureReader;
 import com.kentyou.featurelauncher.common.util.impl.VariablesUtil;
+import com.kentyou.featurelauncher.impl.LaunchPlan.ResolvedArtifact;
+import com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository;
 
 /**
  * 160.4 The Feature Launcher
@@ -78,6 +95,12 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 	private final FeatureService featureService = ServiceLoaderUtil.loadFeatureService();
 	
 	private final ArtifactRepositoryFactory arf = ServiceLoaderUtil.loadArtifactRepositoryFactoryService();
+
+	// shared by launches which enable it
+	private final DecorationCache decorationCache = new DecorationCache();
+
+	// shared by all launches, so that relaunches skip known misses
+	private final MissingArtifactCache missingArtifactCache = new MissingArtifactCache();
 	
 	@Override
 	public ArtifactRepository createRepository(Path path) {
@@ -108,17 +131,93 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 	public LaunchBuilder launch(Reader jsonReader) {
 		Objects.requireNonNull(jsonReader, "Feature JSON cannot be null!");
 
+		// bundle artifacts are queued for prefetching while feature is being read
+		ArtifactPrefetcher artifactPrefetcher = new ArtifactPrefetcher(missingArtifactCache);
+
 		try {
-			Feature feature = featureService.readFeature(jsonReader);
+			Feature feature = StreamingFeatureReader.readFeature(featureService, jsonReader, artifactPrefetcher::add);
 
-			return launch(feature);
+			return new LaunchBuilderImpl(feature, artifactPrefetcher);
 
 		} catch (IOException e) {
 			throw new LaunchException("Error reading feature!", e);
 		}
 	}
 
-	class LaunchBuilderImpl implements LaunchBuilder {
+	/**
+	 * Artifacts known to be missing from repositories used by launches, which
+	 * may be invalidated when repositories change
+	 */
+	public MissingArtifactCache getMissingArtifactCache() {
+		return missingArtifactCache;
+	}
+
+	/**
+	 * Launches framework from launch plan previously created for a feature,
+	 * skipping decoration, framework location and artifact resolution.
+	 * 
+	 * Framework properties and variables given to returned builder are applied
+	 * over those of launch plan, while repositories are only used for artifacts
+	 * not part of the plan.
+	 * 
+	 * @see LaunchPlanBuilder#createLaunchPlan()
+	 */
+	public LaunchBuilder launch(LaunchPlan launchPlan) {
+		Objects.requireNonNull(launchPlan, "Launch plan cannot be null!");
+
+		return new LaunchBuilderImpl(launchPlan);
+	}
+
+	public LaunchPlan readLaunchPlan(Path launchPlanPath) {
+		Objects.requireNonNull(launchPlanPath, "Launch plan path cannot be null!");
+
+		try (Reader launchPlanReader = Files.newBufferedReader(launchPlanPath)) {
+			return LaunchPlan.read(featureService, launchPlanReader);
+		} catch (IOException e) {
+			throw new LaunchException(String.format("Error reading launch plan from %s!", launchPlanPath), e);
+		}
+	}
+
+	public void writeLaunchPlan(LaunchPlan launchPlan, Path launchPlanPath) {
+		Objects.requireNonNull(launchPlan, "Launch plan cannot be null!");
+		Objects.requireNonNull(launchPlanPath, "Launch plan path cannot be null!");
+
+		try (Writer launchPlanWriter = Files.newBufferedWriter(launchPlanPath)) {
+			launchPlan.write(featureService, launchPlanWriter);
+		} catch (IOException e) {
+			throw new LaunchException(String.format("Error writing launch plan to %s!", launchPlanPath), e);
+		}
+	}
+
+	/**
+	 * Whether launch plan was created for given feature, as it was before
+	 * decoration
+	 */
+	public boolean isLaunchPlanFor(LaunchPlan launchPlan, Feature feature) {
+		return launchPlan.getSourceFeatureDigest().equals(getFeatureDigest(feature));
+	}
+
+	private String getFeatureDigest(Feature feature) {
+		StringWriter featureWriter = new StringWriter();
+		try {
+			featureService.writeFeature(feature, featureWriter);
+		} catch (IOException e) {
+			throw new LaunchException("Error writing feature!", e);
+		}
+
+		// artifacts of extensions are not written by all feature service implementations
+		for (FeatureExtension featureExtension : feature.getExtensions().values()) {
+			if (featureExtension.getType() == FeatureExtension.Type.ARTIFACTS) {
+				for (FeatureArtifact featureArtifact : featureExtension.getArtifacts()) {
+					featureWriter.append('\n').append(featureArtifact.getID().toString());
+				}
+			}
+		}
+
+		return LaunchPlan.digest(featureWriter.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	class LaunchBuilderImpl implements LaunchBuilder, LaunchPlanBuilder {
 		private DecorationContext decorationUtil;
 		private Feature feature;
 		private boolean isLaunched;
@@ -131,10 +230,29 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 		private Map<String, FeatureExtensionHandler> extensionHandlers;
 		private FeatureLauncherConfigurationManager featureConfigurationManager;
 		private long configurationTimeout;
+		private final ArtifactPrefetcher artifactPrefetcher;
+		private final LaunchPlan launchPlan;
+		private OptionalInt defaultBundleStartLevel;
+		private OptionalInt minimumFrameworkStartLevel;
 
 		LaunchBuilderImpl(Feature feature) {
+			this(feature, null);
+		}
+
+		LaunchBuilderImpl(Feature feature, ArtifactPrefetcher artifactPrefetcher) {
+			this(feature, artifactPrefetcher, null);
+		}
+
+		LaunchBuilderImpl(LaunchPlan launchPlan) {
+			this(launchPlan.getFeature(), null, launchPlan);
+		}
+
+		private LaunchBuilderImpl(Feature feature, ArtifactPrefetcher artifactPrefetcher, LaunchPlan launchPlan) {
 			Objects.requireNonNull(feature, "Feature cannot be null!");
 
+			this.artifactPrefetcher = artifactPrefetcher;
+			this.launchPlan = launchPlan;
+
 			this.feature = feature;
 			this.isLaunched = false;
 			this.installedBundles = new ArrayList<>();
@@ -246,38 +364,61 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 		public Framework launchFramework() {
 			Objects.requireNonNull(feature, "Feature is required!");
 
-			if (this.artifactRepositories.isEmpty()) {
+			if (launchPlan == null && this.artifactRepositories.isEmpty()) {
 				throw new NullPointerException("At least one Artifact Repository is required!");
 			}
 
 			ensureNotLaunchedYet();
 
 			this.isLaunched = true;
-			
-			decorationUtil = new DecorationContext(this.artifactRepositories);
 
-			//////////////////////////////////////
-			// 160.4.3.1: Feature Decoration
-			try {
-				feature = decorationUtil.executeFeatureDecorators(featureService, feature, decorators);
+			FrameworkFactory frameworkFactory;
+			Map<String, String> frameworkProperties;
 
-				feature = decorationUtil.executeFeatureExtensionHandlers(featureService, feature, extensionHandlers);
-			} catch (AbandonOperationException e) {
-				throw new LaunchException("Feature decoration handling failed!", e);
-			}
+			if (launchPlan != null) {
+				// 160.4.3.1 and 160.4.3.2 were done when launch plan was created
+				frameworkFactory = FrameworkFactoryLocator.locateFrameworkFactory(launchPlan);
+
+				frameworkProperties = mergeFrameworkProperties(launchPlan.getFrameworkProperties(), mergeVariables());
+
+				defaultBundleStartLevel = launchPlan.getDefaultBundleStartLevel();
+				minimumFrameworkStartLevel = launchPlan.getMinimumFrameworkStartLevel();
+
+			} else {
+				// fetching of bundles overlaps with decoration and framework creation
+				if (artifactPrefetcher != null) {
+					artifactPrefetcher.start(this.artifactRepositories);
+				}
+
+				decorationUtil = createDecorationContext();
+
+				//////////////////////////////////////
+				// 160.4.3.1: Feature Decoration
+				feature = decorate(decorationUtil, feature);
+
+				/////////////////////////////////////////////////
+				// 160.4.3.2: Locating a framework implementation
+				frameworkFactory = FrameworkFactoryLocator.locateFrameworkFactory(feature, decorationUtil,
+						artifactRepositories);
+
+				frameworkProperties = mergeFrameworkProperties(
+						decorationUtil.getFrameworkHandler().getFrameworkProperties(), mergeVariables());
 
-			/////////////////////////////////////////////////
-			// 160.4.3.2: Locating a framework implementation
-			FrameworkFactory frameworkFactory = FrameworkFactoryLocator.locateFrameworkFactory(feature,
-					decorationUtil, artifactRepositories);
+				defaultBundleStartLevel = decorationUtil.getStartLevelHandler().getDefaultBundleStartLevel();
+				minimumFrameworkStartLevel = decorationUtil.getStartLevelHandler().getMinimumFrameworkStartLevel();
+			}
 
 			///////////////////////////////////////////
 			// 160.4.3.3: Creating a Framework instance
-			Framework framework = createFramework(frameworkFactory, mergeFrameworkProperties());
+			Framework framework = createFramework(frameworkFactory, frameworkProperties);
 
 			/////////////////////////////////////////////////////////
 			// 160.4.3.4: Installing bundles and configurations
-			installBundles(framework);
+			if (launchPlan != null) {
+				installBundles(framework, launchPlan.getBundles());
+			} else {
+				installBundles(framework);
+			}
 
 			maybeCreateConfigurationAdminTracker(framework.getBundleContext());
 
@@ -287,31 +428,129 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 			// 160.4.3.5: Starting the framework
 			startFramework(framework);
 
-			maybeWaitForConfigurationAdminTracker();
+			try {
+				maybeWaitForConfigurationAdminTracker();
+			} catch (LaunchException e) {
+				cleanup(framework);
+
+				throw e;
+			}
 
 			return framework;
 		}
 
-		private Map<String, String> mergeFrameworkProperties() {
-			Map<String, Object> rawProperties = new HashMap<>(decorationUtil.getFrameworkHandler().getFrameworkProperties());
+		/* 
+		 * (non-Javadoc)
+		 * @see com.kentyou.featurelauncher.impl.FeatureLauncherImpl.LaunchPlanBuilder#createLaunchPlan()
+		 */
+		@Override
+		public LaunchPlan createLaunchPlan() {
+			Objects.requireNonNull(feature, "Feature is required!");
 
-			frameworkProps.entrySet().forEach(e -> {
+			if (this.artifactRepositories.isEmpty()) {
+				throw new NullPointerException("At least one Artifact Repository is required!");
+			}
+
+			ensureNotLaunchedYet();
+
+			if (launchPlan != null) {
+				throw new IllegalStateException("Launch is already planned!");
+			}
+
+			if (artifactPrefetcher != null) {
+				artifactPrefetcher.start(this.artifactRepositories);
+			}
+
+			DecorationContext planDecorationContext = createDecorationContext();
+
+			Feature decoratedFeature = decorate(planDecorationContext, feature);
+
+			LaunchFrameworkFeatureExtensionHandlerImpl launchHandler = planDecorationContext.getLaunchHandler();
+			ResolvedArtifact frameworkArtifact = null;
+			String frameworkFactoryClassName = null;
+			if (launchHandler.getLocatedFrameworkArtifactPath().isPresent()) {
+				frameworkArtifact = ResolvedArtifact.resolve(launchHandler.getLocatedFrameworkArtifactID().get(),
+						launchHandler.getLocatedFrameworkArtifactPath().get(), OptionalInt.empty());
+				frameworkFactoryClassName = launchHandler.getLocatedFrameworkFactoryClassName().get();
+			}
+
+			Map<String, Object> allVariables = mergeVariables(decoratedFeature.getVariables());
+
+			List<ResolvedArtifact> bundles = new ArrayList<>();
+			for (FeatureBundle featureBundle : decoratedFeature.getBundles()) {
+				bundles.add(ResolvedArtifact.resolve(featureBundle.getID(), getArtifactPath(featureBundle.getID()),
+						getBundleStartLevel(featureBundle.getMetadata())));
+			}
+
+			// variables are substituted on launch, so that launching from plan may override them
+			return new LaunchPlan(getFeatureDigest(feature), decoratedFeature, frameworkArtifact,
+					frameworkFactoryClassName,
+					mergeRawFrameworkProperties(planDecorationContext.getFrameworkHandler().getFrameworkProperties()),
+					allVariables, planDecorationContext.getStartLevelHandler().getDefaultBundleStartLevel(),
+					planDecorationContext.getStartLevelHandler().getMinimumFrameworkStartLevel(), bundles);
+		}
+
+		private DecorationContext createDecorationContext() {
+			return new DecorationContext(this.artifactRepositories,
+					isDecorationCacheEnabled() ? decorationCache : null);
+		}
+
+		private Feature decorate(DecorationContext decorationContext, Feature feature) {
+			try {
+				Feature decoratedFeature = decorationContext.executeFeatureDecorators(featureService, feature,
+						decorators);
+
+				return decorationContext.executeFeatureExtensionHandlers(featureService, decoratedFeature,
+						extensionHandlers);
+			} catch (AbandonOperationException e) {
+				throw new LaunchException("Feature decoration handling failed!", e);
+			}
+		}
+
+		private Map<String, String> mergeFrameworkProperties(Map<String, ?> featureFrameworkProperties,
+				Map<String, Object> allVariables) {
+			// variables are substituted in given maps rather than in merged copy, so that
+			// templates cached per map instance are reused
+			Map<String, Object> properties = new HashMap<>(
+					substituteVariables(featureFrameworkProperties, allVariables));
+
+			substituteVariables(frameworkProps, allVariables).entrySet().forEach(e -> {
 				if(e.getValue() == null) {
-					rawProperties.remove(e.getKey());
+					properties.remove(e.getKey());
 				} else {
-					rawProperties.put(e.getKey(), e.getValue());
+					properties.put(e.getKey(), e.getValue());
 				}
 			});
 
-			Map<String, Object> properties = VariablesUtil.maybeSubstituteVariables(rawProperties,
-					mergeVariables());
-
 			return properties.entrySet().stream()
 					.collect(Collectors.toMap(e -> String.valueOf(e.getKey()), e -> String.valueOf(e.getValue())));
 		}
 
+		private Map<String, Object> mergeRawFrameworkProperties(Map<String, ?> featureFrameworkProperties) {
+			Map<String, Object> properties = new LinkedHashMap<>(featureFrameworkProperties);
+
+			frameworkProps.entrySet().forEach(e -> {
+				if(e.getValue() == null) {
+					properties.remove(e.getKey());
+				} else {
+					properties.put(e.getKey(), e.getValue());
+				}
+			});
+
+			return properties;
+		}
+
+		@SuppressWarnings("unchecked")
+		private Map<String, Object> substituteVariables(Map<String, ?> properties, Map<String, Object> allVariables) {
+			return VariablesUtil.maybeSubstituteVariables((Map<String, Object>) properties, allVariables);
+		}
+
 		private Map<String, Object> mergeVariables() {
-			Map<String, Object> allVariables = new HashMap<>(feature.getVariables());
+			return mergeVariables((launchPlan != null) ? launchPlan.getVariables() : feature.getVariables());
+		}
+
+		private Map<String, Object> mergeVariables(Map<String, Object> featureVariables) {
+			Map<String, Object> allVariables = new HashMap<>(featureVariables);
 
 			if (!variables.isEmpty()) {
 				allVariables.putAll(variables);
@@ -346,8 +585,7 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 		}
 
 		private void maybeSetFrameworkStartLevel(Framework framework) {
-			decorationUtil.getStartLevelHandler().getMinimumFrameworkStartLevel()
-				.ifPresent(sl -> {
+			minimumFrameworkStartLevel.ifPresent(sl -> {
 					FrameworkStartLevel startLevel = framework.adapt(FrameworkStartLevel.class);
 					if(startLevel.getStartLevel() < sl) {
 						Semaphore sem = new Semaphore(0);
@@ -362,8 +600,8 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 		}
 
 		private void maybeSetInitialBundleStartLevel(Framework framework) {
-			decorationUtil.getStartLevelHandler().getDefaultBundleStartLevel()
-				.ifPresent(sl -> framework.adapt(FrameworkStartLevel.class).setInitialBundleStartLevel(sl));
+			defaultBundleStartLevel
+					.ifPresent(sl -> framework.adapt(FrameworkStartLevel.class).setInitialBundleStartLevel(sl));
 		}
 
 		private void startFramework(Framework framework) {
@@ -384,6 +622,10 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 				cleanup(framework);
 
 				throw new LaunchException("Could not start framework!", e);
+			} catch (LaunchException e) {
+				cleanup(framework);
+
+				throw e;
 			}
 		}
 
@@ -427,6 +669,11 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 					featureConfigurationManager.waitForService(this.configurationTimeout);
 
 					LOG.info("'ConfigurationAdmin' service is available!");
+
+					if (!featureConfigurationManager.waitForConfigurations(this.configurationTimeout)) {
+						LOG.warn(String.format("Configurations were not created within %d ms",
+								this.configurationTimeout));
+					}
 				} finally {
 					maybeStopConfigurationAdminTracker();
 				}
@@ -450,20 +697,24 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 						&& (!featureConfigurationManager.serviceAdded()
 								|| !featureConfigurationManager.configurationsCreated()));
 
-				while (waitForConfigurationsToBeCreated) {
-
-					TimeUnit.MILLISECONDS.sleep(10);
-
-					waitForConfigurationsToBeCreated = (!featureConfigurationManager.serviceAdded()
-							|| !featureConfigurationManager.configurationsCreated());
+				if (waitForConfigurationsToBeCreated) {
+					try {
+						featureConfigurationManager.getConfigurationsCreated().get();
+					} catch (ExecutionException e) {
+						throw FeatureLauncherConfigurationManager.asLaunchException(e);
+					}
 
-					System.out.println();
+					waitForConfigurationsToBeCreated = false;
 				}
 			}
 
 			return waitForConfigurationsToBeCreated;
 		}
 
+		private boolean isDecorationCacheEnabled() {
+			return Boolean.parseBoolean(String.valueOf(this.configuration.get(DECORATION_CACHE_ENABLED)));
+		}
+
 		private void maybeSetCustomConfigurationTimeout() {
 			if (!this.configuration.isEmpty() && this.configuration.containsKey(CONFIGURATION_TIMEOUT)) {
 				long customConfigurationTimeout = Long
@@ -494,6 +745,31 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 			}
 		}
 
+		private void installBundles(Framework framework, List<ResolvedArtifact> bundles) {
+			LOG.info(String.format("There are %d planned bundle(s) to install", bundles.size()));
+
+			for (ResolvedArtifact bundle : bundles) {
+				Bundle installedBundle = installBundle(framework.getBundleContext(), bundle);
+
+				maybeSetBundleStartLevel(installedBundle, bundle.getStartLevel());
+
+				installedBundles.add(installedBundle);
+			}
+		}
+
+		private Bundle installBundle(BundleContext bundleContext, ResolvedArtifact bundle) {
+			try {
+				Bundle installedBundle = bundleContext.installBundle(bundle.getID().toString(),
+						new ByteArrayInputStream(bundle.readVerified()));
+
+				LOG.info(String.format("Installed bundle '%s'", installedBundle.getSymbolicName()));
+
+				return installedBundle;
+			} catch (BundleException e) {
+				throw new LaunchException(String.format("Could not install bundle '%s'!", bundle.getID()), e);
+			}
+		}
+
 		private void installBundle(BundleContext bundleContext, FeatureBundle featureBundle) {
 			Bundle installedBundle = installBundle(bundleContext, featureBundle.getID());
 
@@ -505,6 +781,10 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 		}
 
 		private Bundle installBundle(BundleContext bundleContext, ID featureBundleID) {
+			if (artifactPrefetcher != null) {
+				artifactPrefetcher.await(featureBundleID);
+			}
+
 			try (InputStream featureBundleIs = getArtifact(featureBundleID)) {
 				if (featureBundleIs.available() != 0) {
 					Bundle installedBundle = bundleContext.installBundle(featureBundleID.toString(), featureBundleIs);
@@ -522,19 +802,54 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 		}
 
 		protected void maybeSetBundleStartLevel(Bundle bundle, Map<String, Object> metadata) {
+			maybeSetBundleStartLevel(bundle, getBundleStartLevel(metadata));
+		}
+
+		private void maybeSetBundleStartLevel(Bundle bundle, OptionalInt startLevel) {
+			startLevel.ifPresent(sl -> bundle.adapt(BundleStartLevel.class).setStartLevel(sl));
+		}
+
+		private OptionalInt getBundleStartLevel(Map<String, Object> metadata) {
 			if (metadata != null && metadata.containsKey(BUNDLE_START_LEVEL_METADATA)) {
-				int startlevel = Integer.valueOf(metadata.get(BUNDLE_START_LEVEL_METADATA).toString()).intValue();
+				return OptionalInt.of(Integer.valueOf(metadata.get(BUNDLE_START_LEVEL_METADATA).toString()).intValue());
+			}
+
+			return OptionalInt.empty();
+		}
 
-				bundle.adapt(BundleStartLevel.class).setStartLevel(startlevel);
+		private Path getArtifactPath(ID featureBundleID) {
+			if (artifactPrefetcher != null) {
+				artifactPrefetcher.await(featureBundleID);
 			}
+
+			for (ArtifactRepository artifactRepository : artifactRepositories) {
+				if (artifactRepository instanceof FileSystemArtifactRepository fileSystemArtifactRepository
+						&& !missingArtifactCache.isMissing(artifactRepository, featureBundleID)) {
+					Path artifactPath = fileSystemArtifactRepository.getArtifactPath(featureBundleID);
+					if (artifactPath != null) {
+						return artifactPath;
+					}
+
+					missingArtifactCache.markMissingIfDefinite(artifactRepository, featureBundleID);
+				}
+			}
+
+			throw new LaunchException(String.format(
+					"Artifact '%s' could not be resolved to a file, launch cannot be planned!", featureBundleID));
 		}
 
 		private InputStream getArtifact(ID featureBundleID) {
 			for (ArtifactRepository artifactRepository : artifactRepositories) {
+				if (missingArtifactCache.isMissing(artifactRepository, featureBundleID)) {
+					continue;
+				}
+
 				InputStream featureBundleIs = artifactRepository.getArtifact(featureBundleID);
 				if (featureBundleIs != null) {
 					return featureBundleIs;
 				}
+
+				missingArtifactCache.markMissingIfDefinite(artifactRepository, featureBundleID);
 			}
 
 			return InputStream.nullInputStream();
@@ -607,4 +922,16 @@ public class FeatureLauncherImpl implements FeatureLauncher {
 			}
 		}
 	}
+
+	// TODO: maybe add this to org.osgi.service.featurelauncher.FeatureLauncher.LaunchBuilder ?
+	public interface LaunchPlanBuilder {
+		/**
+		 * Decorates feature, locates framework and resolves artifacts, without
+		 * launching framework. Builder can still be launched afterwards.
+		 * 
+		 * Only artifacts available from file system artifact repositories can
+		 * be planned.
+		 */
+		LaunchPlan createLaunchPlan();
+	}
 }
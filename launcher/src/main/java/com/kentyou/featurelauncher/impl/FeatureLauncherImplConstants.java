@@ -25,4 +25,12 @@ public interface FeatureLauncherImplConstants {
 	String FRAMEWORK_STORAGE_CLEAN_TESTONLY = "testOnly";
 	
 	String CONFIGURATION_ADMIN_IMPL_DEFAULT = "org.apache.felix:org.apache.felix.configadmin:1.9.26";
+
+	/**
+	 * Launch configuration property enabling reuse of decoration results across
+	 * launches by same launcher, for decorators and extension handlers
+	 * implementing
+	 * {@link com.kentyou.featurelauncher.common.decorator.DeterministicDecoration}
+	 */
+	String DECORATION_CACHE_ENABLED = "com.kentyou.featurelauncher.decoration.cache";
 }
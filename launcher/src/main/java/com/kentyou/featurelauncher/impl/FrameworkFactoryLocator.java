@@ -24,6 +24,8 @@ import org.osgi.service.featurelauncher.LaunchException;
 import org.osgi.service.featurelauncher.repository.ArtifactRepository;
 
 import com.kentyou.featurelauncher.common.decorator.impl.DecorationContext;
+import com.kentyou.featurelauncher.common.decorator.impl.LaunchFrameworkFeatureExtensionHandlerImpl;
+import com.kentyou.featurelauncher.impl.LaunchPlan.ResolvedArtifact;
 
 
 /**
@@ -81,6 +83,34 @@ class FrameworkFactoryLocator {
 		}
 	}
 
+	/**
+	 * Locates framework factory of launch plan, which was selected by steps #1 and
+	 * #2 when plan was created, falling back to steps #3 and #4 otherwise
+	 */
+	public static FrameworkFactory locateFrameworkFactory(LaunchPlan launchPlan) {
+		Optional<ResolvedArtifact> frameworkArtifactOptional = launchPlan.getFrameworkArtifact();
+		if (frameworkArtifactOptional.isPresent()) {
+			ResolvedArtifact frameworkArtifact = frameworkArtifactOptional.get();
+
+			// loaded from file, content is only verified
+			frameworkArtifact.verify();
+
+			return LaunchFrameworkFeatureExtensionHandlerImpl
+					.loadFrameworkFactory(frameworkArtifact.getPath(), launchPlan.getFrameworkFactoryClassName().get())
+					.orElseThrow(() -> new LaunchException(
+							String.format("Error loading planned framework factory from %s!", frameworkArtifact)));
+		}
+
+		// same caller depth as when locating for feature
+		Optional<FrameworkFactory> findFrameworkFactoryOptional = findFrameworkFactory();
+		if (findFrameworkFactoryOptional.isPresent()) {
+			return findFrameworkFactoryOptional.get();
+		}
+
+		return loadDefaultFrameworkFactory()
+				.orElseThrow(() -> new LaunchException("Error loading default framework factory!"));
+	}
+
 	private static Optional<FrameworkFactory> findFrameworkFactory() {
 		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
 		if (classLoader == null) {
@@ -0,0 +1,436 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+import org.osgi.service.featurelauncher.LaunchException;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonWriter;
+import jakarta.json.stream.JsonGenerator;
+
+/**
+ * Outcome of decoration, framework location and artifact resolution for a
+ * feature, from which framework may later be launched without repeating them.
+ *
+ * Artifacts are referenced by path and SHA-256 digest; launching from a plan
+ * whose artifacts were moved or changed fails, and plan must be created again.
+ *
+ * @see FeatureLauncherImpl.LaunchPlanBuilder#createLaunchPlan()
+ * @see FeatureLauncherImpl#launch(LaunchPlan)
+ */
+public final class LaunchPlan {
+	static final int LAUNCH_PLAN_FORMAT_VERSION = 1;
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+
+	private static final String FORMAT_VERSION_KEY = "launchPlanVersion";
+	private static final String SOURCE_FEATURE_DIGEST_KEY = "sourceFeatureSha256";
+	private static final String FEATURE_KEY = "feature";
+	private static final String FRAMEWORK_KEY = "framework";
+	private static final String FRAMEWORK_FACTORY_KEY = "factory";
+	private static final String FRAMEWORK_PROPERTIES_KEY = "frameworkProperties";
+	private static final String VARIABLES_KEY = "variables";
+	private static final String DEFAULT_BUNDLE_START_LEVEL_KEY = "defaultBundleStartLevel";
+	private static final String MINIMUM_FRAMEWORK_START_LEVEL_KEY = "minimumFrameworkStartLevel";
+	private static final String BUNDLES_KEY = "bundles";
+	private static final String ID_KEY = "id";
+	private static final String PATH_KEY = "path";
+	private static final String DIGEST_KEY = "sha256";
+	private static final String START_LEVEL_KEY = "startLevel";
+
+	private final String sourceFeatureDigest;
+	private final Feature feature;
+	private final ResolvedArtifact frameworkArtifact;
+	private final String frameworkFactoryClassName;
+	private final Map<String, Object> frameworkProperties;
+	private final Map<String, Object> variables;
+	private final OptionalInt defaultBundleStartLevel;
+	private final OptionalInt minimumFrameworkStartLevel;
+	private final List<ResolvedArtifact> bundles;
+
+	LaunchPlan(String sourceFeatureDigest, Feature feature, ResolvedArtifact frameworkArtifact, String frameworkFactoryClassName,
+			Map<String, Object> frameworkProperties, Map<String, Object> variables,
+			OptionalInt defaultBundleStartLevel, OptionalInt minimumFrameworkStartLevel,
+			List<ResolvedArtifact> bundles) {
+		this.sourceFeatureDigest = Objects.requireNonNull(sourceFeatureDigest, "Feature digest cannot be null!");
+		this.feature = Objects.requireNonNull(feature, "Feature cannot be null!");
+		this.frameworkArtifact = frameworkArtifact;
+		this.frameworkFactoryClassName = frameworkFactoryClassName;
+		this.frameworkProperties = Collections.unmodifiableMap(new LinkedHashMap<>(frameworkProperties));
+		this.variables = Collections.unmodifiableMap(new LinkedHashMap<>(variables));
+		this.defaultBundleStartLevel = defaultBundleStartLevel;
+		this.minimumFrameworkStartLevel = minimumFrameworkStartLevel;
+		this.bundles = List.copyOf(bundles);
+	}
+
+	/**
+	 * Hex encoded SHA-256 digest of JSON of feature plan was created for, before
+	 * decoration
+	 */
+	public String getSourceFeatureDigest() {
+		return sourceFeatureDigest;
+	}
+
+	/**
+	 * Feature to launch, after decoration
+	 */
+	public Feature getFeature() {
+		return feature;
+	}
+
+	/**
+	 * Artifact framework factory is loaded from, or empty if framework factory
+	 * is located on classpath
+	 */
+	public Optional<ResolvedArtifact> getFrameworkArtifact() {
+		return Optional.ofNullable(frameworkArtifact);
+	}
+
+	public Optional<String> getFrameworkFactoryClassName() {
+		return Optional.ofNullable(frameworkFactoryClassName);
+	}
+
+	/**
+	 * Framework properties from feature, merged with those of launch, before
+	 * variables are substituted; variables are substituted whenever framework
+	 * is launched from plan, so that launch may override them
+	 */
+	public Map<String, Object> getFrameworkProperties() {
+		return frameworkProperties;
+	}
+
+	/**
+	 * Variables from feature, merged with those of launch
+	 */
+	public Map<String, Object> getVariables() {
+		return variables;
+	}
+
+	public OptionalInt getDefaultBundleStartLevel() {
+		return defaultBundleStartLevel;
+	}
+
+	public OptionalInt getMinimumFrameworkStartLevel() {
+		return minimumFrameworkStartLevel;
+	}
+
+	/**
+	 * Bundles to install, in order
+	 */
+	public List<ResolvedArtifact> getBundles() {
+		return bundles;
+	}
+
+	/**
+	 * Artifact resolved to a file, with its digest and, for bundles, start level
+	 */
+	public static final class ResolvedArtifact {
+		private final ID id;
+		private final Path path;
+		private final String digest;
+		private final OptionalInt startLevel;
+
+		ResolvedArtifact(ID id, Path path, String digest, OptionalInt startLevel) {
+			this.id = Objects.requireNonNull(id, "Artifact ID cannot be null!");
+			this.path = Objects.requireNonNull(path, "Artifact path cannot be null!");
+			this.digest = Objects.requireNonNull(digest, "Artifact digest cannot be null!");
+			this.startLevel = startLevel;
+		}
+
+		static ResolvedArtifact resolve(ID id, Path path, OptionalInt startLevel) {
+			try {
+				return new ResolvedArtifact(id, path, digest(path), startLevel);
+			} catch (IOException e) {
+				throw new LaunchException(String.format("Could not read artifact '%s' from %s!", id, path), e);
+			}
+		}
+
+		public ID getID() {
+			return id;
+		}
+
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * Hex encoded SHA-256 digest of artifact content
+		 */
+		public String getDigest() {
+			return digest;
+		}
+
+		public OptionalInt getStartLevel() {
+			return startLevel;
+		}
+
+		/**
+		 * Reads artifact content, verifying that it is still the one planned.
+		 * Content is read into heap, so that artifact truncated or rewritten in
+		 * place while it is being installed does not bypass verification
+		 */
+		byte[] readVerified() {
+			byte[] content;
+			try {
+				content = Files.readAllBytes(path);
+			} catch (NoSuchFileException e) {
+				throw outOfDate(e);
+			} catch (IOException e) {
+				throw new LaunchException(String.format("Could not read artifact '%s' from %s!", id, path), e);
+			}
+
+			if (!digest.equals(digest(content))) {
+				throw changed();
+			}
+
+			return content;
+		}
+
+		/**
+		 * Verifies that artifact content is still the one planned, without
+		 * keeping content
+		 */
+		void verify() {
+			String currentDigest;
+			try {
+				currentDigest = digest(path);
+			} catch (NoSuchFileException e) {
+				throw outOfDate(e);
+			} catch (IOException e) {
+				throw new LaunchException(String.format("Could not read artifact '%s' from %s!", id, path), e);
+			}
+
+			if (!digest.equals(currentDigest)) {
+				throw changed();
+			}
+		}
+
+		private LaunchException outOfDate(NoSuchFileException e) {
+			return new LaunchException(
+					String.format("Launch plan is out of date: artifact '%s' no longer exists at %s!", id, path), e);
+		}
+
+		private LaunchException changed() {
+			return new LaunchException(
+					String.format("Launch plan is out of date: artifact '%s' at %s has changed!", id, path));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return String.format("%s (%s)", id, path);
+		}
+	}
+
+	static String digest(byte[] content) {
+		return HexFormat.of().formatHex(newMessageDigest().digest(content));
+	}
+
+	/**
+	 * Digests content of file, read through a fixed size buffer
+	 */
+	static String digest(Path path) throws IOException {
+		MessageDigest messageDigest = newMessageDigest();
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE);
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				messageDigest.update(buffer);
+				buffer.clear();
+			}
+		}
+
+		return HexFormat.of().formatHex(messageDigest.digest());
+	}
+
+	private static MessageDigest newMessageDigest() {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new LaunchException(String.format("%s digest is not supported!", DIGEST_ALGORITHM), e);
+		}
+	}
+
+	void write(FeatureService featureService, Writer writer) throws IOException {
+		StringWriter featureWriter = new StringWriter();
+		featureService.writeFeature(feature, featureWriter);
+
+		JsonObject featureJson;
+		try (JsonReader jsonReader = Json.createReader(new StringReader(featureWriter.toString()))) {
+			featureJson = jsonReader.readObject();
+		}
+
+		JsonObjectBuilder planBuilder = Json.createObjectBuilder()
+				.add(FORMAT_VERSION_KEY, LAUNCH_PLAN_FORMAT_VERSION)
+				.add(SOURCE_FEATURE_DIGEST_KEY, sourceFeatureDigest)
+				.add(FEATURE_KEY, featureJson);
+
+		if (frameworkArtifact != null) {
+			planBuilder.add(FRAMEWORK_KEY,
+					toJson(frameworkArtifact).add(FRAMEWORK_FACTORY_KEY, frameworkFactoryClassName));
+		}
+
+		JsonObjectBuilder frameworkPropertiesBuilder = Json.createObjectBuilder();
+		frameworkProperties.forEach((key, value) -> frameworkPropertiesBuilder.add(key, toJson(value)));
+		planBuilder.add(FRAMEWORK_PROPERTIES_KEY, frameworkPropertiesBuilder);
+
+		JsonObjectBuilder variablesBuilder = Json.createObjectBuilder();
+		variables.forEach((name, value) -> variablesBuilder.add(name, toJson(value)));
+		planBuilder.add(VARIABLES_KEY, variablesBuilder);
+
+		defaultBundleStartLevel.ifPresent(sl -> planBuilder.add(DEFAULT_BUNDLE_START_LEVEL_KEY, sl));
+		minimumFrameworkStartLevel.ifPresent(sl -> planBuilder.add(MINIMUM_FRAMEWORK_START_LEVEL_KEY, sl));
+
+		JsonArrayBuilder bundlesBuilder = Json.createArrayBuilder();
+		for (ResolvedArtifact bundle : bundles) {
+			bundlesBuilder.add(toJson(bundle));
+		}
+		planBuilder.add(BUNDLES_KEY, bundlesBuilder);
+
+		try (JsonWriter jsonWriter = Json
+				.createWriterFactory(Map.of(JsonGenerator.PRETTY_PRINTING, Boolean.TRUE))
+				.createWriter(writer)) {
+			jsonWriter.writeObject(planBuilder.build());
+		}
+	}
+
+	static LaunchPlan read(FeatureService featureService, Reader reader) throws IOException {
+		JsonObject planJson;
+		try (JsonReader jsonReader = Json.createReader(reader)) {
+			planJson = jsonReader.readObject();
+		}
+
+		int formatVersion = planJson.getInt(FORMAT_VERSION_KEY, -1);
+		if (formatVersion != LAUNCH_PLAN_FORMAT_VERSION) {
+			throw new LaunchException(String.format("Unsupported launch plan version %d!", formatVersion));
+		}
+
+		Feature feature = featureService
+				.readFeature(new StringReader(planJson.getJsonObject(FEATURE_KEY).toString()));
+
+		ResolvedArtifact frameworkArtifact = null;
+		String frameworkFactoryClassName = null;
+		if (planJson.containsKey(FRAMEWORK_KEY)) {
+			JsonObject frameworkJson = planJson.getJsonObject(FRAMEWORK_KEY);
+			frameworkArtifact = toResolvedArtifact(featureService, frameworkJson);
+			frameworkFactoryClassName = frameworkJson.getString(FRAMEWORK_FACTORY_KEY);
+		}
+
+		Map<String, Object> frameworkProperties = new LinkedHashMap<>();
+		planJson.getJsonObject(FRAMEWORK_PROPERTIES_KEY)
+				.forEach((key, value) -> frameworkProperties.put(key, toObject(value)));
+
+		Map<String, Object> variables = new LinkedHashMap<>();
+		planJson.getJsonObject(VARIABLES_KEY).forEach((name, value) -> variables.put(name, toObject(value)));
+
+		List<ResolvedArtifact> bundles = new ArrayList<>();
+		for (JsonValue bundleJson : planJson.getJsonArray(BUNDLES_KEY)) {
+			bundles.add(toResolvedArtifact(featureService, bundleJson.asJsonObject()));
+		}
+
+		return new LaunchPlan(planJson.getString(SOURCE_FEATURE_DIGEST_KEY), feature, frameworkArtifact,
+				frameworkFactoryClassName, frameworkProperties, variables,
+				toOptionalInt(planJson, DEFAULT_BUNDLE_START_LEVEL_KEY),
+				toOptionalInt(planJson, MINIMUM_FRAMEWORK_START_LEVEL_KEY), bundles);
+	}
+
+	private static JsonObjectBuilder toJson(ResolvedArtifact artifact) {
+		JsonObjectBuilder artifactBuilder = Json.createObjectBuilder()
+				.add(ID_KEY, artifact.getID().toString())
+				.add(PATH_KEY, artifact.getPath().toString())
+				.add(DIGEST_KEY, artifact.getDigest());
+
+		artifact.getStartLevel().ifPresent(sl -> artifactBuilder.add(START_LEVEL_KEY, sl));
+
+		return artifactBuilder;
+	}
+
+	private static ResolvedArtifact toResolvedArtifact(FeatureService featureService, JsonObject artifactJson) {
+		return new ResolvedArtifact(featureService.getIDfromMavenCoordinates(artifactJson.getString(ID_KEY)),
+				Paths.get(artifactJson.getString(PATH_KEY)), artifactJson.getString(DIGEST_KEY),
+				toOptionalInt(artifactJson, START_LEVEL_KEY));
+	}
+
+	private static OptionalInt toOptionalInt(JsonObject json, String key) {
+		return json.containsKey(key) ? OptionalInt.of(json.getInt(key)) : OptionalInt.empty();
+	}
+
+	private static JsonValue toJson(Object value) {
+		if (value instanceof Boolean booleanValue) {
+			return booleanValue ? JsonValue.TRUE : JsonValue.FALSE;
+		} else if (value instanceof Number numberValue) {
+			return Json.createValue(new BigDecimal(numberValue.toString()));
+		} else {
+			return Json.createValue(String.valueOf(value));
+		}
+	}
+
+	private static Object toObject(JsonValue jsonValue) {
+		switch (jsonValue.getValueType()) {
+		case NUMBER:
+			JsonNumber jsonNumber = (JsonNumber) jsonValue;
+			return jsonNumber.isIntegral() ? Long.valueOf(jsonNumber.longValue())
+					: Double.valueOf(jsonNumber.doubleValue());
+		case TRUE:
+			return Boolean.TRUE;
+		case FALSE:
+			return Boolean.FALSE;
+		case STRING:
+			return ((JsonString) jsonValue).getString();
+		default:
+			return jsonValue.toString();
+		}
+	}
+}
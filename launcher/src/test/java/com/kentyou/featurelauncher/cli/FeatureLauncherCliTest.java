@@ -19,7 +19,15 @@ import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConst
 import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.REMOTE_ARTIFACT_REPOSITORY_TYPE;
 import static com.kentyou.featurelauncher.repository.spi.ArtifactRepositoryConstants.REMOTE_ARTIFACT_REPOSITORY_URI;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 import static org.osgi.service.featurelauncher.repository.ArtifactRepositoryConstants.ARTIFACT_REPOSITORY_NAME;
 
 import java.io.ByteArrayOutputStream;
@@ -37,6 +45,15 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.launch.Framework;
+import org.osgi.service.feature.Feature;
+import org.osgi.service.featurelauncher.FeatureLauncher.LaunchBuilder;
+import org.osgi.service.featurelauncher.LaunchException;
+
+import com.kentyou.featurelauncher.impl.FeatureLauncherImpl;
+import com.kentyou.featurelauncher.impl.LaunchPlan;
+import com.kentyou.featurelauncher.repository.spi.NamedArtifactRepository;
 
 import picocli.CommandLine;
 
@@ -409,6 +426,78 @@ public class FeatureLauncherCliTest {
 		assertEquals("", err.toString());
 	}
 
+	@Test
+	public void testLaunchedFromCreatedLaunchPlan(@TempDir Path tempDir) throws Exception {
+		FeatureLauncherImpl featureLauncher = mock(FeatureLauncherImpl.class);
+		NamedArtifactRepository artifactRepository = mockArtifactRepository(featureLauncher);
+
+		LaunchBuilder featureLaunchBuilder = mock(LaunchBuilder.class,
+				withSettings().extraInterfaces(FeatureLauncherImpl.LaunchPlanBuilder.class));
+		LaunchBuilder launchPlanLaunchBuilder = mock(LaunchBuilder.class);
+		LaunchPlan launchPlan = mock(LaunchPlan.class);
+		Framework framework = mock(Framework.class);
+		Path launchPlanPath = tempDir.resolve("launch-plan.json");
+
+		when(featureLauncher.launch(any(Feature.class))).thenReturn(featureLaunchBuilder);
+		when(((FeatureLauncherImpl.LaunchPlanBuilder) featureLaunchBuilder).createLaunchPlan()).thenReturn(launchPlan);
+		when(featureLauncher.launch(launchPlan)).thenReturn(launchPlanLaunchBuilder);
+		when(launchPlanLaunchBuilder.launchFramework()).thenReturn(framework);
+
+		List<String> args = List.of(
+				buildArtifactRepositoryOptionArgs(false, LOCAL_ARTIFACT_REPOSITORY_URI,
+						Map.entry(ARTIFACT_REPOSITORY_NAME, DEFAULT_LOCAL_ARTIFACT_REPOSITORY_NAME)),
+				buildOptionArgs("--variable-override", VARIABLE_1_KEY, VARIABLE_1_VALUE),
+				buildOptionArgs("--impl-launch-plan", launchPlanPath.toString()), Files.readString(FEATURE_FILE_PATH));
+
+		int exitCode = new CommandLine(new FeatureLauncherCli(featureLauncher)).execute(args.toArray(String[]::new));
+		assertEquals(0, exitCode);
+
+		assertTrue(out.toString().contains(String.format("Created launch plan %s", launchPlanPath)));
+		verify(featureLauncher).writeLaunchPlan(launchPlan, launchPlanPath);
+
+		// feature is decorated and resolved once, while plan is created
+		verify(featureLaunchBuilder, never()).launchFramework();
+		verify(launchPlanLaunchBuilder).withRepository(artifactRepository);
+		verify(launchPlanLaunchBuilder).withVariables(Map.of(VARIABLE_1_KEY, VARIABLE_1_VALUE));
+		verify(launchPlanLaunchBuilder).launchFramework();
+		verify(framework).waitForStop(0);
+
+		verify((AutoCloseable) artifactRepository).close();
+	}
+
+	@Test
+	public void testArtifactRepositoriesClosedOnFailure(@TempDir Path tempDir) throws Exception {
+		FeatureLauncherImpl featureLauncher = mock(FeatureLauncherImpl.class);
+		NamedArtifactRepository artifactRepository = mockArtifactRepository(featureLauncher);
+
+		LaunchBuilder featureLaunchBuilder = mock(LaunchBuilder.class,
+				withSettings().extraInterfaces(FeatureLauncherImpl.LaunchPlanBuilder.class));
+		when(featureLauncher.launch(any(Feature.class))).thenReturn(featureLaunchBuilder);
+		when(((FeatureLauncherImpl.LaunchPlanBuilder) featureLaunchBuilder).createLaunchPlan())
+				.thenThrow(new LaunchException("Feature decoration handling failed!"));
+
+		List<String> args = List.of("--impl-dry-run",
+				buildArtifactRepositoryOptionArgs(false, LOCAL_ARTIFACT_REPOSITORY_URI,
+						Map.entry(ARTIFACT_REPOSITORY_NAME, DEFAULT_LOCAL_ARTIFACT_REPOSITORY_NAME)),
+				buildOptionArgs("--impl-launch-plan", tempDir.resolve("launch-plan.json").toString()),
+				Files.readString(FEATURE_FILE_PATH));
+
+		int exitCode = new CommandLine(new FeatureLauncherCli(featureLauncher)).execute(args.toArray(String[]::new));
+		assertNotEquals(0, exitCode);
+
+		verify(featureLauncher, never()).writeLaunchPlan(any(), any());
+		verify((AutoCloseable) artifactRepository).close();
+	}
+
+	private static NamedArtifactRepository mockArtifactRepository(FeatureLauncherImpl featureLauncher) {
+		NamedArtifactRepository artifactRepository = mock(NamedArtifactRepository.class,
+				withSettings().extraInterfaces(AutoCloseable.class));
+		when(artifactRepository.getName()).thenReturn(DEFAULT_LOCAL_ARTIFACT_REPOSITORY_NAME);
+		when(featureLauncher.createRepository(eq(LOCAL_ARTIFACT_REPOSITORY_URI), any()))
+				.thenReturn(artifactRepository);
+		return artifactRepository;
+	}
+
 	private String buildOptionArgs(String optionName, String element) {
 		StringBuilder args = new StringBuilder();
 		args.append(optionName);
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Dictionary;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationAdmin;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.impl.ConfigurationAdminAccessor}
+ */
+public class ConfigurationAdminAccessorTest {
+	ConfigurationAdminAccessor configurationAdminAccessor;
+
+	ConfigurationAdmin configurationAdmin;
+
+	Configuration configuration;
+
+	@BeforeEach
+	public void setUp() {
+		configurationAdminAccessor = ConfigurationAdminAccessor.forClass(ConfigurationAdmin.class);
+		configurationAdmin = mock(ConfigurationAdmin.class);
+		configuration = mock(Configuration.class);
+	}
+
+	@Test
+	public void testAccessorBoundOncePerClass() {
+		assertSame(configurationAdminAccessor, ConfigurationAdminAccessor.forClass(ConfigurationAdmin.class));
+	}
+
+	@Test
+	public void testBindingFailure() {
+		// class loader of 'String' cannot see Configuration Admin API
+		assertThrows(IllegalStateException.class, () -> ConfigurationAdminAccessor.forClass(String.class));
+
+		// failure is not cached as a valid accessor
+		assertThrows(IllegalStateException.class, () -> ConfigurationAdminAccessor.forClass(String.class));
+	}
+
+	@Test
+	public void testCallsDelegated() throws Exception {
+		Configuration factoryConfiguration = mock(Configuration.class);
+		Dictionary<String, Object> properties = FrameworkUtil.asDictionary(Map.of("k", "v"));
+
+		when(configurationAdmin.listConfigurations("(k=v)")).thenReturn(new Configuration[] { configuration });
+		when(configurationAdmin.getConfiguration("pid.a", "?")).thenReturn(configuration);
+		when(configurationAdmin.getFactoryConfiguration("factory.pid", "name", "?")).thenReturn(factoryConfiguration);
+		when(configuration.getProperties()).thenReturn(properties);
+
+		assertArrayEquals(new Object[] { configuration },
+				configurationAdminAccessor.listConfigurations(configurationAdmin, "(k=v)"));
+		assertNull(configurationAdminAccessor.listConfigurations(configurationAdmin, "(k=other)"));
+		assertSame(configuration, configurationAdminAccessor.getConfiguration(configurationAdmin, "pid.a", "?"));
+		assertSame(factoryConfiguration,
+				configurationAdminAccessor.getFactoryConfiguration(configurationAdmin, "factory.pid", "name", "?"));
+		assertSame(properties, configurationAdminAccessor.getProperties(configuration));
+		assertNull(configurationAdminAccessor.getProperties(factoryConfiguration));
+
+		configurationAdminAccessor.update(configuration, properties);
+		verify(configuration).update(properties);
+	}
+
+	@Test
+	public void testExceptionsNotWrapped() throws Exception {
+		IOException ioException = new IOException("storage failure");
+		when(configurationAdmin.getConfiguration("pid.a", "?")).thenThrow(ioException);
+		IllegalStateException illegalStateException = new IllegalStateException("deleted");
+		doThrow(illegalStateException).when(configuration).update(null);
+
+		assertSame(ioException, assertThrows(IOException.class,
+				() -> configurationAdminAccessor.getConfiguration(configurationAdmin, "pid.a", "?")));
+		assertSame(illegalStateException, assertThrows(IllegalStateException.class,
+				() -> configurationAdminAccessor.update(configuration, null)));
+
+		// wrong receiver type is reported, not silently ignored
+		assertThrows(ClassCastException.class, () -> configurationAdminAccessor.getProperties("not a configuration"));
+	}
+}
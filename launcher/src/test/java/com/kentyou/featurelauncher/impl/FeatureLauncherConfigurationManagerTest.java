@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceFactory;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.launch.FrameworkFactory;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.service.feature.FeatureConfiguration;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.featurelauncher.LaunchException;
+
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.impl.FeatureLauncherConfigurationManager}
+ * against an embedded framework, with a mocked Configuration Admin Service
+ * registered by the system bundle.
+ */
+public class FeatureLauncherConfigurationManagerTest {
+	@TempDir
+	Path tempDir;
+
+	Framework framework;
+
+	BundleContext bundleContext;
+
+	FeatureLauncherConfigurationManager featureLauncherConfigurationManager;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		FrameworkFactory frameworkFactory = ServiceLoader.load(FrameworkFactory.class).iterator().next();
+		framework = frameworkFactory.newFramework(Map.of(Constants.FRAMEWORK_STORAGE, tempDir.toString(),
+				Constants.FRAMEWORK_STORAGE_CLEAN, Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT));
+		framework.start();
+
+		bundleContext = framework.getBundleContext();
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		if (featureLauncherConfigurationManager != null) {
+			featureLauncherConfigurationManager.stop();
+		}
+
+		framework.stop();
+		framework.waitForStop(10_000L);
+	}
+
+	@Test
+	public void testConfigurationsCreated() throws Exception {
+		ConfigurationAdmin configurationAdmin = mock(ConfigurationAdmin.class);
+		Configuration changed = mockConfiguration(configurationAdmin, "pid.changed", Map.of("k", "old"));
+		Configuration unchanged = mockConfiguration(configurationAdmin, "pid.unchanged", Map.of("k", "v"));
+		Configuration created = mockConfiguration(configurationAdmin, "pid.created", null);
+
+		featureLauncherConfigurationManager = createConfigurationManager("pid.changed", "pid.unchanged",
+				"pid.created");
+		assertFalse(featureLauncherConfigurationManager.serviceAdded());
+
+		registerConfigurationAdmin(bundleContext, configurationAdmin);
+
+		assertTrue(featureLauncherConfigurationManager.waitForConfigurations(10_000L));
+		assertTrue(featureLauncherConfigurationManager.serviceAdded());
+		assertTrue(featureLauncherConfigurationManager.configurationsCreated());
+
+		verify(changed).update(argThat(d -> Map.of("k", "v").equals(FrameworkUtil.asMap(d))));
+		verify(unchanged, never()).update(any());
+		verify(created).update(argThat(d -> Map.of("k", "v").equals(FrameworkUtil.asMap(d))));
+	}
+
+	@Test
+	public void testConfigurationsCreatedOnce() throws Exception {
+		ConfigurationAdmin first = mock(ConfigurationAdmin.class);
+		mockConfiguration(first, "pid.a", null);
+		ConfigurationAdmin second = mock(ConfigurationAdmin.class);
+		mockConfiguration(second, "pid.a", null);
+
+		featureLauncherConfigurationManager = createConfigurationManager("pid.a");
+
+		registerConfigurationAdmin(bundleContext, first);
+		registerConfigurationAdmin(bundleContext, second);
+
+		assertTrue(featureLauncherConfigurationManager.waitForConfigurations(10_000L));
+
+		// second service arriving while or after configurations are created is ignored
+		verify(first, times(1)).getConfiguration(anyString(), anyString());
+		verify(second, never()).getConfiguration(anyString(), anyString());
+	}
+
+	@Test
+	public void testConfigurationAdminApiNotVisible() throws Exception {
+		featureLauncherConfigurationManager = createConfigurationManager("pid.a");
+
+		// bundle not importing Configuration Admin API
+		Bundle bundle = installBundle("com.example.a");
+		bundle.start();
+		registerConfigurationAdmin(bundle.getBundleContext(), mock(ConfigurationAdmin.class));
+
+		assertFailed();
+	}
+
+	@Test
+	public void testConfigurationAdminServiceUnavailable() throws Exception {
+		featureLauncherConfigurationManager = createConfigurationManager("pid.a");
+
+		bundleContext.registerService(ConfigurationAdmin.class.getName(), new ServiceFactory<Object>() {
+			@Override
+			public Object getService(Bundle bundle, ServiceRegistration<Object> registration) {
+				return null;
+			}
+
+			@Override
+			public void ungetService(Bundle bundle, ServiceRegistration<Object> registration, Object service) {
+				// nothing to do
+			}
+		}, null);
+
+		assertFailed();
+	}
+
+	@Test
+	public void testConfigurationCreationFailuresReported() throws Exception {
+		ConfigurationAdmin configurationAdmin = mock(ConfigurationAdmin.class);
+		Configuration created = mockConfiguration(configurationAdmin, "pid.created", null);
+		when(configurationAdmin.getConfiguration("pid.failed", "?")).thenThrow(new IOException("failed"));
+		Configuration notUpdated = mockConfiguration(configurationAdmin, "pid.not.updated", null);
+		doThrow(new IOException("not updated")).when(notUpdated).update(any());
+
+		featureLauncherConfigurationManager = createConfigurationManager("pid.created", "pid.failed",
+				"pid.not.updated");
+
+		registerConfigurationAdmin(bundleContext, configurationAdmin);
+
+		LaunchException e = assertThrows(LaunchException.class,
+				() -> featureLauncherConfigurationManager.waitForConfigurations(10_000L));
+		assertFalse(featureLauncherConfigurationManager.configurationsCreated());
+
+		// all failures are reported, not only first one
+		assertEquals("Error creating 2 configuration(s)!", e.getMessage());
+		assertEquals(1, e.getSuppressed().length);
+		// @formatter:off
+		Set<String> failedPids = Stream.concat(Stream.of(e.getCause()), Stream.of(e.getSuppressed()))
+				.map(Throwable::getMessage)
+				.collect(Collectors.toSet());
+		// @formatter:on
+		assertEquals(Set.of("Error creating configuration pid.failed!",
+				"Error updating configuration properties pid.not.updated!"), failedPids);
+
+		// other configurations are still created
+		verify(created).update(argThat(d -> Map.of("k", "v").equals(FrameworkUtil.asMap(d))));
+	}
+
+	private void assertFailed() {
+		// waiting without timeout does not block forever
+		assertTrue(featureLauncherConfigurationManager.getConfigurationsCreated().isCompletedExceptionally());
+		assertFalse(featureLauncherConfigurationManager.configurationsCreated());
+		assertThrows(LaunchException.class, () -> featureLauncherConfigurationManager.waitForConfigurations(0L));
+	}
+
+	private FeatureLauncherConfigurationManager createConfigurationManager(String... pids) {
+		FeatureService featureService = ServiceLoaderUtil.loadFeatureService();
+
+		Map<String, FeatureConfiguration> featureConfigurations = new LinkedHashMap<>();
+		for (String pid : pids) {
+			featureConfigurations.put(pid, featureService.getBuilderFactory().newConfigurationBuilder(pid)
+					.addValues(Map.of("k", "v")).build());
+		}
+
+		return new FeatureLauncherConfigurationManager(bundleContext, featureConfigurations, Map.of());
+	}
+
+	private Bundle installBundle(String bundleSymbolicName) throws Exception {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, bundleSymbolicName);
+
+		ByteArrayOutputStream bundleOs = new ByteArrayOutputStream();
+		try (JarOutputStream jarOs = new JarOutputStream(bundleOs, manifest)) {
+			// manifest only
+		}
+
+		return bundleContext.installBundle(bundleSymbolicName, new ByteArrayInputStream(bundleOs.toByteArray()));
+	}
+
+	/*
+	 * Registered under class name, since Configuration Admin API is not exported
+	 * by the framework
+	 */
+	private static void registerConfigurationAdmin(BundleContext bundleContext, ConfigurationAdmin configurationAdmin) {
+		bundleContext.registerService(ConfigurationAdmin.class.getName(), configurationAdmin, null);
+	}
+
+	private static Configuration mockConfiguration(ConfigurationAdmin configurationAdmin, String pid,
+			Map<String, Object> properties) throws Exception {
+		Configuration configuration = mock(Configuration.class);
+		when(configuration.getPid()).thenReturn(pid);
+		when(configuration.getProperties())
+				.thenReturn((properties != null) ? FrameworkUtil.asDictionary(properties) : null);
+		when(configurationAdmin.getConfiguration(pid, "?")).thenReturn(configuration);
+		return configuration;
+	}
+}
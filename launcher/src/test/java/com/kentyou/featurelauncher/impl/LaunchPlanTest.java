@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+import org.osgi.service.featurelauncher.FeatureLauncher.LaunchBuilder;
+import org.osgi.service.featurelauncher.LaunchException;
+
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+import com.kentyou.featurelauncher.impl.LaunchPlan.ResolvedArtifact;
+
+/**
+ * Tests verification of artifacts referenced by
+ * {@link com.kentyou.featurelauncher.impl.LaunchPlan}, and launching from it
+ */
+public class LaunchPlanTest {
+	private static final String FRAMEWORK_PROPERTY = "com.example.property";
+
+	@TempDir
+	Path tempDir;
+
+	ID id;
+
+	Path artifactPath;
+
+	byte[] content;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		id = ServiceLoaderUtil.loadFeatureService().getIDfromMavenCoordinates("com.example:a:1.0.0");
+
+		// larger than buffer content is digested through
+		content = new byte[200_000];
+		new Random(42).nextBytes(content);
+
+		artifactPath = tempDir.resolve("a-1.0.0.jar");
+		Files.write(artifactPath, content);
+	}
+
+	@Test
+	public void testDigest() throws Exception {
+		String digest = LaunchPlan.digest(content);
+
+		assertEquals(64, digest.length());
+		assertEquals(digest, LaunchPlan.digest(artifactPath));
+
+		ResolvedArtifact artifact = ResolvedArtifact.resolve(id, artifactPath, OptionalInt.of(2));
+		assertEquals(digest, artifact.getDigest());
+		assertEquals(OptionalInt.of(2), artifact.getStartLevel());
+	}
+
+	@Test
+	public void testReadVerified() {
+		ResolvedArtifact artifact = ResolvedArtifact.resolve(id, artifactPath, OptionalInt.empty());
+
+		assertArrayEquals(content, artifact.readVerified());
+
+		artifact.verify();
+	}
+
+	@Test
+	public void testChangedArtifactRejected() throws Exception {
+		ResolvedArtifact artifact = ResolvedArtifact.resolve(id, artifactPath, OptionalInt.empty());
+
+		content[0]++;
+		Files.write(artifactPath, content);
+
+		assertTrue(assertThrows(LaunchException.class, artifact::readVerified).getMessage().contains("has changed"));
+		assertTrue(assertThrows(LaunchException.class, artifact::verify).getMessage().contains("has changed"));
+	}
+
+	@Test
+	public void testContentUnaffectedByLaterTruncation() throws Exception {
+		ResolvedArtifact artifact = ResolvedArtifact.resolve(id, artifactPath, OptionalInt.empty());
+
+		byte[] verifiedContent = artifact.readVerified();
+
+		// rewritten in place while being installed
+		try (FileChannel channel = FileChannel.open(artifactPath, StandardOpenOption.WRITE)) {
+			channel.truncate(10);
+		}
+
+		assertArrayEquals(content, verifiedContent);
+
+		assertThrows(LaunchException.class, artifact::readVerified);
+	}
+
+	@Test
+	public void testRemovedArtifactRejected() throws Exception {
+		ResolvedArtifact artifact = ResolvedArtifact.resolve(id, artifactPath, OptionalInt.empty());
+
+		Files.delete(artifactPath);
+
+		assertTrue(
+				assertThrows(LaunchException.class, artifact::readVerified).getMessage().contains("no longer exists"));
+		assertTrue(assertThrows(LaunchException.class, artifact::verify).getMessage().contains("no longer exists"));
+
+		assertThrows(LaunchException.class, () -> ResolvedArtifact.resolve(id, artifactPath, OptionalInt.empty()));
+	}
+
+	@Test
+	public void testRelaunchWithOverriddenVariable() throws Exception {
+		FeatureService featureService = ServiceLoaderUtil.loadFeatureService();
+		Feature feature = featureService.getBuilderFactory()
+				.newFeatureBuilder(featureService.getIDfromMavenCoordinates("com.example:feature:1.0.0"))
+				.addVariables(Map.of("value", "planned")).build();
+
+		LaunchPlan launchPlan = new LaunchPlan("digest", feature, null, null,
+				Map.of(FRAMEWORK_PROPERTY, "${value}", Constants.FRAMEWORK_STORAGE,
+						tempDir.resolve("framework").toString(), Constants.FRAMEWORK_STORAGE_CLEAN,
+						Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT),
+				feature.getVariables(), OptionalInt.empty(), OptionalInt.empty(), List.of());
+
+		// framework properties are kept as they are in feature
+		StringWriter launchPlanWriter = new StringWriter();
+		launchPlan.write(featureService, launchPlanWriter);
+		launchPlan = LaunchPlan.read(featureService, new StringReader(launchPlanWriter.toString()));
+		assertEquals("${value}", launchPlan.getFrameworkProperties().get(FRAMEWORK_PROPERTY));
+		assertEquals(Map.of("value", "planned"), launchPlan.getVariables());
+
+		FeatureLauncherImpl featureLauncher = (FeatureLauncherImpl) ServiceLoaderUtil.loadFeatureLauncherService();
+
+		assertEquals("overridden",
+				launchAndGetProperty(featureLauncher.launch(launchPlan).withVariables(Map.of("value", "overridden"))));
+		assertEquals("planned", launchAndGetProperty(featureLauncher.launch(launchPlan)));
+	}
+
+	private static String launchAndGetProperty(LaunchBuilder launchBuilder) throws Exception {
+		Framework framework = launchBuilder.launchFramework();
+		try {
+			return framework.getBundleContext().getProperty(FRAMEWORK_PROPERTY);
+		} finally {
+			framework.stop();
+			framework.waitForStop(10_000L);
+		}
+	}
+}
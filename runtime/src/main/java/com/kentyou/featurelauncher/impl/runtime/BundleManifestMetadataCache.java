@@ -0,0 +1,369 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.osgi.framework.Constants;
+import org.osgi.framework.Version;
+import org.osgi.service.feature.ID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches bundle symbolic name and version read from bundle manifests.
+ *
+ * Manifests of artifacts available on the file system are read by random
+ * access, without reading rest of the artifact; other manifests are read from
+ * the artifact stream, stopping as soon as {@code META-INF/MANIFEST.MF} has
+ * been consumed, so any artifact repository can be used. Artifacts available
+ * on the file system are keyed by path, size and last modification time;
+ * release artifacts only available as a stream are keyed by their immutable
+ * identifier. Entries are persisted after each operation reading manifests
+ * and on close; entry of a path is replaced when artifact at that path
+ * changes, and entries not used during a run are dropped once cache exceeds
+ * its capacity.
+ */
+class BundleManifestMetadataCache {
+	private static final Logger LOG = LoggerFactory.getLogger(BundleManifestMetadataCache.class);
+
+	private static final String PATH_KEY_PREFIX = "path:";
+
+	private static final String ID_KEY_PREFIX = "id:";
+
+	private static final String SNAPSHOT_VERSION_SUFFIX = "-SNAPSHOT";
+
+	private static final char VALUE_SEPARATOR = '\n';
+
+	private static final char PATH_KEY_SEPARATOR = '|';
+
+	static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+	private final Path cacheFile;
+
+	private final int maxEntries;
+
+	private final Map<String, Map.Entry<String, String>> entries;
+
+	// current key of each cached artifact path, so that stale keys are dropped
+	private final Map<String, String> pathKeys;
+
+	// keys looked up or added during this run, kept when capacity is exceeded
+	private final Set<String> usedKeys;
+
+	private volatile boolean dirty;
+
+	BundleManifestMetadataCache(Path cacheFile) {
+		this(cacheFile, DEFAULT_MAX_ENTRIES);
+	}
+
+	BundleManifestMetadataCache(Path cacheFile, int maxEntries) {
+		this.cacheFile = cacheFile;
+		this.maxEntries = maxEntries;
+		this.entries = new ConcurrentHashMap<>();
+		this.pathKeys = new ConcurrentHashMap<>();
+		this.usedKeys = ConcurrentHashMap.newKeySet();
+
+		load();
+	}
+
+	/**
+	 * Returns bundle symbolic name and version for given bundle, reading them from
+	 * the artifact only if they are not already cached.
+	 *
+	 * @param bundleId         bundle ID
+	 * @param pathResolver     resolves local path of artifact, may return
+	 *                         {@code null}
+	 * @param artifactResolver resolves artifact stream, may return {@code null}
+	 * @return bundle symbolic name and version, or {@code null} if artifact is not
+	 *         a bundle or cannot be read
+	 */
+	Map.Entry<String, String> get(ID bundleId, Function<ID, Path> pathResolver,
+			Function<ID, InputStream> artifactResolver) {
+		Path artifactPath = pathResolver.apply(bundleId);
+
+		String key = getKey(bundleId, artifactPath);
+		if (key != null) {
+			Map.Entry<String, String> cached = entries.get(key);
+			if (cached != null) {
+				usedKeys.add(key);
+				return cached;
+			}
+		}
+
+		Optional<Map.Entry<String, String>> extracted = extract(bundleId, artifactPath, artifactResolver);
+		if (extracted.isPresent() && (key != null)) {
+			put(key, extracted.get());
+			usedKeys.add(key);
+			dirty = true;
+		}
+
+		return extracted.orElse(null);
+	}
+
+	/**
+	 * Returns bundle symbolic name and version for given bundle without fetching
+	 * the artifact and without changing the cache: cached value if any, otherwise
+	 * value read from artifact at given path, if any.
+	 *
+	 * @param bundleId     bundle ID
+	 * @param artifactPath path of artifact already in file system, may be
+	 *                     {@code null}
+	 * @return bundle symbolic name and version, or {@code null} if they cannot be
+	 *         known without fetching the artifact
+	 */
+	Map.Entry<String, String> peek(ID bundleId, Path artifactPath) {
+		String key = getKey(bundleId, artifactPath);
+		if (key != null) {
+			Map.Entry<String, String> cached = entries.get(key);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		if (artifactPath == null) {
+			return null;
+		}
+
+		return extract(bundleId, artifactPath, id -> null).orElse(null);
+	}
+
+	/**
+	 * Persists entries added since last time, if any, e.g. once an operation
+	 * reading manifests completes
+	 */
+	void flush() {
+		persist();
+	}
+
+	void close() {
+		persist();
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	private void put(String key, Map.Entry<String, String> bundleSymbolicNameAndVersion) {
+		entries.put(key, bundleSymbolicNameAndVersion);
+
+		String path = getPath(key);
+		if (path != null) {
+			String previousKey = pathKeys.put(path, key);
+			if ((previousKey != null) && !previousKey.equals(key)) {
+				// artifact at this path changed since
+				entries.remove(previousKey);
+				usedKeys.remove(previousKey);
+			}
+		}
+	}
+
+	private static String getPath(String key) {
+		if (!key.startsWith(PATH_KEY_PREFIX)) {
+			return null;
+		}
+
+		// path may itself contain separator, size and modification time may not
+		int mtimeSeparatorIdx = key.lastIndexOf(PATH_KEY_SEPARATOR);
+		int sizeSeparatorIdx = (mtimeSeparatorIdx > 0) ? key.lastIndexOf(PATH_KEY_SEPARATOR, mtimeSeparatorIdx - 1)
+				: -1;
+		if (sizeSeparatorIdx < PATH_KEY_PREFIX.length()) {
+			return null;
+		}
+
+		return key.substring(PATH_KEY_PREFIX.length(), sizeSeparatorIdx);
+	}
+
+	private Optional<Map.Entry<String, String>> extract(ID bundleId, Path artifactPath,
+			Function<ID, InputStream> artifactResolver) {
+		if (artifactPath != null) {
+			try (JarFile artifactJar = new JarFile(artifactPath.toFile(), false)) {
+				Manifest manifest = artifactJar.getManifest();
+				if (manifest == null) {
+					return Optional.empty();
+				}
+
+				return readBundleSymbolicNameAndVersion(manifest);
+
+			} catch (IOException | RuntimeException e) {
+				LOG.error(String.format("Error getting symbolic name and version for bundle %s", bundleId), e);
+			}
+
+			return Optional.empty();
+		}
+
+		try (InputStream artifactIs = artifactResolver.apply(bundleId)) {
+			if (artifactIs == null) {
+				return Optional.empty();
+			}
+
+			return readBundleSymbolicNameAndVersion(artifactIs);
+
+		} catch (IOException | RuntimeException e) {
+			LOG.error(String.format("Error getting symbolic name and version for bundle %s", bundleId), e);
+		}
+
+		return Optional.empty();
+	}
+
+	static Optional<Map.Entry<String, String>> readBundleSymbolicNameAndVersion(InputStream artifactIs)
+			throws IOException {
+		ZipInputStream zipIs = new ZipInputStream(artifactIs);
+
+		ZipEntry zipEntry;
+		while ((zipEntry = zipIs.getNextEntry()) != null) {
+			if (JarFile.MANIFEST_NAME.equalsIgnoreCase(zipEntry.getName())) {
+				return readBundleSymbolicNameAndVersion(new Manifest(zipIs));
+			}
+		}
+
+		return Optional.empty();
+	}
+
+	private static Optional<Map.Entry<String, String>> readBundleSymbolicNameAndVersion(Manifest manifest) {
+		String bundleSymbolicName = manifest.getMainAttributes().getValue(Constants.BUNDLE_SYMBOLICNAME);
+		String bundleVersion = manifest.getMainAttributes().getValue(Constants.BUNDLE_VERSION);
+
+		if ((bundleSymbolicName == null) || (bundleVersion == null)) {
+			return Optional.empty();
+		}
+
+		// strip directives, such as 'singleton:=true', and normalize version so that
+		// values match those reported by installed bundles
+		int directivesStart = bundleSymbolicName.indexOf(';');
+		if (directivesStart != -1) {
+			bundleSymbolicName = bundleSymbolicName.substring(0, directivesStart);
+		}
+
+		return Optional.of(Map.entry(bundleSymbolicName.trim(),
+				Version.parseVersion(bundleVersion.trim()).toString()));
+	}
+
+	private String getKey(ID bundleId, Path artifactPath) {
+		if (artifactPath != null) {
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(artifactPath, BasicFileAttributes.class);
+
+				return PATH_KEY_PREFIX + artifactPath.toAbsolutePath() + PATH_KEY_SEPARATOR + attributes.size()
+						+ PATH_KEY_SEPARATOR + attributes.lastModifiedTime().toMillis();
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		// snapshots may change without their identifier changing
+		if (bundleId.getVersion().endsWith(SNAPSHOT_VERSION_SUFFIX)) {
+			return null;
+		}
+
+		return ID_KEY_PREFIX + bundleId;
+	}
+
+	private void load() {
+		if ((cacheFile == null) || !Files.isRegularFile(cacheFile)) {
+			return;
+		}
+
+		Properties properties = new Properties();
+		try (InputStream cacheIs = Files.newInputStream(cacheFile)) {
+			properties.load(cacheIs);
+		} catch (IOException e) {
+			LOG.warn(String.format("Could not load bundle manifest metadata cache from %s", cacheFile), e);
+			return;
+		}
+
+		for (String key : properties.stringPropertyNames()) {
+			String value = properties.getProperty(key);
+			int separatorIdx = value.indexOf(VALUE_SEPARATOR);
+			if (separatorIdx > 0) {
+				put(key, Map.entry(value.substring(0, separatorIdx), value.substring(separatorIdx + 1)));
+			}
+		}
+
+		// stale entries were dropped
+		dirty = (entries.size() != properties.size()) || (entries.size() > maxEntries);
+	}
+
+	private void evictUnused() {
+		if (entries.size() <= maxEntries) {
+			return;
+		}
+
+		for (String key : entries.keySet()) {
+			if (entries.size() <= maxEntries) {
+				break;
+			}
+
+			if (!usedKeys.contains(key)) {
+				entries.remove(key);
+
+				String path = getPath(key);
+				if (path != null) {
+					pathKeys.remove(path, key);
+				}
+			}
+		}
+	}
+
+	private synchronized void persist() {
+		if ((cacheFile == null) || !dirty) {
+			return;
+		}
+
+		evictUnused();
+
+		Properties properties = new Properties();
+		for (Map.Entry<String, Map.Entry<String, String>> entry : entries.entrySet()) {
+			properties.setProperty(entry.getKey(),
+					entry.getValue().getKey() + VALUE_SEPARATOR + entry.getValue().getValue());
+		}
+
+		try {
+			Files.createDirectories(cacheFile.getParent());
+
+			// cache file is never seen partially written
+			Path tmpCacheFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(),
+					".tmp");
+			try {
+				try (OutputStream cacheOs = Files.newOutputStream(tmpCacheFile)) {
+					properties.store(cacheOs, "Bundle manifest metadata");
+				}
+
+				Files.move(tmpCacheFile, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(tmpCacheFile);
+			}
+
+			dirty = false;
+		} catch (IOException e) {
+			LOG.warn(String.format("Could not persist bundle manifest metadata cache to %s", cacheFile), e);
+		}
+	}
+}
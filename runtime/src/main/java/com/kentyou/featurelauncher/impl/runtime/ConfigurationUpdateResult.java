@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import java.util.Objects;
+
+/**
+ * Outcome of applying a single feature configuration via
+ * {@link FeatureRuntimeConfigurationManager#applyConfigurations(java.util.List, java.util.Map)}
+ */
+public final class ConfigurationUpdateResult {
+
+	public enum Status {
+		/**
+		 * Configuration was created, or its properties were updated
+		 */
+		APPLIED,
+
+		/**
+		 * Configuration content is the same as last applied, Configuration Admin was
+		 * not contacted
+		 */
+		UNCHANGED,
+
+		/**
+		 * Configuration is read only and was left untouched
+		 */
+		READ_ONLY,
+
+		/**
+		 * Configuration could not be applied
+		 */
+		FAILED
+	}
+
+	private final String pid;
+	private final Status status;
+	private final long durationNanos;
+
+	ConfigurationUpdateResult(String pid, Status status, long durationNanos) {
+		this.pid = pid;
+		this.status = status;
+		this.durationNanos = durationNanos;
+	}
+
+	public String getPid() {
+		return pid;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Time spent in Configuration Admin for this configuration, in nanoseconds
+	 */
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Objects.hash(durationNanos, pid, status);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ConfigurationUpdateResult other = (ConfigurationUpdateResult) obj;
+		return durationNanos == other.durationNanos && Objects.equals(pid, other.pid) && status == other.status;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "ConfigurationUpdateResult [pid=" + pid + ", status=" + status + ", durationNanos=" + durationNanos
+				+ "]";
+	}
+}
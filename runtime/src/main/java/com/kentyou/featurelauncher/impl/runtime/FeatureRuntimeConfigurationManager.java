@@ -15,17 +15,25 @@ package com.kentyou.featurelauncher.impl.runtime;
 
 import static com.kentyou.featurelauncher.common.util.impl.ConfigurationUtil.CONFIGURATIONS_FILTER;
 import static com.kentyou.featurelauncher.common.util.impl.ConfigurationUtil.CONFIGURATION_DEFAULT_LOCATION;
-import static com.kentyou.featurelauncher.common.util.impl.ConfigurationUtil.constructConfigurationsFilter;
 import static com.kentyou.featurelauncher.common.util.impl.ConfigurationUtil.normalizePid;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -34,13 +42,18 @@ import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.service.cm.Configuration;
 import org.osgi.service.cm.Configuration.ConfigurationAttribute;
 import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.service.cm.ConfigurationEvent;
+import org.osgi.service.cm.SynchronousConfigurationListener;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.feature.FeatureConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.kentyou.featurelauncher.common.util.impl.VariablesUtil;
+import com.kentyou.featurelauncher.impl.runtime.ConfigurationUpdateResult.Status;
 
 
 /**
@@ -50,36 +63,204 @@ import com.kentyou.featurelauncher.common.util.impl.VariablesUtil;
  * As defined in the following sections of the "160. Feature Launcher Service
  * Specification": - 160.4.3.4 - 160.4.3.5 - 160.5.2.1.3
  * 
+ * Existing configurations are indexed once on activation and the index is then
+ * kept in sync via {@link SynchronousConfigurationListener}, so that installing
+ * or removing feature configurations does not require listing all
+ * configurations.
+ * 
+ * Feature configurations are applied in bulk: configurations whose properties
+ * are equal to those last applied are skipped, and remaining updates are issued
+ * concurrently, one task per factory PID (or per PID for singleton
+ * configurations).
+ * 
  * @author Michael H. Siemaszko (mhs@into.software)
  * @since Oct 4, 2024
  */
-@Component(service = FeatureRuntimeConfigurationManager.class)
-public class FeatureRuntimeConfigurationManager {
+@Component(service = { FeatureRuntimeConfigurationManager.class, SynchronousConfigurationListener.class })
+public class FeatureRuntimeConfigurationManager implements SynchronousConfigurationListener {
 	private static final Logger LOG = LoggerFactory.getLogger(FeatureRuntimeConfigurationManager.class);
 
 	@Reference
 	ConfigurationAdmin configurationAdmin;
 
+	// PIDs of all configurations present in Configuration Admin
+	private final Set<String> configurationPids = ConcurrentHashMap.newKeySet();
+
+	// Configurations created by feature launcher, by PID
+	private final Map<String, Configuration> featureLauncherConfigurations = new ConcurrentHashMap<>();
+
+	// Configuration properties last applied, by PID
+	private final Map<String, Map<String, Object>> appliedProperties = new ConcurrentHashMap<>();
+
+	private ExecutorService configurationUpdateExecutor;
+
+	@Activate
+	void activate() {
+		this.configurationUpdateExecutor = Executors.newFixedThreadPool(
+				Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors())), r -> {
+					Thread t = new Thread(r, "FeatureRuntime-ConfigurationUpdater");
+					t.setDaemon(true);
+					return t;
+				});
+
+		try {
+			Configuration[] configurations = configurationAdmin.listConfigurations(null);
+
+			if (configurations != null) {
+				for (Configuration configuration : configurations) {
+					configurationPids.add(configuration.getPid());
+
+					if (isFeatureLauncherConfiguration(configuration)) {
+						featureLauncherConfigurations.put(configuration.getPid(), configuration);
+					}
+				}
+			}
+
+		} catch (IOException | InvalidSyntaxException e) {
+			LOG.error("Error indexing existing configurations!", e);
+		}
+	}
+
+	@Deactivate
+	void deactivate() {
+		configurationUpdateExecutor.shutdownNow();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.service.cm.ConfigurationListener#configurationEvent(org.osgi.service.cm.ConfigurationEvent)
+	 */
+	@Override
+	public void configurationEvent(ConfigurationEvent event) {
+		switch (event.getType()) {
+		case ConfigurationEvent.CM_UPDATED:
+			configurationPids.add(event.getPid());
+			break;
+		case ConfigurationEvent.CM_DELETED:
+			configurationPids.remove(event.getPid());
+			featureLauncherConfigurations.remove(event.getPid());
+			appliedProperties.remove(event.getPid());
+			break;
+		default:
+			break;
+		}
+	}
+
 	public void createConfigurations(List<FeatureConfiguration> featureConfigurations,
 			Map<String, Object> featureVariables) {
-		featureConfigurations.forEach(fc -> createConfiguration(fc, featureVariables));
+		applyConfigurations(featureConfigurations, featureVariables);
+	}
+
+	/**
+	 * Creates or updates given feature configurations.
+	 * 
+	 * @param featureConfigurations feature configurations to apply
+	 * @param featureVariables      variables merged for feature the configurations
+	 *                              belong to
+	 * @return results by PID, in order of given configurations
+	 */
+	public Map<String, ConfigurationUpdateResult> applyConfigurations(List<FeatureConfiguration> featureConfigurations,
+			Map<String, Object> featureVariables) {
+		Map<String, ConfigurationUpdateResult> results = new ConcurrentHashMap<>();
+
+		Map<String, List<Map.Entry<FeatureConfiguration, Map<String, Object>>>> pendingByFactoryPid = new LinkedHashMap<>();
+
+		for (FeatureConfiguration featureConfiguration : featureConfigurations) {
+			String pid = featureConfiguration.getPid();
+
+			Map<String, Object> configurationProperties;
+			try {
+				configurationProperties = new HashMap<>(
+						VariablesUtil.maybeSubstituteVariables(featureConfiguration.getValues(), featureVariables));
+			} catch (IllegalArgumentException e) {
+				LOG.error(String.format("Error creating configuration %s!", pid), e);
+				results.put(pid, new ConfigurationUpdateResult(pid, Status.FAILED, 0L));
+				continue;
+			}
+
+			configurationProperties.put(CONFIGURATIONS_FILTER, Boolean.TRUE);
+
+			if (featureLauncherConfigurations.containsKey(pid)
+					&& propertiesEqual(configurationProperties, appliedProperties.get(pid))) {
+				LOG.debug(String.format("Configuration %s is unchanged", pid));
+				results.put(pid, new ConfigurationUpdateResult(pid, Status.UNCHANGED, 0L));
+				continue;
+			}
+
+			// updates of factory configurations sharing same factory PID are applied
+			// sequentially
+			pendingByFactoryPid.computeIfAbsent(featureConfiguration.getFactoryPid().orElse(pid), k -> new ArrayList<>())
+					.add(Map.entry(featureConfiguration, configurationProperties));
+		}
+
+		// @formatter:off
+		List<CompletableFuture<Void>> futures = pendingByFactoryPid.values().stream()
+				.map(pending -> CompletableFuture.runAsync(() -> pending.forEach(e -> {
+					ConfigurationUpdateResult result = applyConfigurationSafely(e.getKey(), e.getValue());
+					results.put(result.getPid(), result);
+				}), configurationUpdateExecutor))
+				.toList();
+		// @formatter:on
+
+		CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+
+		Map<String, ConfigurationUpdateResult> orderedResults = new LinkedHashMap<>();
+		for (FeatureConfiguration featureConfiguration : featureConfigurations) {
+			orderedResults.put(featureConfiguration.getPid(), results.get(featureConfiguration.getPid()));
+		}
+
+		return orderedResults;
 	}
 
 	public void removeConfigurations(Set<String> featuresConfigurationsPids) {
-		try {
-			Map<String, Configuration> existingConfigurations = getFeatureLauncherConfigurations();
+		for (String featuresConfigurationsPid : featuresConfigurationsPids) {
+			Configuration configuration = featureLauncherConfigurations.remove(featuresConfigurationsPid);
+			appliedProperties.remove(featuresConfigurationsPid);
 
-			if (!existingConfigurations.isEmpty()) {
-				for (String featuresConfigurationsPid : featuresConfigurationsPids) {
-					if (existingConfigurations.containsKey(featuresConfigurationsPid)) {
-						existingConfigurations.remove(featuresConfigurationsPid).delete();
-					}
+			try {
+				if ((configuration != null) && isFeatureLauncherConfiguration(configuration)) {
+					configuration.delete();
 				}
+			} catch (IllegalStateException e) {
+				// already deleted by another management agent
+			} catch (IOException e) {
+				LOG.error(String.format("Error removing configuration %s!", featuresConfigurationsPid), e);
 			}
+		}
+	}
 
-		} catch (IOException | InvalidSyntaxException e) {
-			LOG.error("Error removing configurations!", e);
+	public boolean hasConfiguration(String pid) {
+		return configurationPids.contains(pid);
+	}
+
+	/**
+	 * Returns approximate serialized size in bytes of properties of configuration
+	 * created by feature launcher, or -1 if there is no such configuration
+	 */
+	public long getConfigurationSize(String pid) {
+		Configuration configuration = featureLauncherConfigurations.get(pid);
+		if (configuration == null) {
+			return -1L;
+		}
+
+		Dictionary<String, Object> configurationProperties;
+		try {
+			configurationProperties = configuration.getProperties();
+		} catch (IllegalStateException e) {
+			// deleted in the meantime
+			return -1L;
+		}
+
+		long size = 0L;
+		if (configurationProperties != null) {
+			for (Enumeration<String> keys = configurationProperties.keys(); keys.hasMoreElements();) {
+				String key = keys.nextElement();
+				size += key.getBytes(StandardCharsets.UTF_8).length;
+				size += Arrays.deepToString(new Object[] { configurationProperties.get(key) })
+						.getBytes(StandardCharsets.UTF_8).length - 2;
+			}
 		}
+		return size;
 	}
 
 	public List<Configuration> getConfigurations(String filter) {
@@ -97,79 +278,90 @@ public class FeatureRuntimeConfigurationManager {
 		return Collections.emptyList();
 	}
 
-	public Map<String, Configuration> getAllConfigurations() throws IOException, InvalidSyntaxException {
-		// @formatter:off
-		return Optional.ofNullable(configurationAdmin.listConfigurations(null))
-				.map(Arrays::stream)
-				.map(s -> s.collect(Collectors.toMap(Configuration::getPid, Function.identity())))
-				.orElse(Map.of());
-		// @formatter:on
+	public void createConfiguration(FeatureConfiguration featureConfiguration, Map<String, Object> featureVariables) {
+		applyConfigurations(List.of(featureConfiguration), featureVariables);
 	}
 
-	public void createConfiguration(FeatureConfiguration featureConfiguration, Map<String, Object> featureVariables) {
-		if (featureConfiguration.getFactoryPid().isPresent()) {
-			createFactoryConfiguration(featureConfiguration, featureVariables);
-			return;
+	/*
+	 * Unexpected failures of one configuration are reported as its result, so that
+	 * they neither abort nor escape updates issued concurrently
+	 */
+	private ConfigurationUpdateResult applyConfigurationSafely(FeatureConfiguration featureConfiguration,
+			Map<String, Object> configurationProperties) {
+		try {
+			return applyConfiguration(featureConfiguration, configurationProperties);
+		} catch (RuntimeException e) {
+			LOG.error(String.format("Error creating configuration %s!", featureConfiguration.getPid()), e);
+
+			return new ConfigurationUpdateResult(featureConfiguration.getPid(), Status.FAILED, 0L);
 		}
+	}
+
+	private ConfigurationUpdateResult applyConfiguration(FeatureConfiguration featureConfiguration,
+			Map<String, Object> configurationProperties) {
+		String pid = featureConfiguration.getPid();
+
+		long start = System.nanoTime();
 
 		try {
-			LOG.info(String.format("Creating configuration %s", featureConfiguration.getPid()));
+			Configuration configuration;
 
-			Configuration configuration = configurationAdmin.getConfiguration(featureConfiguration.getPid(),
-					CONFIGURATION_DEFAULT_LOCATION);
+			if (featureConfiguration.getFactoryPid().isPresent()) {
+				LOG.info(String.format("Creating factory configuration %s", pid));
 
-			if (!isReadOnly(configuration)) {
-				updateConfigurationProperties(configuration, featureConfiguration, featureVariables);
+				configuration = configurationAdmin.getFactoryConfiguration(featureConfiguration.getFactoryPid().get(),
+						normalizePid(pid), CONFIGURATION_DEFAULT_LOCATION);
 			} else {
-				LOG.warn(String.format("Configuration %s is read only!", featureConfiguration.getPid()));
+				LOG.info(String.format("Creating configuration %s", pid));
+
+				configuration = configurationAdmin.getConfiguration(pid, CONFIGURATION_DEFAULT_LOCATION);
 			}
 
-		} catch (IllegalArgumentException | IOException e) {
-			LOG.error(String.format("Error creating configuration %s!", featureConfiguration.getPid()), e);
-		}
-	}
+			if (isReadOnly(configuration)) {
+				LOG.warn(String.format("Configuration %s is read only!", pid));
 
-	private void createFactoryConfiguration(FeatureConfiguration featureConfiguration,
-			Map<String, Object> featureVariables) {
-		try {
-			LOG.info(String.format("Creating factory configuration %s", featureConfiguration.getPid()));
+				return new ConfigurationUpdateResult(pid, Status.READ_ONLY, System.nanoTime() - start);
+			}
 
-			Configuration configuration = configurationAdmin.getFactoryConfiguration(
-					featureConfiguration.getFactoryPid().get(), normalizePid(featureConfiguration.getPid()),
-					CONFIGURATION_DEFAULT_LOCATION);
+			configuration.updateIfDifferent(FrameworkUtil.asDictionary(configurationProperties));
 
-			if (!isReadOnly(configuration)) {
-				updateConfigurationProperties(configuration, featureConfiguration, featureVariables);
-			} else {
-				LOG.warn(String.format("Configuration %s is read only!", featureConfiguration.getPid()));
-			}
+			configurationPids.add(configuration.getPid());
+			featureLauncherConfigurations.put(configuration.getPid(), configuration);
+			appliedProperties.put(configuration.getPid(), configurationProperties);
 
-		} catch (IllegalArgumentException | IOException e) {
-			LOG.error(String.format("Error creating configuration %s!", featureConfiguration.getPid()), e);
+			return new ConfigurationUpdateResult(pid, Status.APPLIED, System.nanoTime() - start);
+
+		} catch (IllegalArgumentException | IllegalStateException | IOException e) {
+			LOG.error(String.format("Error creating configuration %s!", pid), e);
 		}
-	}
 
-	private void updateConfigurationProperties(Configuration configuration, FeatureConfiguration featureConfiguration,
-			Map<String, Object> featureVariables) {
-		Map<String, Object> configurationProperties = VariablesUtil
-				.maybeSubstituteVariables(featureConfiguration.getValues(), featureVariables);
+		return new ConfigurationUpdateResult(pid, Status.FAILED, System.nanoTime() - start);
+	}
 
-		configurationProperties.put(CONFIGURATIONS_FILTER, Boolean.TRUE);
+	/*
+	 * Compares configuration properties, taking contents of array values into
+	 * account
+	 */
+	private static boolean propertiesEqual(Map<String, Object> configurationProperties,
+			Map<String, Object> otherConfigurationProperties) {
+		if ((otherConfigurationProperties == null)
+				|| (configurationProperties.size() != otherConfigurationProperties.size())) {
+			return false;
+		}
 
-		try {
-			configuration.updateIfDifferent(FrameworkUtil.asDictionary(configurationProperties));
-		} catch (IOException e) {
-			LOG.error(String.format("Error updating configuration properties %s!", featureConfiguration.getPid()), e);
+		for (Map.Entry<String, Object> property : configurationProperties.entrySet()) {
+			if (!otherConfigurationProperties.containsKey(property.getKey())
+					|| !Objects.deepEquals(property.getValue(), otherConfigurationProperties.get(property.getKey()))) {
+				return false;
+			}
 		}
+		return true;
 	}
 
-	private Map<String, Configuration> getFeatureLauncherConfigurations() throws IOException, InvalidSyntaxException {
-		// @formatter:off
-		return Optional.ofNullable(configurationAdmin.listConfigurations(constructConfigurationsFilter()))
-				.map(Arrays::stream)
-				.map(s -> s.collect(Collectors.toMap(Configuration::getPid, Function.identity())))
-				.orElse(Map.of());
-		// @formatter:on
+	private boolean isFeatureLauncherConfiguration(Configuration configuration) {
+		Dictionary<String, Object> configurationProperties = configuration.getProperties();
+		return (configurationProperties != null)
+				&& Boolean.TRUE.equals(configurationProperties.get(CONFIGURATIONS_FILTER));
 	}
 
 	private boolean isReadOnly(Configuration configuration) {
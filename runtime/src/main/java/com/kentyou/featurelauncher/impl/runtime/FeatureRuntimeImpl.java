@@ -16,6 +16,7 @@ package com.kentyou.featurelauncher.impl.runtime;
 import static org.osgi.service.feature.FeatureExtension.Kind.MANDATORY;
 import static org.osgi.service.featurelauncher.FeatureLauncherConstants.BUNDLE_START_LEVEL_METADATA;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -23,36 +24,44 @@ import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.jar.JarFile;
-import java.util.jar.Manifest;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.BundleException;
-import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
 import org.osgi.framework.startlevel.BundleStartLevel;
 import org.osgi.framework.wiring.BundleRevision;
-import org.osgi.service.cm.Configuration;
+import org.osgi.framework.wiring.BundleWiring;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.feature.BuilderFactory;
 import org.osgi.service.feature.Feature;
 import org.osgi.service.feature.FeatureBundle;
 import org.osgi.service.feature.FeatureConfiguration;
+import org.osgi.service.feature.FeatureConfigurationBuilder;
 import org.osgi.service.feature.FeatureService;
 import org.osgi.service.feature.ID;
 import org.osgi.service.featurelauncher.decorator.AbandonOperationException;
@@ -75,10 +84,16 @@ import org.osgi.service.featurelauncher.runtime.RuntimeConfigurationMerge.Featur
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.kentyou.featurelauncher.common.decorator.impl.DecorationCache;
 import com.kentyou.featurelauncher.common.decorator.impl.DecorationContext;
+import com.kentyou.featurelauncher.common.repository.impl.ArtifactPrefetcher;
+import com.kentyou.featurelauncher.common.repository.impl.MissingArtifactCache;
 import com.kentyou.featurelauncher.common.repository.impl.WrappingArtifactRepository;
+import com.kentyou.featurelauncher.common.util.impl.StreamingFeatureReader;
 import com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository;
 import com.kentyou.featurelauncher.repository.spi.NamedArtifactRepository;
+import com.kentyou.featurelauncher.runtime.metrics.FeatureFootprint;
+import com.kentyou.featurelauncher.runtime.metrics.FeatureFootprint.BundleFootprint;
 
 
 /**
@@ -93,6 +108,12 @@ import com.kentyou.featurelauncher.repository.spi.NamedArtifactRepository;
 public class FeatureRuntimeImpl implements FeatureRuntime {
 	private static final Logger LOG = LoggerFactory.getLogger(FeatureRuntimeImpl.class);
 
+	private static final String BUNDLE_MANIFEST_METADATA_CACHE_FILE = "bundle-manifest-metadata.properties";
+
+	private static final int PLAN_PARALLELISM = 4;
+
+	private static final int REPOSITORY_INITIALIZATION_PARALLELISM = 4;
+
 	private final FeatureRuntimeConfigurationManager featureRuntimeConfigurationManager;
 	
 	private final ArtifactRepositoryFactory artifactRepositoryFactory;
@@ -101,7 +122,22 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 
 	private BundleContext bundleContext;
 
-	private final Map<String, ArtifactRepository> defaultArtifactRepositories;
+	private final Config config;
+
+	// Shared by all operations, null if bundles are started one after another
+	private final ExecutorService bundleStartExecutor;
+
+	// decoration results reused across operations, or null if disabled
+	private final DecorationCache decorationCache;
+
+	// Artifacts known to be missing from repositories, skipped until expired
+	private final MissingArtifactCache missingArtifactCache;
+
+	// Decorates features and probes artifacts when computing install plans
+	private final ExecutorService planExecutor;
+
+	// Created on first use, see getDefaultRepositories()
+	private volatile Map<String, ArtifactRepository> defaultArtifactRepositories;
 
 	// Bundles installed by this feature runtime
 	private final Map<ID, Bundle> installedBundlesByIdentifier;
@@ -109,18 +145,39 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 	// Lists of bundles for each feature installed
 	private final Map<ID, List<ID>> installedFeaturesToBundles;
 
+	// Bundles of each feature merged into bundles installed for other features
+	private final Map<ID, Map<ID, ID>> installedFeaturesToMergedBundles;
+
 	// List of configurations for each feature installed
 	private final Map<ID, Collection<String>> installedFeaturesToConfigurations;
 
-	// List of installed features
-	private final List<InstalledFeature> installedFeatures;
+	// Immutable snapshot of installed features, replaced atomically after each operation
+	private volatile List<InstalledFeature> installedFeatures;
+
+	// Bundles and configurations of installed features, indexed for merge conflict detection
+	private final MergeConflictIndex mergeConflictIndex;
 
-	// Bundles already present in running framework
-	private final Map<Map.Entry<String, String>, Long> existingBundles;
+	// Bundles present in running framework, including those installed by other agents
+	private final FrameworkBundleIndex frameworkBundleIndex;
+
+	// Sizes in bytes of bundle JARs installed by this feature runtime
+	private final Map<ID, Long> installedBundleSizes;
+
+	// Number of classes per framework bundle ID, with bundle last modification time
+	private final Map<Long, Map.Entry<Long, Integer>> bundleClassResourceCounts;
 
 	// Allows faster lookup of bundle symbolic name and version
 	private final Map<ID, Map.Entry<String, String>> bundleIdsToSymbolicNamesVersions;
 
+	// Reverse of the above, allows constant time lookup of alias bundles
+	private final Map<Map.Entry<String, String>, Set<ID>> symbolicNamesVersionsToBundleIds;
+
+	// Persistent cache of bundle symbolic names and versions read from manifests
+	private final BundleManifestMetadataCache bundleManifestMetadataCache;
+
+	// Operation metrics, exposed as OSGi service and MBean
+	private final FeatureRuntimeMetricsImpl metrics;
+
 	// ID of the virtual external feature representing ownership of a bundle or
 	// configuration that was deployed by another management agent
 	private ID externalFeatureId;
@@ -135,6 +192,32 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		public boolean local_repositories_enabled() default false;
 		
 		public boolean remote_repositories_enabled() default false;
+
+		/**
+		 * Maximum number of bundles of same start level started concurrently, 1 to
+		 * start bundles one after another, 0 to use number of available processors
+		 */
+		public int bundle_start_parallelism() default 1;
+
+		public long bundle_start_timeout_ms() default 60_000L;
+
+		public long bundle_start_slow_threshold_ms() default 5_000L;
+
+		/**
+		 * Maximum number of cached decoration results, 0 to disable caching; only
+		 * results of decorators and extension handlers implementing
+		 * {@link com.kentyou.featurelauncher.common.decorator.DeterministicDecoration}
+		 * are cached
+		 */
+		public int decoration_cache_size() default 0;
+
+		/**
+		 * Time after which artifact definitely missing from a repository is
+		 * looked up in it again, 0 to always look up; disabled by default, as
+		 * runtime is long-lived and artifacts may be deployed to repositories
+		 * at any time
+		 */
+		public long missing_artifact_cache_ttl_ms() default 0L;
 	}
 	
 	@Activate
@@ -143,63 +226,71 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		this.bundleContext = context;
 		this.artifactRepositoryFactory = arf;
 		this.featureRuntimeConfigurationManager = frcm;
-
-		try {
-			Map<String, NamedArtifactRepository> repos = new HashMap<String, NamedArtifactRepository>();
-			String userHome = System.getProperty("user.home");
-			if(config.local_repositories_enabled()) {
-				for(String localRepo : config.local_repositories()) {
-					if(localRepo.startsWith("~/")) {
-						localRepo = userHome + localRepo.substring(1);
-					}
-					ArtifactRepository ar = artifactRepositoryFactory.createRepository(Paths.get(localRepo));
-					if(ar instanceof NamedArtifactRepository nar) {
-						repos.put(nar.getName(), nar);
-					} else {
-						WrappingArtifactRepository war = new WrappingArtifactRepository(ar, userHome);
-						repos.put(userHome, war);
-					}
-				}
-			}
-			if(config.remote_repositories_enabled()) {
-				for(String remoteRepo : config.remote_repositories()) {
-					String[] remote = remoteRepo.split(",");
-					URI uri = URI.create(remote[0]);
-					Map<String, Object> props = new HashMap<>();
-					for(int i = 1; i < remote.length; i++) {
-						String[] tokens = remote[i].split("=", 2);
-						if(tokens.length == 2) {
-							props.put(tokens[0], tokens[1]);
-						}
-					}
-					
-					ArtifactRepository ar = artifactRepositoryFactory.createRepository(uri, props);
-					if(ar instanceof NamedArtifactRepository nar) {
-						repos.put(nar.getName(), nar);
-					} else {
-						WrappingArtifactRepository war = new WrappingArtifactRepository(ar, userHome);
-						repos.put(userHome, war);
-					}
-				}
-			}
-			
-			this.defaultArtifactRepositories = Map.copyOf(repos);
-			
-			// collect symbolic names of bundles already present in running framework
-			this.existingBundles = getExistingBundles();
-		} catch (Exception e) {
-			throw new FeatureRuntimeException("Could not create default artifact repositories!");
-		}
+		this.config = config;
+		int bundleStartParallelism = (config.bundle_start_parallelism() > 0) ? config.bundle_start_parallelism()
+				: Runtime.getRuntime().availableProcessors();
+		this.bundleStartExecutor = (bundleStartParallelism > 1)
+				? Executors.newFixedThreadPool(bundleStartParallelism, r -> {
+					Thread t = new Thread(r, "FeatureRuntime-BundleStarter");
+					t.setDaemon(true);
+					return t;
+				})
+				: null;
+		this.decorationCache = (config.decoration_cache_size() > 0)
+				? new DecorationCache(config.decoration_cache_size())
+				: null;
+		this.missingArtifactCache = new MissingArtifactCache(config.missing_artifact_cache_ttl_ms());
+		this.planExecutor = Executors.newFixedThreadPool(PLAN_PARALLELISM, r -> {
+			Thread t = new Thread(r, "FeatureRuntime-Planner");
+			t.setDaemon(true);
+			return t;
+		});
 
 		this.installedBundlesByIdentifier = new HashMap<>();
 		this.installedFeaturesToBundles = new HashMap<>();
+		this.installedFeaturesToMergedBundles = new HashMap<>();
 		this.installedFeaturesToConfigurations = new HashMap<>();
-		this.installedFeatures = new ArrayList<>();
+		this.installedFeatures = List.of();
+		this.mergeConflictIndex = new MergeConflictIndex();
 		this.bundleIdsToSymbolicNamesVersions = new HashMap<>();
+		this.symbolicNamesVersionsToBundleIds = new HashMap<>();
+		this.installedBundleSizes = new ConcurrentHashMap<>();
+		this.bundleClassResourceCounts = new ConcurrentHashMap<>();
+
+		// index bundles present in running framework and keep track of subsequent changes
+		this.frameworkBundleIndex = new FrameworkBundleIndex(context);
+		this.frameworkBundleIndex.open();
+
+		File bundleManifestMetadataCacheFile = context.getDataFile(BUNDLE_MANIFEST_METADATA_CACHE_FILE);
+		this.bundleManifestMetadataCache = new BundleManifestMetadataCache(
+				(bundleManifestMetadataCacheFile != null) ? bundleManifestMetadataCacheFile.toPath() : null);
+
+		this.metrics = new FeatureRuntimeMetricsImpl(this::getInternalMapSizes, this::getFeatureFootprints,
+				this::getFeatureFootprint);
+		this.metrics.register(context);
 
 		LOG.info("Started FeatureRuntime!");
 	}
 
+	@Deactivate
+	void deactivate() {
+		metrics.unregister();
+
+		planExecutor.shutdownNow();
+
+		if (bundleStartExecutor != null) {
+			bundleStartExecutor.shutdownNow();
+		}
+
+		frameworkBundleIndex.close();
+
+		bundleManifestMetadataCache.close();
+
+		closeDefaultRepositories();
+
+		LOG.info("Stopped FeatureRuntime!");
+	}
+
 	@Reference
 	private void setFeatureService(FeatureService featureService) {
 		this.featureService = featureService;
@@ -222,7 +313,112 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 	 */
 	@Override
 	public Map<String, ArtifactRepository> getDefaultRepositories() {
-		return defaultArtifactRepositories;
+		Map<String, ArtifactRepository> repositories = defaultArtifactRepositories;
+		if (repositories == null) {
+			synchronized (this) {
+				repositories = defaultArtifactRepositories;
+				if (repositories == null) {
+					repositories = createDefaultRepositories();
+					defaultArtifactRepositories = repositories;
+				}
+			}
+		}
+		return repositories;
+	}
+
+	/*
+	 * Creates default repositories from configuration; local repositories are
+	 * created sequentially, remote repositories in parallel
+	 */
+	private Map<String, ArtifactRepository> createDefaultRepositories() {
+		String userHome = System.getProperty("user.home");
+
+		ExecutorService remoteRepositoriesExecutor = null;
+
+		try {
+			Map<String, ArtifactRepository> repos = new HashMap<>();
+			if(config.local_repositories_enabled()) {
+				for(String localRepo : config.local_repositories()) {
+					if(localRepo.startsWith("~/")) {
+						localRepo = userHome + localRepo.substring(1);
+					}
+					putDefaultRepository(repos, artifactRepositoryFactory.createRepository(Paths.get(localRepo)),
+							userHome);
+				}
+			}
+			if(config.remote_repositories_enabled() && config.remote_repositories().length > 0) {
+				remoteRepositoriesExecutor = Executors.newFixedThreadPool(
+						Math.min(config.remote_repositories().length, REPOSITORY_INITIALIZATION_PARALLELISM), r -> {
+							Thread t = new Thread(r, "FeatureRuntime-RepositoryInitializer");
+							t.setDaemon(true);
+							return t;
+						});
+
+				List<CompletableFuture<ArtifactRepository>> remoteRepos = new ArrayList<>();
+				for(String remoteRepo : config.remote_repositories()) {
+					remoteRepos.add(CompletableFuture.supplyAsync(() -> createRemoteRepository(remoteRepo),
+							remoteRepositoriesExecutor));
+				}
+
+				for(CompletableFuture<ArtifactRepository> remoteRepo : remoteRepos) {
+					putDefaultRepository(repos, remoteRepo.join(), userHome);
+				}
+			}
+
+			LOG.info(String.format("Created %d default artifact repositories", repos.size()));
+
+			return Map.copyOf(repos);
+		} catch (Exception e) {
+			throw new FeatureRuntimeException("Could not create default artifact repositories!",
+					(e instanceof CompletionException) ? e.getCause() : e);
+		} finally {
+			if (remoteRepositoriesExecutor != null) {
+				remoteRepositoriesExecutor.shutdownNow();
+			}
+		}
+	}
+
+	private void closeDefaultRepositories() {
+		Map<String, ArtifactRepository> repositories;
+		synchronized (this) {
+			repositories = defaultArtifactRepositories;
+			defaultArtifactRepositories = null;
+		}
+
+		if (repositories != null) {
+			for (ArtifactRepository repository : repositories.values()) {
+				if (repository instanceof AutoCloseable closeableRepository) {
+					try {
+						closeableRepository.close();
+					} catch (Exception e) {
+						LOG.warn(String.format("Could not close artifact repository %s", repository), e);
+					}
+				}
+			}
+		}
+	}
+
+	private ArtifactRepository createRemoteRepository(String remoteRepo) {
+		String[] remote = remoteRepo.split(",");
+		URI uri = URI.create(remote[0]);
+		Map<String, Object> props = new HashMap<>();
+		for(int i = 1; i < remote.length; i++) {
+			String[] tokens = remote[i].split("=", 2);
+			if(tokens.length == 2) {
+				props.put(tokens[0], tokens[1]);
+			}
+		}
+
+		return artifactRepositoryFactory.createRepository(uri, props);
+	}
+
+	private void putDefaultRepository(Map<String, ArtifactRepository> repos, ArtifactRepository ar, String userHome) {
+		if(ar instanceof NamedArtifactRepository nar) {
+			repos.put(nar.getName(), nar);
+		} else {
+			WrappingArtifactRepository war = new WrappingArtifactRepository(ar, userHome);
+			repos.put(userHome, war);
+		}
 	}
 
 	/* 
@@ -245,9 +441,13 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		Objects.requireNonNull(jsonReader, "Feature JSON cannot be null!");
 
 		try {
-			Feature feature = featureService.readFeature(jsonReader);
+			ArtifactPrefetcher artifactPrefetcher = createArtifactPrefetcher();
 
-			return install(feature);
+			Feature feature = StreamingFeatureReader.readFeature(featureService, jsonReader, artifactPrefetcher::add);
+
+			InstallOperationBuilderImpl installOperationBuilder = new InstallOperationBuilderImpl(feature);
+			installOperationBuilder.artifactPrefetcher = artifactPrefetcher;
+			return installOperationBuilder;
 
 		} catch (IOException e) {
 			throw new FeatureRuntimeException("Error reading feature!", e);
@@ -276,7 +476,14 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		Objects.requireNonNull(installedFeature,
 				String.format("No feature matching %s ID could be found!", featureId.toString()));
 
-		new RemoveOperationBuilderImpl(installedFeature.getFeature()).remove();
+		long start = System.nanoTime();
+		boolean succeeded = false;
+		try {
+			new RemoveOperationBuilderImpl(installedFeature.getFeature()).remove();
+			succeeded = true;
+		} finally {
+			metrics.recordOperation(FeatureRuntimeMetricsImpl.Operation.REMOVE, System.nanoTime() - start, succeeded);
+		}
 	}
 
 	/* 
@@ -301,15 +508,28 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		Objects.requireNonNull(jsonReader, "Feature JSON cannot be null!");
 
 		try {
-			Feature feature = featureService.readFeature(jsonReader);
+			ArtifactPrefetcher artifactPrefetcher = createArtifactPrefetcher();
 
-			return update(featureId, feature);
+			Feature feature = StreamingFeatureReader.readFeature(featureService, jsonReader, artifactPrefetcher::add);
+
+			UpdateOperationBuilderImpl updateOperationBuilder = new UpdateOperationBuilderImpl(feature);
+			updateOperationBuilder.artifactPrefetcher = artifactPrefetcher;
+			return updateOperationBuilder;
 
 		} catch (IOException e) {
 			throw new FeatureRuntimeException("Error reading feature!", e);
 		}
 	}
 
+	/**
+	 * Creates prefetcher for bundles of a feature being read; bundles are only
+	 * queued while feature is being read, and fetched once operation completes,
+	 * from repositories actually selected for it
+	 */
+	private ArtifactPrefetcher createArtifactPrefetcher() {
+		return new ArtifactPrefetcher(missingArtifactCache);
+	}
+
 	abstract class AbstractOperationBuilderImpl<T extends OperationBuilder<T>> implements OperationBuilder<T> {
 		protected DecorationContext decorationUtil;
 		protected Feature feature;
@@ -321,6 +541,8 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		protected Map<String, Object> variables;
 		protected List<FeatureDecorator> decorators;
 		protected Map<String, FeatureExtensionHandler> extensionHandlers;
+		// set for features read from JSON
+		protected ArtifactPrefetcher artifactPrefetcher;
 
 		public AbstractOperationBuilderImpl(Feature feature) {
 			Objects.requireNonNull(feature, "Feature cannot be null!");
@@ -451,11 +673,219 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 				getDefaultRepositories().forEach((k, v) -> this.artifactRepositories.putIfAbsent(k, v));
 			}
 
-			decorationUtil = new DecorationContext(List.copyOf(this.artifactRepositories.values()));
+			if (artifactPrefetcher != null) {
+				if (isUpToDate(feature)) {
+					// nothing is installed, so nothing is fetched
+					artifactPrefetcher.cancel();
+				} else {
+					artifactPrefetcher.start(this.artifactRepositories.values(),
+							id -> !installedBundlesByIdentifier.containsKey(id));
+				}
+			}
+
+			decorationUtil = new DecorationContext(List.copyOf(this.artifactRepositories.values()), decorationCache);
 
 			return addOrUpdateFeature(feature);
 		}
 
+		private boolean isUpToDate(Feature feature) {
+			// @formatter:off
+			List<ID> featureBundlesIDs = feature.getBundles().stream()
+					.map(featureBundle -> featureBundle.getID())
+					.collect(Collectors.toList());
+			// @formatter:on
+
+			return featureBundlesIDs.equals(installedFeaturesToBundles.get(feature.getID()));
+		}
+
+		/**
+		 * Computes what {@link #complete()} would do, without installing anything or
+		 * changing state of feature runtime. Artifacts are not fetched: they are
+		 * only looked up in file system of repositories, while feature is being
+		 * decorated.
+		 */
+		protected InstallPlan computePlan() throws FeatureRuntimeException {
+			ensureNotCompletedYet();
+
+			ID featureId = feature.getID();
+
+			validateFeatureExtensions(feature);
+
+			Map<String, ArtifactRepository> planArtifactRepositories = new HashMap<>(this.artifactRepositories);
+			if (this.useDefaultRepositories) {
+				getDefaultRepositories().forEach((k, v) -> planArtifactRepositories.putIfAbsent(k, v));
+			}
+			Collection<ArtifactRepository> repositories = List.copyOf(planArtifactRepositories.values());
+
+			// @formatter:off
+			List<ID> featureBundlesIDs = feature.getBundles().stream()
+					.map(featureBundle -> featureBundle.getID())
+					.collect(Collectors.toList());
+			// @formatter:on
+
+			boolean isUpdate = installedFeaturesToBundles.containsKey(featureId);
+			boolean isUpToDate = isUpdate && installedFeaturesToBundles.get(featureId).equals(featureBundlesIDs);
+
+			// probe artifacts of bundles in original feature while decorating
+			Map<ID, CompletableFuture<ArtifactProbe>> artifactProbes = new LinkedHashMap<>();
+			for (ID bundleId : featureBundlesIDs) {
+				if (!installedBundlesByIdentifier.containsKey(bundleId)) {
+					artifactProbes.computeIfAbsent(bundleId, id -> CompletableFuture
+							.supplyAsync(() -> probeArtifact(id, repositories), planExecutor));
+				}
+			}
+
+			// decoration cache is neither read nor filled, so planning does not change it
+			DecorationContext planDecorationContext = new DecorationContext(List.copyOf(repositories));
+
+			CompletableFuture<Feature> decoratedFeatureFuture = CompletableFuture.supplyAsync(() -> {
+				try {
+					Feature decoratedFeature = planDecorationContext.executeFeatureDecorators(featureService,
+							feature, decorators);
+
+					return planDecorationContext.executeFeatureExtensionHandlers(featureService, decoratedFeature,
+							extensionHandlers);
+				} catch (AbandonOperationException e) {
+					throw new FeatureRuntimeException("Feature decoration handling failed!", e);
+				}
+			}, planExecutor);
+
+			Feature decoratedFeature;
+			try {
+				decoratedFeature = decoratedFeatureFuture.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof FeatureRuntimeException fre) {
+					throw fre;
+				}
+				throw new FeatureRuntimeException("Feature decoration handling failed!", e.getCause());
+			}
+
+			// probe artifacts of bundles added by decoration
+			for (FeatureBundle featureBundle : decoratedFeature.getBundles()) {
+				ID bundleId = featureBundle.getID();
+				if (!installedBundlesByIdentifier.containsKey(bundleId)) {
+					artifactProbes.computeIfAbsent(bundleId, id -> CompletableFuture
+							.supplyAsync(() -> probeArtifact(id, repositories), planExecutor));
+				}
+			}
+
+			CompletableFuture.allOf(artifactProbes.values().toArray(CompletableFuture[]::new)).join();
+
+			List<ID> bundlesToInstall = new ArrayList<>();
+			List<ID> bundlesAlreadyInstalled = new ArrayList<>();
+			Map<ID, Long> bundlesAliased = new HashMap<>();
+			List<ID> artifactsToDownload = new ArrayList<>();
+			List<ID> missingArtifacts = new ArrayList<>();
+			List<ID> bundleMerges = new ArrayList<>();
+
+			for (FeatureBundle featureBundle : decoratedFeature.getBundles()) {
+				ID bundleId = featureBundle.getID();
+
+				if ((runtimeBundleMerge != null) && !installedBundlesByIdentifier.containsKey(bundleId)
+						&& mergeConflictIndex.getConflictingBundles(bundleId).stream()
+								.anyMatch(c -> !featureId.equals(c.featureId()))) {
+					bundleMerges.add(bundleId);
+				}
+
+				if (installedBundlesByIdentifier.containsKey(bundleId)) {
+					bundlesAlreadyInstalled.add(bundleId);
+					continue;
+				}
+
+				ArtifactProbe artifactProbe = artifactProbes.get(bundleId).join();
+				if (artifactProbe.isKnownMissing()) {
+					missingArtifacts.add(bundleId);
+					continue;
+				}
+
+				Map.Entry<String, String> bundleSymbolicNameAndVersion = artifactProbe.bundleSymbolicNameAndVersion();
+				long existingBundleId = (bundleSymbolicNameAndVersion != null)
+						? frameworkBundleIndex.getBundleId(bundleSymbolicNameAndVersion)
+						: FrameworkBundleIndex.NO_BUNDLE_ID;
+				if (existingBundleId != FrameworkBundleIndex.NO_BUNDLE_ID) {
+					bundlesAliased.put(bundleId, Long.valueOf(existingBundleId));
+					continue;
+				}
+
+				bundlesToInstall.add(bundleId);
+
+				if (artifactProbe.artifactPath() == null) {
+					artifactsToDownload.add(bundleId);
+				}
+			}
+
+			List<String> configurationsToCreate = new ArrayList<>();
+			List<String> configurationsAlreadyPresent = new ArrayList<>();
+			List<String> configurationMerges = new ArrayList<>();
+
+			for (String configurationPid : decoratedFeature.getConfigurations().keySet()) {
+				if (featureRuntimeConfigurationManager.hasConfiguration(configurationPid)) {
+					configurationsAlreadyPresent.add(configurationPid);
+				} else {
+					configurationsToCreate.add(configurationPid);
+				}
+
+				if ((runtimeConfigurationMerge != null)
+						&& mergeConflictIndex.getConflictingConfigurations(configurationPid).stream()
+								.anyMatch(c -> !featureId.equals(c.featureId()))) {
+					configurationMerges.add(configurationPid);
+				}
+			}
+
+			return new InstallPlan(decoratedFeature, isUpToDate, isUpdate && !isUpToDate, bundlesToInstall,
+					bundlesAlreadyInstalled, bundlesAliased, configurationsToCreate, configurationsAlreadyPresent,
+					bundleMerges, configurationMerges, artifactsToDownload, missingArtifacts);
+		}
+
+		/*
+		 * Looks up artifact without fetching it and without changing any cache: in
+		 * file system of given repositories, which also tells whether some of them
+		 * do not hold it, then among artifacts already known to be missing
+		 */
+		private ArtifactProbe probeArtifact(ID featureBundleID, Collection<ArtifactRepository> repositories) {
+			boolean isKnownMissing = !repositories.isEmpty();
+
+			try {
+				for (ArtifactRepository artifactRepository : repositories) {
+					boolean isMissing = missingArtifactCache.isMissing(artifactRepository, featureBundleID);
+
+					if (artifactRepository instanceof FileSystemArtifactRepository fileSystemArtifactRepository) {
+						Path featureBundlePath = fileSystemArtifactRepository.getArtifactPathIfPresent(featureBundleID);
+						if (featureBundlePath != null) {
+							return new ArtifactProbe(featureBundlePath, false,
+									bundleManifestMetadataCache.peek(featureBundleID, featureBundlePath));
+						}
+
+						isMissing = isMissing || fileSystemArtifactRepository.isArtifactMissing(featureBundleID);
+					}
+
+					isKnownMissing = isKnownMissing && isMissing;
+				}
+			} catch (RuntimeException e) {
+				LOG.warn(String.format("Error probing artifact %s", featureBundleID), e);
+
+				isKnownMissing = false;
+			}
+
+			return new ArtifactProbe(null, isKnownMissing,
+					isKnownMissing ? null : bundleManifestMetadataCache.peek(featureBundleID, null));
+		}
+
+		protected InstalledFeature completeAndRecord(FeatureRuntimeMetricsImpl.Operation operation) {
+			long start = System.nanoTime();
+			boolean succeeded = false;
+			try {
+				InstalledFeature installedFeature = complete();
+				succeeded = true;
+				return installedFeature;
+			} finally {
+				metrics.recordOperation(operation, System.nanoTime() - start, succeeded);
+
+				// manifests read by this operation survive an abrupt stop of the framework
+				bundleManifestMetadataCache.flush();
+			}
+		}
+
 		protected InstalledFeature addOrUpdateFeature(Feature feature) {
 			ID featureId = feature.getID();
 
@@ -467,10 +897,14 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 	        		.collect(Collectors.toList());
 	        // @formatter:on
 
+			MergeOperationType mergeOperation = MergeOperationType.INSTALL;
+
 			// Check if feature is already installed or out of date
 			if (installedFeaturesToBundles.containsKey(featureId)) {
 				LOG.info(String.format("Updating feature %s", featureId));
 
+				mergeOperation = MergeOperationType.UPDATE;
+
 				if (installedFeaturesToBundles.get(featureId).equals(featureBundlesIDs)) {
 					// No work to do, already installed
 					LOG.info(String.format("The feature %s is already up to date", featureId));
@@ -496,10 +930,10 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 			}
 
 			// Install bundles
-			List<InstalledBundle> installedBundles = installBundles(feature, featureBundlesIDs);
+			List<InstalledBundle> installedBundles = installBundles(mergeOperation, feature, featureBundlesIDs);
 
 			// Install configurations
-			List<InstalledConfiguration> installedConfigurations = installConfigurations(feature);
+			List<InstalledConfiguration> installedConfigurations = installConfigurations(mergeOperation, feature);
 
 			// Start bundles
 			startBundles(featureId, installedBundles);
@@ -508,143 +942,121 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 			InstalledFeature installedFeature = constructInstalledFeature(feature, originalFeature,
 					feature != originalFeature, false, installedBundles, installedConfigurations);
 
-			// update "owning features" in other 'installedFeatures'
+			// update "owning features" in other 'installedFeatures' and publish new snapshot
 			updateInstalledFeaturesOnAddOrUpdate(installedFeature);
 
-			installedFeatures.add(installedFeature);
+			mergeConflictIndex.add(installedFeature);
 
 			return installedFeature;
 		}
 
-		// TODO: clarify with Tim understanding / how this is currently implemented and
-		// integrate this then
-		protected Stream<BundleMapping> maybeRunBundleMerge(MergeOperationType operation, Feature feature) {
-			if (runtimeBundleMerge != null) {
-
-				for (FeatureBundle featureBundle : feature.getBundles()) {
-					ID featureBundleId = featureBundle.getID();
-
-					List<InstalledBundle> conflictingInstalledBundles = new ArrayList<>();
-
-					List<FeatureBundleDefinition> conflictingFeatureBundles = new ArrayList<>();
+		/**
+		 * Runs bundle merge, if any, for bundle conflicting with bundles installed
+		 * for other features.
+		 * 
+		 * @return ID of installed bundle the merge mapped given bundle to, or
+		 *         {@code null} if given bundle is to be installed
+		 */
+		protected ID maybeRunBundleMerge(MergeOperationType operation, Feature feature, FeatureBundle featureBundle) {
+			if (runtimeBundleMerge == null) {
+				return null;
+			}
 
-					for (InstalledFeature existingFeature : installedFeatures) {
-						for (InstalledBundle existingInstalledBundle : existingFeature.getInstalledBundles()) {
+			ID featureBundleId = featureBundle.getID();
 
-							boolean isInConflict = ((featureBundleId.getGroupId())
-									.equals(existingInstalledBundle.getBundleId().getGroupId())
-									&& (featureBundleId.getArtifactId())
-											.equals(existingInstalledBundle.getBundleId().getArtifactId())
-									&& !featureBundleId.equals(existingInstalledBundle.getBundleId()));
+			Map<ID, InstalledBundle> conflictingInstalledBundles = new LinkedHashMap<>();
+			List<FeatureBundleDefinition> conflictingFeatureBundles = new ArrayList<>();
 
-							if (isInConflict) {
-								conflictingInstalledBundles.add(existingInstalledBundle);
+			for (MergeConflictIndex.BundleConflict conflict : mergeConflictIndex.getConflictingBundles(featureBundleId)) {
+				if (!feature.getID().equals(conflict.featureId())) {
+					conflictingInstalledBundles.putIfAbsent(conflict.installedBundle().getBundleId(),
+							conflict.installedBundle());
+					conflictingFeatureBundles.add(conflict.definition());
+				}
+			}
 
-								FeatureBundleDefinition conflictingFeatureBundle = new FeatureBundleDefinition() {
+			if (conflictingInstalledBundles.isEmpty()) {
+				return null;
+			}
 
-									@Override
-									public FeatureBundle getFeatureBundle() {
-										// @formatter:off
-										return getFeature().getBundles().stream()
-												.filter(fb -> featureBundleId.equals(fb.getID()))
-												.findFirst()
-												.orElseThrow();
-										// @formatter:on
-									}
+			// @formatter:off
+			List<BundleMapping> bundleMappings = runtimeBundleMerge.mergeBundle(
+					operation, 
+					feature,
+					featureBundle,
+					List.copyOf(conflictingInstalledBundles.values()),
+					conflictingFeatureBundles)
+					.toList();
+			// @formatter:on
 
-									@Override
-									public Feature getFeature() {
-										return existingFeature.isDecorated() ? existingFeature.getOriginalFeature()
-												: existingFeature.getFeature();
-									}
-								};
+			for (BundleMapping bundleMapping : bundleMappings) {
+				ID mappedBundleId = bundleMapping.getBundleId();
 
-								conflictingFeatureBundles.add(conflictingFeatureBundle);
-							}
-						}
-					}
+				if (!featureBundleId.equals(mappedBundleId) && bundleMapping.getAliases().contains(featureBundleId)
+						&& installedBundlesByIdentifier.containsKey(mappedBundleId)) {
+					return mappedBundleId;
+				}
 
-					if (!conflictingInstalledBundles.isEmpty()) {
-						// @formatter:off
-						return runtimeBundleMerge.mergeBundle(
-								operation, 
-								feature,
-								featureBundle,
-								conflictingInstalledBundles,
-								conflictingFeatureBundles);
-						// @formatter:on
-					}
+				if (featureBundleId.equals(mappedBundleId) && bundleMapping.getAliases().stream()
+						.anyMatch(conflictingInstalledBundles::containsKey)) {
+					LOG.warn(String.format(
+							"Bundle merge replacing installed bundles by bundle %s is not supported, installing it alongside them",
+							featureBundleId));
 				}
 			}
 
-			return Stream.empty();
+			return null;
 		}
 
-		// TODO: clarify with Tim understanding / how this is currently implemented and
-		// integrate this then
-		protected Map<String, Object> maybeRunConfigurationMerge(MergeOperationType operation, Feature feature) {
-			if (runtimeConfigurationMerge != null) {
-
-				for (Map.Entry<String, FeatureConfiguration> featureConfigurationEntry : feature.getConfigurations()
-						.entrySet()) {
-					String featureConfigurationPID = featureConfigurationEntry.getKey();
-					FeatureConfiguration featureConfiguration = featureConfigurationEntry.getValue();
-
-					InstalledConfiguration conflictingInstalledConfiguration = null;
-
-					List<FeatureConfigurationDefinition> conflictingFeatureConfigurations = new ArrayList<>();
-
-					INSTALLED_FEATURES: for (InstalledFeature existingFeature : installedFeatures) {
-						for (InstalledConfiguration existingInstalledConfiguration : existingFeature
-								.getInstalledConfigurations()) {
-
-							boolean isInConflict = featureConfigurationPID
-									.equals(existingInstalledConfiguration.getPid());
-
-							if (isInConflict) {
-								conflictingInstalledConfiguration = existingInstalledConfiguration;
+		/**
+		 * Runs configuration merge, if any, for configuration already installed for
+		 * other features.
+		 * 
+		 * @return merged configuration properties, or {@code null} if configuration
+		 *         is to be left as is
+		 */
+		protected Map<String, Object> maybeRunConfigurationMerge(MergeOperationType operation, Feature feature,
+				FeatureConfiguration featureConfiguration) {
+			if (runtimeConfigurationMerge == null) {
+				return null;
+			}
 
-								FeatureConfigurationDefinition conflictingFeatureConfiguration = new FeatureConfigurationDefinition() {
+			InstalledConfiguration installedConfiguration = null;
+			List<FeatureConfigurationDefinition> conflictingFeatureConfigurations = new ArrayList<>();
 
-									@Override
-									public FeatureConfiguration getFeatureConfiguration() {
-										// @formatter:off
-										return getFeature().getConfigurations().values().stream()
-												.filter(fc -> featureConfigurationPID.equals(fc.getPid()))
-												.findFirst()
-												.orElseThrow();
-										// @formatter:on
-									}
+			for (MergeConflictIndex.ConfigurationConflict conflict : mergeConflictIndex
+					.getConflictingConfigurations(featureConfiguration.getPid())) {
+				if (!feature.getID().equals(conflict.featureId())) {
+					// latest one knows all features owning configuration so far
+					installedConfiguration = conflict.installedConfiguration();
+					conflictingFeatureConfigurations.add(conflict.definition());
+				}
+			}
 
-									@Override
-									public Feature getFeature() {
-										return existingFeature.isDecorated() ? existingFeature.getOriginalFeature()
-												: existingFeature.getFeature();
-									}
-								};
+			if (installedConfiguration == null) {
+				return null;
+			}
 
-								conflictingFeatureConfigurations.add(conflictingFeatureConfiguration);
+			// @formatter:off
+			return runtimeConfigurationMerge.mergeConfiguration(
+					operation,
+					feature,
+					featureConfiguration,
+					installedConfiguration,
+					conflictingFeatureConfigurations);
+			// @formatter:on
+		}
 
-								break INSTALLED_FEATURES;
-							}
-						}
-					}
+		protected FeatureConfiguration constructMergedConfiguration(FeatureConfiguration featureConfiguration,
+				Map<String, Object> mergedProperties) {
+			BuilderFactory builderFactory = featureService.getBuilderFactory();
 
-					if (conflictingInstalledConfiguration != null) {
+			FeatureConfigurationBuilder featureConfigurationBuilder = featureConfiguration.getFactoryPid()
+					.map(factoryPid -> builderFactory.newConfigurationBuilder(factoryPid,
+							featureConfiguration.getPid().substring(factoryPid.length() + 1)))
+					.orElseGet(() -> builderFactory.newConfigurationBuilder(featureConfiguration.getPid()));
 
-						// @formatter:off
-						return runtimeConfigurationMerge.mergeConfiguration(
-								operation,
-								feature,
-								featureConfiguration,
-								conflictingInstalledConfiguration,
-								conflictingFeatureConfigurations);
-						// @formatter:on
-					}
-				}
-			}
-
-			return Collections.emptyMap();
+			return featureConfigurationBuilder.addValues(mergedProperties).build();
 		}
 
 		protected void removeFeature(ID featureId) {
@@ -660,21 +1072,42 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 
 			removeFeatureConfigurations(configurationPIDsForRemoval);
 
-			// remove feature from list of installed features
-			installedFeatures.removeIf(f -> featureId.equals(f.getFeature().getID()));
+			mergeConflictIndex.remove(featureId);
 
-			// update "owning features" in other installed features
+			// remove feature from list of installed features, update "owning features" in
+			// other installed features and publish new snapshot
 			updateInstalledFeaturesOnRemove(featureId);
 		}
 
-		protected List<InstalledBundle> installBundles(Feature feature, List<ID> featureBundles) {
+		protected List<InstalledBundle> installBundles(MergeOperationType mergeOperation, Feature feature,
+				List<ID> featureBundles) {
 			List<InstalledBundle> installedBundles = new ArrayList<>();
+
+			if (artifactPrefetcher != null) {
+				artifactPrefetcher.awaitAll();
+			}
+
 			for (FeatureBundle featureBundle : feature.getBundles()) {
 				ID bundleId = featureBundle.getID();
 
 				boolean bundleAlreadyInstalledByRuntime = installedBundlesByIdentifier.containsKey(bundleId);
 
-				if (!bundleAlreadyInstalledByRuntime) {
+				ID mergedBundleId = !bundleAlreadyInstalledByRuntime
+						? maybeRunBundleMerge(mergeOperation, feature, featureBundle)
+						: null;
+
+				if (mergedBundleId != null) {
+					LOG.info(String.format("Bundle %s merged into bundle %s already installed by feature runtime",
+							bundleId, mergedBundleId));
+
+					installedFeaturesToMergedBundles.computeIfAbsent(feature.getID(), k -> new HashMap<>())
+							.put(bundleId, mergedBundleId);
+
+					installedBundles.add(constructInstalledBundle(mergedBundleId, List.of(bundleId),
+							installedBundlesByIdentifier.get(mergedBundleId),
+							constructBundleOwningFeatures(feature.getID(), mergedBundleId)));
+
+				} else if (!bundleAlreadyInstalledByRuntime) {
 
 					Bundle bundle = null;
 
@@ -684,6 +1117,9 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 						if (bundle != null) {
 							installedBundlesByIdentifier.put(bundleId, bundle);
 
+							// known from installed bundle, spares reading manifest for alias detection
+							recordBundleSymbolicNameAndVersion(bundleId, bundle);
+
 							maybeSetBundleStartLevel(bundle, featureBundle.getMetadata());
 
 							installedBundles.add(constructInstalledBundle(bundleId, bundle,
@@ -727,12 +1163,8 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 			final Map.Entry<String, String> bundleSymbolicNameAndVersion = getBundleSymbolicNameAndVersion(bundleId);
 			if (bundleSymbolicNameAndVersion != null) {
 				// @formatter:off
-				return bundleIdsToSymbolicNamesVersions.entrySet().stream()
-						.filter(entry -> ((bundleSymbolicNameAndVersion.getKey())
-								.equals(entry.getValue().getKey())
-								&& (bundleSymbolicNameAndVersion.getValue())
-										.equals(entry.getValue().getValue())))
-						.map(entry -> entry.getKey())
+				return symbolicNamesVersionsToBundleIds.getOrDefault(bundleSymbolicNameAndVersion, Set.of()).stream()
+						.filter(aliasBundleId -> !bundleId.equals(aliasBundleId))
 						.findFirst()
 						.orElse(null);
 				// @formatter:on
@@ -743,7 +1175,12 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		protected Bundle installBundle(ID featureBundleID) throws IOException, BundleException {
 			try (InputStream featureBundleIs = getArtifact(featureBundleID)) {
 				if (featureBundleIs.available() != 0) {
-					Bundle installedBundle = bundleContext.installBundle(featureBundleID.toString(), featureBundleIs);
+					CountingInputStream countingFeatureBundleIs = new CountingInputStream(featureBundleIs);
+
+					Bundle installedBundle = bundleContext.installBundle(featureBundleID.toString(),
+							countingFeatureBundleIs);
+
+					installedBundleSizes.put(featureBundleID, Long.valueOf(countingFeatureBundleIs.getCount()));
 
 					LOG.info(String.format("Installed bundle '%s'", installedBundle.getSymbolicName()));
 
@@ -754,16 +1191,11 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 			return null;
 		}
 
-		protected List<InstalledConfiguration> installConfigurations(Feature feature) {
+		protected List<InstalledConfiguration> installConfigurations(MergeOperationType mergeOperation,
+				Feature feature) {
 			List<InstalledConfiguration> installedConfigurations = new ArrayList<>();
 
-			Map<String, Configuration> allExistingConfigurations;
-
-			try {
-				allExistingConfigurations = featureRuntimeConfigurationManager.getAllConfigurations();
-			} catch (IOException | InvalidSyntaxException e) {
-				throw new FeatureRuntimeException("Error retrieving existing configurations!", e);
-			}
+			List<FeatureConfiguration> featureConfigurationsToApply = new ArrayList<>();
 
 			for (Map.Entry<String, FeatureConfiguration> featureConfigurationEntry : feature.getConfigurations()
 					.entrySet()) {
@@ -772,22 +1204,36 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 
 				boolean configurationAlreadyInstalledByRuntime = isConfigurationInstalledByRuntime(configurationPid);
 
-				if (!allExistingConfigurations.containsKey(configurationPid)) {
+				if (!featureRuntimeConfigurationManager.hasConfiguration(configurationPid)) {
 
-					featureRuntimeConfigurationManager.createConfiguration(featureConfiguration,
-							mergeVariables(feature));
+					featureConfigurationsToApply.add(featureConfiguration);
 
 					installedConfigurations.add(constructInstalledConfiguration(featureConfiguration,
 							constructOwningFeatures(feature.getID())));
 
-					LOG.info(String.format("Installed configuration %s", configurationPid));
-
 				} else {
 
 					if (configurationAlreadyInstalledByRuntime) {
-						LOG.info(String.format(
-								"Configuration %s duplicates configuration already installed by feature runtime!",
-								configurationPid));
+						if (isConfigurationInstalledByOtherFeature(feature.getID(), configurationPid)) {
+							Map<String, Object> mergedProperties = maybeRunConfigurationMerge(mergeOperation, feature,
+									featureConfiguration);
+
+							if (mergedProperties != null) {
+								LOG.info(String.format(
+										"Configuration %s merged with configuration already installed by feature runtime",
+										configurationPid));
+
+								featureConfigurationsToApply
+										.add(constructMergedConfiguration(featureConfiguration, mergedProperties));
+							} else {
+								LOG.info(String.format(
+										"Configuration %s duplicates configuration already installed by feature runtime!",
+										configurationPid));
+							}
+						} else {
+							// re-applied by its own feature, which is skipped if properties are unchanged
+							featureConfigurationsToApply.add(featureConfiguration);
+						}
 
 						installedConfigurations.add(constructAlreadyInstalledConfiguration(feature.getID(),
 								configurationPid, featureConfiguration));
@@ -802,6 +1248,18 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 				}
 			}
 
+			if (!featureConfigurationsToApply.isEmpty()) {
+				Map<String, ConfigurationUpdateResult> results = featureRuntimeConfigurationManager
+						.applyConfigurations(featureConfigurationsToApply, mergeVariables(feature));
+
+				for (ConfigurationUpdateResult result : results.values()) {
+					metrics.recordConfigurationApply(result.getDurationNanos());
+
+					LOG.info(String.format("Installed configuration %s (%s in %d ms)", result.getPid(),
+							result.getStatus(), TimeUnit.NANOSECONDS.toMillis(result.getDurationNanos())));
+				}
+			}
+
 			List<String> featureConfigurationsPIDs = feature.getConfigurations().keySet().stream()
 					.collect(Collectors.toList());
 
@@ -811,21 +1269,78 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		}
 
 		protected void startBundles(ID featureId, List<InstalledBundle> installedBundles) {
+			// bundles of same start level are started together, lower start levels first
+			Map<Integer, List<Bundle>> bundlesByStartLevel = new TreeMap<>();
+
 			for (InstalledBundle installedBundle : installedBundles) {
+				Bundle bundle = installedBundle.getBundle();
+				if (bundle.getState() == Bundle.INSTALLED) {
+					BundleRevision rev = bundle.adapt(BundleRevision.class);
+					if (rev != null && (rev.getTypes() & BundleRevision.TYPE_FRAGMENT) == 0) {
+						// Start all but fragment bundles
+						bundlesByStartLevel.computeIfAbsent(installedBundle.getStartLevel(), k -> new ArrayList<>())
+								.add(bundle);
+					} else {
+						LOG.info(String.format("Not starting bundle %s as it is a fragment", bundle.getSymbolicName()));
+					}
+				}
+			}
+
+			if (bundleStartExecutor == null) {
+				bundlesByStartLevel.values().forEach(bundles -> bundles.forEach(b -> startBundle(featureId, b)));
+				return;
+			}
+
+			for (List<Bundle> bundles : bundlesByStartLevel.values()) {
+				// startBundle(ID, Bundle) handles failures, only completion is tracked
+				Set<Bundle> bundlesStarting = ConcurrentHashMap.newKeySet();
+				bundlesStarting.addAll(bundles);
+				CountDownLatch bundlesStarted = new CountDownLatch(bundles.size());
+
+				for (Bundle bundle : bundles) {
+					bundleStartExecutor.execute(() -> {
+						try {
+							startBundle(featureId, bundle);
+						} finally {
+							bundlesStarting.remove(bundle);
+							bundlesStarted.countDown();
+						}
+					});
+				}
+
 				try {
-					if (installedBundle.getBundle().getState() == Bundle.INSTALLED) {
-						BundleRevision rev = installedBundle.getBundle().adapt(BundleRevision.class);
-						if (rev != null && (rev.getTypes() & BundleRevision.TYPE_FRAGMENT) == 0) {
-							// Start all but fragment bundles
-							installedBundle.getBundle().start();
-						} else {
-							LOG.info(String.format("Not starting bundle %s as it is a fragment",
-									installedBundle.getBundle().getSymbolicName()));
+					if (!bundlesStarted.await(config.bundle_start_timeout_ms(), TimeUnit.MILLISECONDS)) {
+						for (Bundle bundle : bundlesStarting) {
+							LOG.warn(String.format(
+									"Bundle %s in feature %s did not start within %d ms, continuing with next bundles",
+									bundle.getSymbolicName(), featureId, config.bundle_start_timeout_ms()));
 						}
 					}
-				} catch (Exception e) {
-					LOG.warn(String.format("An error occurred starting a bundle in feature %s", featureId));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new FeatureRuntimeException(
+							String.format("Interrupted while starting bundles in feature %s", featureId), e);
+				}
+			}
+		}
+
+		private void startBundle(ID featureId, Bundle bundle) {
+			try {
+				long start = System.nanoTime();
+
+				bundle.start();
+
+				long durationNanos = System.nanoTime() - start;
+
+				metrics.recordBundleStart(durationNanos);
+
+				long durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+				if (durationMillis > config.bundle_start_slow_threshold_ms()) {
+					LOG.warn(String.format("Bundle %s in feature %s is slow to start, took %d ms",
+							bundle.getSymbolicName(), featureId, durationMillis));
 				}
+			} catch (Exception e) {
+				LOG.warn(String.format("An error occurred starting a bundle in feature %s", featureId));
 			}
 		}
 
@@ -848,7 +1363,9 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		protected void uninstallBundles(Deque<ID> bundleIDsToUninstall) {
 			for (ID bundleIDToRemove : bundleIDsToUninstall) {
 				Bundle bundleForRemoval = installedBundlesByIdentifier.remove(bundleIDToRemove);
+				installedBundleSizes.remove(bundleIDToRemove);
 				if (bundleForRemoval != null) {
+					bundleClassResourceCounts.remove(Long.valueOf(bundleForRemoval.getBundleId()));
 					try {
 						bundleForRemoval.uninstall();
 					} catch (BundleException e) {
@@ -860,14 +1377,16 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 
 		protected Deque<ID> getBundleIDsForRemoval(ID featureId) {
 			// Get all the bundles to remove in "install order", clearing the features map
-			Set<ID> bundlesToRemove = installedFeaturesToBundles.remove(featureId).stream()
-					.collect(Collectors.toCollection(LinkedHashSet::new));
+			Set<ID> bundlesToRemove = new LinkedHashSet<>(
+					getInstalledBundleIDs(featureId, installedFeaturesToBundles.remove(featureId)));
+			installedFeaturesToMergedBundles.remove(featureId);
 
 			// Create a deque of bundles to remove, in the order they should be removed
 			Deque<ID> orderedBundleIDsForRemoval = new LinkedList<>();
 			for (ID bundleToRemove : bundlesToRemove) {
 				// Only remove the bundle if no remaining features reference it
-				if (installedFeaturesToBundles.values().stream().noneMatch(c -> c.contains(bundleToRemove))) {
+				if (installedFeaturesToBundles.entrySet().stream()
+						.noneMatch(e -> getInstalledBundleIDs(e.getKey(), e.getValue()).contains(bundleToRemove))) {
 					// Add to the start of the deque, so that we reverse the install order
 					orderedBundleIDsForRemoval.addFirst(bundleToRemove);
 
@@ -948,8 +1467,11 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 			Bundle bundle = null;
 
 			Map.Entry<String, String> bundleSymbolicNameAndVersion = getBundleSymbolicNameAndVersion(bundleId);
-			if ((bundleSymbolicNameAndVersion != null) && (existingBundles.containsKey(bundleSymbolicNameAndVersion))) {
-				bundle = bundleContext.getBundle(existingBundles.get(bundleSymbolicNameAndVersion).longValue());
+			if (bundleSymbolicNameAndVersion != null) {
+				long existingBundleId = frameworkBundleIndex.getBundleId(bundleSymbolicNameAndVersion);
+				if (existingBundleId != FrameworkBundleIndex.NO_BUNDLE_ID) {
+					bundle = bundleContext.getBundle(existingBundleId);
+				}
 			}
 
 			return constructInstalledBundle(bundleId, aliases, bundle,
@@ -972,12 +1494,27 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		protected List<ID> getBundleOwningFeatures(ID bundleId) {
 			// @formatter:off
 			return installedFeaturesToBundles.entrySet().stream()
-					.filter(e -> e.getValue().contains(bundleId))
+					.filter(e -> getInstalledBundleIDs(e.getKey(), e.getValue()).contains(bundleId))
 					.map(e -> e.getKey())
 					.toList();
 			// @formatter:on
 		}
 
+		/*
+		 * IDs of bundles installed for given bundles of feature, which differ for
+		 * bundles merged into bundles of other features
+		 */
+		protected List<ID> getInstalledBundleIDs(ID featureId, List<ID> featureBundleIDs) {
+			Map<ID, ID> mergedBundles = installedFeaturesToMergedBundles.getOrDefault(featureId,
+					Collections.emptyMap());
+
+			// @formatter:off
+			return featureBundleIDs.stream()
+					.map(featureBundleID -> mergedBundles.getOrDefault(featureBundleID, featureBundleID))
+					.toList();
+			// @formatter:on
+		}
+
 		protected InstalledConfiguration constructInstalledConfiguration(FeatureConfiguration featureConfiguration,
 				List<ID> owningFeatures) {
 			return new InstalledConfigurationImpl(featureConfiguration.getPid(), featureConfiguration.getFactoryPid(),
@@ -999,7 +1536,11 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		protected List<ID> constructConfigurationOwningFeatures(ID featureId, String configurationPid) {
 			List<ID> owningFeatures = new ArrayList<>();
 			owningFeatures.add(featureId);
-			owningFeatures.addAll(getConfigurationOwningFeatures(configurationPid));
+			for (ID owningFeatureId : getConfigurationOwningFeatures(configurationPid)) {
+				if (!featureId.equals(owningFeatureId)) {
+					owningFeatures.add(owningFeatureId);
+				}
+			}
 			return owningFeatures;
 		}
 
@@ -1015,35 +1556,37 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		protected Map.Entry<String, String> getBundleSymbolicNameAndVersion(ID featureBundleID) {
 			if (bundleIdsToSymbolicNamesVersions.containsKey(featureBundleID)) {
 				return bundleIdsToSymbolicNamesVersions.get(featureBundleID);
-			} else {
-				Path featureBundlePath = getArtifactPath(featureBundleID);
-				if (featureBundlePath != null) {
-					try (JarFile featureBundleJarFile = new JarFile(featureBundlePath.toFile())) {
-						Manifest featureBundleJarMf = featureBundleJarFile.getManifest();
-						if ((featureBundleJarMf != null) && (featureBundleJarMf.getMainAttributes() != null)) {
-							String featureBundleSymbolicName = featureBundleJarMf.getMainAttributes()
-									.getValue("Bundle-SymbolicName");
-							String featureBundleVersion = featureBundleJarMf.getMainAttributes()
-									.getValue("Bundle-Version");
-
-							if ((featureBundleSymbolicName != null) && (featureBundleVersion != null)) {
-								Map.Entry<String, String> bundleSymbolicNameAndVersion = Map
-										.entry(featureBundleSymbolicName, featureBundleVersion);
-
-								bundleIdsToSymbolicNamesVersions.put(featureBundleID, bundleSymbolicNameAndVersion);
-
-								return bundleSymbolicNameAndVersion;
-							}
-						}
-					} catch (IOException e) {
-						LOG.error(
-								String.format("Error getting symbolic name and version for bundle %s", featureBundleID),
-								e);
-					}
+			}
+
+			Map.Entry<String, String> bundleSymbolicNameAndVersion = bundleManifestMetadataCache.get(featureBundleID,
+					this::getArtifactPath, this::getArtifact);
+			if (bundleSymbolicNameAndVersion != null) {
+				recordBundleSymbolicNameAndVersion(featureBundleID, bundleSymbolicNameAndVersion);
+			}
+
+			return bundleSymbolicNameAndVersion;
+		}
+
+		protected void recordBundleSymbolicNameAndVersion(ID featureBundleID, Bundle bundle) {
+			if (bundle.getSymbolicName() != null) {
+				recordBundleSymbolicNameAndVersion(featureBundleID,
+						Map.entry(bundle.getSymbolicName(), bundle.getVersion().toString()));
+			}
+		}
+
+		protected void recordBundleSymbolicNameAndVersion(ID featureBundleID,
+				Map.Entry<String, String> bundleSymbolicNameAndVersion) {
+			Map.Entry<String, String> previous = bundleIdsToSymbolicNamesVersions.put(featureBundleID,
+					bundleSymbolicNameAndVersion);
+			if ((previous != null) && !previous.equals(bundleSymbolicNameAndVersion)) {
+				Set<ID> previousBundleIds = symbolicNamesVersionsToBundleIds.get(previous);
+				if (previousBundleIds != null) {
+					previousBundleIds.remove(featureBundleID);
 				}
 			}
 
-			return null;
+			symbolicNamesVersionsToBundleIds.computeIfAbsent(bundleSymbolicNameAndVersion, k -> new LinkedHashSet<>())
+					.add(featureBundleID);
 		}
 
 		protected boolean isConfigurationInstalledByRuntime(String configurationPid) {
@@ -1054,14 +1597,29 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 			// @formatter:on
 		}
 
+		protected boolean isConfigurationInstalledByOtherFeature(ID featureId, String configurationPid) {
+			// @formatter:off
+			return installedFeaturesToConfigurations.entrySet().stream()
+					.filter(e -> !featureId.equals(e.getKey()))
+					.anyMatch(e -> e.getValue().contains(configurationPid));
+			// @formatter:on
+		}
+
 		protected Path getArtifactPath(ID featureBundleID) {
-			for (ArtifactRepository artifactRepository : artifactRepositories.values()) {
-				if (FileSystemArtifactRepository.class.isInstance(artifactRepository)) {
+			return getArtifactPath(featureBundleID, artifactRepositories.values());
+		}
+
+		protected Path getArtifactPath(ID featureBundleID, Collection<ArtifactRepository> repositories) {
+			for (ArtifactRepository artifactRepository : repositories) {
+				if (FileSystemArtifactRepository.class.isInstance(artifactRepository)
+						&& !missingArtifactCache.isMissing(artifactRepository, featureBundleID)) {
 					Path featureBundlePath = ((FileSystemArtifactRepository) artifactRepository)
 							.getArtifactPath(featureBundleID);
 					if (featureBundlePath != null) {
 						return featureBundlePath;
 					}
+
+					missingArtifactCache.markMissingIfDefinite(artifactRepository, featureBundleID);
 				}
 			}
 
@@ -1069,11 +1627,22 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		}
 
 		protected InputStream getArtifact(ID featureBundleID) {
-			for (ArtifactRepository artifactRepository : artifactRepositories.values()) {
-				InputStream featureBundleIs = artifactRepository.getArtifact(featureBundleID);
+			return getArtifact(featureBundleID, artifactRepositories);
+		}
+
+		protected InputStream getArtifact(ID featureBundleID, Map<String, ArtifactRepository> repositories) {
+			for (Map.Entry<String, ArtifactRepository> artifactRepository : repositories.entrySet()) {
+				if (missingArtifactCache.isMissing(artifactRepository.getValue(), featureBundleID)) {
+					continue;
+				}
+
+				long start = System.nanoTime();
+				InputStream featureBundleIs = artifactRepository.getValue().getArtifact(featureBundleID);
 				if (featureBundleIs != null) {
-					return featureBundleIs;
+					return metrics.recordArtifactFetch(artifactRepository.getKey(), featureBundleIs, start);
 				}
+
+				missingArtifactCache.markMissingIfDefinite(artifactRepository.getValue(), featureBundleID);
 			}
 
 			return InputStream.nullInputStream();
@@ -1124,36 +1693,54 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 	}
 
 	public class InstallOperationBuilderImpl extends AbstractOperationBuilderImpl<InstallOperationBuilder>
-			implements InstallOperationBuilder {
+			implements InstallOperationBuilder, PlanOperationBuilder {
 
 		public InstallOperationBuilderImpl(Feature feature) {
 			super(feature);
 		}
 
+		/* 
+		 * (non-Javadoc)
+		 * @see com.kentyou.featurelauncher.impl.runtime.FeatureRuntimeImpl.PlanOperationBuilder#plan()
+		 */
+		@Override
+		public InstallPlan plan() {
+			return computePlan();
+		}
+
 		/* 
 		 * (non-Javadoc)
 		 * @see org.osgi.service.featurelauncher.runtime.FeatureRuntime.InstallOperationBuilder#install()
 		 */
 		@Override
 		public InstalledFeature install() {
-			return complete();
+			return completeAndRecord(FeatureRuntimeMetricsImpl.Operation.INSTALL);
 		}
 	}
 
 	public class UpdateOperationBuilderImpl extends AbstractOperationBuilderImpl<UpdateOperationBuilder>
-			implements UpdateOperationBuilder {
+			implements UpdateOperationBuilder, PlanOperationBuilder {
 
 		public UpdateOperationBuilderImpl(Feature feature) {
 			super(feature);
 		}
 
+		/* 
+		 * (non-Javadoc)
+		 * @see com.kentyou.featurelauncher.impl.runtime.FeatureRuntimeImpl.PlanOperationBuilder#plan()
+		 */
+		@Override
+		public InstallPlan plan() {
+			return computePlan();
+		}
+
 		/* 
 		 * (non-Javadoc)
 		 * @see org.osgi.service.featurelauncher.runtime.FeatureRuntime.UpdateOperationBuilder#update()
 		 */
 		@Override
 		public InstalledFeature update() {
-			return complete();
+			return completeAndRecord(FeatureRuntimeMetricsImpl.Operation.UPDATE);
 		}
 	}
 
@@ -1174,6 +1761,104 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		}
 	}
 
+	/**
+	 * Computes resources attributed to installed feature with given ID, in Maven
+	 * coordinates form.
+	 * 
+	 * @return footprint of feature, or {@code null} if there is no installed
+	 *         feature with given ID
+	 */
+	FeatureFootprint getFeatureFootprint(String featureId) {
+		Objects.requireNonNull(featureId, "Feature ID cannot be null!");
+
+		return getFeatureFootprint(featureService.getIDfromMavenCoordinates(featureId));
+	}
+
+	/**
+	 * Computes resources attributed to given installed feature. Class resource
+	 * counts are cached per bundle until the bundle is updated, so repeated
+	 * reports only cost a pass over bundles and configurations of the feature.
+	 * 
+	 * @return footprint of feature, or {@code null} if there is no installed
+	 *         feature with given ID
+	 */
+	FeatureFootprint getFeatureFootprint(ID featureId) {
+		Objects.requireNonNull(featureId, "Feature ID cannot be null!");
+
+		InstalledFeature installedFeature = getInstalledFeatureById(featureId);
+		if (installedFeature == null) {
+			return null;
+		}
+
+		return computeFeatureFootprint(installedFeature);
+	}
+
+	/**
+	 * Computes resources attributed to each installed feature.
+	 */
+	List<FeatureFootprint> getFeatureFootprints() {
+		// @formatter:off
+		return installedFeatures.stream()
+				.map(this::computeFeatureFootprint)
+				.toList();
+		// @formatter:on
+	}
+
+	private FeatureFootprint computeFeatureFootprint(InstalledFeature installedFeature) {
+		List<BundleFootprint> bundleFootprints = new ArrayList<>();
+		for (InstalledBundle installedBundle : installedFeature.getInstalledBundles()) {
+			Bundle bundle = installedBundle.getBundle();
+			if ((bundle == null) || (bundle.getState() == Bundle.UNINSTALLED)) {
+				continue;
+			}
+
+			ServiceReference<?>[] registeredServices = bundle.getRegisteredServices();
+
+			bundleFootprints.add(new BundleFootprint(installedBundle.getBundleId().toString(),
+					bundle.getSymbolicName(),
+					installedBundleSizes.getOrDefault(installedBundle.getBundleId(), Long.valueOf(-1L)).longValue(),
+					getBundleClassResourceCount(bundle), (registeredServices != null) ? registeredServices.length : 0,
+					installedBundle.getOwningFeatures().size()));
+		}
+
+		Map<String, Long> configurationBytes = new HashMap<>();
+		for (InstalledConfiguration installedConfiguration : installedFeature.getInstalledConfigurations()) {
+			configurationBytes.put(installedConfiguration.getPid(), Long.valueOf(
+					featureRuntimeConfigurationManager.getConfigurationSize(installedConfiguration.getPid())));
+		}
+
+		return new FeatureFootprint(installedFeature.getFeature().getID().toString(), bundleFootprints,
+				configurationBytes);
+	}
+
+	/*
+	 * Counts class resources visible to bundle class loader, an upper bound on
+	 * classes loaded by bundle
+	 */
+	private int getBundleClassResourceCount(Bundle bundle) {
+		Long bundleId = Long.valueOf(bundle.getBundleId());
+		long lastModified = bundle.getLastModified();
+
+		Map.Entry<Long, Integer> cached = bundleClassResourceCounts.get(bundleId);
+		if ((cached != null) && (cached.getKey().longValue() == lastModified)) {
+			return cached.getValue().intValue();
+		}
+
+		BundleWiring bundleWiring = bundle.adapt(BundleWiring.class);
+		if (bundleWiring == null) {
+			return -1;
+		}
+
+		Collection<String> classResources = bundleWiring.listResources("/", "*.class",
+				BundleWiring.LISTRESOURCES_LOCAL | BundleWiring.LISTRESOURCES_RECURSE);
+		int classResourceCount = (classResources != null) ? classResources.size() : 0;
+
+		bundleClassResourceCounts.put(bundleId,
+				Map.entry(Long.valueOf(lastModified), Integer.valueOf(classResourceCount)));
+
+		return classResourceCount;
+	}
+
 	protected InstalledFeature getInstalledFeatureById(ID featureId) {
 		// @formatter:off
 		return installedFeatures.stream()
@@ -1188,89 +1873,162 @@ public class FeatureRuntimeImpl implements FeatureRuntime {
 		ID featureId = installedFeature.getFeature().getID();
 
 		// @formatter:off
-		List<ID> installedFeatureBundlesIDs = installedFeature.getInstalledBundles().stream()
+		Set<ID> installedFeatureBundlesIDs = installedFeature.getInstalledBundles().stream()
 				.map(ib -> ib.getBundleId())
-				.toList();
+				.collect(Collectors.toSet());
 		// @formatter:on
 
 		// @formatter:off
-		List<String> installedFeatureConfigurationsPIDs = installedFeature.getInstalledConfigurations().stream()
+		Set<String> installedFeatureConfigurationsPIDs = installedFeature.getInstalledConfigurations().stream()
 				.map(ic -> ic.getPid())
-				.toList();
+				.collect(Collectors.toSet());
 		// @formatter:on
 
+		List<InstalledFeature> updatedInstalledFeatures = new ArrayList<>(installedFeatures.size() + 1);
+
 		for (InstalledFeature existingFeature : installedFeatures) {
-			for (InstalledBundle existingFeatureBundle : existingFeature.getInstalledBundles()) {
+			boolean isUpdated = false;
+
+			List<InstalledBundle> existingFeatureBundles = new ArrayList<>(existingFeature.getInstalledBundles());
+			for (int i = 0; i < existingFeatureBundles.size(); i++) {
+				InstalledBundle existingFeatureBundle = existingFeatureBundles.get(i);
 				if (installedFeatureBundlesIDs.contains(existingFeatureBundle.getBundleId())) {
-					existingFeatureBundle.getOwningFeatures().add(featureId);
+					existingFeatureBundles.set(i, ((InstalledBundleImpl) existingFeatureBundle)
+							.withOwningFeatures(addOwningFeature(existingFeatureBundle.getOwningFeatures(), featureId)));
+					isUpdated = true;
 					LOG.info(String.format("Added feature %s to owning features of bundle %s", featureId,
 							existingFeatureBundle.getBundleId()));
 				}
 			}
 
-			for (InstalledConfiguration existingFeatureConfiguration : existingFeature.getInstalledConfigurations()) {
+			List<InstalledConfiguration> existingFeatureConfigurations = new ArrayList<>(
+					existingFeature.getInstalledConfigurations());
+			for (int i = 0; i < existingFeatureConfigurations.size(); i++) {
+				InstalledConfiguration existingFeatureConfiguration = existingFeatureConfigurations.get(i);
 				if (installedFeatureConfigurationsPIDs.contains(existingFeatureConfiguration.getPid())) {
-					existingFeatureConfiguration.getOwningFeatures().add(featureId);
+					existingFeatureConfigurations.set(i,
+							((InstalledConfigurationImpl) existingFeatureConfiguration).withOwningFeatures(
+									addOwningFeature(existingFeatureConfiguration.getOwningFeatures(), featureId)));
+					isUpdated = true;
 					LOG.info(String.format("Added feature %s to owning features of configuration %s", featureId,
 							existingFeatureConfiguration.getPid()));
 				}
 			}
+
+			updatedInstalledFeatures.add(isUpdated
+					? replaceInstalledFeature(existingFeature, existingFeatureBundles, existingFeatureConfigurations)
+					: existingFeature);
 		}
+
+		updatedInstalledFeatures.add(installedFeature);
+
+		installedFeatures = List.copyOf(updatedInstalledFeatures);
 	}
 
 	private void updateInstalledFeaturesOnRemove(ID featureId) {
-		for (InstalledFeature existingFeature : installedFeatures) {
-			// @formatter:off
-			boolean isFeatureBundlesReferenced = existingFeature.getInstalledBundles().stream()
-					.flatMap(ib -> ib.getOwningFeatures().stream())
-					.anyMatch(ofId -> featureId.equals(ofId));
-			// @formatter:on
-
-			// @formatter:off
-			boolean isFeatureConfigurationsReferenced = existingFeature.getInstalledConfigurations().stream()
-					.flatMap(ic -> ic.getOwningFeatures().stream())
-					.anyMatch(ofId -> featureId.equals(ofId));
-			// @formatter:on
+		List<InstalledFeature> updatedInstalledFeatures = new ArrayList<>(installedFeatures.size());
 
-			if (isFeatureBundlesReferenced) {
+		for (InstalledFeature existingFeature : installedFeatures) {
+			if (featureId.equals(existingFeature.getFeature().getID())) {
+				continue;
+			}
 
-				// update bundles' "owning features"
-				for (InstalledBundle installedFeatureBundle : existingFeature.getInstalledBundles()) {
-					if (installedFeatureBundle.getOwningFeatures().removeIf(ofId -> featureId.equals(ofId))) {
-						LOG.info(String.format("Removed feature %s from owning features of bundle %s", featureId,
-								installedFeatureBundle.getBundleId()));
-					}
+			boolean isUpdated = false;
+
+			List<InstalledBundle> existingFeatureBundles = new ArrayList<>(existingFeature.getInstalledBundles());
+			for (int i = 0; i < existingFeatureBundles.size(); i++) {
+				InstalledBundle installedFeatureBundle = existingFeatureBundles.get(i);
+				if (installedFeatureBundle.getOwningFeatures().contains(featureId)) {
+					existingFeatureBundles.set(i, ((InstalledBundleImpl) installedFeatureBundle)
+							.withOwningFeatures(removeOwningFeature(installedFeatureBundle.getOwningFeatures(), featureId)));
+					isUpdated = true;
+					LOG.info(String.format("Removed feature %s from owning features of bundle %s", featureId,
+							installedFeatureBundle.getBundleId()));
 				}
 			}
 
-			if (isFeatureConfigurationsReferenced) {
-
-				// update configurations' "owning features"
-				for (InstalledConfiguration installedFeatureConfiguration : existingFeature
-						.getInstalledConfigurations()) {
-					if (installedFeatureConfiguration.getOwningFeatures().removeIf(ofId -> featureId.equals(ofId))) {
-						LOG.info(String.format("Removed feature %s from owning features of configuration %s", featureId,
-								installedFeatureConfiguration.getPid()));
-					}
+			List<InstalledConfiguration> existingFeatureConfigurations = new ArrayList<>(
+					existingFeature.getInstalledConfigurations());
+			for (int i = 0; i < existingFeatureConfigurations.size(); i++) {
+				InstalledConfiguration installedFeatureConfiguration = existingFeatureConfigurations.get(i);
+				if (installedFeatureConfiguration.getOwningFeatures().contains(featureId)) {
+					existingFeatureConfigurations.set(i,
+							((InstalledConfigurationImpl) installedFeatureConfiguration).withOwningFeatures(
+									removeOwningFeature(installedFeatureConfiguration.getOwningFeatures(), featureId)));
+					isUpdated = true;
+					LOG.info(String.format("Removed feature %s from owning features of configuration %s", featureId,
+							installedFeatureConfiguration.getPid()));
 				}
 			}
+
+			updatedInstalledFeatures.add(isUpdated
+					? replaceInstalledFeature(existingFeature, existingFeatureBundles, existingFeatureConfigurations)
+					: existingFeature);
 		}
+
+		installedFeatures = List.copyOf(updatedInstalledFeatures);
 	}
 
-	private Map<Map.Entry<String, String>, Long> getExistingBundles() {
-		// @formatter:off
-		return Arrays.stream(bundleContext.getBundles()).collect(Collectors.toMap(
-				b -> Map.entry(b.getSymbolicName(), b.getVersion().toString()), 
-				b -> Long.valueOf(b.getBundleId())));
-		// @formatter:on
+	private InstalledFeature replaceInstalledFeature(InstalledFeature existingFeature,
+			List<InstalledBundle> installedBundles, List<InstalledConfiguration> installedConfigurations) {
+		InstalledFeature replacement = ((InstalledFeatureImpl) existingFeature)
+				.withInstalledBundlesAndConfigurations(installedBundles, installedConfigurations);
+
+		// keep merge conflict index pointing at current installed bundles and
+		// configurations
+		mergeConflictIndex.remove(existingFeature.getFeature().getID());
+		mergeConflictIndex.add(replacement);
+
+		return replacement;
+	}
+
+	private static List<ID> addOwningFeature(List<ID> owningFeatures, ID featureId) {
+		List<ID> updatedOwningFeatures = new ArrayList<>(owningFeatures.size() + 1);
+		updatedOwningFeatures.addAll(owningFeatures);
+		updatedOwningFeatures.add(featureId);
+		return updatedOwningFeatures;
+	}
+
+	private static List<ID> removeOwningFeature(List<ID> owningFeatures, ID featureId) {
+		List<ID> updatedOwningFeatures = new ArrayList<>(owningFeatures);
+		updatedOwningFeatures.removeIf(ofId -> featureId.equals(ofId));
+		return updatedOwningFeatures;
+	}
+
+	private Map<String, Integer> getInternalMapSizes() {
+		Map<String, Integer> sizes = new HashMap<>();
+		sizes.put("installedFeatures", installedFeatures.size());
+		sizes.put("installedBundlesByIdentifier", installedBundlesByIdentifier.size());
+		sizes.put("installedFeaturesToBundles", installedFeaturesToBundles.size());
+		sizes.put("installedFeaturesToMergedBundles", installedFeaturesToMergedBundles.size());
+		sizes.put("installedFeaturesToConfigurations", installedFeaturesToConfigurations.size());
+		sizes.put("bundleIdsToSymbolicNamesVersions", bundleIdsToSymbolicNamesVersions.size());
+		return sizes;
 	}
 
 	private void setExternalFeatureId() {
 		externalFeatureId = featureService.getIDfromMavenCoordinates(FeatureRuntimeConstants.EXTERNAL_FEATURE_ID);
 	}
 
+	/*
+	 * Outcome of probing artifact for install plan; path is null if artifact is
+	 * not present in file system of any repository
+	 */
+	private record ArtifactProbe(Path artifactPath, boolean isKnownMissing,
+			Map.Entry<String, String> bundleSymbolicNameAndVersion) {
+	}
+
 	// TODO: maybe add this to org.osgi.service.featurelauncher.runtime.FeatureRuntime ?
 	public interface RemoveOperationBuilder extends OperationBuilder<RemoveOperationBuilder> {
 		void remove();
 	}
+
+	// TODO: maybe add this to org.osgi.service.featurelauncher.runtime.FeatureRuntime ?
+	public interface PlanOperationBuilder {
+		/**
+		 * Computes what the operation would do, without changing running framework.
+		 * Builder can still be completed afterwards.
+		 */
+		InstallPlan plan();
+	}
 }
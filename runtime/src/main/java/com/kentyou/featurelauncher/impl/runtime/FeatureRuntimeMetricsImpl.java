@@ -0,0 +1,398 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kentyou.featurelauncher.runtime.metrics.FeatureFootprint;
+import com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean;
+
+/**
+ * Implementation of {@link FeatureRuntimeMetricsMXBean}
+ */
+class FeatureRuntimeMetricsImpl implements FeatureRuntimeMetricsMXBean {
+	private static final Logger LOG = LoggerFactory.getLogger(FeatureRuntimeMetricsImpl.class);
+
+	private static final long[] LATENCY_HISTOGRAM_BOUNDS_MILLIS = { 10, 50, 100, 500, 1_000, 5_000, 10_000, 30_000,
+			60_000 };
+
+	enum Operation {
+		INSTALL, UPDATE, REMOVE
+	}
+
+	private final Map<Operation, LongAdder[]> latencyHistograms;
+
+	private final LongAdder failedOperations = new LongAdder();
+
+	private final Map<String, LongAdder> artifactFetchNanos = new ConcurrentHashMap<>();
+
+	private final Map<String, LongAdder> artifactFetchBytes = new ConcurrentHashMap<>();
+
+	private final LongAdder configurationApplyCount = new LongAdder();
+
+	private final LongAdder configurationApplyNanos = new LongAdder();
+
+	private final LongAdder bundleStartCount = new LongAdder();
+
+	private final LongAdder bundleStartNanos = new LongAdder();
+
+	private final Supplier<Map<String, Integer>> internalMapSizesSupplier;
+
+	private final Supplier<List<FeatureFootprint>> featureFootprintsSupplier;
+
+	private final Function<String, FeatureFootprint> featureFootprintFunction;
+
+	private ServiceRegistration<FeatureRuntimeMetricsMXBean> serviceRegistration;
+
+	private ObjectName objectName;
+
+	FeatureRuntimeMetricsImpl(Supplier<Map<String, Integer>> internalMapSizesSupplier,
+			Supplier<List<FeatureFootprint>> featureFootprintsSupplier,
+			Function<String, FeatureFootprint> featureFootprintFunction) {
+		this.internalMapSizesSupplier = internalMapSizesSupplier;
+		this.featureFootprintsSupplier = featureFootprintsSupplier;
+		this.featureFootprintFunction = featureFootprintFunction;
+
+		this.latencyHistograms = new EnumMap<>(Operation.class);
+		for (Operation operation : Operation.values()) {
+			LongAdder[] histogram = new LongAdder[LATENCY_HISTOGRAM_BOUNDS_MILLIS.length + 1];
+			for (int i = 0; i < histogram.length; i++) {
+				histogram[i] = new LongAdder();
+			}
+			latencyHistograms.put(operation, histogram);
+		}
+	}
+
+	void register(BundleContext bundleContext) {
+		serviceRegistration = bundleContext.registerService(FeatureRuntimeMetricsMXBean.class, this, null);
+
+		try {
+			MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!mBeanServer.isRegistered(name)) {
+				mBeanServer.registerMBean(this, name);
+				objectName = name;
+			}
+		} catch (JMException | RuntimeException e) {
+			LOG.warn("Could not register Feature Runtime metrics MBean", e);
+		}
+	}
+
+	void unregister() {
+		if (serviceRegistration != null) {
+			try {
+				serviceRegistration.unregister();
+			} catch (IllegalStateException e) {
+				// already unregistered
+			}
+			serviceRegistration = null;
+		}
+
+		if (objectName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			} catch (JMException e) {
+				LOG.warn("Could not unregister Feature Runtime metrics MBean", e);
+			}
+			objectName = null;
+		}
+	}
+
+	void recordOperation(Operation operation, long durationNanos, boolean succeeded) {
+		long durationMillis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+
+		int bucket = 0;
+		while ((bucket < LATENCY_HISTOGRAM_BOUNDS_MILLIS.length)
+				&& (durationMillis > LATENCY_HISTOGRAM_BOUNDS_MILLIS[bucket])) {
+			bucket++;
+		}
+		latencyHistograms.get(operation)[bucket].increment();
+
+		if (!succeeded) {
+			failedOperations.increment();
+		}
+	}
+
+	/**
+	 * Wraps artifact stream, so that bytes read and time until stream is closed
+	 * are recorded for given repository.
+	 */
+	InputStream recordArtifactFetch(String repositoryName, InputStream artifactIs, long startNanos) {
+		LongAdder fetchNanos = artifactFetchNanos.computeIfAbsent(repositoryName, k -> new LongAdder());
+		LongAdder fetchBytes = artifactFetchBytes.computeIfAbsent(repositoryName, k -> new LongAdder());
+
+		return new FilterInputStream(artifactIs) {
+			private boolean closed;
+
+			@Override
+			public int read() throws IOException {
+				int b = super.read();
+				if (b != -1) {
+					fetchBytes.increment();
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = super.read(b, off, len);
+				if (n > 0) {
+					fetchBytes.add(n);
+				}
+				return n;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				long skipped = super.skip(n);
+				fetchBytes.add(skipped);
+				return skipped;
+			}
+
+			@Override
+			public void close() throws IOException {
+				if (!closed) {
+					closed = true;
+					fetchNanos.add(System.nanoTime() - startNanos);
+				}
+				super.close();
+			}
+		};
+	}
+
+	void recordConfigurationApply(long durationNanos) {
+		configurationApplyCount.increment();
+		configurationApplyNanos.add(durationNanos);
+	}
+
+	void recordBundleStart(long durationNanos) {
+		bundleStartCount.increment();
+		bundleStartNanos.add(durationNanos);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getInstallCount()
+	 */
+	@Override
+	public long getInstallCount() {
+		return count(Operation.INSTALL);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getUpdateCount()
+	 */
+	@Override
+	public long getUpdateCount() {
+		return count(Operation.UPDATE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getRemoveCount()
+	 */
+	@Override
+	public long getRemoveCount() {
+		return count(Operation.REMOVE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getFailedOperationCount()
+	 */
+	@Override
+	public long getFailedOperationCount() {
+		return failedOperations.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getLatencyHistogramBoundsMillis()
+	 */
+	@Override
+	public long[] getLatencyHistogramBoundsMillis() {
+		return LATENCY_HISTOGRAM_BOUNDS_MILLIS.clone();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getInstallLatencyHistogram()
+	 */
+	@Override
+	public long[] getInstallLatencyHistogram() {
+		return histogram(Operation.INSTALL);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getUpdateLatencyHistogram()
+	 */
+	@Override
+	public long[] getUpdateLatencyHistogram() {
+		return histogram(Operation.UPDATE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getRemoveLatencyHistogram()
+	 */
+	@Override
+	public long[] getRemoveLatencyHistogram() {
+		return histogram(Operation.REMOVE);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getArtifactFetchTimeMillis()
+	 */
+	@Override
+	public Map<String, Long> getArtifactFetchTimeMillis() {
+		Map<String, Long> fetchTimeMillis = new TreeMap<>();
+		artifactFetchNanos.forEach((k, v) -> fetchTimeMillis.put(k, TimeUnit.NANOSECONDS.toMillis(v.sum())));
+		return fetchTimeMillis;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getArtifactFetchBytes()
+	 */
+	@Override
+	public Map<String, Long> getArtifactFetchBytes() {
+		Map<String, Long> fetchBytes = new TreeMap<>();
+		artifactFetchBytes.forEach((k, v) -> fetchBytes.put(k, v.sum()));
+		return fetchBytes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getConfigurationApplyCount()
+	 */
+	@Override
+	public long getConfigurationApplyCount() {
+		return configurationApplyCount.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getConfigurationApplyTimeMillis()
+	 */
+	@Override
+	public long getConfigurationApplyTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(configurationApplyNanos.sum());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getBundleStartCount()
+	 */
+	@Override
+	public long getBundleStartCount() {
+		return bundleStartCount.sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getBundleStartTimeMillis()
+	 */
+	@Override
+	public long getBundleStartTimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(bundleStartNanos.sum());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getInternalMapSizes()
+	 */
+	@Override
+	public Map<String, Integer> getInternalMapSizes() {
+		return new TreeMap<>(internalMapSizesSupplier.get());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getFeatureFootprints()
+	 */
+	@Override
+	public List<FeatureFootprint> getFeatureFootprints() {
+		return featureFootprintsSupplier.get();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#getFeatureFootprint(java.lang.String)
+	 */
+	@Override
+	public FeatureFootprint getFeatureFootprint(String featureId) {
+		return featureFootprintFunction.apply(featureId);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean#reset()
+	 */
+	@Override
+	public void reset() {
+		latencyHistograms.values().forEach(histogram -> {
+			for (LongAdder bucket : histogram) {
+				bucket.reset();
+			}
+		});
+		failedOperations.reset();
+		artifactFetchNanos.values().forEach(LongAdder::reset);
+		artifactFetchBytes.values().forEach(LongAdder::reset);
+		configurationApplyCount.reset();
+		configurationApplyNanos.reset();
+		bundleStartCount.reset();
+		bundleStartNanos.reset();
+	}
+
+	private long count(Operation operation) {
+		long count = 0;
+		for (LongAdder bucket : latencyHistograms.get(operation)) {
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	private long[] histogram(Operation operation) {
+		LongAdder[] histogram = latencyHistograms.get(operation);
+		long[] counts = new long[histogram.length];
+		for (int i = 0; i < histogram.length; i++) {
+			counts[i] = histogram[i].sum();
+		}
+		return counts;
+	}
+}
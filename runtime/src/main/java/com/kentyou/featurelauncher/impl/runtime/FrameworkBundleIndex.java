@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.SynchronousBundleListener;
+
+/**
+ * Live index of bundles present in running framework, keyed by bundle symbolic
+ * name and version.
+ *
+ * The index is maintained by a synchronous bundle listener, so bundles
+ * installed, updated or uninstalled by other management agents are reflected
+ * without scanning all bundles on each operation. If framework allows bundle
+ * collisions, IDs of all bundles sharing symbolic name and version are kept, so
+ * that removing one of them leaves the others indexed.
+ */
+class FrameworkBundleIndex implements SynchronousBundleListener {
+	static final long NO_BUNDLE_ID = -1L;
+
+	private final BundleContext bundleContext;
+
+	// sorted ascending, i.e. in order of installation
+	private final Map<Map.Entry<String, String>, long[]> bundleIdsBySymbolicNameAndVersion;
+
+	private final Map<Long, Map.Entry<String, String>> symbolicNamesAndVersionsByBundleId;
+
+	FrameworkBundleIndex(BundleContext bundleContext) {
+		this.bundleContext = bundleContext;
+		this.bundleIdsBySymbolicNameAndVersion = new ConcurrentHashMap<>();
+		this.symbolicNamesAndVersionsByBundleId = new ConcurrentHashMap<>();
+	}
+
+	void open() {
+		// register listener first, so that no event is missed while collecting bundles
+		// already present in running framework
+		bundleContext.addBundleListener(this);
+
+		for (Bundle bundle : bundleContext.getBundles()) {
+			// uninstall event of bundle may already have been handled
+			if (bundle.getState() == Bundle.UNINSTALLED) {
+				continue;
+			}
+
+			add(bundle);
+
+			// uninstalled while being added
+			if (bundle.getState() == Bundle.UNINSTALLED) {
+				remove(bundle.getBundleId());
+			}
+		}
+	}
+
+	void close() {
+		bundleContext.removeBundleListener(this);
+
+		bundleIdsBySymbolicNameAndVersion.clear();
+		symbolicNamesAndVersionsByBundleId.clear();
+	}
+
+	/**
+	 * Returns ID of bundle with given symbolic name and version present in running
+	 * framework, or {@link #NO_BUNDLE_ID} if there is none. If there are several,
+	 * ID of the one installed first is returned.
+	 */
+	long getBundleId(Map.Entry<String, String> bundleSymbolicNameAndVersion) {
+		long[] bundleIds = bundleIdsBySymbolicNameAndVersion.get(bundleSymbolicNameAndVersion);
+		return (bundleIds != null) ? bundleIds[0] : NO_BUNDLE_ID;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see org.osgi.framework.BundleListener#bundleChanged(org.osgi.framework.BundleEvent)
+	 */
+	@Override
+	public void bundleChanged(BundleEvent event) {
+		switch (event.getType()) {
+		case BundleEvent.INSTALLED:
+			add(event.getBundle());
+			break;
+		case BundleEvent.UPDATED:
+			remove(event.getBundle().getBundleId());
+			add(event.getBundle());
+			break;
+		case BundleEvent.UNINSTALLED:
+			remove(event.getBundle().getBundleId());
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void add(Bundle bundle) {
+		String bundleSymbolicName = bundle.getSymbolicName();
+		if (bundleSymbolicName == null) {
+			return;
+		}
+
+		Map.Entry<String, String> bundleSymbolicNameAndVersion = Map.entry(bundleSymbolicName,
+				bundle.getVersion().toString());
+		long bundleId = bundle.getBundleId();
+
+		// listener may see bundle already collected in 'open'
+		if (symbolicNamesAndVersionsByBundleId.putIfAbsent(bundleId, bundleSymbolicNameAndVersion) != null) {
+			return;
+		}
+
+		bundleIdsBySymbolicNameAndVersion.compute(bundleSymbolicNameAndVersion, (k, bundleIds) -> {
+			if (bundleIds == null) {
+				return new long[] { bundleId };
+			}
+
+			int idx = Arrays.binarySearch(bundleIds, bundleId);
+			if (idx >= 0) {
+				return bundleIds;
+			}
+
+			int insertionIdx = -(idx + 1);
+			long[] updatedBundleIds = new long[bundleIds.length + 1];
+			System.arraycopy(bundleIds, 0, updatedBundleIds, 0, insertionIdx);
+			updatedBundleIds[insertionIdx] = bundleId;
+			System.arraycopy(bundleIds, insertionIdx, updatedBundleIds, insertionIdx + 1,
+					bundleIds.length - insertionIdx);
+			return updatedBundleIds;
+		});
+	}
+
+	private void remove(long bundleId) {
+		Map.Entry<String, String> bundleSymbolicNameAndVersion = symbolicNamesAndVersionsByBundleId.remove(bundleId);
+		if (bundleSymbolicNameAndVersion == null) {
+			return;
+		}
+
+		bundleIdsBySymbolicNameAndVersion.computeIfPresent(bundleSymbolicNameAndVersion, (k, bundleIds) -> {
+			int idx = Arrays.binarySearch(bundleIds, bundleId);
+			if (idx < 0) {
+				return bundleIds;
+			}
+
+			if (bundleIds.length == 1) {
+				return null;
+			}
+
+			long[] updatedBundleIds = new long[bundleIds.length - 1];
+			System.arraycopy(bundleIds, 0, updatedBundleIds, 0, idx);
+			System.arraycopy(bundleIds, idx + 1, updatedBundleIds, idx, bundleIds.length - idx - 1);
+			return updatedBundleIds;
+		});
+	}
+}
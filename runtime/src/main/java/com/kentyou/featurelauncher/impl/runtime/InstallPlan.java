@@ -0,0 +1,158 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.ID;
+
+/**
+ * Describes what an install or update operation would do, computed without
+ * changing state of running framework or of feature runtime.
+ *
+ * @see FeatureRuntimeImpl.PlanOperationBuilder#plan()
+ */
+public final class InstallPlan {
+	private final Feature feature;
+	private final boolean isUpToDate;
+	private final boolean isUpdate;
+	private final List<ID> bundlesToInstall;
+	private final List<ID> bundlesAlreadyInstalled;
+	private final Map<ID, Long> bundlesAliased;
+	private final List<String> configurationsToCreate;
+	private final List<String> configurationsAlreadyPresent;
+	private final List<ID> bundleMerges;
+	private final List<String> configurationMerges;
+	private final List<ID> artifactsToDownload;
+	private final List<ID> missingArtifacts;
+
+	InstallPlan(Feature feature, boolean isUpToDate, boolean isUpdate, List<ID> bundlesToInstall,
+			List<ID> bundlesAlreadyInstalled, Map<ID, Long> bundlesAliased, List<String> configurationsToCreate,
+			List<String> configurationsAlreadyPresent, List<ID> bundleMerges, List<String> configurationMerges,
+			List<ID> artifactsToDownload, List<ID> missingArtifacts) {
+		this.feature = feature;
+		this.isUpToDate = isUpToDate;
+		this.isUpdate = isUpdate;
+		this.bundlesToInstall = List.copyOf(bundlesToInstall);
+		this.bundlesAlreadyInstalled = List.copyOf(bundlesAlreadyInstalled);
+		this.bundlesAliased = Map.copyOf(bundlesAliased);
+		this.configurationsToCreate = List.copyOf(configurationsToCreate);
+		this.configurationsAlreadyPresent = List.copyOf(configurationsAlreadyPresent);
+		this.bundleMerges = List.copyOf(bundleMerges);
+		this.configurationMerges = List.copyOf(configurationMerges);
+		this.artifactsToDownload = List.copyOf(artifactsToDownload);
+		this.missingArtifacts = List.copyOf(missingArtifacts);
+	}
+
+	/**
+	 * Feature which would be installed, after decoration
+	 */
+	public Feature getFeature() {
+		return feature;
+	}
+
+	/**
+	 * Whether feature is already installed with same bundles, in which case
+	 * operation would do nothing
+	 */
+	public boolean isUpToDate() {
+		return isUpToDate;
+	}
+
+	/**
+	 * Whether a previous version of feature would be removed and re-installed
+	 */
+	public boolean isUpdate() {
+		return isUpdate;
+	}
+
+	public List<ID> getBundlesToInstall() {
+		return bundlesToInstall;
+	}
+
+	/**
+	 * Bundles already installed by feature runtime for other features
+	 */
+	public List<ID> getBundlesAlreadyInstalled() {
+		return bundlesAlreadyInstalled;
+	}
+
+	/**
+	 * Bundles whose symbolic name and version are already present in running
+	 * framework, mapped to ID of bundle present
+	 */
+	public Map<ID, Long> getBundlesAliased() {
+		return bundlesAliased;
+	}
+
+	public List<String> getConfigurationsToCreate() {
+		return configurationsToCreate;
+	}
+
+	public List<String> getConfigurationsAlreadyPresent() {
+		return configurationsAlreadyPresent;
+	}
+
+	/**
+	 * Bundles which conflict with bundles of other installed features and would
+	 * be passed to {@link org.osgi.service.featurelauncher.runtime.RuntimeBundleMerge}
+	 * of operation; empty if operation has none
+	 */
+	public List<ID> getBundleMerges() {
+		return bundleMerges;
+	}
+
+	/**
+	 * Configurations which conflict with configurations of other installed
+	 * features and would be passed to
+	 * {@link org.osgi.service.featurelauncher.runtime.RuntimeConfigurationMerge}
+	 * of operation; empty if operation has none
+	 */
+	public List<String> getConfigurationMerges() {
+		return configurationMerges;
+	}
+
+	/**
+	 * Bundles to install whose artifacts are not present in file system of any
+	 * artifact repository yet, and would have to be fetched. As artifacts are not
+	 * fetched when planning, some of them may turn out to be missing.
+	 */
+	public List<ID> getArtifactsToDownload() {
+		return artifactsToDownload;
+	}
+
+	/**
+	 * Bundles whose artifacts are known to be missing from all artifact
+	 * repositories, either from their file system or from earlier lookups
+	 */
+	public List<ID> getMissingArtifacts() {
+		return missingArtifacts;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "InstallPlan [feature=" + feature.getID() + ", isUpToDate=" + isUpToDate + ", isUpdate=" + isUpdate
+				+ ", bundlesToInstall=" + bundlesToInstall + ", bundlesAlreadyInstalled=" + bundlesAlreadyInstalled
+				+ ", bundlesAliased=" + bundlesAliased + ", configurationsToCreate=" + configurationsToCreate
+				+ ", configurationsAlreadyPresent=" + configurationsAlreadyPresent + ", bundleMerges=" + bundleMerges
+				+ ", configurationMerges=" + configurationMerges + ", artifactsToDownload=" + artifactsToDownload
+				+ ", missingArtifacts=" + missingArtifacts + "]";
+	}
+}
@@ -24,6 +24,9 @@ import org.osgi.service.featurelauncher.runtime.InstalledBundle;
 /**
  * Implementation of {@link org.osgi.service.featurelauncher.runtime.InstalledBundle}
  * 
+ * Instances are immutable, changes to owning features produce a new instance
+ * via {@link #withOwningFeatures(List)}.
+ * 
  * @author Michael H. Siemaszko (mhs@into.software)
  * @since Sep 15, 2024
  */
@@ -37,10 +40,14 @@ class InstalledBundleImpl implements InstalledBundle {
 	public InstalledBundleImpl(ID bundleId, Collection<ID> aliases, Bundle bundle, int startLevel,
 			List<ID> owningFeatures) {
 		this.bundleId = bundleId;
-		this.aliases = aliases;
+		this.aliases = List.copyOf(aliases);
 		this.bundle = bundle;
 		this.startLevel = startLevel;
-		this.owningFeatures = owningFeatures;
+		this.owningFeatures = List.copyOf(owningFeatures);
+	}
+
+	InstalledBundleImpl withOwningFeatures(List<ID> owningFeatures) {
+		return new InstalledBundleImpl(bundleId, aliases, bundle, startLevel, owningFeatures);
 	}
 
 	/* 
@@ -24,6 +24,9 @@ import org.osgi.service.featurelauncher.runtime.InstalledConfiguration;
 /**
  * Implementation of {@link org.osgi.service.featurelauncher.runtime.InstalledConfiguration}
  * 
+ * Instances are immutable, changes to owning features produce a new instance
+ * via {@link #withOwningFeatures(List)}.
+ * 
  * @author Michael H. Siemaszko (mhs@into.software)
  * @since Sep 15, 2024
  */
@@ -38,7 +41,11 @@ class InstalledConfigurationImpl implements InstalledConfiguration {
 		this.pid = pid;
 		this.factoryPid = factoryPid;
 		this.properties = properties;
-		this.owningFeatures = owningFeatures;
+		this.owningFeatures = List.copyOf(owningFeatures);
+	}
+
+	InstalledConfigurationImpl withOwningFeatures(List<ID> owningFeatures) {
+		return new InstalledConfigurationImpl(pid, factoryPid, properties, owningFeatures);
 	}
 
 	/* 
@@ -24,6 +24,9 @@ import org.osgi.service.featurelauncher.runtime.InstalledFeature;
 /**
  * Implementation of {@link org.osgi.service.featurelauncher.runtime.InstalledFeature}
  * 
+ * Instances are immutable, so that snapshots of installed features can be
+ * shared with readers without copying.
+ * 
  * @author Michael H. Siemaszko (mhs@into.software)
  * @since Sep 15, 2024
  */
@@ -41,8 +44,14 @@ class InstalledFeatureImpl implements InstalledFeature {
 		this.originalFeature = originalFeature;
 		this.isDecorated = isDecorated;
 		this.isInitialLaunch = isInitialLaunch;
-		this.installedBundles = installedBundles;
-		this.installedConfigurations = installedConfigurations;
+		this.installedBundles = List.copyOf(installedBundles);
+		this.installedConfigurations = List.copyOf(installedConfigurations);
+	}
+
+	InstalledFeatureImpl withInstalledBundlesAndConfigurations(List<InstalledBundle> installedBundles,
+			List<InstalledConfiguration> installedConfigurations) {
+		return new InstalledFeatureImpl(feature, originalFeature, isDecorated, isInitialLaunch, installedBundles,
+				installedConfigurations);
 	}
 
 	/* 
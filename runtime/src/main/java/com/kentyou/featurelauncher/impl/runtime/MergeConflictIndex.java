@@ -0,0 +1,203 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureBundle;
+import org.osgi.service.feature.FeatureConfiguration;
+import org.osgi.service.feature.ID;
+import org.osgi.service.featurelauncher.runtime.InstalledBundle;
+import org.osgi.service.featurelauncher.runtime.InstalledConfiguration;
+import org.osgi.service.featurelauncher.runtime.InstalledFeature;
+import org.osgi.service.featurelauncher.runtime.RuntimeBundleMerge.FeatureBundleDefinition;
+import org.osgi.service.featurelauncher.runtime.RuntimeConfigurationMerge.FeatureConfigurationDefinition;
+
+/**
+ * Index of bundles and configurations of installed features, used to detect
+ * candidates for {@link org.osgi.service.featurelauncher.runtime.RuntimeBundleMerge}
+ * and {@link org.osgi.service.featurelauncher.runtime.RuntimeConfigurationMerge}.
+ *
+ * Bundles are indexed by 'groupId:artifactId' and configurations by PID, so
+ * that conflicts for an incoming feature are found in time linear in the size
+ * of that feature. Keys indexed for each feature are kept too, so that removing
+ * or replacing a feature is linear in the size of that feature as well.
+ *
+ * Index is read when computing install plans and written when features are
+ * installed, updated or removed, so all access is synchronized.
+ */
+class MergeConflictIndex {
+
+	record BundleConflict(ID featureId, InstalledBundle installedBundle, FeatureBundleDefinition definition) {
+	}
+
+	record ConfigurationConflict(ID featureId, InstalledConfiguration installedConfiguration,
+			FeatureConfigurationDefinition definition) {
+	}
+
+	private final Map<String, List<BundleConflict>> bundlesByGroupIdArtifactId = new HashMap<>();
+
+	private final Map<String, List<ConfigurationConflict>> configurationsByPid = new HashMap<>();
+
+	private final Map<ID, Set<String>> groupIdArtifactIdsByFeatureId = new HashMap<>();
+
+	private final Map<ID, Set<String>> configurationPidsByFeatureId = new HashMap<>();
+
+	synchronized void add(InstalledFeature installedFeature) {
+		ID featureId = installedFeature.getFeature().getID();
+		Feature definingFeature = installedFeature.isDecorated() ? installedFeature.getOriginalFeature()
+				: installedFeature.getFeature();
+
+		Map<ID, FeatureBundle> definingFeatureBundles = new HashMap<>();
+		for (FeatureBundle featureBundle : definingFeature.getBundles()) {
+			definingFeatureBundles.put(featureBundle.getID(), featureBundle);
+		}
+		for (FeatureBundle featureBundle : installedFeature.getFeature().getBundles()) {
+			definingFeatureBundles.putIfAbsent(featureBundle.getID(), featureBundle);
+		}
+
+		for (InstalledBundle installedBundle : installedFeature.getInstalledBundles()) {
+			FeatureBundle featureBundle = definingFeatureBundles.get(installedBundle.getBundleId());
+			if (featureBundle != null) {
+				String groupIdArtifactId = getGroupIdArtifactId(installedBundle.getBundleId());
+
+				groupIdArtifactIdsByFeatureId.computeIfAbsent(featureId, k -> new LinkedHashSet<>())
+						.add(groupIdArtifactId);
+				bundlesByGroupIdArtifactId.computeIfAbsent(groupIdArtifactId, k -> new ArrayList<>()).add(new BundleConflict(featureId, installedBundle,
+								new FeatureBundleDefinitionImpl(featureBundle, definingFeature)));
+			}
+		}
+
+		Map<String, FeatureConfiguration> definingFeatureConfigurations = new HashMap<>(
+				installedFeature.getFeature().getConfigurations());
+		definingFeatureConfigurations.putAll(definingFeature.getConfigurations());
+
+		for (InstalledConfiguration installedConfiguration : installedFeature.getInstalledConfigurations()) {
+			FeatureConfiguration featureConfiguration = definingFeatureConfigurations
+					.get(installedConfiguration.getPid());
+			if (featureConfiguration != null) {
+				configurationPidsByFeatureId.computeIfAbsent(featureId, k -> new LinkedHashSet<>())
+						.add(installedConfiguration.getPid());
+				configurationsByPid.computeIfAbsent(installedConfiguration.getPid(), k -> new ArrayList<>())
+						.add(new ConfigurationConflict(featureId, installedConfiguration,
+								new FeatureConfigurationDefinitionImpl(featureConfiguration, definingFeature)));
+			}
+		}
+	}
+
+	synchronized void remove(ID featureId) {
+		removeConflicts(bundlesByGroupIdArtifactId, groupIdArtifactIdsByFeatureId.remove(featureId),
+				c -> featureId.equals(c.featureId()));
+
+		removeConflicts(configurationsByPid, configurationPidsByFeatureId.remove(featureId),
+				c -> featureId.equals(c.featureId()));
+	}
+
+	/**
+	 * Returns installed bundles with same group ID and artifact ID, but different
+	 * identifier, than given bundle.
+	 */
+	synchronized List<BundleConflict> getConflictingBundles(ID bundleId) {
+		List<BundleConflict> candidates = bundlesByGroupIdArtifactId.get(getGroupIdArtifactId(bundleId));
+		if (candidates == null) {
+			return Collections.emptyList();
+		}
+
+		List<BundleConflict> conflicts = new ArrayList<>(candidates.size());
+		for (BundleConflict candidate : candidates) {
+			if (!bundleId.equals(candidate.installedBundle().getBundleId())) {
+				conflicts.add(candidate);
+			}
+		}
+		return conflicts;
+	}
+
+	/**
+	 * Returns installed configurations with given PID, in order features were
+	 * installed.
+	 */
+	synchronized List<ConfigurationConflict> getConflictingConfigurations(String pid) {
+		List<ConfigurationConflict> conflicts = configurationsByPid.get(pid);
+		return (conflicts != null) ? List.copyOf(conflicts) : Collections.emptyList();
+	}
+
+	private static <T> void removeConflicts(Map<String, List<T>> conflictsByKey, Set<String> keys,
+			Predicate<T> filter) {
+		if (keys == null) {
+			return;
+		}
+
+		for (String key : keys) {
+			List<T> conflicts = conflictsByKey.get(key);
+			if (conflicts != null) {
+				conflicts.removeIf(filter);
+				if (conflicts.isEmpty()) {
+					conflictsByKey.remove(key);
+				}
+			}
+		}
+	}
+
+	private static String getGroupIdArtifactId(ID id) {
+		return id.getGroupId() + ":" + id.getArtifactId();
+	}
+
+	private static final class FeatureBundleDefinitionImpl implements FeatureBundleDefinition {
+		private final FeatureBundle featureBundle;
+		private final Feature feature;
+
+		FeatureBundleDefinitionImpl(FeatureBundle featureBundle, Feature feature) {
+			this.featureBundle = featureBundle;
+			this.feature = feature;
+		}
+
+		@Override
+		public FeatureBundle getFeatureBundle() {
+			return featureBundle;
+		}
+
+		@Override
+		public Feature getFeature() {
+			return feature;
+		}
+	}
+
+	private static final class FeatureConfigurationDefinitionImpl implements FeatureConfigurationDefinition {
+		private final FeatureConfiguration featureConfiguration;
+		private final Feature feature;
+
+		FeatureConfigurationDefinitionImpl(FeatureConfiguration featureConfiguration, Feature feature) {
+			this.featureConfiguration = featureConfiguration;
+			this.feature = feature;
+		}
+
+		@Override
+		public FeatureConfiguration getFeatureConfiguration() {
+			return featureConfiguration;
+		}
+
+		@Override
+		public Feature getFeature() {
+			return feature;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.runtime.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Resources attributed to an installed feature, as reported by
+ * {@link FeatureRuntimeMetricsMXBean#getFeatureFootprints()}
+ *
+ * Bundles and configurations shared by several features are attributed to
+ * each of them; {@link BundleFootprint#getOwningFeatureCount()} allows
+ * weighting.
+ */
+public final class FeatureFootprint {
+
+	/**
+	 * Resources attributed to a single bundle
+	 */
+	public static final class BundleFootprint {
+		private final String bundleId;
+		private final String symbolicName;
+		private final long jarBytes;
+		private final int classResourceCount;
+		private final int registeredServiceCount;
+		private final int owningFeatureCount;
+
+		@ConstructorParameters({ "bundleId", "symbolicName", "jarBytes", "classResourceCount",
+				"registeredServiceCount", "owningFeatureCount" })
+		public BundleFootprint(String bundleId, String symbolicName, long jarBytes, int classResourceCount,
+				int registeredServiceCount, int owningFeatureCount) {
+			this.bundleId = bundleId;
+			this.symbolicName = symbolicName;
+			this.jarBytes = jarBytes;
+			this.classResourceCount = classResourceCount;
+			this.registeredServiceCount = registeredServiceCount;
+			this.owningFeatureCount = owningFeatureCount;
+		}
+
+		public String getBundleId() {
+			return bundleId;
+		}
+
+		public String getSymbolicName() {
+			return symbolicName;
+		}
+
+		/**
+		 * Size of bundle JAR in bytes, or -1 if bundle was not installed by feature
+		 * runtime
+		 */
+		public long getJarBytes() {
+			return jarBytes;
+		}
+
+		/**
+		 * Number of {@code *.class} resources visible to the bundle class loader, or
+		 * -1 if bundle is not resolved. This is an upper bound on the number of
+		 * classes loaded by the bundle, which standard OSGi APIs do not expose.
+		 */
+		public int getClassResourceCount() {
+			return classResourceCount;
+		}
+
+		public int getRegisteredServiceCount() {
+			return registeredServiceCount;
+		}
+
+		public int getOwningFeatureCount() {
+			return owningFeatureCount;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return "BundleFootprint [bundleId=" + bundleId + ", symbolicName=" + symbolicName + ", jarBytes="
+					+ jarBytes + ", classResourceCount=" + classResourceCount + ", registeredServiceCount="
+					+ registeredServiceCount + ", owningFeatureCount=" + owningFeatureCount + "]";
+		}
+	}
+
+	private final String featureId;
+	private final List<BundleFootprint> bundles;
+	private final Map<String, Long> configurationBytes;
+
+	@ConstructorParameters({ "featureId", "bundles", "configurationBytes" })
+	public FeatureFootprint(String featureId, List<BundleFootprint> bundles, Map<String, Long> configurationBytes) {
+		this.featureId = featureId;
+		this.bundles = List.copyOf(bundles);
+		this.configurationBytes = Map.copyOf(configurationBytes);
+	}
+
+	public String getFeatureId() {
+		return featureId;
+	}
+
+	public List<BundleFootprint> getBundles() {
+		return bundles;
+	}
+
+	/**
+	 * Approximate serialized size of configuration properties in bytes, by PID, or
+	 * -1 for configurations not created by feature runtime
+	 */
+	public Map<String, Long> getConfigurationBytes() {
+		return configurationBytes;
+	}
+
+	public long getTotalJarBytes() {
+		return bundles.stream().mapToLong(BundleFootprint::getJarBytes).filter(b -> b > 0).sum();
+	}
+
+	/**
+	 * Sum of {@link BundleFootprint#getClassResourceCount()}, an upper bound on
+	 * the number of classes loaded by bundles of feature
+	 */
+	public long getTotalClassResourceCount() {
+		return bundles.stream().mapToLong(BundleFootprint::getClassResourceCount).filter(c -> c > 0).sum();
+	}
+
+	public long getTotalRegisteredServiceCount() {
+		return bundles.stream().mapToLong(BundleFootprint::getRegisteredServiceCount).sum();
+	}
+
+	public long getTotalConfigurationBytes() {
+		return configurationBytes.values().stream().mapToLong(Long::longValue).filter(b -> b > 0).sum();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "FeatureFootprint [featureId=" + featureId + ", totalJarBytes=" + getTotalJarBytes()
+				+ ", totalClassResourceCount=" + getTotalClassResourceCount() + ", totalRegisteredServiceCount="
+				+ getTotalRegisteredServiceCount() + ", totalConfigurationBytes=" + getTotalConfigurationBytes()
+				+ ", bundles=" + bundles + "]";
+	}
+}
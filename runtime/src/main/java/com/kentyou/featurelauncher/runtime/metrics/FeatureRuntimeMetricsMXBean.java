@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.runtime.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.annotation.versioning.ProviderType;
+
+/**
+ * Operation metrics of the Feature Runtime Service.
+ *
+ * Registered both as an OSGi service and in the platform MBean server, under
+ * {@link #OBJECT_NAME}.
+ *
+ * Latency histograms are arrays of counts, where element {@code i} counts
+ * operations which took at most {@code getLatencyHistogramBoundsMillis()[i]}
+ * milliseconds, and last element counts operations which took longer than
+ * largest bound.
+ */
+@ProviderType
+public interface FeatureRuntimeMetricsMXBean {
+
+	String OBJECT_NAME = "com.kentyou.featurelauncher:type=FeatureRuntime";
+
+	long getInstallCount();
+
+	long getUpdateCount();
+
+	long getRemoveCount();
+
+	long getFailedOperationCount();
+
+	long[] getLatencyHistogramBoundsMillis();
+
+	long[] getInstallLatencyHistogram();
+
+	long[] getUpdateLatencyHistogram();
+
+	long[] getRemoveLatencyHistogram();
+
+	/**
+	 * Time spent fetching artifacts, in milliseconds, by repository name
+	 */
+	Map<String, Long> getArtifactFetchTimeMillis();
+
+	/**
+	 * Bytes of artifacts fetched, by repository name
+	 */
+	Map<String, Long> getArtifactFetchBytes();
+
+	long getConfigurationApplyCount();
+
+	long getConfigurationApplyTimeMillis();
+
+	long getBundleStartCount();
+
+	long getBundleStartTimeMillis();
+
+	/**
+	 * Sizes of internal state maintained by the Feature Runtime Service, by name
+	 */
+	Map<String, Integer> getInternalMapSizes();
+
+	/**
+	 * Resources attributed to each installed feature, computed on demand
+	 */
+	List<FeatureFootprint> getFeatureFootprints();
+
+	/**
+	 * Resources attributed to installed feature with given ID, in Maven
+	 * coordinates form, computed on demand
+	 *
+	 * @return footprint of feature, or {@code null} if there is no installed
+	 *         feature with given ID
+	 */
+	FeatureFootprint getFeatureFootprint(String featureId);
+
+	/**
+	 * Resets all counters and histograms
+	 */
+	void reset();
+}
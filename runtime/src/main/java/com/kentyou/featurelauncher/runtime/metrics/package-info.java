@@ -0,0 +1,3 @@
+@org.osgi.annotation.bundle.Export
+@org.osgi.annotation.versioning.Version("1.0.0")
+package com.kentyou.featurelauncher.runtime.metrics;
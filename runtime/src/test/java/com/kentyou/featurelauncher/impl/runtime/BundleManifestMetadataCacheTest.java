@@ -0,0 +1,259 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.Constants;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.impl.runtime.BundleManifestMetadataCache}
+ */
+public class BundleManifestMetadataCacheTest {
+	FeatureService featureService;
+
+	@TempDir
+	Path tempDir;
+
+	Path cacheFile;
+
+	AtomicInteger streamReads;
+
+	@BeforeEach
+	public void setUp() {
+		featureService = ServiceLoaderUtil.loadFeatureService();
+		cacheFile = tempDir.resolve("cache").resolve("bundle-manifests.properties");
+		streamReads = new AtomicInteger();
+	}
+
+	@Test
+	public void testStreamHitAndMiss() throws IOException {
+		ID bundleId = featureService.getIDfromMavenCoordinates("com.example:a:1.0.0");
+		Path jar = createBundle(tempDir.resolve("a.jar"), "com.example.a;singleton:=true", "1.0");
+
+		BundleManifestMetadataCache cache = new BundleManifestMetadataCache(cacheFile);
+		try {
+			assertEquals(Map.entry("com.example.a", "1.0.0"), cache.get(bundleId, id -> null, streamOf(jar)));
+			assertEquals(Map.entry("com.example.a", "1.0.0"), cache.get(bundleId, id -> null, streamOf(jar)));
+			assertEquals(1, streamReads.get());
+			assertEquals(1, cache.size());
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testSnapshotStreamNotCached() throws IOException {
+		ID bundleId = featureService.getIDfromMavenCoordinates("com.example:a:1.0.0-SNAPSHOT");
+		Path jar = createBundle(tempDir.resolve("a.jar"), "com.example.a", "1.0.0.SNAPSHOT");
+
+		BundleManifestMetadataCache cache = new BundleManifestMetadataCache(cacheFile);
+		try {
+			cache.get(bundleId, id -> null, streamOf(jar));
+			cache.get(bundleId, id -> null, streamOf(jar));
+			assertEquals(2, streamReads.get());
+			assertEquals(0, cache.size());
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testPersistedBetweenRuns() throws IOException {
+		ID bundleId = featureService.getIDfromMavenCoordinates("com.example:a:1.0.0");
+		Path jar = createBundle(tempDir.resolve("a.jar"), "com.example.a", "1.0.0");
+
+		BundleManifestMetadataCache cache = new BundleManifestMetadataCache(cacheFile);
+		cache.get(bundleId, id -> jar, streamOf(jar));
+		cache.get(bundleId, id -> jar, streamOf(jar));
+		cache.close();
+
+		cache = new BundleManifestMetadataCache(cacheFile);
+		try {
+			assertEquals(1, cache.size());
+			assertEquals(Map.entry("com.example.a", "1.0.0"), cache.get(bundleId, id -> jar, id -> {
+				throw new AssertionError("Artifact should not be read");
+			}));
+			assertEquals(0, streamReads.get());
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testFlushedBeforeClose() throws IOException {
+		ID bundleId = featureService.getIDfromMavenCoordinates("com.example:a:1.0.0");
+		Path jar = createBundle(tempDir.resolve("a.jar"), "com.example.a", "1.0.0");
+
+		BundleManifestMetadataCache cache = new BundleManifestMetadataCache(cacheFile);
+		try {
+			cache.get(bundleId, id -> jar, streamOf(jar));
+			cache.flush();
+
+			// available to next run even if this one never closes cache
+			assertEquals(1, new BundleManifestMetadataCache(cacheFile).size());
+			try (Stream<Path> cacheFiles = Files.list(cacheFile.getParent())) {
+				assertEquals(0, cacheFiles.filter(p -> p.toString().endsWith(".tmp")).count());
+			}
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testChangedPathReplacesEntry() throws IOException {
+		ID bundleId = featureService.getIDfromMavenCoordinates("com.example:a:1.0.0");
+		Path jar = createBundle(tempDir.resolve("a.jar"), "com.example.a", "1.0.0");
+
+		BundleManifestMetadataCache cache = new BundleManifestMetadataCache(cacheFile);
+		assertEquals(Map.entry("com.example.a", "1.0.0"), cache.get(bundleId, id -> jar, streamOf(jar)));
+
+		createBundle(jar, "com.example.a", "1.0.1");
+		Files.setLastModifiedTime(jar, FileTime.fromMillis(Files.getLastModifiedTime(jar).toMillis() + 5_000L));
+
+		assertEquals(Map.entry("com.example.a", "1.0.1"), cache.get(bundleId, id -> jar, streamOf(jar)));
+		assertEquals(1, cache.size());
+		cache.close();
+
+		cache = new BundleManifestMetadataCache(cacheFile);
+		try {
+			assertEquals(1, cache.size());
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testUnreadableArtifacts() throws IOException {
+		ID bundleId = featureService.getIDfromMavenCoordinates("com.example:a:1.0.0");
+
+		Path plainJar = tempDir.resolve("plain.jar");
+		try (JarOutputStream jarOs = new JarOutputStream(Files.newOutputStream(plainJar), new Manifest())) {
+			// no bundle headers
+		}
+		Path corruptJar = Files.write(tempDir.resolve("corrupt.jar"), new byte[] { 1, 2, 3 });
+
+		BundleManifestMetadataCache cache = new BundleManifestMetadataCache(cacheFile);
+		try {
+			assertNull(cache.get(bundleId, id -> plainJar, streamOf(plainJar)));
+			assertNull(cache.get(bundleId, id -> null, streamOf(plainJar)));
+			assertNull(cache.get(bundleId, id -> null, id -> null));
+			assertNull(cache.get(bundleId, id -> corruptJar, streamOf(corruptJar)));
+			assertNull(cache.get(bundleId, id -> null, id -> new ByteArrayInputStream(new byte[] { 1, 2, 3 })));
+			assertEquals(0, cache.size());
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testPeekDoesNotFetchOrCache() throws IOException {
+		ID bundleId = featureService.getIDfromMavenCoordinates("com.example:a:1.0.0");
+		Path jar = createBundle(tempDir.resolve("a.jar"), "com.example.a", "1.0.0");
+
+		BundleManifestMetadataCache cache = new BundleManifestMetadataCache(cacheFile);
+		try {
+			// read from file system, but not cached
+			assertEquals(Map.entry("com.example.a", "1.0.0"), cache.peek(bundleId, jar));
+			assertEquals(0, cache.size());
+
+			// not known without fetching artifact
+			assertNull(cache.peek(bundleId, null));
+
+			cache.get(bundleId, id -> null, streamOf(jar));
+			assertEquals(Map.entry("com.example.a", "1.0.0"), cache.peek(bundleId, null));
+			assertEquals(1, streamReads.get());
+		} finally {
+			cache.close();
+		}
+	}
+
+	@Test
+	public void testUnusedEntriesEvictedOverCapacity() throws IOException {
+		BundleManifestMetadataCache cache = new BundleManifestMetadataCache(cacheFile, 2);
+		for (int i = 0; i < 3; i++) {
+			ID bundleId = featureService.getIDfromMavenCoordinates("com.example:b" + i + ":1.0.0");
+			Path jar = createBundle(tempDir.resolve("b" + i + ".jar"), "com.example.b" + i, "1.0.0");
+			cache.get(bundleId, id -> null, streamOf(jar));
+		}
+		assertEquals(3, cache.size());
+		cache.close();
+
+		// only entry used in this run is guaranteed to be kept
+		ID usedId = featureService.getIDfromMavenCoordinates("com.example:b1:1.0.0");
+		Path usedJar = tempDir.resolve("b1.jar");
+
+		cache = new BundleManifestMetadataCache(cacheFile, 2);
+		cache.get(usedId, id -> null, streamOf(usedJar));
+		cache.close();
+
+		streamReads.set(0);
+		cache = new BundleManifestMetadataCache(cacheFile, 2);
+		try {
+			assertEquals(2, cache.size());
+			assertEquals(Map.entry("com.example.b1", "1.0.0"), cache.get(usedId, id -> null, streamOf(usedJar)));
+			assertEquals(0, streamReads.get());
+		} finally {
+			cache.close();
+		}
+	}
+
+	private Function<ID, InputStream> streamOf(Path jar) {
+		return id -> {
+			streamReads.incrementAndGet();
+			try {
+				return Files.newInputStream(jar);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+	}
+
+	private static Path createBundle(Path jar, String bundleSymbolicName, String bundleVersion) throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, bundleSymbolicName);
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_VERSION, bundleVersion);
+
+		try (OutputStream os = Files.newOutputStream(jar); JarOutputStream jarOs = new JarOutputStream(os, manifest)) {
+			// manifest only
+		}
+		return jar;
+	}
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import static com.kentyou.featurelauncher.common.util.impl.ConfigurationUtil.CONFIGURATIONS_FILTER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+import org.osgi.service.cm.Configuration;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.service.cm.Configuration.ConfigurationAttribute;
+import org.osgi.service.cm.ConfigurationEvent;
+import org.osgi.service.feature.FeatureConfiguration;
+import org.osgi.service.feature.FeatureService;
+
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+import com.kentyou.featurelauncher.impl.runtime.ConfigurationUpdateResult.Status;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.impl.runtime.FeatureRuntimeConfigurationManager}
+ */
+public class FeatureRuntimeConfigurationManagerTest {
+	ConfigurationAdmin configurationAdmin;
+
+	ServiceReference<ConfigurationAdmin> configurationAdminReference;
+
+	FeatureRuntimeConfigurationManager featureRuntimeConfigurationManager;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		configurationAdmin = mock(ConfigurationAdmin.class);
+		configurationAdminReference = mock(ServiceReference.class);
+
+		featureRuntimeConfigurationManager = new FeatureRuntimeConfigurationManager();
+		featureRuntimeConfigurationManager.configurationAdmin = configurationAdmin;
+	}
+
+	@AfterEach
+	public void tearDown() {
+		featureRuntimeConfigurationManager.deactivate();
+	}
+
+	@Test
+	public void testExistingConfigurationsIndexedOnActivation() throws Exception {
+		Configuration other = mockConfiguration("pid.other", Map.of("a", "b"));
+		Configuration owned = mockConfiguration("pid.owned", Map.of(CONFIGURATIONS_FILTER, Boolean.TRUE));
+		when(configurationAdmin.listConfigurations(isNull())).thenReturn(new Configuration[] { other, owned });
+
+		featureRuntimeConfigurationManager.activate();
+
+		assertTrue(featureRuntimeConfigurationManager.hasConfiguration("pid.other"));
+		assertTrue(featureRuntimeConfigurationManager.hasConfiguration("pid.owned"));
+		assertFalse(featureRuntimeConfigurationManager.hasConfiguration("pid.missing"));
+
+		// only configurations created by feature launcher are reported
+		assertEquals(-1L, featureRuntimeConfigurationManager.getConfigurationSize("pid.other"));
+		assertTrue(featureRuntimeConfigurationManager.getConfigurationSize("pid.owned") > 0);
+	}
+
+	@Test
+	public void testIndexFollowsConfigurationEvents() throws Exception {
+		when(configurationAdmin.listConfigurations(isNull())).thenReturn(null);
+
+		featureRuntimeConfigurationManager.activate();
+		assertFalse(featureRuntimeConfigurationManager.hasConfiguration("pid.a"));
+
+		featureRuntimeConfigurationManager.configurationEvent(
+				new ConfigurationEvent(configurationAdminReference, ConfigurationEvent.CM_UPDATED, null, "pid.a"));
+		assertTrue(featureRuntimeConfigurationManager.hasConfiguration("pid.a"));
+
+		featureRuntimeConfigurationManager.configurationEvent(new ConfigurationEvent(configurationAdminReference,
+				ConfigurationEvent.CM_LOCATION_CHANGED, null, "pid.a"));
+		assertTrue(featureRuntimeConfigurationManager.hasConfiguration("pid.a"));
+
+		featureRuntimeConfigurationManager.configurationEvent(
+				new ConfigurationEvent(configurationAdminReference, ConfigurationEvent.CM_DELETED, null, "pid.a"));
+		assertFalse(featureRuntimeConfigurationManager.hasConfiguration("pid.a"));
+
+		// configurations are never listed again
+		verify(configurationAdmin).listConfigurations(isNull());
+	}
+
+	@Test
+	public void testRemoveConfigurations() throws Exception {
+		Configuration owned = mockConfiguration("pid.owned", Map.of(CONFIGURATIONS_FILTER, Boolean.TRUE));
+		Configuration ownedDeleted = mockConfiguration("pid.deleted", Map.of(CONFIGURATIONS_FILTER, Boolean.TRUE));
+		Configuration other = mockConfiguration("pid.other", Map.of("a", "b"));
+		when(configurationAdmin.listConfigurations(isNull()))
+				.thenReturn(new Configuration[] { owned, ownedDeleted, other });
+
+		featureRuntimeConfigurationManager.activate();
+
+		// marker removed by another management agent in the meantime
+		when(owned.getProperties()).thenReturn(FrameworkUtil.asDictionary(Map.of("a", "b")));
+		doThrow(IllegalStateException.class).when(ownedDeleted).delete();
+
+		featureRuntimeConfigurationManager.removeConfigurations(Set.of("pid.owned", "pid.deleted", "pid.other"));
+
+		verify(owned, never()).delete();
+		verify(ownedDeleted).delete();
+		verify(other, never()).delete();
+		assertEquals(-1L, featureRuntimeConfigurationManager.getConfigurationSize("pid.deleted"));
+	}
+
+	@Test
+	public void testApplyConfigurationsSkipsUnchanged() throws Exception {
+		Configuration configuration = activateWithConfiguration("pid.a");
+
+		assertEquals(Status.APPLIED, apply(configuration("pid.a", Map.of("k", "v", "arr", new String[] { "x" }))));
+
+		// equal content, including array values
+		assertEquals(Status.UNCHANGED, apply(configuration("pid.a", Map.of("k", "v", "arr", new String[] { "x" }))));
+		verify(configuration, times(1)).updateIfDifferent(any());
+
+		assertEquals(Status.APPLIED, apply(configuration("pid.a", Map.of("k", "v", "arr", new String[] { "y" }))));
+		assertEquals(Status.APPLIED, apply(configuration("pid.a", Map.of("k", "v"))));
+		verify(configuration, times(3)).updateIfDifferent(any());
+	}
+
+	@Test
+	public void testApplyConfigurationsDetectsChangesWithEqualHashCodes() throws Exception {
+		Configuration configuration = activateWithConfiguration("pid.a");
+
+		// "Aa" and "BB" have same hash code
+		assertEquals(Status.APPLIED, apply(configuration("pid.a", Map.of("k", "Aa"))));
+		assertEquals(Status.APPLIED, apply(configuration("pid.a", Map.of("k", "BB"))));
+		verify(configuration, times(2)).updateIfDifferent(any());
+	}
+
+	@Test
+	public void testApplyConfigurationsAfterDeletion() throws Exception {
+		Configuration configuration = activateWithConfiguration("pid.a");
+
+		assertEquals(Status.APPLIED, apply(configuration("pid.a", Map.of("k", "v"))));
+
+		featureRuntimeConfigurationManager.configurationEvent(
+				new ConfigurationEvent(configurationAdminReference, ConfigurationEvent.CM_DELETED, null, "pid.a"));
+
+		assertEquals(Status.APPLIED, apply(configuration("pid.a", Map.of("k", "v"))));
+		verify(configuration, times(2)).updateIfDifferent(any());
+	}
+
+	@Test
+	public void testApplyConfigurationsFailuresReportedPerPid() throws Exception {
+		Configuration failing = activateWithConfiguration("pid.failing");
+		doThrow(new IllegalStateException("deleted")).when(failing).updateIfDifferent(any());
+
+		Configuration throwing = mockConfiguration("pid.throwing", Map.of());
+		when(configurationAdmin.getConfiguration(eq("pid.throwing"), any())).thenReturn(throwing);
+		doThrow(new UnsupportedOperationException("unexpected")).when(throwing).updateIfDifferent(any());
+
+		Configuration readOnly = mockConfiguration("pid.readonly", Map.of());
+		when(configurationAdmin.getConfiguration(eq("pid.readonly"), any())).thenReturn(readOnly);
+		when(readOnly.getAttributes()).thenReturn(Set.of(ConfigurationAttribute.READ_ONLY));
+
+		Configuration applied = mockConfiguration("pid.applied", Map.of());
+		when(configurationAdmin.getConfiguration(eq("pid.applied"), any())).thenReturn(applied);
+
+		Map<String, ConfigurationUpdateResult> results = featureRuntimeConfigurationManager.applyConfigurations(
+				List.of(configuration("pid.failing", Map.of("k", "v")), configuration("pid.throwing", Map.of("k", "v")),
+						configuration("pid.readonly", Map.of("k", "v")), configuration("pid.applied", Map.of("k", "v"))),
+				Map.of());
+
+		assertEquals(List.of("pid.failing", "pid.throwing", "pid.readonly", "pid.applied"),
+				List.copyOf(results.keySet()));
+		assertEquals(Status.FAILED, results.get("pid.failing").getStatus());
+		assertEquals(Status.FAILED, results.get("pid.throwing").getStatus());
+		assertEquals(Status.READ_ONLY, results.get("pid.readonly").getStatus());
+		assertEquals(Status.APPLIED, results.get("pid.applied").getStatus());
+
+		verify(readOnly, never()).updateIfDifferent(any());
+		assertFalse(featureRuntimeConfigurationManager.hasConfiguration("pid.failing"));
+		assertTrue(featureRuntimeConfigurationManager.hasConfiguration("pid.applied"));
+	}
+
+	private Configuration activateWithConfiguration(String pid) throws Exception {
+		when(configurationAdmin.listConfigurations(isNull())).thenReturn(null);
+
+		Configuration configuration = mockConfiguration(pid, Map.of());
+		when(configurationAdmin.getConfiguration(eq(pid), any())).thenReturn(configuration);
+
+		featureRuntimeConfigurationManager.activate();
+
+		return configuration;
+	}
+
+	private Status apply(FeatureConfiguration featureConfiguration) {
+		return featureRuntimeConfigurationManager.applyConfigurations(List.of(featureConfiguration), Map.of())
+				.get(featureConfiguration.getPid()).getStatus();
+	}
+
+	private static FeatureConfiguration configuration(String pid, Map<String, Object> values) {
+		FeatureService featureService = ServiceLoaderUtil.loadFeatureService();
+
+		return featureService.getBuilderFactory().newConfigurationBuilder(pid).addValues(values).build();
+	}
+
+	static Configuration mockConfiguration(String pid, Map<String, Object> properties) {
+		Configuration configuration = mock(Configuration.class);
+		when(configuration.getPid()).thenReturn(pid);
+		when(configuration.getProperties()).thenReturn(FrameworkUtil.asDictionary(properties));
+		return configuration;
+	}
+}
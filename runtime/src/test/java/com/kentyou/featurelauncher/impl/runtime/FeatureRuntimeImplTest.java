@@ -0,0 +1,1010 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import static org.osgi.service.featurelauncher.FeatureLauncherConstants.BUNDLE_START_LEVEL_METADATA;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+import org.osgi.framework.launch.FrameworkFactory;
+import org.osgi.service.cm.ConfigurationAdmin;
+import org.osgi.service.feature.BuilderFactory;
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureBuilder;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+import org.osgi.service.featurelauncher.decorator.DecoratorBuilderFactory;
+import org.osgi.service.featurelauncher.decorator.FeatureDecorator;
+import org.osgi.service.featurelauncher.repository.ArtifactRepository;
+import org.osgi.service.featurelauncher.repository.ArtifactRepositoryFactory;
+import org.osgi.service.featurelauncher.runtime.FeatureRuntime.InstallOperationBuilder;
+import org.osgi.service.featurelauncher.runtime.FeatureRuntimeException;
+import org.osgi.service.featurelauncher.runtime.InstalledBundle;
+import org.osgi.service.featurelauncher.runtime.InstalledFeature;
+import org.osgi.service.featurelauncher.runtime.MergeOperationType;
+import org.osgi.service.featurelauncher.runtime.RuntimeBundleMerge;
+import org.osgi.service.featurelauncher.runtime.RuntimeBundleMerge.BundleMapping;
+import org.osgi.service.featurelauncher.runtime.RuntimeConfigurationMerge;
+
+import com.kentyou.featurelauncher.common.decorator.DeterministicDecoration;
+import com.kentyou.featurelauncher.common.decorator.impl.DecorationCache;
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+import com.kentyou.featurelauncher.repository.spi.FileSystemArtifactRepository;
+import com.kentyou.featurelauncher.repository.spi.NamedArtifactRepository;
+import com.kentyou.featurelauncher.runtime.metrics.FeatureFootprint;
+import com.kentyou.featurelauncher.runtime.metrics.FeatureFootprint.BundleFootprint;
+import com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.impl.runtime.FeatureRuntimeImpl}
+ * against an embedded framework, with artifacts served from a temporary
+ * directory.
+ */
+public class FeatureRuntimeImplTest {
+	@TempDir
+	Path tempDir;
+
+	FeatureService featureService;
+
+	Framework framework;
+
+	ConfigurationAdmin configurationAdmin;
+
+	FeatureRuntimeConfigurationManager featureRuntimeConfigurationManager;
+
+	TestArtifactRepository artifactRepository;
+
+	FeatureRuntimeImpl featureRuntime;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		featureService = ServiceLoaderUtil.loadFeatureService();
+
+		RecordingActivator.startingThreads.clear();
+		BlockingActivator.release = new CountDownLatch(1);
+
+		FrameworkFactory frameworkFactory = ServiceLoader.load(FrameworkFactory.class).iterator().next();
+		// test activators are loaded from class path, bundles of start level 2 are started
+		framework = frameworkFactory.newFramework(Map.of(Constants.FRAMEWORK_STORAGE,
+				tempDir.resolve("framework").toString(), Constants.FRAMEWORK_STORAGE_CLEAN,
+				Constants.FRAMEWORK_STORAGE_CLEAN_ONFIRSTINIT, Constants.FRAMEWORK_BEGINNING_STARTLEVEL, "2",
+				Constants.FRAMEWORK_BOOTDELEGATION,
+				FeatureRuntimeImplTest.class.getPackageName(), Constants.FRAMEWORK_BUNDLE_PARENT,
+				Constants.FRAMEWORK_BUNDLE_PARENT_APP));
+		framework.start();
+
+		configurationAdmin = mock(ConfigurationAdmin.class);
+		when(configurationAdmin.listConfigurations(isNull())).thenReturn(null);
+
+		featureRuntimeConfigurationManager = new FeatureRuntimeConfigurationManager();
+		featureRuntimeConfigurationManager.configurationAdmin = configurationAdmin;
+		featureRuntimeConfigurationManager.activate();
+
+		artifactRepository = new TestArtifactRepository(tempDir.resolve("repository"));
+
+		featureRuntime = createFeatureRuntime(Map.of());
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		if (featureRuntime != null) {
+			featureRuntime.deactivate();
+		}
+
+		featureRuntimeConfigurationManager.deactivate();
+
+		framework.stop();
+		framework.waitForStop(10_000L);
+	}
+
+	@Test
+	public void testInstalledFeaturesSnapshots() throws Exception {
+		ID bundleA = createBundle("com.example:a:1.0.0");
+		ID bundleB = createBundle("com.example:b:1.0.0");
+
+		Feature feature1 = feature("com.example:feature-1:1.0.0", bundleA);
+		Feature feature2 = feature("com.example:feature-2:1.0.0", bundleA, bundleB);
+
+		install(feature1);
+
+		List<InstalledFeature> snapshot1 = featureRuntime.getInstalledFeatures();
+		assertEquals(1, snapshot1.size());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot1.remove(0));
+
+		// unchanged until next operation
+		assertSame(snapshot1, featureRuntime.getInstalledFeatures());
+
+		install(feature2);
+
+		List<InstalledFeature> snapshot2 = featureRuntime.getInstalledFeatures();
+		assertNotSame(snapshot1, snapshot2);
+		assertEquals(2, snapshot2.size());
+
+		// earlier snapshot still reflects state at time it was published
+		assertEquals(1, snapshot1.size());
+		assertEquals(List.of(feature1.getID()), getInstalledBundle(snapshot1.get(0), bundleA).getOwningFeatures());
+		assertEquals(List.of(feature1.getID(), feature2.getID()),
+				getInstalledBundle(snapshot2.get(0), bundleA).getOwningFeatures());
+
+		Bundle bundleBInFramework = getInstalledBundle(snapshot2.get(1), bundleB).getBundle();
+
+		featureRuntime.remove(feature2.getID());
+
+		List<InstalledFeature> snapshot3 = featureRuntime.getInstalledFeatures();
+		assertEquals(1, snapshot3.size());
+		assertEquals(List.of(feature1.getID()), getInstalledBundle(snapshot3.get(0), bundleA).getOwningFeatures());
+		assertEquals(2, snapshot2.size());
+
+		// bundle no longer owned by any feature is uninstalled, shared one is kept
+		assertEquals(Bundle.UNINSTALLED, bundleBInFramework.getState());
+		assertEquals(Bundle.ACTIVE, getInstalledBundle(snapshot3.get(0), bundleA).getBundle().getState());
+	}
+
+	@Test
+	public void testConfigurationOwnedByOtherFeatureNotReapplied() throws Exception {
+		featureRuntime.deactivate();
+
+		featureRuntimeConfigurationManager = spy(featureRuntimeConfigurationManager);
+		doReturn(Map.of()).when(featureRuntimeConfigurationManager).applyConfigurations(any(), any());
+
+		featureRuntime = createFeatureRuntime(Map.of());
+
+		Feature feature1 = featureWithConfiguration("com.example:feature-1:1.0.0", "com.example.pid", "1");
+		Feature feature2 = featureWithConfiguration("com.example:feature-2:1.0.0", "com.example.pid", "2");
+
+		install(feature1);
+
+		verify(featureRuntimeConfigurationManager).applyConfigurations(
+				eq(List.of(feature1.getConfigurations().get("com.example.pid"))), any());
+
+		doReturn(true).when(featureRuntimeConfigurationManager).hasConfiguration("com.example.pid");
+
+		InstalledFeature installedFeature2 = install(feature2);
+
+		// configuration of first feature is kept, second one is only recorded as owner
+		verify(featureRuntimeConfigurationManager, times(1)).applyConfigurations(any(), any());
+		assertEquals(List.of(feature2.getID(), feature1.getID()),
+				installedFeature2.getInstalledConfigurations().get(0).getOwningFeatures());
+	}
+
+	@Test
+	public void testConfigurationMergeApplied() throws Exception {
+		featureRuntime.deactivate();
+
+		featureRuntimeConfigurationManager = spy(featureRuntimeConfigurationManager);
+		doReturn(Map.of()).when(featureRuntimeConfigurationManager).applyConfigurations(any(), any());
+
+		featureRuntime = createFeatureRuntime(Map.of());
+
+		Feature feature1 = featureWithConfiguration("com.example:feature-1:1.0.0", "com.example.pid", "1");
+		Feature feature2 = featureWithConfiguration("com.example:feature-2:1.0.0", "com.example.pid", "2");
+
+		install(feature1);
+
+		doReturn(true).when(featureRuntimeConfigurationManager).hasConfiguration("com.example.pid");
+
+		RuntimeConfigurationMerge configurationMerge = mock(RuntimeConfigurationMerge.class);
+		when(configurationMerge.mergeConfiguration(any(), any(), any(), any(), any()))
+				.thenReturn(Map.of("value", "merged"));
+
+		featureRuntime.install(feature2).useDefaultRepositories(false).addRepository("test", artifactRepository)
+				.withConfigurationMerge(configurationMerge).install();
+
+		verify(configurationMerge).mergeConfiguration(eq(MergeOperationType.INSTALL), eq(feature2),
+				eq(feature2.getConfigurations().get("com.example.pid")), any(),
+				argThat(definitions -> (definitions.size() == 1)
+						&& feature1.equals(definitions.get(0).getFeature())));
+		verify(featureRuntimeConfigurationManager).applyConfigurations(
+				argThat(configurations -> (configurations.size() == 1)
+						&& Map.of("value", "merged").equals(configurations.get(0).getValues())),
+				any());
+	}
+
+	@Test
+	public void testBundleMergedIntoInstalledBundle() throws Exception {
+		ID bundleA1 = createBundle("com.example:a:1.0.0");
+		ID bundleA2 = createBundle("com.example:a:1.1.0");
+
+		Feature feature1 = feature("com.example:feature-1:1.0.0", bundleA1);
+		Feature feature2 = feature("com.example:feature-2:1.0.0", bundleA2);
+
+		Bundle bundle = getInstalledBundle(install(feature1), bundleA1).getBundle();
+
+		BundleMapping bundleMapping = mock(BundleMapping.class);
+		when(bundleMapping.getBundleId()).thenReturn(bundleA1);
+		when(bundleMapping.getAliases()).thenReturn(List.of(bundleA2));
+
+		RuntimeBundleMerge bundleMerge = mock(RuntimeBundleMerge.class);
+		when(bundleMerge.mergeBundle(any(), any(), any(), any(), any())).thenAnswer(i -> Stream.of(bundleMapping));
+
+		InstalledFeature installedFeature2 = featureRuntime.install(feature2).useDefaultRepositories(false)
+				.addRepository("test", artifactRepository).withBundleMerge(bundleMerge).install();
+
+		verify(bundleMerge).mergeBundle(eq(MergeOperationType.INSTALL), eq(feature2),
+				eq(feature2.getBundles().get(0)),
+				argThat(installedBundles -> (installedBundles.size() == 1)
+						&& bundleA1.equals(installedBundles.iterator().next().getBundleId())),
+				argThat(definitions -> (definitions.size() == 1)
+						&& feature1.equals(definitions.get(0).getFeature())));
+
+		// merged bundle is not installed, feature shares installed one
+		InstalledBundle mergedBundle = getInstalledBundle(installedFeature2, bundleA1);
+		assertSame(bundle, mergedBundle.getBundle());
+		assertEquals(List.of(bundleA2), mergedBundle.getAliases());
+		assertEquals(List.of(feature2.getID(), feature1.getID()), mergedBundle.getOwningFeatures());
+		assertEquals(0, artifactRepository.getArtifactLookups(bundleA2));
+
+		// kept while any feature merged into it is installed
+		featureRuntime.remove(feature1.getID());
+		assertEquals(Bundle.ACTIVE, bundle.getState());
+
+		featureRuntime.remove(feature2.getID());
+		assertEquals(Bundle.UNINSTALLED, bundle.getState());
+	}
+
+	@Test
+	public void testPlanDoesNotFetchArtifacts() throws Exception {
+		featureRuntime.deactivate();
+		featureRuntime = createFeatureRuntime(Map.of("missing_artifact_cache_ttl_ms", Long.valueOf(60_000L)));
+
+		TestArtifactRepository remoteRepository = new TestArtifactRepository(tempDir.resolve("remote"));
+		StreamArtifactRepository streamRepository = new StreamArtifactRepository(remoteRepository);
+
+		ID bundleLocal = createBundle("com.example:local:1.0.0");
+		ID bundleRemote = id("com.example:remote:1.0.0");
+		ID bundleMissing = id("com.example:missing:1.0.0");
+		ID bundleAliased = createBundle("com.example:aliased:1.0.0");
+
+		createBundle(remoteRepository, bundleRemote, "com.example.remote", "1.0.0");
+
+		// same symbolic name and version installed by another management agent
+		Bundle externalBundle;
+		try (InputStream bundleIs = Files.newInputStream(artifactRepository.resolve(bundleAliased))) {
+			externalBundle = framework.getBundleContext().installBundle("external", bundleIs);
+		}
+
+		Feature feature = feature("com.example:feature-1:1.0.0", bundleLocal, bundleRemote, bundleMissing,
+				bundleAliased);
+
+		InstallPlan installPlan = ((FeatureRuntimeImpl.PlanOperationBuilder) featureRuntime.install(feature)
+				.useDefaultRepositories(false).addRepository("local", artifactRepository)
+				.addRepository("remote", streamRepository)).plan();
+
+		assertEquals(List.of(bundleLocal, bundleRemote, bundleMissing), installPlan.getBundlesToInstall());
+		assertEquals(List.of(bundleRemote, bundleMissing), installPlan.getArtifactsToDownload());
+		assertEquals(List.of(), installPlan.getMissingArtifacts());
+		assertEquals(Map.of(bundleAliased, Long.valueOf(externalBundle.getBundleId())),
+				installPlan.getBundlesAliased());
+		assertFalse(installPlan.isUpdate());
+
+		for (ID bundleId : List.of(bundleLocal, bundleRemote, bundleMissing, bundleAliased)) {
+			assertEquals(0, artifactRepository.getArtifactLookups(bundleId));
+			assertEquals(0, artifactRepository.getArtifactPathLookups(bundleId));
+			assertEquals(0, remoteRepository.getArtifactLookups(bundleId));
+		}
+
+		// nothing installed
+		assertTrue(featureRuntime.getInstalledFeatures().isEmpty());
+		assertEquals(2, framework.getBundleContext().getBundles().length);
+
+		// known misses are reported once recorded by an operation
+		featureRuntime.install(feature).useDefaultRepositories(false).addRepository("local", artifactRepository)
+				.addRepository("remote", streamRepository).install();
+
+		Feature otherFeature = feature("com.example:feature-2:1.0.0", bundleLocal, bundleMissing);
+		installPlan = ((FeatureRuntimeImpl.PlanOperationBuilder) featureRuntime.install(otherFeature)
+				.useDefaultRepositories(false).addRepository("local", artifactRepository)
+				.addRepository("remote", streamRepository)).plan();
+
+		assertEquals(List.of(bundleLocal), installPlan.getBundlesAlreadyInstalled());
+		assertEquals(List.of(bundleMissing), installPlan.getMissingArtifacts());
+		assertEquals(List.of(), installPlan.getBundlesToInstall());
+	}
+
+	@Test
+	public void testMissingArtifactsNotRememberedByDefault() throws Exception {
+		ID bundleLocal = createBundle("com.example:local:1.0.0");
+		ID bundleMissing = id("com.example:missing:1.0.0");
+
+		Feature feature = feature("com.example:feature-1:1.0.0", bundleLocal, bundleMissing);
+
+		featureRuntime.install(feature).useDefaultRepositories(false).addRepository("local", artifactRepository)
+				.install();
+
+		int artifactLookups = artifactRepository.getArtifactLookups(bundleMissing)
+				+ artifactRepository.getArtifactPathLookups(bundleMissing);
+		assertTrue(artifactLookups > 0);
+
+		Feature otherFeature = feature("com.example:feature-2:1.0.0", bundleLocal, bundleMissing);
+		InstallPlan installPlan = ((FeatureRuntimeImpl.PlanOperationBuilder) featureRuntime.install(otherFeature)
+				.useDefaultRepositories(false).addRepository("local", artifactRepository)).plan();
+
+		// known missing from file system of repository, although misses are not remembered
+		assertEquals(List.of(bundleMissing), installPlan.getMissingArtifacts());
+		assertEquals(List.of(), installPlan.getArtifactsToDownload());
+
+		// missing artifact may have been deployed since, so it is looked up again
+		featureRuntime.install(otherFeature).useDefaultRepositories(false).addRepository("local", artifactRepository)
+				.install();
+
+		assertTrue(artifactRepository.getArtifactLookups(bundleMissing)
+				+ artifactRepository.getArtifactPathLookups(bundleMissing) > artifactLookups);
+	}
+
+	@Test
+	public void testPlanDoesNotChangeCaches() throws Exception {
+		featureRuntime.deactivate();
+		featureRuntime = createFeatureRuntime(Map.of("decoration_cache_size", Integer.valueOf(8)));
+
+		ID bundleId = createBundle("com.example:a:1.0.0");
+
+		AtomicInteger decorations = new AtomicInteger();
+		FeatureDecorator decorator = new DeterministicDecorator(decorations);
+
+		DecorationCache decorationCache = getField(featureRuntime, "decorationCache");
+		BundleManifestMetadataCache bundleManifestMetadataCache = getField(featureRuntime,
+				"bundleManifestMetadataCache");
+
+		for (int i = 0; i < 3; i++) {
+			((FeatureRuntimeImpl.PlanOperationBuilder) featureRuntime
+					.install(feature("com.example:feature-1:1.0.0", bundleId)).useDefaultRepositories(false)
+					.addRepository("test", artifactRepository).withDecorator(decorator)).plan();
+		}
+
+		// neither read nor filled
+		assertEquals(3, decorations.get());
+		assertEquals(0, decorationCache.size());
+		assertEquals(0, bundleManifestMetadataCache.size());
+
+		// single executor shared by all plans
+		long plannerThreads = Thread.getAllStackTraces().keySet().stream()
+				.filter(t -> "FeatureRuntime-Planner".equals(t.getName())).count();
+		assertTrue(plannerThreads <= 4, "Too many planner threads: " + plannerThreads);
+
+		// decoration cache is used by operations
+		featureRuntime.install(feature("com.example:feature-1:1.0.0", bundleId)).useDefaultRepositories(false)
+				.addRepository("test", artifactRepository).withDecorator(decorator).install();
+		assertEquals(1, decorationCache.size());
+
+		featureRuntime.deactivate();
+		featureRuntime = null;
+
+		assertFalse(Files.exists(framework.getBundleContext().getDataFile("bundle-manifest-metadata.properties")
+				.toPath()));
+	}
+
+	@Test
+	public void testPlanReportsMergesOnlyWithMergeHandlers() throws Exception {
+		ID bundleA1 = createBundle("com.example:a:1.0.0");
+		ID bundleA2 = createBundle("com.example:a:1.1.0");
+
+		install(featureWithConfiguration("com.example:feature-1:1.0.0", "com.example.pid", "1"));
+		install(feature("com.example:feature-2:1.0.0", bundleA1));
+
+		FeatureBuilder featureBuilder = featureService.getBuilderFactory()
+				.newFeatureBuilder(id("com.example:feature-3:1.0.0"));
+		featureBuilder.addBundles(featureService.getBuilderFactory().newBundleBuilder(bundleA2).build());
+		featureBuilder.addConfigurations(
+				featureService.getBuilderFactory().newConfigurationBuilder("com.example.pid").build());
+		Feature feature = featureBuilder.build();
+
+		InstallPlan installPlan = ((FeatureRuntimeImpl.PlanOperationBuilder) featureRuntime.install(feature)
+				.useDefaultRepositories(false).addRepository("test", artifactRepository)).plan();
+
+		// conflicts are left as they are without merge handlers
+		assertEquals(List.of(), installPlan.getBundleMerges());
+		assertEquals(List.of(), installPlan.getConfigurationMerges());
+
+		installPlan = ((FeatureRuntimeImpl.PlanOperationBuilder) featureRuntime.install(feature)
+				.useDefaultRepositories(false).addRepository("test", artifactRepository)
+				.withBundleMerge(mock(RuntimeBundleMerge.class))
+				.withConfigurationMerge(mock(RuntimeConfigurationMerge.class))).plan();
+
+		assertEquals(List.of(bundleA2), installPlan.getBundleMerges());
+		assertEquals(List.of("com.example.pid"), installPlan.getConfigurationMerges());
+	}
+
+	@Test
+	public void testBundlesStartedSequentiallyByDefault() throws Exception {
+		ID bundleA = createBundle(id("com.example:a:1.0.0"), "com.example.a", "1.0.0",
+				Map.of(Constants.BUNDLE_ACTIVATOR, RecordingActivator.class.getName()));
+		ID bundleFailing = createBundle(id("com.example:failing:1.0.0"), "com.example.failing", "1.0.0",
+				Map.of(Constants.BUNDLE_ACTIVATOR, "com.example.DoesNotExist"));
+		ID bundleB = createBundle(id("com.example:b:1.0.0"), "com.example.b", "1.0.0",
+				Map.of(Constants.BUNDLE_ACTIVATOR, RecordingActivator.class.getName()));
+
+		InstalledFeature installedFeature = install(feature("com.example:feature-1:1.0.0", bundleA, bundleFailing,
+				bundleB));
+
+		// failure to start a bundle does not prevent others from starting
+		assertEquals(Bundle.ACTIVE, getInstalledBundle(installedFeature, bundleA).getBundle().getState());
+		assertEquals(Bundle.RESOLVED, getInstalledBundle(installedFeature, bundleFailing).getBundle().getState());
+		assertEquals(Bundle.ACTIVE, getInstalledBundle(installedFeature, bundleB).getBundle().getState());
+
+		assertEquals(List.of(Thread.currentThread(), Thread.currentThread()), RecordingActivator.startingThreads);
+	}
+
+	@Test
+	public void testBundlesStartedConcurrentlyOnSharedExecutor() throws Exception {
+		featureRuntime.deactivate();
+		featureRuntime = createFeatureRuntime(Map.of("bundle_start_parallelism", Integer.valueOf(2)));
+
+		List<ID> bundleIds = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			bundleIds.add(createBundle(id("com.example:b" + i + ":1.0.0"), "com.example.b" + i, "1.0.0",
+					Map.of(Constants.BUNDLE_ACTIVATOR, RecordingActivator.class.getName())));
+		}
+		ID bundleFailing = createBundle(id("com.example:failing:1.0.0"), "com.example.failing", "1.0.0",
+				Map.of(Constants.BUNDLE_ACTIVATOR, "com.example.DoesNotExist"));
+
+		InstalledFeature installedFeature1 = install(
+				feature("com.example:feature-1:1.0.0", bundleIds.get(0), bundleIds.get(1), bundleIds.get(2)));
+		InstalledFeature installedFeature2 = install(feature("com.example:feature-2:1.0.0", bundleIds.get(3),
+				bundleIds.get(4), bundleFailing, bundleIds.get(5)));
+
+		for (InstalledFeature installedFeature : List.of(installedFeature1, installedFeature2)) {
+			for (InstalledBundle installedBundle : installedFeature.getInstalledBundles()) {
+				assertEquals(installedBundle.getBundleId().equals(bundleFailing) ? Bundle.RESOLVED : Bundle.ACTIVE,
+						installedBundle.getBundle().getState());
+			}
+		}
+
+		// same threads used by all operations
+		assertEquals(6, RecordingActivator.startingThreads.size());
+		Set<Thread> startingThreads = Set.copyOf(RecordingActivator.startingThreads);
+		assertTrue(startingThreads.size() <= 2, "Too many bundle start threads: " + startingThreads);
+		for (Thread startingThread : startingThreads) {
+			assertEquals("FeatureRuntime-BundleStarter", startingThread.getName());
+		}
+	}
+
+	@Test
+	public void testBundleStartTimeout() throws Exception {
+		featureRuntime.deactivate();
+		featureRuntime = createFeatureRuntime(Map.of("bundle_start_parallelism", Integer.valueOf(2),
+				"bundle_start_timeout_ms", Long.valueOf(100L)));
+
+		ID bundleBlocking = createBundle(id("com.example:blocking:1.0.0"), "com.example.blocking", "1.0.0",
+				Map.of(Constants.BUNDLE_ACTIVATOR, BlockingActivator.class.getName()));
+		ID bundleA = createBundle(id("com.example:a:1.0.0"), "com.example.a", "1.0.0",
+				Map.of(Constants.BUNDLE_ACTIVATOR, RecordingActivator.class.getName()));
+
+		BuilderFactory builderFactory = featureService.getBuilderFactory();
+		Feature feature = builderFactory.newFeatureBuilder(id("com.example:feature-1:1.0.0"))
+				.addBundles(builderFactory.newBundleBuilder(bundleBlocking).build(), builderFactory
+						.newBundleBuilder(bundleA).addMetadata(BUNDLE_START_LEVEL_METADATA, Integer.valueOf(2)).build())
+				.build();
+
+		try {
+			InstalledFeature installedFeature = install(feature);
+
+			// next bundles are started once timeout elapsed
+			Bundle blocking = getInstalledBundle(installedFeature, bundleBlocking).getBundle();
+			assertEquals(Bundle.STARTING, blocking.getState());
+			assertEquals(1, RecordingActivator.startingThreads.size());
+
+			BlockingActivator.release.countDown();
+
+			long deadline = System.currentTimeMillis() + 10_000L;
+			while ((blocking.getState() != Bundle.ACTIVE) && (System.currentTimeMillis() < deadline)) {
+				Thread.sleep(10L);
+			}
+			assertEquals(Bundle.ACTIVE, blocking.getState());
+		} finally {
+			BlockingActivator.release.countDown();
+		}
+	}
+
+	@Test
+	public void testFeatureFootprints() throws Exception {
+		ID bundleA = createBundle(artifactRepository, id("com.example:a:1.0.0"), "com.example.a", "1.0.0", Map.of(),
+				"a/A.class", "a/B.class", "a/c.properties");
+		ID bundleB = createBundle("com.example:b:1.0.0");
+
+		Feature feature1 = feature("com.example:feature-1:1.0.0", bundleA);
+		Feature feature2 = feature("com.example:feature-2:1.0.0", bundleA, bundleB);
+		install(feature1);
+		install(feature2);
+
+		long bundleASize = Files.size(artifactRepository.resolve(bundleA));
+
+		FeatureFootprint footprint = featureRuntime.getFeatureFootprint(feature2.getID());
+		assertEquals(feature2.getID().toString(), footprint.getFeatureId());
+		assertEquals(2, footprint.getBundles().size());
+
+		BundleFootprint bundleAFootprint = footprint.getBundles().get(0);
+		assertEquals(bundleA.toString(), bundleAFootprint.getBundleId());
+		assertEquals("com.example.a", bundleAFootprint.getSymbolicName());
+		assertEquals(bundleASize, bundleAFootprint.getJarBytes());
+		assertEquals(2, bundleAFootprint.getClassResourceCount());
+		assertEquals(2, bundleAFootprint.getOwningFeatureCount());
+		assertEquals(0, footprint.getBundles().get(1).getClassResourceCount());
+		assertEquals(2L, footprint.getTotalClassResourceCount());
+
+		assertNull(featureRuntime.getFeatureFootprint(id("com.example:feature-3:1.0.0")));
+
+		// counts are cached until bundle is updated
+		Bundle bundle = getInstalledBundle(featureRuntime.getInstalledFeatures().get(0), bundleA).getBundle();
+		createBundle(artifactRepository, bundleA, "com.example.a", "1.0.0", Map.of(), "a/A.class");
+		Thread.sleep(5L);
+		try (InputStream bundleIs = Files.newInputStream(artifactRepository.resolve(bundleA))) {
+			bundle.update(bundleIs);
+		}
+		assertEquals(1L, featureRuntime.getFeatureFootprint(feature1.getID()).getTotalClassResourceCount());
+	}
+
+	@Test
+	public void testFeatureFootprintsExposedByMetrics() throws Exception {
+		ID bundleA = createBundle(artifactRepository, id("com.example:a:1.0.0"), "com.example.a", "1.0.0", Map.of(),
+				"a/A.class");
+		Feature feature = feature("com.example:feature-1:1.0.0", bundleA);
+		install(feature);
+
+		FeatureRuntimeMetricsMXBean metricsService = framework.getBundleContext()
+				.getService(framework.getBundleContext().getServiceReference(FeatureRuntimeMetricsMXBean.class));
+		assertEquals(1, metricsService.getFeatureFootprints().size());
+		assertEquals(1L, metricsService.getFeatureFootprint(feature.getID().toString()).getTotalClassResourceCount());
+		assertNull(metricsService.getFeatureFootprint("com.example:feature-2:1.0.0"));
+
+		// open types mapped back by JMX clients
+		FeatureRuntimeMetricsMXBean proxy = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+				new ObjectName(FeatureRuntimeMetricsMXBean.OBJECT_NAME), FeatureRuntimeMetricsMXBean.class);
+		List<FeatureFootprint> footprints = proxy.getFeatureFootprints();
+		assertEquals(1, footprints.size());
+		assertEquals(feature.getID().toString(), footprints.get(0).getFeatureId());
+		assertEquals(bundleA.toString(), footprints.get(0).getBundles().get(0).getBundleId());
+		assertEquals(1, footprints.get(0).getBundles().get(0).getClassResourceCount());
+	}
+
+	@Test
+	public void testDefaultRepositoriesCreatedOnFirstUse() throws Exception {
+		featureRuntime.deactivate();
+
+		ArtifactRepositoryFactory artifactRepositoryFactory = mock(ArtifactRepositoryFactory.class);
+		NamedArtifactRepository localRepository = namedRepository("local", true);
+		NamedArtifactRepository remoteRepository1 = namedRepository("remote-1", true);
+		NamedArtifactRepository remoteRepository2 = namedRepository("remote-2", false);
+		when(artifactRepositoryFactory.createRepository(tempDir)).thenReturn(localRepository);
+		when(artifactRepositoryFactory.createRepository(eq(URI.create("https://repo-1.example.com/")), any()))
+				.thenReturn(remoteRepository1);
+		when(artifactRepositoryFactory.createRepository(eq(URI.create("https://repo-2.example.com/")), any()))
+				.thenReturn(remoteRepository2);
+
+		featureRuntime = createFeatureRuntime(Map.of("local_repositories_enabled", Boolean.TRUE,
+				"local_repositories", new String[] { tempDir.toString() }, "remote_repositories_enabled",
+				Boolean.TRUE, "remote_repositories",
+				new String[] { "https://repo-1.example.com/,a=b", "https://repo-2.example.com/" }),
+				artifactRepositoryFactory);
+
+		// nothing created on activation
+		verifyNoInteractions(artifactRepositoryFactory);
+
+		Map<String, ArtifactRepository> defaultRepositories = featureRuntime.getDefaultRepositories();
+		assertEquals(Map.of("local", localRepository, "remote-1", remoteRepository1, "remote-2", remoteRepository2),
+				defaultRepositories);
+		assertSame(defaultRepositories, featureRuntime.getDefaultRepositories());
+
+		verify(artifactRepositoryFactory).createRepository(tempDir);
+		verify(artifactRepositoryFactory).createRepository(URI.create("https://repo-1.example.com/"), Map.of("a", "b"));
+		verify(artifactRepositoryFactory).createRepository(URI.create("https://repo-2.example.com/"), Map.of());
+
+		// closeable repositories are closed on deactivation
+		featureRuntime.deactivate();
+		featureRuntime = null;
+		verify((AutoCloseable) localRepository).close();
+		verify((AutoCloseable) remoteRepository1).close();
+	}
+
+	@Test
+	public void testDefaultRepositoriesCreationFailure() throws Exception {
+		featureRuntime.deactivate();
+
+		ArtifactRepositoryFactory artifactRepositoryFactory = mock(ArtifactRepositoryFactory.class);
+		IllegalArgumentException failure = new IllegalArgumentException("unreachable");
+		when(artifactRepositoryFactory.createRepository(any(URI.class), any())).thenThrow(failure);
+
+		featureRuntime = createFeatureRuntime(Map.of("remote_repositories_enabled", Boolean.TRUE),
+				artifactRepositoryFactory);
+
+		FeatureRuntimeException e = assertThrows(FeatureRuntimeException.class,
+				() -> featureRuntime.getDefaultRepositories());
+		assertSame(failure, e.getCause());
+
+		// failure is not cached
+		NamedArtifactRepository remoteRepository = namedRepository("remote", false);
+		doReturn(remoteRepository).when(artifactRepositoryFactory).createRepository(any(URI.class), any());
+		assertEquals(Map.of("remote", remoteRepository), featureRuntime.getDefaultRepositories());
+	}
+
+	@Test
+	public void testReadFeatureBundlesPrefetchedFromSelectedRepositories() throws Exception {
+		featureRuntime.deactivate();
+
+		ArtifactRepositoryFactory artifactRepositoryFactory = mock(ArtifactRepositoryFactory.class);
+		featureRuntime = createFeatureRuntime(Map.of("local_repositories_enabled", Boolean.TRUE,
+				"local_repositories", new String[] { tempDir.toString() }), artifactRepositoryFactory);
+
+		ID bundleA = createBundle("com.example:a:1.0.0");
+		ID bundleB = createBundle("com.example:b:1.0.0");
+
+		StringWriter featureJSON = new StringWriter();
+		featureService.writeFeature(feature("com.example:feature-1:1.0.0", bundleA, bundleB), featureJSON);
+
+		InstallOperationBuilder installOperationBuilder = featureRuntime
+				.install(new StringReader(featureJSON.toString()));
+
+		// bundles are only queued while feature is read
+		assertEquals(0, artifactRepository.getArtifactPathLookups(bundleA));
+		assertEquals(0, artifactRepository.getArtifactPathLookups(bundleB));
+
+		InstalledFeature installedFeature = installOperationBuilder.useDefaultRepositories(false)
+				.addRepository("test", artifactRepository).install();
+
+		assertEquals(2, installedFeature.getInstalledBundles().size());
+		assertTrue(artifactRepository.getArtifactPathLookups(bundleA) > 0);
+		assertTrue(artifactRepository.getArtifactPathLookups(bundleB) > 0);
+
+		// default repositories were not selected, so they are neither created nor used
+		verifyNoInteractions(artifactRepositoryFactory);
+	}
+
+	@Test
+	public void testReadFeatureBundlesNotPrefetchedIfInstalled() throws Exception {
+		ID bundleA = createBundle("com.example:a:1.0.0");
+		ID bundleB = createBundle("com.example:b:1.0.0");
+
+		Feature feature = feature("com.example:feature-1:1.0.0", bundleA);
+		install(feature);
+		int bundleALookups = artifactRepository.getArtifactPathLookups(bundleA);
+
+		// up to date feature fetches nothing
+		StringWriter featureJSON = new StringWriter();
+		featureService.writeFeature(feature, featureJSON);
+		featureRuntime.install(new StringReader(featureJSON.toString())).useDefaultRepositories(false)
+				.addRepository("test", artifactRepository).install();
+		assertEquals(bundleALookups, artifactRepository.getArtifactPathLookups(bundleA));
+
+		// bundles already installed by feature runtime are not fetched again
+		featureJSON = new StringWriter();
+		featureService.writeFeature(feature("com.example:feature-2:1.0.0", bundleA, bundleB), featureJSON);
+		InstalledFeature installedFeature = featureRuntime.install(new StringReader(featureJSON.toString()))
+				.useDefaultRepositories(false).addRepository("test", artifactRepository).install();
+		assertEquals(2, installedFeature.getInstalledBundles().size());
+		assertEquals(bundleALookups, artifactRepository.getArtifactPathLookups(bundleA));
+		assertTrue(artifactRepository.getArtifactPathLookups(bundleB) > 0);
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> T getField(FeatureRuntimeImpl featureRuntime, String name) throws Exception {
+		Field field = FeatureRuntimeImpl.class.getDeclaredField(name);
+		field.setAccessible(true);
+		return (T) field.get(featureRuntime);
+	}
+
+	FeatureRuntimeImpl createFeatureRuntime(Map<String, Object> config) throws Exception {
+		return createFeatureRuntime(config, mock(ArtifactRepositoryFactory.class));
+	}
+
+	FeatureRuntimeImpl createFeatureRuntime(Map<String, Object> config,
+			ArtifactRepositoryFactory artifactRepositoryFactory) throws Exception {
+		FeatureRuntimeImpl featureRuntime = new FeatureRuntimeImpl(framework.getBundleContext(), config(config),
+				artifactRepositoryFactory, featureRuntimeConfigurationManager);
+
+		Method setFeatureService = FeatureRuntimeImpl.class.getDeclaredMethod("setFeatureService",
+				FeatureService.class);
+		setFeatureService.setAccessible(true);
+		setFeatureService.invoke(featureRuntime, featureService);
+
+		return featureRuntime;
+	}
+
+	static NamedArtifactRepository namedRepository(String name, boolean closeable) {
+		NamedArtifactRepository repository = closeable
+				? mock(NamedArtifactRepository.class, withSettings().extraInterfaces(AutoCloseable.class))
+				: mock(NamedArtifactRepository.class);
+		when(repository.getName()).thenReturn(name);
+		return repository;
+	}
+
+	InstalledFeature install(Feature feature) {
+		return featureRuntime.install(feature).useDefaultRepositories(false).addRepository("test", artifactRepository)
+				.install();
+	}
+
+	Feature featureWithConfiguration(String featureId, String configurationPid, String value) {
+		BuilderFactory builderFactory = featureService.getBuilderFactory();
+
+		return builderFactory.newFeatureBuilder(id(featureId))
+				.addConfigurations(
+						builderFactory.newConfigurationBuilder(configurationPid).addValue("value", value).build())
+				.build();
+	}
+
+	Feature feature(String featureId, ID... bundleIds) {
+		BuilderFactory builderFactory = featureService.getBuilderFactory();
+
+		FeatureBuilder featureBuilder = builderFactory.newFeatureBuilder(id(featureId));
+		for (ID bundleId : bundleIds) {
+			featureBuilder.addBundles(builderFactory.newBundleBuilder(bundleId).build());
+		}
+		return featureBuilder.build();
+	}
+
+	ID id(String mavenCoordinates) {
+		return featureService.getIDfromMavenCoordinates(mavenCoordinates);
+	}
+
+	/*
+	 * Creates bundle in test repository, with symbolic name composed of group ID
+	 * and artifact ID
+	 */
+	ID createBundle(String mavenCoordinates) throws IOException {
+		ID bundleId = id(mavenCoordinates);
+		return createBundle(bundleId, bundleId.getGroupId() + "." + bundleId.getArtifactId(),
+				bundleId.getVersion());
+	}
+
+	ID createBundle(ID bundleId, String bundleSymbolicName, String bundleVersion) throws IOException {
+		return createBundle(artifactRepository, bundleId, bundleSymbolicName, bundleVersion);
+	}
+
+	ID createBundle(ID bundleId, String bundleSymbolicName, String bundleVersion, Map<String, String> headers)
+			throws IOException {
+		return createBundle(artifactRepository, bundleId, bundleSymbolicName, bundleVersion, headers);
+	}
+
+	static ID createBundle(TestArtifactRepository repository, ID bundleId, String bundleSymbolicName,
+			String bundleVersion) throws IOException {
+		return createBundle(repository, bundleId, bundleSymbolicName, bundleVersion, Map.of());
+	}
+
+	static ID createBundle(TestArtifactRepository repository, ID bundleId, String bundleSymbolicName,
+			String bundleVersion, Map<String, String> headers, String... entries) throws IOException {
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, bundleSymbolicName);
+		manifest.getMainAttributes().putValue(Constants.BUNDLE_VERSION, bundleVersion);
+		headers.forEach((k, v) -> manifest.getMainAttributes().putValue(k, v));
+
+		Path artifactPath = repository.resolve(bundleId);
+		Files.createDirectories(artifactPath.getParent());
+		try (OutputStream os = Files.newOutputStream(artifactPath);
+				JarOutputStream jarOs = new JarOutputStream(os, manifest)) {
+			for (String entry : entries) {
+				jarOs.putNextEntry(new JarEntry(entry));
+				jarOs.closeEntry();
+			}
+		}
+		return bundleId;
+	}
+
+	static InstalledBundle getInstalledBundle(InstalledFeature installedFeature, ID bundleId) {
+		// @formatter:off
+		return installedFeature.getInstalledBundles().stream()
+				.filter(ib -> bundleId.equals(ib.getBundleId()))
+				.findFirst()
+				.orElseThrow();
+		// @formatter:on
+	}
+
+	/*
+	 * Configuration with default values of annotation, except for given overrides
+	 * keyed by method name
+	 */
+	static FeatureRuntimeImpl.Config config(Map<String, Object> overrides) {
+		Map<String, Object> values = new HashMap<>(overrides);
+
+		return (FeatureRuntimeImpl.Config) Proxy.newProxyInstance(FeatureRuntimeImpl.Config.class.getClassLoader(),
+				new Class<?>[] { FeatureRuntimeImpl.Config.class }, (proxy, method, args) -> {
+					if (values.containsKey(method.getName())) {
+						return values.get(method.getName());
+					}
+					if (method.getDefaultValue() != null) {
+						return method.getDefaultValue();
+					}
+					if ("annotationType".equals(method.getName())) {
+						return FeatureRuntimeImpl.Config.class;
+					}
+					return method.invoke(values, args);
+				});
+	}
+
+	/**
+	 * Activator recording threads bundles are started on
+	 */
+	public static class RecordingActivator implements BundleActivator {
+		static final List<Thread> startingThreads = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void start(BundleContext context) {
+			startingThreads.add(Thread.currentThread());
+		}
+
+		@Override
+		public void stop(BundleContext context) {
+			// nothing to do
+		}
+	}
+
+	/**
+	 * Decorator declaring its results cacheable, counting decorations
+	 */
+	static class DeterministicDecorator implements FeatureDecorator, DeterministicDecoration {
+		final AtomicInteger decorations;
+
+		DeterministicDecorator(AtomicInteger decorations) {
+			this.decorations = decorations;
+		}
+
+		@Override
+		public Feature decorate(Feature feature, FeatureDecoratorBuilder decoratedFeatureBuilder,
+				DecoratorBuilderFactory factory) {
+			decorations.incrementAndGet();
+			return decoratedFeatureBuilder.setVariables(Map.of("decorated", Boolean.TRUE)).build();
+		}
+	}
+
+	/**
+	 * Activator blocking until released by test
+	 */
+	public static class BlockingActivator implements BundleActivator {
+		static CountDownLatch release;
+
+		@Override
+		public void start(BundleContext context) throws InterruptedException {
+			release.await(10L, TimeUnit.SECONDS);
+		}
+
+		@Override
+		public void stop(BundleContext context) {
+			// nothing to do
+		}
+	}
+
+	/**
+	 * Repository laid out as 'groupId/artifactId-version.jar', counting artifact
+	 * lookups.
+	 */
+	static class TestArtifactRepository implements FileSystemArtifactRepository {
+		final Path root;
+
+		final Map<ID, AtomicInteger> artifactPathLookups = new ConcurrentHashMap<>();
+
+		final Map<ID, AtomicInteger> artifactLookups = new ConcurrentHashMap<>();
+
+		TestArtifactRepository(Path root) {
+			this.root = root;
+		}
+
+		Path resolve(ID id) {
+			return root.resolve(id.getGroupId()).resolve(id.getArtifactId() + "-" + id.getVersion() + ".jar");
+		}
+
+		int getArtifactPathLookups(ID id) {
+			AtomicInteger lookups = artifactPathLookups.get(id);
+			return (lookups != null) ? lookups.get() : 0;
+		}
+
+		int getArtifactLookups(ID id) {
+			AtomicInteger lookups = artifactLookups.get(id);
+			return (lookups != null) ? lookups.get() : 0;
+		}
+
+		@Override
+		public Path getArtifactPath(ID id) {
+			artifactPathLookups.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+
+			Path artifactPath = resolve(id);
+			return Files.isRegularFile(artifactPath) ? artifactPath : null;
+		}
+
+		@Override
+		public InputStream getArtifact(ID id) {
+			artifactLookups.computeIfAbsent(id, k -> new AtomicInteger()).incrementAndGet();
+
+			Path artifactPath = resolve(id);
+			try {
+				return Files.isRegularFile(artifactPath) ? Files.newInputStream(artifactPath) : null;
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		@Override
+		public Path getArtifactPathIfPresent(ID id) {
+			Path artifactPath = resolve(id);
+			return Files.isRegularFile(artifactPath) ? artifactPath : null;
+		}
+
+		@Override
+		public Path getLocalRepositoryPath() {
+			return root;
+		}
+	}
+
+	/**
+	 * Repository only serving artifact streams, e.g. a remote one
+	 */
+	static class StreamArtifactRepository implements ArtifactRepository {
+		final TestArtifactRepository delegate;
+
+		StreamArtifactRepository(TestArtifactRepository delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public InputStream getArtifact(ID id) {
+			return delegate.getArtifact(id);
+		}
+	}
+}
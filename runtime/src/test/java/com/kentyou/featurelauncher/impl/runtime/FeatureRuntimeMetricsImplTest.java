@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+
+import com.kentyou.featurelauncher.impl.runtime.FeatureRuntimeMetricsImpl.Operation;
+import com.kentyou.featurelauncher.runtime.metrics.FeatureRuntimeMetricsMXBean;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.impl.runtime.FeatureRuntimeMetricsImpl}
+ */
+public class FeatureRuntimeMetricsImplTest {
+	FeatureRuntimeMetricsImpl featureRuntimeMetrics;
+
+	@BeforeEach
+	public void setUp() {
+		featureRuntimeMetrics = new FeatureRuntimeMetricsImpl(() -> Map.of("b", 2, "a", 1), List::of,
+				featureId -> null);
+	}
+
+	@Test
+	public void testOperationLatencyHistograms() {
+		long[] bounds = featureRuntimeMetrics.getLatencyHistogramBoundsMillis();
+		assertEquals(bounds.length + 1, featureRuntimeMetrics.getInstallLatencyHistogram().length);
+
+		featureRuntimeMetrics.recordOperation(Operation.INSTALL, TimeUnit.MILLISECONDS.toNanos(bounds[0]), true);
+		featureRuntimeMetrics.recordOperation(Operation.INSTALL, TimeUnit.MILLISECONDS.toNanos(bounds[0] + 1), true);
+		featureRuntimeMetrics.recordOperation(Operation.INSTALL, TimeUnit.DAYS.toNanos(1), false);
+		featureRuntimeMetrics.recordOperation(Operation.REMOVE, 0L, false);
+
+		long[] installHistogram = featureRuntimeMetrics.getInstallLatencyHistogram();
+		assertEquals(1L, installHistogram[0]);
+		assertEquals(1L, installHistogram[1]);
+		assertEquals(1L, installHistogram[installHistogram.length - 1]);
+
+		assertEquals(3L, featureRuntimeMetrics.getInstallCount());
+		assertEquals(0L, featureRuntimeMetrics.getUpdateCount());
+		assertEquals(1L, featureRuntimeMetrics.getRemoveCount());
+		assertEquals(2L, featureRuntimeMetrics.getFailedOperationCount());
+
+		// returned arrays are copies
+		featureRuntimeMetrics.getLatencyHistogramBoundsMillis()[0] = -1L;
+		assertArrayEquals(bounds, featureRuntimeMetrics.getLatencyHistogramBoundsMillis());
+	}
+
+	@Test
+	public void testArtifactFetchRecordedUntilClosed() throws IOException {
+		InputStream artifactIs = featureRuntimeMetrics.recordArtifactFetch("remote",
+				new ByteArrayInputStream(new byte[10]), System.nanoTime());
+
+		assertEquals(0, artifactIs.read());
+		assertEquals(4, artifactIs.read(new byte[4]));
+		assertEquals(2L, artifactIs.skip(2L));
+		assertEquals(3, artifactIs.read(new byte[8]));
+		assertEquals(-1, artifactIs.read());
+		assertEquals(-1, artifactIs.read(new byte[8]));
+
+		assertEquals(Map.of("remote", 10L), featureRuntimeMetrics.getArtifactFetchBytes());
+
+		artifactIs.close();
+		long fetchTimeMillis = featureRuntimeMetrics.getArtifactFetchTimeMillis().get("remote");
+
+		// closing again is not recorded twice
+		artifactIs.close();
+		assertEquals(fetchTimeMillis, featureRuntimeMetrics.getArtifactFetchTimeMillis().get("remote"));
+	}
+
+	@Test
+	public void testReset() throws IOException {
+		featureRuntimeMetrics.recordOperation(Operation.UPDATE, 0L, false);
+		featureRuntimeMetrics.recordConfigurationApply(TimeUnit.MILLISECONDS.toNanos(3));
+		featureRuntimeMetrics.recordBundleStart(TimeUnit.MILLISECONDS.toNanos(5));
+		featureRuntimeMetrics.recordArtifactFetch("local", new ByteArrayInputStream(new byte[3]), System.nanoTime())
+				.readAllBytes();
+
+		assertEquals(1L, featureRuntimeMetrics.getConfigurationApplyCount());
+		assertEquals(3L, featureRuntimeMetrics.getConfigurationApplyTimeMillis());
+		assertEquals(1L, featureRuntimeMetrics.getBundleStartCount());
+		assertEquals(5L, featureRuntimeMetrics.getBundleStartTimeMillis());
+
+		featureRuntimeMetrics.reset();
+
+		assertEquals(0L, featureRuntimeMetrics.getUpdateCount());
+		assertEquals(0L, featureRuntimeMetrics.getFailedOperationCount());
+		assertEquals(0L, featureRuntimeMetrics.getConfigurationApplyCount());
+		assertEquals(0L, featureRuntimeMetrics.getConfigurationApplyTimeMillis());
+		assertEquals(0L, featureRuntimeMetrics.getBundleStartCount());
+		assertEquals(0L, featureRuntimeMetrics.getBundleStartTimeMillis());
+		assertEquals(Map.of("local", 0L), featureRuntimeMetrics.getArtifactFetchBytes());
+	}
+
+	@Test
+	public void testInternalMapSizesSorted() {
+		assertEquals("{a=1, b=2}", featureRuntimeMetrics.getInternalMapSizes().toString());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testRegisterAndUnregister() throws Exception {
+		BundleContext bundleContext = mock(BundleContext.class);
+		ServiceRegistration<FeatureRuntimeMetricsMXBean> serviceRegistration = mock(ServiceRegistration.class);
+		when(bundleContext.registerService(eq(FeatureRuntimeMetricsMXBean.class), any(FeatureRuntimeMetricsMXBean.class),
+				isNull())).thenReturn(serviceRegistration);
+
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName(FeatureRuntimeMetricsMXBean.OBJECT_NAME);
+
+		featureRuntimeMetrics.register(bundleContext);
+		try {
+			verify(bundleContext).registerService(FeatureRuntimeMetricsMXBean.class, featureRuntimeMetrics, null);
+			assertTrue(mBeanServer.isRegistered(objectName));
+
+			featureRuntimeMetrics.recordBundleStart(0L);
+			FeatureRuntimeMetricsMXBean proxy = JMX.newMXBeanProxy(mBeanServer, objectName,
+					FeatureRuntimeMetricsMXBean.class);
+			assertEquals(1L, proxy.getBundleStartCount());
+			assertEquals(Map.of("a", 1, "b", 2), proxy.getInternalMapSizes());
+
+			// name already taken, only OSGi service is registered
+			FeatureRuntimeMetricsImpl other = new FeatureRuntimeMetricsImpl(Map::of, List::of, featureId -> null);
+			other.register(bundleContext);
+			other.unregister();
+			assertTrue(mBeanServer.isRegistered(objectName));
+		} finally {
+			featureRuntimeMetrics.unregister();
+		}
+
+		verify(serviceRegistration, times(2)).unregister();
+		assertFalse(mBeanServer.isRegistered(objectName));
+
+		// unregistering again is a no-op
+		featureRuntimeMetrics.unregister();
+	}
+}
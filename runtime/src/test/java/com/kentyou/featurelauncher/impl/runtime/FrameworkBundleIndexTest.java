@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import static com.kentyou.featurelauncher.impl.runtime.FrameworkBundleIndex.NO_BUNDLE_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Version;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.impl.runtime.FrameworkBundleIndex}
+ */
+public class FrameworkBundleIndexTest {
+	static final Map.Entry<String, String> BUNDLE_A = Map.entry("com.example.a", "1.0.0");
+
+	BundleContext bundleContext;
+
+	FrameworkBundleIndex frameworkBundleIndex;
+
+	@BeforeEach
+	public void setUp() {
+		bundleContext = mock(BundleContext.class);
+	}
+
+	@Test
+	public void testOpenIndexesPresentBundles() {
+		Bundle systemBundle = mockBundle(0L, "org.apache.felix.framework", "7.0.5");
+		Bundle bundle = mockBundle(1L, "com.example.a", "1.0.0");
+		when(bundleContext.getBundles()).thenReturn(new Bundle[] { systemBundle, bundle });
+
+		frameworkBundleIndex = new FrameworkBundleIndex(bundleContext);
+		frameworkBundleIndex.open();
+
+		verify(bundleContext).addBundleListener(frameworkBundleIndex);
+		assertEquals(1L, frameworkBundleIndex.getBundleId(BUNDLE_A));
+		assertEquals(0L, frameworkBundleIndex.getBundleId(Map.entry("org.apache.felix.framework", "7.0.5")));
+		assertEquals(NO_BUNDLE_ID, frameworkBundleIndex.getBundleId(Map.entry("com.example.a", "2.0.0")));
+
+		frameworkBundleIndex.close();
+
+		verify(bundleContext).removeBundleListener(frameworkBundleIndex);
+		assertEquals(NO_BUNDLE_ID, frameworkBundleIndex.getBundleId(BUNDLE_A));
+	}
+
+	@Test
+	public void testOpenSkipsUninstalledBundles() {
+		Bundle uninstalled = mockBundle(1L, "com.example.a", "1.0.0");
+		when(uninstalled.getState()).thenReturn(Bundle.UNINSTALLED);
+		Bundle uninstalledWhileAdded = mockBundle(2L, "com.example.b", "1.0.0");
+		when(uninstalledWhileAdded.getState()).thenReturn(Bundle.ACTIVE, Bundle.UNINSTALLED);
+		when(bundleContext.getBundles()).thenReturn(new Bundle[] { uninstalled, uninstalledWhileAdded });
+
+		frameworkBundleIndex = new FrameworkBundleIndex(bundleContext);
+		frameworkBundleIndex.open();
+
+		assertEquals(NO_BUNDLE_ID, frameworkBundleIndex.getBundleId(BUNDLE_A));
+		assertEquals(NO_BUNDLE_ID, frameworkBundleIndex.getBundleId(Map.entry("com.example.b", "1.0.0")));
+	}
+
+	@Test
+	public void testInstallAndUninstall() {
+		openEmpty();
+
+		Bundle bundle = mockBundle(5L, "com.example.a", "1.0.0");
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, bundle));
+		assertEquals(5L, frameworkBundleIndex.getBundleId(BUNDLE_A));
+
+		// events other than install, update and uninstall are ignored
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.STARTED, bundle));
+		assertEquals(5L, frameworkBundleIndex.getBundleId(BUNDLE_A));
+
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.UNINSTALLED, bundle));
+		assertEquals(NO_BUNDLE_ID, frameworkBundleIndex.getBundleId(BUNDLE_A));
+	}
+
+	@Test
+	public void testUpdateReindexesBundle() {
+		openEmpty();
+
+		Bundle bundle = mockBundle(5L, "com.example.a", "1.0.0");
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, bundle));
+
+		when(bundle.getVersion()).thenReturn(Version.parseVersion("1.1.0"));
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.UPDATED, bundle));
+
+		assertEquals(NO_BUNDLE_ID, frameworkBundleIndex.getBundleId(BUNDLE_A));
+		assertEquals(5L, frameworkBundleIndex.getBundleId(Map.entry("com.example.a", "1.1.0")));
+	}
+
+	@Test
+	public void testCollidingBundles() {
+		openEmpty();
+
+		Bundle first = mockBundle(7L, "com.example.a", "1.0.0");
+		Bundle second = mockBundle(9L, "com.example.a", "1.0.0");
+
+		// order of events does not matter, first installed bundle is returned
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, second));
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, first));
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, first));
+		assertEquals(7L, frameworkBundleIndex.getBundleId(BUNDLE_A));
+
+		// remaining bundle stays indexed
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.UNINSTALLED, first));
+		assertEquals(9L, frameworkBundleIndex.getBundleId(BUNDLE_A));
+
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.UNINSTALLED, second));
+		assertEquals(NO_BUNDLE_ID, frameworkBundleIndex.getBundleId(BUNDLE_A));
+	}
+
+	@Test
+	public void testBundleWithoutSymbolicNameIgnored() {
+		openEmpty();
+
+		Bundle bundle = mockBundle(3L, null, "0.0.0");
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.INSTALLED, bundle));
+		frameworkBundleIndex.bundleChanged(new BundleEvent(BundleEvent.UNINSTALLED, bundle));
+
+		assertEquals(NO_BUNDLE_ID, frameworkBundleIndex.getBundleId(Map.entry("null", "0.0.0")));
+	}
+
+	private void openEmpty() {
+		when(bundleContext.getBundles()).thenReturn(new Bundle[0]);
+
+		frameworkBundleIndex = new FrameworkBundleIndex(bundleContext);
+		frameworkBundleIndex.open();
+	}
+
+	private static Bundle mockBundle(long bundleId, String bundleSymbolicName, String bundleVersion) {
+		Bundle bundle = mock(Bundle.class);
+		when(bundle.getBundleId()).thenReturn(bundleId);
+		when(bundle.getSymbolicName()).thenReturn(bundleSymbolicName);
+		when(bundle.getVersion()).thenReturn(Version.parseVersion(bundleVersion));
+		return bundle;
+	}
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2024 Kentyou and others.
+ * All rights reserved.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     Kentyou - initial implementation
+ */
+package com.kentyou.featurelauncher.impl.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.service.feature.BuilderFactory;
+import org.osgi.service.feature.Feature;
+import org.osgi.service.feature.FeatureService;
+import org.osgi.service.feature.ID;
+import org.osgi.service.featurelauncher.runtime.InstalledBundle;
+import org.osgi.service.featurelauncher.runtime.InstalledConfiguration;
+import org.osgi.service.featurelauncher.runtime.InstalledFeature;
+
+import com.kentyou.featurelauncher.common.util.impl.ServiceLoaderUtil;
+
+/**
+ * Tests {@link com.kentyou.featurelauncher.impl.runtime.MergeConflictIndex}
+ */
+public class MergeConflictIndexTest {
+	FeatureService featureService;
+
+	MergeConflictIndex mergeConflictIndex;
+
+	@BeforeEach
+	public void setUp() {
+		featureService = ServiceLoaderUtil.loadFeatureService();
+		mergeConflictIndex = new MergeConflictIndex();
+	}
+
+	@Test
+	public void testBundleConflicts() {
+		InstalledFeature first = installedFeature("com.example:feature-1:1.0.0", List.of("com.example:a:1.0.0"),
+				List.of());
+		InstalledFeature second = installedFeature("com.example:feature-2:1.0.0", List.of("com.example:a:1.1.0"),
+				List.of());
+		mergeConflictIndex.add(first);
+		mergeConflictIndex.add(second);
+
+		List<MergeConflictIndex.BundleConflict> conflicts = mergeConflictIndex
+				.getConflictingBundles(id("com.example:a:1.0.0"));
+		assertEquals(1, conflicts.size());
+		assertEquals(second.getFeature().getID(), conflicts.get(0).featureId());
+		assertEquals(id("com.example:a:1.1.0"), conflicts.get(0).definition().getFeatureBundle().getID());
+		assertSame(second.getFeature(), conflicts.get(0).definition().getFeature());
+
+		assertEquals(2, mergeConflictIndex.getConflictingBundles(id("com.example:a:2.0.0")).size());
+		assertTrue(mergeConflictIndex.getConflictingBundles(id("com.example:b:1.0.0")).isEmpty());
+	}
+
+	@Test
+	public void testConfigurationConflicts() {
+		InstalledFeature first = installedFeature("com.example:feature-1:1.0.0", List.of(), List.of("pid.a"));
+		InstalledFeature second = installedFeature("com.example:feature-2:1.0.0", List.of(), List.of("pid.a"));
+		mergeConflictIndex.add(first);
+		mergeConflictIndex.add(second);
+
+		List<MergeConflictIndex.ConfigurationConflict> conflicts = mergeConflictIndex
+				.getConflictingConfigurations("pid.a");
+		assertEquals(2, conflicts.size());
+
+		// in order features were installed
+		assertEquals(first.getFeature().getID(), conflicts.get(0).featureId());
+		assertEquals(second.getFeature().getID(), conflicts.get(1).featureId());
+		assertTrue(mergeConflictIndex.getConflictingConfigurations("pid.b").isEmpty());
+	}
+
+	@Test
+	public void testRemove() {
+		InstalledFeature first = installedFeature("com.example:feature-1:1.0.0", List.of("com.example:a:1.0.0"),
+				List.of("pid.a"));
+		InstalledFeature second = installedFeature("com.example:feature-2:1.0.0",
+				List.of("com.example:a:1.1.0", "com.example:b:1.0.0"), List.of("pid.a", "pid.b"));
+		mergeConflictIndex.add(first);
+		mergeConflictIndex.add(second);
+
+		List<MergeConflictIndex.ConfigurationConflict> conflictsBeforeRemoval = mergeConflictIndex
+				.getConflictingConfigurations("pid.a");
+
+		mergeConflictIndex.remove(second.getFeature().getID());
+
+		assertEquals(1, mergeConflictIndex.getConflictingBundles(id("com.example:a:2.0.0")).size());
+		assertTrue(mergeConflictIndex.getConflictingBundles(id("com.example:b:2.0.0")).isEmpty());
+		assertEquals(1, mergeConflictIndex.getConflictingConfigurations("pid.a").size());
+		assertTrue(mergeConflictIndex.getConflictingConfigurations("pid.b").isEmpty());
+
+		// results returned earlier are not affected
+		assertEquals(2, conflictsBeforeRemoval.size());
+
+		// removing unknown or already removed feature is a no-op
+		mergeConflictIndex.remove(second.getFeature().getID());
+		mergeConflictIndex.remove(id("com.example:feature-3:1.0.0"));
+		assertEquals(1, mergeConflictIndex.getConflictingConfigurations("pid.a").size());
+
+		mergeConflictIndex.remove(first.getFeature().getID());
+		assertTrue(mergeConflictIndex.getConflictingBundles(id("com.example:a:2.0.0")).isEmpty());
+		assertTrue(mergeConflictIndex.getConflictingConfigurations("pid.a").isEmpty());
+	}
+
+	@Test
+	public void testReplace() {
+		InstalledFeature feature = installedFeature("com.example:feature-1:1.0.0", List.of("com.example:a:1.0.0"),
+				List.of("pid.a"));
+		mergeConflictIndex.add(feature);
+
+		InstalledFeature replacement = installedFeature("com.example:feature-1:1.0.0",
+				List.of("com.example:b:1.0.0"), List.of("pid.b"));
+		mergeConflictIndex.remove(feature.getFeature().getID());
+		mergeConflictIndex.add(replacement);
+
+		assertTrue(mergeConflictIndex.getConflictingBundles(id("com.example:a:2.0.0")).isEmpty());
+		assertEquals(1, mergeConflictIndex.getConflictingBundles(id("com.example:b:2.0.0")).size());
+		assertTrue(mergeConflictIndex.getConflictingConfigurations("pid.a").isEmpty());
+		assertEquals(1, mergeConflictIndex.getConflictingConfigurations("pid.b").size());
+	}
+
+	private ID id(String mavenCoordinates) {
+		return featureService.getIDfromMavenCoordinates(mavenCoordinates);
+	}
+
+	private InstalledFeature installedFeature(String featureId, List<String> bundleIds,
+			List<String> configurationPids) {
+		BuilderFactory builderFactory = featureService.getBuilderFactory();
+
+		var featureBuilder = builderFactory.newFeatureBuilder(id(featureId));
+		for (String bundleId : bundleIds) {
+			featureBuilder.addBundles(builderFactory.newBundleBuilder(id(bundleId)).build());
+		}
+		for (String configurationPid : configurationPids) {
+			featureBuilder.addConfigurations(builderFactory.newConfigurationBuilder(configurationPid).build());
+		}
+		Feature feature = featureBuilder.build();
+
+		List<InstalledBundle> installedBundles = bundleIds.stream()
+				.map(bundleId -> (InstalledBundle) new InstalledBundleImpl(id(bundleId), List.of(), null, 1,
+						List.of(feature.getID())))
+				.toList();
+		List<InstalledConfiguration> installedConfigurations = configurationPids.stream()
+				.map(pid -> (InstalledConfiguration) new InstalledConfigurationImpl(pid, Optional.empty(), Map.of(),
+						List.of(feature.getID())))
+				.toList();
+
+		return new InstalledFeatureImpl(feature, feature, false, false, installedBundles, installedConfigurations);
+	}
+}